@@ -0,0 +1,152 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An immutable compressed sparse row (CSR) {@link IntGraph} snapshot of a
+ * {@link Graph} with integer node values. <br>
+ * Node ids follow the order of {@link Graph#getNodes()}. All neighbourhood
+ * queries are plain array lookups and do not allocate.
+ *
+ * @param <D> the type for {@link Edge} data
+ */
+public final class CsrGraph<D> implements IntGraph<D>, Serializable {
+
+	private static final long serialVersionUID = 2613937394826470118L;
+	private static final int ABSENT = -1;
+
+	private final int[] values;
+	private final int[] offsets;
+	private final int[] targets;
+	private final Object[] data;
+
+	// index by value when values are dense, otherwise binary search
+	private final int[] valueIndex;
+	private final int[] sortedValues;
+	private final int[] sortedIndices;
+
+	private CsrGraph(int[] values, int[] offsets, int[] targets, Object[] data) {
+		this.values = values;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.data = data;
+		int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+		for (int value : values) {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+		if (values.length > 0 && min >= 0 && max <= values.length * 2L + 64) {
+			valueIndex = new int[max + 1];
+			Arrays.fill(valueIndex, ABSENT);
+			for (int i = 0; i < values.length; i++)
+				valueIndex[values[i]] = i;
+			sortedValues = null;
+			sortedIndices = null;
+		} else {
+			valueIndex = null;
+			long[] pairs = new long[values.length];
+			for (int i = 0; i < values.length; i++)
+				pairs[i] = ((long) values[i] << 32) | i;
+			Arrays.sort(pairs);
+			sortedValues = new int[values.length];
+			sortedIndices = new int[values.length];
+			for (int i = 0; i < pairs.length; i++) {
+				sortedValues[i] = (int) (pairs[i] >> 32);
+				sortedIndices[i] = (int) pairs[i];
+			}
+		}
+	}
+
+	/**
+	 * Creates a CSR snapshot of the given graph; later modifications to the
+	 * given graph are not reflected
+	 *
+	 * @param graph the graph to copy; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return the snapshot; never null
+	 */
+	public static <D> CsrGraph<D> copyOf(Graph<Integer, D> graph) {
+		Objects.requireNonNull(graph);
+		List<Node<Integer>> nodes = graph.getNodes();
+		int size = nodes.size();
+		int[] values = new int[size];
+		int[] offsets = new int[size + 1];
+		for (int i = 0; i < size; i++) {
+			Node<Integer> node = nodes.get(i);
+			values[i] = node.value();
+			offsets[i + 1] = offsets[i] + graph.getEdgesFrom(node).size();
+		}
+		CsrGraph<D> csr = new CsrGraph<>(values, offsets,
+				new int[offsets[size]], new Object[offsets[size]]);
+		for (int i = 0; i < size; i++) {
+			int at = offsets[i];
+			for (Edge<Integer, D> edge : graph.getEdgesFrom(nodes.get(i))) {
+				int target = csr.index(edge.destination().value());
+				if (target == ABSENT) throw new IllegalArgumentException(
+						"destination of " + edge + " is not in the graph");
+				csr.targets[at] = target;
+				csr.data[at] = edge.data();
+				at++;
+			}
+		}
+		return csr;
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	@Override
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	@Override
+	public int value(int index) {
+		return values[index];
+	}
+
+	@Override
+	public int index(int value) {
+		if (valueIndex != null)
+			return value >= 0 && value < valueIndex.length ? valueIndex[value] : ABSENT;
+		int found = Arrays.binarySearch(sortedValues, value);
+		return found < 0 ? ABSENT : sortedIndices[found];
+	}
+
+	@Override
+	public int degree(int node) {
+		return offsets[node + 1] - offsets[node];
+	}
+
+	@Override
+	public int neighbourAt(int node, int i) {
+		return targets[offsets[node] + i];
+	}
+
+	@Override
+	public D dataAt(int node, int i) {
+		return dataAt(offsets[node] + i);
+	}
+
+	@Override
+	public void forEachNeighbour(int node, IntObjConsumer<? super D> consumer) {
+		for (int i = offsets[node], end = offsets[node + 1]; i < end; i++)
+			consumer.accept(targets[i], dataAt(i));
+	}
+
+	@SuppressWarnings("unchecked")
+	private D dataAt(int entry) {
+		return (D) data[entry];
+	}
+
+	@Override
+	public String toString() {
+		return "CsrGraph{nodes=" + size() + ", edges=" + edgeCount() + '}';
+	}
+
+}
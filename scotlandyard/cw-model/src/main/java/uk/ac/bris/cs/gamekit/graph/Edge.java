@@ -58,7 +58,11 @@ public class Edge<N, D> implements Serializable {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(source, destination, data);
+		// same value as Objects.hash(source, destination, data) without the
+		// varargs array
+		int result = 31 + Objects.hashCode(source);
+		result = 31 * result + Objects.hashCode(destination);
+		return 31 * result + Objects.hashCode(data);
 	}
 
 	@Override
@@ -37,6 +37,22 @@ public interface Graph<V, D> {
 	 */
 	Node<V> getNode(V value);
 
+	/**
+	 * Retrieves the node instance stored in this graph for the given value.
+	 * Use this instead of creating a new {@link Node} for lookups such as
+	 * {@link #getEdgesFrom(Node)}.
+	 *
+	 * @param value the value the node holds
+	 * @return the stored node; never null
+	 * @throws IllegalArgumentException if no node holds the given value
+	 */
+	default Node<V> nodeOf(V value) {
+		Node<V> node = getNode(value);
+		if (node == null)
+			throw new IllegalArgumentException("No node with value " + value + " in the graph");
+		return node;
+	}
+
 	/**
 	 * Checks whether a node with the given value exists
 	 */
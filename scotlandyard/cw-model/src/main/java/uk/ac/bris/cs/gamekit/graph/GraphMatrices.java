@@ -0,0 +1,178 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import uk.ac.bris.cs.gamekit.matrix.ImmutableMatrix;
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.MappedByteMatrix;
+import uk.ac.bris.cs.gamekit.matrix.Matrix;
+import uk.ac.bris.cs.gamekit.matrix.SparseDoubleMatrix;
+
+/**
+ * Tables derived from a {@link IntGraph}, rows and columns of the returned
+ * matrices are node indices, see {@link IntGraph#index(int)}
+ */
+public final class GraphMatrices {
+
+	/**
+	 * Distance value for node pairs that are not connected
+	 */
+	public static final int UNREACHABLE = -1;
+
+	private GraphMatrices() {}
+
+	/**
+	 * Computes the all-pairs hop distance using breadth first search from
+	 * every node
+	 *
+	 * @param graph the graph; not null
+	 * @param usable edges whose data fails this predicate are ignored; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return an immutable matrix of hop counts or {@link #UNREACHABLE}
+	 */
+	public static <D> Matrix<Integer> hopDistances(IntGraph<D> graph,
+			Predicate<? super D> usable) {
+		return new ImmutableMatrix<>(hopDistanceTable(graph, usable).asMatrix());
+	}
+
+	/**
+	 * Primitive form of {@link #hopDistances(IntGraph, Predicate)}
+	 *
+	 * @param graph the graph; not null
+	 * @param usable edges whose data fails this predicate are ignored; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return a new matrix of hop counts or {@link #UNREACHABLE}
+	 */
+	public static <D> IntSquareMatrix hopDistanceTable(IntGraph<D> graph,
+			Predicate<? super D> usable) {
+		Objects.requireNonNull(graph);
+		Objects.requireNonNull(usable);
+		int size = graph.size();
+		if (size == 0) throw new IllegalArgumentException("Graph is empty");
+		IntSquareMatrix matrix = new IntSquareMatrix(size);
+		int[] distance = new int[size];
+		int[] queue = new int[size];
+		for (int source = 0; source < size; source++) {
+			bfs(graph, usable, source, distance, queue);
+			matrix.setRow(source, distance, 0);
+		}
+		return matrix;
+	}
+
+	/**
+	 * Writes all-pairs hop distances into an off-heap matrix, one row per
+	 * breadth first search so only two rows' worth of scratch space is held on
+	 * heap. Unreachable pairs are written as {@link #UNREACHABLE}.
+	 *
+	 * @param graph the graph; not null
+	 * @param usable edges whose data fails this predicate are ignored; not null
+	 * @param target a writable {@code size * size} matrix; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @throws IllegalArgumentException if a distance does not fit in a byte
+	 */
+	public static <D> void writeHopDistances(IntGraph<D> graph, Predicate<? super D> usable,
+			MappedByteMatrix target) {
+		Objects.requireNonNull(graph);
+		Objects.requireNonNull(usable);
+		int size = graph.size();
+		if (target.rows() != size || target.columns() != size)
+			throw new IllegalArgumentException("target is " + target.rows() + "x"
+					+ target.columns() + " but the graph has " + size + " nodes");
+		int[] distance = new int[size];
+		int[] queue = new int[size];
+		byte[] row = new byte[size];
+		for (int source = 0; source < size; source++) {
+			bfs(graph, usable, source, distance, queue);
+			for (int node = 0; node < size; node++) {
+				if (distance[node] > Byte.MAX_VALUE) throw new IllegalArgumentException(
+						"Distance " + distance[node] + " does not fit in a byte");
+				row[node] = (byte) distance[node];
+			}
+			target.setRow(source, row, 0);
+		}
+	}
+
+	/**
+	 * Builds the adjacency matrix, a cell is 1 if the column node is reachable
+	 * from the row node with one usable edge and 0 otherwise
+	 *
+	 * @param graph the graph; not null
+	 * @param usable edges whose data fails this predicate are ignored; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return the sparse adjacency matrix
+	 */
+	public static <D> SparseDoubleMatrix adjacency(IntGraph<D> graph,
+			Predicate<? super D> usable) {
+		return neighbourMatrix(graph, usable, false);
+	}
+
+	/**
+	 * Builds the transition matrix of a random walk that picks one of the
+	 * distinct usable neighbours of a node uniformly. Rows of nodes without
+	 * usable edges are empty, so probability on such nodes is lost when a
+	 * vector is multiplied by the matrix.
+	 *
+	 * @param graph the graph; not null
+	 * @param usable edges whose data fails this predicate are ignored; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return the sparse transition matrix
+	 */
+	public static <D> SparseDoubleMatrix transitions(IntGraph<D> graph,
+			Predicate<? super D> usable) {
+		return neighbourMatrix(graph, usable, true);
+	}
+
+	private static <D> SparseDoubleMatrix neighbourMatrix(IntGraph<D> graph,
+			Predicate<? super D> usable, boolean normalise) {
+		Objects.requireNonNull(graph);
+		Objects.requireNonNull(usable);
+		int size = graph.size();
+		if (size == 0) throw new IllegalArgumentException("Graph is empty");
+		SparseDoubleMatrix.Builder builder = new SparseDoubleMatrix.Builder(size, size);
+		int[] mark = new int[size];
+		int[] neighbours = new int[size];
+		Arrays.fill(mark, -1);
+		for (int node = 0; node < size; node++) {
+			int count = 0;
+			for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+				int neighbour = graph.neighbourAt(node, i);
+				if (mark[neighbour] == node || !usable.test(graph.dataAt(node, i))) continue;
+				mark[neighbour] = node;
+				neighbours[count++] = neighbour;
+			}
+			double weight = normalise ? 1.0 / count : 1;
+			for (int i = 0; i < count; i++)
+				builder.add(node, neighbours[i], weight);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Single source breadth first search
+	 *
+	 * @param distance filled with hop counts or {@link #UNREACHABLE}, must have
+	 *        length of at least {@code graph.size()}
+	 * @param queue scratch space of at least {@code graph.size()}
+	 */
+	static <D> void bfs(IntGraph<D> graph, Predicate<? super D> usable, int source,
+			int[] distance, int[] queue) {
+		Arrays.fill(distance, 0, graph.size(), UNREACHABLE);
+		int head = 0, tail = 0;
+		distance[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int node = queue[head++];
+			int next = distance[node] + 1;
+			for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+				int neighbour = graph.neighbourAt(node, i);
+				if (distance[neighbour] != UNREACHABLE || !usable.test(graph.dataAt(node, i)))
+					continue;
+				distance[neighbour] = next;
+				queue[tail++] = neighbour;
+			}
+		}
+	}
+
+}
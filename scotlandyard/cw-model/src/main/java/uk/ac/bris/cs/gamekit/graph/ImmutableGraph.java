@@ -24,6 +24,10 @@ public final class ImmutableGraph<V, D> extends AbstractGraph<V, D>
 		this.graph = Objects.requireNonNull(graph);
 	}
 
+	Graph<V, D> delegate() {
+		return graph;
+	}
+
 	@Override
 	public void addNode(Node<V> node) {
 		throw new UnsupportedOperationException(
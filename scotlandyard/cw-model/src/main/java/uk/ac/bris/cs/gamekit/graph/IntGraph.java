@@ -0,0 +1,71 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+/**
+ * A read only graph interface with primitive {@code int} node ids, the
+ * primitive counterpart of {@link Graph} for hot loops that should not box.
+ * <br>
+ * Node ids are dense indices in {@code [0, size())}, every node also carries
+ * an integer value which corresponds to {@link Node#value()} of a
+ * {@code Graph<Integer, D>}. See {@link IntGraphs} for adapters between the
+ * two.
+ *
+ * @param <D> the type for {@link Edge} data
+ */
+public interface IntGraph<D> {
+
+	/**
+	 * @return number of nodes in this graph
+	 */
+	int size();
+
+	/**
+	 * @return number of (directed) adjacency entries, i.e. the sum of all
+	 *         {@link #degree(int)}
+	 */
+	int edgeCount();
+
+	/**
+	 * @param node the node id
+	 * @return the value of the node
+	 */
+	int value(int node);
+
+	/**
+	 * @param value the node value
+	 * @return the id of the node with the given value or -1 if absent
+	 */
+	int index(int value);
+
+	/**
+	 * @param node the node id
+	 * @return number of edges going out of the node
+	 */
+	int degree(int node);
+
+	/**
+	 * @param node the node id
+	 * @param i the edge ordinal in {@code [0, degree(node))}
+	 * @return the id of the neighbour at the other end of the edge
+	 */
+	int neighbourAt(int node, int i);
+
+	/**
+	 * @param node the node id
+	 * @param i the edge ordinal in {@code [0, degree(node))}
+	 * @return the data of the edge
+	 */
+	D dataAt(int node, int i);
+
+	/**
+	 * Iterates over all edges going out of the given node in edge ordinal
+	 * order
+	 *
+	 * @param node the node id
+	 * @param consumer receives the neighbour id and the edge data; not null
+	 */
+	default void forEachNeighbour(int node, IntObjConsumer<? super D> consumer) {
+		for (int i = 0, degree = degree(node); i < degree; i++)
+			consumer.accept(neighbourAt(node, i), dataAt(node, i));
+	}
+
+}
@@ -0,0 +1,152 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Adapters between {@link Graph} and {@link IntGraph}
+ */
+public final class IntGraphs {
+
+	private IntGraphs() {}
+
+	/**
+	 * Creates a primitive snapshot of the given graph; later modifications to
+	 * the given graph are not reflected
+	 *
+	 * @param graph the graph; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return the snapshot; never null
+	 */
+	public static <D> IntGraph<D> copyOf(Graph<Integer, D> graph) {
+		return CsrGraph.copyOf(graph);
+	}
+
+	/**
+	 * Creates a read only {@link Graph} view of the given primitive graph.
+	 * Nodes of the view are created once, edges are created on demand.
+	 *
+	 * @param graph the graph; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return the view; never null
+	 */
+	public static <D> Graph<Integer, D> asGraph(IntGraph<D> graph) {
+		return new GraphView<>(Objects.requireNonNull(graph));
+	}
+
+	private static final class GraphView<D> extends AbstractGraph<Integer, D> {
+
+		private final IntGraph<D> graph;
+		private final List<Node<Integer>> nodes;
+
+		GraphView(IntGraph<D> graph) {
+			this.graph = graph;
+			List<Node<Integer>> created = new ArrayList<>(graph.size());
+			for (int i = 0; i < graph.size(); i++)
+				created.add(new Node<>(graph.value(i)));
+			this.nodes = Collections.unmodifiableList(created);
+		}
+
+		@Override
+		public void addNode(Node<Integer> node) {
+			throw new UnsupportedOperationException("Adding node is not supported in an IntGraph view");
+		}
+
+		@Override
+		public void addEdge(Edge<Integer, D> edge) {
+			throw new UnsupportedOperationException("Adding edge is not supported in an IntGraph view");
+		}
+
+		@Override
+		public Node<Integer> getNode(Integer value) {
+			int index = value == null ? -1 : graph.index(value);
+			return index < 0 ? null : nodes.get(index);
+		}
+
+		@Override
+		public boolean containsNode(Integer value) {
+			return value != null && graph.index(value) >= 0;
+		}
+
+		@Override
+		public List<Node<Integer>> getNodes() {
+			return nodes;
+		}
+
+		@Override
+		public Collection<Edge<Integer, D>> getEdges() {
+			// prefix sums of degrees so edges can be addressed by position
+			int[] offsets = new int[graph.size() + 1];
+			for (int i = 0; i < graph.size(); i++)
+				offsets[i + 1] = offsets[i] + graph.degree(i);
+			return new AbstractList<Edge<Integer, D>>() {
+				@Override
+				public Edge<Integer, D> get(int index) {
+					if (index < 0 || index >= size())
+						throw new IndexOutOfBoundsException("index " + index);
+					int low = 0, high = offsets.length - 2;
+					while (low < high) {
+						int mid = (low + high + 1) >>> 1;
+						if (offsets[mid] <= index) low = mid;
+						else high = mid - 1;
+					}
+					return edge(low, index - offsets[low]);
+				}
+
+				@Override
+				public int size() {
+					return offsets[offsets.length - 1];
+				}
+			};
+		}
+
+		@Override
+		public Collection<Edge<Integer, D>> getEdgesFrom(Node<Integer> source) {
+			int index = graph.index(source.value());
+			if (index < 0) return Collections.emptyList();
+			return new AbstractList<Edge<Integer, D>>() {
+				@Override
+				public Edge<Integer, D> get(int i) {
+					if (i < 0 || i >= size()) throw new IndexOutOfBoundsException("index " + i);
+					return edge(index, i);
+				}
+
+				@Override
+				public int size() {
+					return graph.degree(index);
+				}
+			};
+		}
+
+		@Override
+		public Collection<Edge<Integer, D>> getEdgesTo(Node<Integer> destination) {
+			// same contract as UndirectedGraph
+			return getEdgesFrom(destination);
+		}
+
+		private Edge<Integer, D> edge(int node, int i) {
+			return new Edge<>(nodes.get(node), nodes.get(graph.neighbourAt(node, i)),
+					graph.dataAt(node, i));
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return graph.size() == 0;
+		}
+
+		@Override
+		public int size() {
+			return graph.size();
+		}
+
+		@Override
+		public String toString() {
+			return "IntGraphView{" + graph + '}';
+		}
+	}
+
+}
@@ -0,0 +1,20 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+/**
+ * Represents an operation that accepts a primitive {@code int} and an object,
+ * the primitive specialisation of {@link java.util.function.BiConsumer}
+ *
+ * @param <T> the type of the object argument
+ */
+@FunctionalInterface
+public interface IntObjConsumer<T> {
+
+	/**
+	 * Performs this operation on the given arguments
+	 *
+	 * @param value the int argument
+	 * @param t the object argument
+	 */
+	void accept(int value, T t);
+
+}
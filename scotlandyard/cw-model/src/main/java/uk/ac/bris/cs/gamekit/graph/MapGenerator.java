@@ -0,0 +1,357 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * A seeded generator for large synthetic maps. <br>
+ * Nodes are laid out on a square grid in row-major order and valued
+ * {@code 1..n}. The generated map consists of:
+ * <ul>
+ * <li>a connected base mesh between grid neighbours (e.g. taxi)</li>
+ * <li>any number of overlays connecting hub nodes that are roughly
+ * {@code stride} cells apart (e.g. bus and underground)</li>
+ * <li>optional sparse long range links between random nodes (e.g. ferry)</li>
+ * </ul>
+ * Mesh edges only ever connect horizontally, vertically or across one
+ * diagonal of a cell so the base layer is planar. The same builder
+ * configuration and seed always produce the same map.
+ *
+ * <pre>
+ * GeneratedMap&lt;Transport&gt; map = new MapGenerator.Builder&lt;&gt;(Transport.TAXI)
+ * 		.nodes(100_000).seed(42)
+ * 		.overlay(Transport.BUS, 4, 0.8)
+ * 		.overlay(Transport.UNDERGROUND, 12, 0.7)
+ * 		.longRange(Transport.FERRY, 0.0005)
+ * 		.build().generate();
+ * </pre>
+ *
+ * @param <D> the type for {@link Edge} data
+ */
+public final class MapGenerator<D> {
+
+	private final int nodes;
+	private final long seed;
+	private final D mesh;
+	private final double meshDensity;
+	private final double diagonalDensity;
+	private final List<Overlay<D>> overlays;
+	private final D longRange;
+	private final double longRangePerNode;
+
+	private MapGenerator(Builder<D> builder) {
+		this.nodes = builder.nodes;
+		this.seed = builder.seed;
+		this.mesh = builder.mesh;
+		this.meshDensity = builder.meshDensity;
+		this.diagonalDensity = builder.diagonalDensity;
+		this.overlays = new ArrayList<>(builder.overlays);
+		this.longRange = builder.longRange;
+		this.longRangePerNode = builder.longRangePerNode;
+	}
+
+	/**
+	 * Generates the map
+	 *
+	 * @return the generated map; never null
+	 */
+	public GeneratedMap<D> generate() {
+		SplittableRandom random = new SplittableRandom(seed);
+		int width = (int) Math.ceil(Math.sqrt(nodes));
+		int height = (nodes + width - 1) / width;
+		GeneratedMap<D> map = new GeneratedMap<>(nodes, nodes * 3);
+
+		// base mesh, every row is a path and the first column links the rows
+		// so the mesh is always connected
+		byte meshLayer = map.layer(mesh);
+		for (int i = 0; i < nodes; i++) {
+			int x = i % width;
+			boolean hasRight = x + 1 < width && i + 1 < nodes;
+			boolean hasDown = i + width < nodes;
+			if (hasRight) map.add(i, i + 1, meshLayer);
+			if (hasDown && (x == 0 || random.nextDouble() < meshDensity))
+				map.add(i, i + width, meshLayer);
+			if (hasRight && hasDown && i + width + 1 < nodes
+					&& random.nextDouble() < diagonalDensity) {
+				if (random.nextBoolean()) map.add(i, i + width + 1, meshLayer);
+				else map.add(i + 1, i + width, meshLayer);
+			}
+		}
+
+		for (Overlay<D> overlay : overlays) {
+			byte layer = map.layer(overlay.data);
+			int stride = overlay.stride;
+			int columns = (width + stride - 1) / stride;
+			int rows = (height + stride - 1) / stride;
+			// one jittered hub per stride*stride cell
+			int[] hubs = new int[columns * rows];
+			for (int cy = 0; cy < rows; cy++) {
+				for (int cx = 0; cx < columns; cx++) {
+					int jitter = Math.max(1, stride / 2);
+					int x = Math.min(width - 1, cx * stride + random.nextInt(jitter));
+					int y = Math.min(height - 1, cy * stride + random.nextInt(jitter));
+					int hub = y * width + x;
+					hubs[cy * columns + cx] = hub < nodes ? hub : -1;
+				}
+			}
+			for (int cy = 0; cy < rows; cy++) {
+				for (int cx = 0; cx < columns; cx++) {
+					int hub = hubs[cy * columns + cx];
+					if (hub < 0) continue;
+					if (cx + 1 < columns) link(map, random, overlay, layer, hub,
+							hubs[cy * columns + cx + 1]);
+					if (cy + 1 < rows) link(map, random, overlay, layer, hub,
+							hubs[(cy + 1) * columns + cx]);
+				}
+			}
+		}
+
+		if (longRange != null && nodes > 1) {
+			byte layer = map.layer(longRange);
+			long links = Math.round(nodes * longRangePerNode);
+			for (long i = 0; i < links; i++) {
+				int source = random.nextInt(nodes);
+				int destination = random.nextInt(nodes - 1);
+				if (destination >= source) destination++;
+				map.add(source, destination, layer);
+			}
+		}
+		return map;
+	}
+
+	private static <D> void link(GeneratedMap<D> map, SplittableRandom random,
+			Overlay<D> overlay, byte layer, int from, int to) {
+		if (to >= 0 && random.nextDouble() < overlay.density) map.add(from, to, layer);
+	}
+
+	private static final class Overlay<D> {
+		final D data;
+		final int stride;
+		final double density;
+
+		Overlay(D data, int stride, double density) {
+			this.data = data;
+			this.stride = stride;
+			this.density = density;
+		}
+	}
+
+	/**
+	 * Builder for {@link MapGenerator}
+	 *
+	 * @param <D> the type for {@link Edge} data
+	 */
+	public static final class Builder<D> {
+
+		private final D mesh;
+		private int nodes = 1000;
+		private long seed;
+		private double meshDensity = 0.75;
+		private double diagonalDensity = 0.1;
+		private final List<Overlay<D>> overlays = new ArrayList<>();
+		private D longRange;
+		private double longRangePerNode;
+
+		/**
+		 * @param mesh the data of base mesh edges; not null
+		 */
+		public Builder(D mesh) {
+			this.mesh = Objects.requireNonNull(mesh);
+		}
+
+		/**
+		 * @param nodes number of nodes, must be &gt; 1; defaults to 1000
+		 * @return this builder
+		 */
+		public Builder<D> nodes(int nodes) {
+			if (nodes < 2) throw new IllegalArgumentException("nodes < 2");
+			this.nodes = nodes;
+			return this;
+		}
+
+		/**
+		 * @param seed the random seed; defaults to 0
+		 * @return this builder
+		 */
+		public Builder<D> seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * @param vertical probability of a vertical mesh edge in {@code [0, 1]};
+		 *        defaults to 0.75
+		 * @param diagonal probability of a diagonal mesh edge in {@code [0, 1]};
+		 *        defaults to 0.1
+		 * @return this builder
+		 */
+		public Builder<D> meshDensity(double vertical, double diagonal) {
+			this.meshDensity = checkProbability(vertical);
+			this.diagonalDensity = checkProbability(diagonal);
+			return this;
+		}
+
+		/**
+		 * Adds an overlay layer
+		 *
+		 * @param data the data of edges in this layer; not null
+		 * @param stride grid distance between hubs, must be &gt; 1
+		 * @param density probability of linking two neighbouring hubs in
+		 *        {@code [0, 1]}
+		 * @return this builder
+		 */
+		public Builder<D> overlay(D data, int stride, double density) {
+			Objects.requireNonNull(data);
+			if (stride < 2) throw new IllegalArgumentException("stride < 2");
+			overlays.add(new Overlay<>(data, stride, checkProbability(density)));
+			return this;
+		}
+
+		/**
+		 * Adds random long range links
+		 *
+		 * @param data the data of the links; not null
+		 * @param perNode number of links per node, e.g. 0.001 for one link per
+		 *        thousand nodes
+		 * @return this builder
+		 */
+		public Builder<D> longRange(D data, double perNode) {
+			if (perNode < 0) throw new IllegalArgumentException("perNode < 0");
+			this.longRange = Objects.requireNonNull(data);
+			this.longRangePerNode = perNode;
+			return this;
+		}
+
+		public MapGenerator<D> build() {
+			return new MapGenerator<>(this);
+		}
+
+		private static double checkProbability(double p) {
+			if (!(p >= 0 && p <= 1))
+				throw new IllegalArgumentException("Probability must be in [0, 1], got " + p);
+			return p;
+		}
+	}
+
+	/**
+	 * A map produced by {@link MapGenerator}, edges are stored once per
+	 * connection in primitive arrays so maps with millions of edges can be
+	 * inspected or written out without building a {@link Graph}
+	 *
+	 * @param <D> the type for {@link Edge} data
+	 */
+	public static final class GeneratedMap<D> {
+
+		private final int nodes;
+		private final List<D> layers = new ArrayList<>();
+		private int[] sources;
+		private int[] destinations;
+		private byte[] data;
+		private int edges;
+
+		GeneratedMap(int nodes, int capacity) {
+			this.nodes = nodes;
+			this.sources = new int[capacity];
+			this.destinations = new int[capacity];
+			this.data = new byte[capacity];
+		}
+
+		byte layer(D value) {
+			int index = layers.indexOf(value);
+			if (index >= 0) return (byte) index;
+			if (layers.size() == Byte.MAX_VALUE)
+				throw new IllegalStateException("Too many distinct edge data values");
+			layers.add(value);
+			return (byte) (layers.size() - 1);
+		}
+
+		void add(int source, int destination, byte layer) {
+			if (edges == sources.length) {
+				int capacity = Math.max(16, edges + (edges >> 1));
+				sources = Arrays.copyOf(sources, capacity);
+				destinations = Arrays.copyOf(destinations, capacity);
+				data = Arrays.copyOf(data, capacity);
+			}
+			sources[edges] = source + 1;
+			destinations[edges] = destination + 1;
+			data[edges] = layer;
+			edges++;
+		}
+
+		/**
+		 * @return number of nodes, node values are {@code 1..nodeCount()}
+		 */
+		public int nodeCount() {
+			return nodes;
+		}
+
+		/**
+		 * @return number of undirected connections
+		 */
+		public int edgeCount() {
+			return edges;
+		}
+
+		/**
+		 * @param edge the edge ordinal in {@code [0, edgeCount())}
+		 * @return the source node value
+		 */
+		public int source(int edge) {
+			checkEdge(edge);
+			return sources[edge];
+		}
+
+		/**
+		 * @param edge the edge ordinal in {@code [0, edgeCount())}
+		 * @return the destination node value
+		 */
+		public int destination(int edge) {
+			checkEdge(edge);
+			return destinations[edge];
+		}
+
+		/**
+		 * @param edge the edge ordinal in {@code [0, edgeCount())}
+		 * @return the edge data
+		 */
+		public D data(int edge) {
+			checkEdge(edge);
+			return layers.get(data[edge]);
+		}
+
+		/**
+		 * Builds a compact {@link UndirectedGraph} containing this map, see
+		 * {@link UndirectedGraph#compact()}
+		 *
+		 * @return a new graph; never null
+		 */
+		public UndirectedGraph<Integer, D> toGraph() {
+			UndirectedGraph<Integer, D> graph = UndirectedGraph.compact();
+			List<Node<Integer>> created = new ArrayList<>(nodes);
+			for (int i = 1; i <= nodes; i++) {
+				Node<Integer> node = new Node<>(i);
+				graph.addNode(node);
+				created.add(node);
+			}
+			for (int i = 0; i < edges; i++) {
+				graph.addEdge(new Edge<>(created.get(sources[i] - 1),
+						created.get(destinations[i] - 1), layers.get(data[i])));
+			}
+			return graph;
+		}
+
+		private void checkEdge(int edge) {
+			if (edge < 0 || edge >= edges)
+				throw new IndexOutOfBoundsException("edge " + edge + " not in [0, " + edges + ")");
+		}
+
+		@Override
+		public String toString() {
+			return "GeneratedMap{nodes=" + nodes + ", edges=" + edges + ", layers=" + layers + '}';
+		}
+	}
+
+}
@@ -12,9 +12,12 @@ public final class Node<V> implements Serializable{
 
 	private static final long serialVersionUID = 6923768108710951907L;
 	private final V value;
+	// same value as Objects.hash(value)
+	private final int hash;
 
 	public Node(V value) {
 		this.value = Objects.requireNonNull(value);
+		this.hash = 31 + value.hashCode();
 	}
 
 	/**
@@ -29,12 +32,12 @@ public final class Node<V> implements Serializable{
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		Node<?> node = (Node<?>) o;
-		return Objects.equals(value, node.value);
+		return hash == node.hash && value.equals(node.value);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(value);
+		return hash;
 	}
 
 	@Override
@@ -0,0 +1,425 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * A precomputed two level distance index for large undirected maps. <br>
+ * The graph is partitioned into regions around hub nodes, preferring nodes
+ * with many distinct edge data values (transport hubs) and then high degree.
+ * Hubs are chosen so that no two hubs are closer than {@code spacing} hops
+ * and every node is closer than {@code spacing} hops to its hub. The index
+ * stores, for every node, its region and hop distance to the region hub, the
+ * exact hop distance between the hubs of every two regions joined by an edge
+ * (the region overlay) and the distance from a few landmark hubs to every
+ * hub. <br>
+ * Queries are a handful of array reads and return a lower and upper bound of
+ * the exact hop distance. The upper bound is the length of an actual path.
+ * Within a region or between neighbouring regions the two bounds differ by at
+ * most {@code 4 * radius()}; further apart they come from the landmarks and
+ * have no such guarantee. <br>
+ * Memory is two ints per node, two ints per pair of neighbouring regions and
+ * one int per region and landmark, so it grows with the region boundaries
+ * rather than the square of the region count. The overlay is built in
+ * parallel. Edges are followed in their stored direction so the graph is
+ * expected to store both directions of every connection, as
+ * {@link UndirectedGraph} does.
+ */
+public final class RegionIndex {
+
+	private static final int LANDMARKS = 8;
+
+	private final int[] region;
+	private final int[] hubDistance;
+	private final int[] hubs;
+	private final int radius;
+	// neighbouring regions of each region, sorted, and the distances between
+	// the hubs, in compressed sparse row form
+	private final int[] overlayOffsets;
+	private final int[] overlayRegions;
+	private final int[] overlayDistances;
+	// connected component of each region
+	private final int[] component;
+	// landmarkDistances[landmark * regionCount() + region]
+	private final int landmarks;
+	private final int[] landmarkDistances;
+
+	private RegionIndex(int[] region, int[] hubDistance, int[] hubs, int radius,
+			int[] overlayOffsets, int[] overlayRegions, int[] overlayDistances,
+			int[] component, int landmarks, int[] landmarkDistances) {
+		this.region = region;
+		this.hubDistance = hubDistance;
+		this.hubs = hubs;
+		this.radius = radius;
+		this.overlayOffsets = overlayOffsets;
+		this.overlayRegions = overlayRegions;
+		this.overlayDistances = overlayDistances;
+		this.component = component;
+		this.landmarks = landmarks;
+		this.landmarkDistances = landmarkDistances;
+	}
+
+	/**
+	 * Builds the index
+	 *
+	 * @param graph the graph; not null and not empty
+	 * @param usable edges whose data fails this predicate are ignored, may be
+	 *        called from multiple threads; not null
+	 * @param spacing minimum hop distance between hubs, must be &gt; 0; larger
+	 *        values mean fewer regions, less memory and looser bounds, 1
+	 *        makes every node a hub and every answer between neighbours exact
+	 * @param <D> the type for {@link Edge} data
+	 * @return the index; never null
+	 */
+	public static <D> RegionIndex build(IntGraph<D> graph, Predicate<? super D> usable,
+			int spacing) {
+		Objects.requireNonNull(graph);
+		Objects.requireNonNull(usable);
+		if (spacing < 1) throw new IllegalArgumentException("spacing < 1");
+		int size = graph.size();
+		if (size == 0) throw new IllegalArgumentException("Graph is empty");
+
+		int[] hubs = chooseHubs(graph, usable, spacing);
+		int count = hubs.length;
+
+		// multi source search assigns every node to its nearest hub
+		int[] region = new int[size];
+		int[] hubDistance = new int[size];
+		int[] queue = new int[size];
+		Arrays.fill(hubDistance, GraphMatrices.UNREACHABLE);
+		int head = 0, tail = 0;
+		for (int i = 0; i < count; i++) {
+			region[hubs[i]] = i;
+			hubDistance[hubs[i]] = 0;
+			queue[tail++] = hubs[i];
+		}
+		int radius = 0;
+		while (head < tail) {
+			int node = queue[head++];
+			radius = hubDistance[node];
+			for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+				int next = graph.neighbourAt(node, i);
+				if (hubDistance[next] != GraphMatrices.UNREACHABLE
+						|| !usable.test(graph.dataAt(node, i))) continue;
+				hubDistance[next] = hubDistance[node] + 1;
+				region[next] = region[node];
+				queue[tail++] = next;
+			}
+		}
+
+		// every usable edge between two regions makes them neighbours
+		long[] pairs = new long[16];
+		int pairCount = 0;
+		for (int node = 0; node < size; node++) {
+			for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+				int next = graph.neighbourAt(node, i);
+				if (region[next] == region[node] || !usable.test(graph.dataAt(node, i)))
+					continue;
+				if (pairCount == pairs.length) pairs = Arrays.copyOf(pairs, pairCount * 2);
+				pairs[pairCount++] = ((long) region[node] << 32) | region[next];
+			}
+		}
+		Arrays.sort(pairs, 0, pairCount);
+		int[] overlayOffsets = new int[count + 1];
+		int[] targets = new int[pairCount];
+		int unique = 0;
+		for (int i = 0; i < pairCount; i++) {
+			if (i > 0 && pairs[i] == pairs[i - 1]) continue;
+			overlayOffsets[(int) (pairs[i] >>> 32) + 1]++;
+			targets[unique++] = (int) pairs[i];
+		}
+		for (int i = 0; i < count; i++)
+			overlayOffsets[i + 1] += overlayOffsets[i];
+		int[] overlayRegions = Arrays.copyOf(targets, unique);
+
+		// neighbouring hubs are at most 2 * radius + 1 apart, so one short
+		// search per hub fills its overlay row
+		int[] overlayDistances = new int[unique];
+		int limit = 2 * radius + 1;
+		ThreadLocal<int[][]> scratch = ThreadLocal.withInitial(() -> {
+			int[] distance = new int[size];
+			Arrays.fill(distance, GraphMatrices.UNREACHABLE);
+			return new int[][] { distance, new int[size] };
+		});
+		IntStream.range(0, count).parallel().forEach(i -> {
+			int[][] arrays = scratch.get();
+			int visited = limitedBfs(graph, usable, hubs[i], limit, arrays[0], arrays[1]);
+			for (int j = overlayOffsets[i]; j < overlayOffsets[i + 1]; j++)
+				overlayDistances[j] = arrays[0][hubs[overlayRegions[j]]];
+			for (int j = 0; j < visited; j++)
+				arrays[0][arrays[1][j]] = GraphMatrices.UNREACHABLE;
+		});
+
+		int[] component = components(count, overlayOffsets, overlayRegions);
+		int[] landmarkDistances = landmarks(graph, usable, hubs, component);
+		return new RegionIndex(region, hubDistance, hubs, radius, overlayOffsets,
+				overlayRegions, overlayDistances, component, landmarkDistances.length / count,
+				landmarkDistances);
+	}
+
+	// breadth first search up to the limit, distance must be all unreachable
+	// and is left for the caller to reset; returns the number of nodes queued
+	private static <D> int limitedBfs(IntGraph<D> graph, Predicate<? super D> usable,
+			int source, int limit, int[] distance, int[] queue) {
+		int head = 0, tail = 0;
+		distance[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int node = queue[head++];
+			int next = distance[node] + 1;
+			if (next > limit) continue;
+			for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+				int neighbour = graph.neighbourAt(node, i);
+				if (distance[neighbour] != GraphMatrices.UNREACHABLE
+						|| !usable.test(graph.dataAt(node, i))) continue;
+				distance[neighbour] = next;
+				queue[tail++] = neighbour;
+			}
+		}
+		return tail;
+	}
+
+	// labels the regions connected through the overlay
+	private static int[] components(int count, int[] offsets, int[] neighbours) {
+		int[] component = new int[count];
+		Arrays.fill(component, -1);
+		int[] queue = new int[count];
+		for (int start = 0, label = 0; start < count; start++) {
+			if (component[start] != -1) continue;
+			int head = 0, tail = 0;
+			component[start] = label;
+			queue[tail++] = start;
+			while (head < tail) {
+				int current = queue[head++];
+				for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+					if (component[neighbours[i]] != -1) continue;
+					component[neighbours[i]] = label;
+					queue[tail++] = neighbours[i];
+				}
+			}
+			label++;
+		}
+		return component;
+	}
+
+	// hub distances from the first hub of every component with more than one
+	// region, then from the hubs furthest from the landmarks so far
+	private static <D> int[] landmarks(IntGraph<D> graph, Predicate<? super D> usable,
+			int[] hubs, int[] component) {
+		int count = hubs.length, size = graph.size();
+		int[] chosen = new int[count];
+		int chosenCount = 0;
+		int[] regions = new int[count];
+		for (int c : component)
+			regions[c]++;
+		boolean[] seen = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			if (regions[component[i]] < 2 || seen[component[i]]) continue;
+			seen[component[i]] = true;
+			chosen[chosenCount++] = i;
+		}
+		int[] distances = new int[Math.max(chosenCount, Math.min(LANDMARKS, count)) * count];
+		int[] nearest = new int[count];
+		Arrays.fill(nearest, Integer.MAX_VALUE);
+		int[] distance = new int[size], queue = new int[size];
+		for (int l = 0; l < distances.length / count; l++) {
+			if (l == chosenCount) {
+				// furthest reachable hub from every landmark so far
+				int furthest = -1;
+				for (int i = 0; i < count; i++)
+					if (nearest[i] != Integer.MAX_VALUE
+							&& (furthest == -1 || nearest[i] > nearest[furthest])) furthest = i;
+				if (furthest == -1 || nearest[furthest] == 0)
+					return Arrays.copyOf(distances, l * count);
+				chosen[chosenCount++] = furthest;
+			}
+			GraphMatrices.bfs(graph, usable, hubs[chosen[l]], distance, queue);
+			for (int i = 0; i < count; i++) {
+				int d = distance[hubs[i]];
+				distances[l * count + i] = d;
+				if (d != GraphMatrices.UNREACHABLE) nearest[i] = Math.min(nearest[i], d);
+			}
+		}
+		return distances;
+	}
+
+	private static <D> int[] chooseHubs(IntGraph<D> graph, Predicate<? super D> usable,
+			int spacing) {
+		int size = graph.size();
+		// rank by distinct usable edge data then by degree, packed for sorting
+		long[] ranked = new long[size];
+		for (int node = 0; node < size; node++) {
+			int degree = 0, layers = 0;
+			Object[] seen = new Object[graph.degree(node)];
+			for (int i = 0; i < graph.degree(node); i++) {
+				D data = graph.dataAt(node, i);
+				if (!usable.test(data)) continue;
+				degree++;
+				boolean found = false;
+				for (int j = 0; j < layers && !found; j++)
+					found = Objects.equals(seen[j], data);
+				if (!found) seen[layers++] = data;
+			}
+			long rank = ((long) layers << 20) | Math.min(degree, (1 << 20) - 1);
+			// highest rank first, then lowest id
+			ranked[node] = (-rank << 32) | node;
+		}
+		Arrays.sort(ranked);
+
+		int[] covered = new int[size];
+		Arrays.fill(covered, GraphMatrices.UNREACHABLE);
+		int[] queue = new int[size];
+		int[] hubs = new int[16];
+		int count = 0;
+		for (long entry : ranked) {
+			int candidate = (int) entry;
+			if (covered[candidate] != GraphMatrices.UNREACHABLE) continue;
+			if (count == hubs.length) hubs = Arrays.copyOf(hubs, count * 2);
+			hubs[count++] = candidate;
+			// mark everything closer than spacing so it never becomes a hub,
+			// a node is only revisited if it is now closer to a hub
+			int head = 0, tail = 0;
+			covered[candidate] = 0;
+			queue[tail++] = candidate;
+			while (head < tail) {
+				int node = queue[head++];
+				int next = covered[node] + 1;
+				if (next >= spacing) continue;
+				for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+					int neighbour = graph.neighbourAt(node, i);
+					int known = covered[neighbour];
+					if ((known != GraphMatrices.UNREACHABLE && known <= next)
+							|| !usable.test(graph.dataAt(node, i))) continue;
+					covered[neighbour] = next;
+					queue[tail++] = neighbour;
+				}
+			}
+		}
+		return Arrays.copyOf(hubs, count);
+	}
+
+	/**
+	 * @return number of regions
+	 */
+	public int regionCount() {
+		return hubs.length;
+	}
+
+	/**
+	 * @return number of ordered pairs of neighbouring regions in the overlay
+	 */
+	public int overlaySize() {
+		return overlayRegions.length;
+	}
+
+	/**
+	 * @return the largest hop distance between any node and its hub
+	 */
+	public int radius() {
+		return radius;
+	}
+
+	/**
+	 * @param node the node id
+	 * @return the region of the node in {@code [0, regionCount())}
+	 */
+	public int region(int node) {
+		return region[node];
+	}
+
+	/**
+	 * @param region the region
+	 * @return the node id of the region hub
+	 */
+	public int hub(int region) {
+		return hubs[region];
+	}
+
+	/**
+	 * @param node the node id
+	 * @return hop distance between the node and its hub
+	 */
+	public int hubDistance(int node) {
+		return hubDistance[node];
+	}
+
+	/**
+	 * @param a a region
+	 * @param b another region
+	 * @return true if the regions are the same or joined by an edge, the
+	 *         bounds between their nodes then differ by at most
+	 *         {@code 4 * radius()}
+	 */
+	public boolean neighbours(int a, int b) {
+		return a == b || overlayIndex(a, b) >= 0;
+	}
+
+	private int overlayIndex(int a, int b) {
+		return Arrays.binarySearch(overlayRegions, overlayOffsets[a], overlayOffsets[a + 1], b);
+	}
+
+	// exact distance between the hubs of neighbouring regions, unreachable
+	// for any other pair
+	private int overlayDistance(int a, int b) {
+		if (a == b) return 0;
+		int index = overlayIndex(a, b);
+		return index < 0 ? GraphMatrices.UNREACHABLE : overlayDistances[index];
+	}
+
+	/**
+	 * @param from the source node id
+	 * @param to the destination node id
+	 * @return a lower bound of the hop distance or
+	 *         {@link GraphMatrices#UNREACHABLE} if the nodes are not connected
+	 */
+	public int lowerBound(int from, int to) {
+		if (from == to) return 0;
+		int a = region[from], b = region[to];
+		if (component[a] != component[b]) return GraphMatrices.UNREACHABLE;
+		int between = overlayDistance(a, b);
+		if (between == GraphMatrices.UNREACHABLE) {
+			// triangle inequality through every landmark reaching both
+			between = 0;
+			for (int l = 0, count = hubs.length; l < landmarks; l++) {
+				int x = landmarkDistances[l * count + a], y = landmarkDistances[l * count + b];
+				if (x != GraphMatrices.UNREACHABLE && y != GraphMatrices.UNREACHABLE)
+					between = Math.max(between, Math.abs(x - y));
+			}
+		}
+		int x = hubDistance[from], y = hubDistance[to];
+		return Math.max(Math.max(between - x - y, Math.abs(x - y)), 1);
+	}
+
+	/**
+	 * @param from the source node id
+	 * @param to the destination node id
+	 * @return an upper bound of the hop distance or
+	 *         {@link GraphMatrices#UNREACHABLE} if the nodes are not connected
+	 */
+	public int upperBound(int from, int to) {
+		if (from == to) return 0;
+		int a = region[from], b = region[to];
+		if (component[a] != component[b]) return GraphMatrices.UNREACHABLE;
+		int between = overlayDistance(a, b);
+		if (between == GraphMatrices.UNREACHABLE) {
+			// a path through the landmark that gives the shortest detour
+			between = Integer.MAX_VALUE;
+			for (int l = 0, count = hubs.length; l < landmarks; l++) {
+				int x = landmarkDistances[l * count + a], y = landmarkDistances[l * count + b];
+				if (x != GraphMatrices.UNREACHABLE && y != GraphMatrices.UNREACHABLE)
+					between = Math.min(between, x + y);
+			}
+		}
+		return hubDistance[from] + between + hubDistance[to];
+	}
+
+	@Override
+	public String toString() {
+		return "RegionIndex{nodes=" + region.length + ", regions=" + hubs.length
+				+ ", overlay=" + overlayRegions.length + ", landmarks=" + landmarks
+				+ ", radius=" + radius + '}';
+	}
+
+}
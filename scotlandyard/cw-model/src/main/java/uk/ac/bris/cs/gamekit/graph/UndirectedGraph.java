@@ -1,6 +1,7 @@
 package uk.ac.bris.cs.gamekit.graph;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -8,9 +9,19 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 /**
  * An undirected graph implementation
+ * <br>
+ * A graph created with {@link #compact()} or {@link #compactCopyOf(Graph)}
+ * stores every undirected connection once instead of once per direction; the
+ * reversed edges returned by {@link #getEdges()}, {@link #getEdgesFrom(Node)}
+ * and {@link #getEdgesTo(Node)} are then created on demand. Copies of a compact
+ * graph share storage with the original until either of them is modified.
+ * Both modes are indistinguishable through the {@link Graph} interface, but
+ * only the default mode returns stored edges without allocating. Compact
+ * copies of a graph in the default mode share one copy until it is modified.
  *
  * @param <V> the type for {@link Node} values
  * @param <D> the type for {@link Edge} data
@@ -18,32 +29,179 @@ import java.util.Map;
 public final class UndirectedGraph<V, D> extends AbstractGraph<V, D> implements Graph<V, D> , Serializable{
 
 	private static final long serialVersionUID = 6932837778781276092L;
-	private final Map<V, Node<V>> valueNodeMap = new LinkedHashMap<>();
-	private final Map<Node<V>, List<Edge<V, D>>> sourceEdges = new HashMap<>();
-	private final Map<Node<V>, List<Edge<V, D>>> destinationEdges = new HashMap<>();
-	private final List<Edge<V, D>> edges = new ArrayList<>();
+	private final boolean compact;
+	private Map<V, Node<V>> valueNodeMap = new LinkedHashMap<>();
+	// compact: edges touching the node in their stored direction
+	private Map<Node<V>, List<Edge<V, D>>> sourceEdges = new HashMap<>();
+	// always null when compact
+	private Map<Node<V>, List<Edge<V, D>>> destinationEdges;
+	// compact: one edge per connection
+	private List<Edge<V, D>> edges = new ArrayList<>();
+	// compact: storage is referenced by another graph and must be copied
+	// before modification
+	private boolean shared;
+	// default mode: built on the first compactCopyOf, dropped on modification
+	private transient volatile UndirectedGraph<V, D> compactCopy;
 
 	/**
 	 * Creates a new undirected graph
 	 */
-	public UndirectedGraph() {}
+	public UndirectedGraph() {
+		this(false);
+	}
+
+	private UndirectedGraph(boolean compact) {
+		this.compact = compact;
+		if (!compact) destinationEdges = new HashMap<>();
+	}
 
 	/**
-	 * Copy constructor
+	 * Copy constructor. Copying a compact graph creates a compact graph that
+	 * shares storage with the given graph.
 	 */
 	public UndirectedGraph(Graph<V, D> other) {
+		UndirectedGraph<V, D> compactOther = asCompact(other);
+		this.compact = compactOther != null;
+		if (compact) {
+			share(compactOther);
+			return;
+		}
+		destinationEdges = new HashMap<>();
 		other.getNodes().forEach(this::addNode);
 		other.getEdges().forEach(e -> appendEdge(getNode(e.source().value()), e));
 	}
 
+	/**
+	 * Creates a new undirected graph that stores every connection once
+	 *
+	 * @param <V> the type for {@link Node} values
+	 * @param <D> the type for {@link Edge} data
+	 * @return a new empty compact graph
+	 */
+	public static <V, D> UndirectedGraph<V, D> compact() {
+		return new UndirectedGraph<>(true);
+	}
+
+	/**
+	 * Creates a compact copy of the given graph. Existing {@link Edge}
+	 * instances are reused and if the given graph is itself compact (or
+	 * {@link ImmutableGraph}s around a compact graph) no storage is copied at
+	 * all. Copies of the same {@link UndirectedGraph} in the default mode share
+	 * storage as well.
+	 * Edges of the given graph that come in pairs of an edge and its
+	 * {@link Edge#swap()} are stored as a single connection.
+	 *
+	 * @param other the graph to copy; not null
+	 * @param <V> the type for {@link Node} values
+	 * @param <D> the type for {@link Edge} data
+	 * @return a new compact graph
+	 */
+	public static <V, D> UndirectedGraph<V, D> compactCopyOf(Graph<V, D> other) {
+		UndirectedGraph<V, D> graph = new UndirectedGraph<>(true);
+		UndirectedGraph<V, D> compactOther = asCompact(other);
+		if (compactOther == null) compactOther = cachedCompactCopy(other);
+		if (compactOther != null) {
+			graph.share(compactOther);
+			return graph;
+		}
+		copyInto(graph, other);
+		return graph;
+	}
+
+	// the compact copy of a graph in the default mode, null for other graphs
+	private static <V, D> UndirectedGraph<V, D> cachedCompactCopy(Graph<V, D> graph) {
+		Graph<V, D> unwrapped = graph;
+		while (unwrapped instanceof ImmutableGraph)
+			unwrapped = ((ImmutableGraph<V, D>) unwrapped).delegate();
+		if (!(unwrapped instanceof UndirectedGraph)) return null;
+		UndirectedGraph<V, D> source = (UndirectedGraph<V, D>) unwrapped;
+		UndirectedGraph<V, D> copy = source.compactCopy;
+		if (copy == null) {
+			// racing threads may each build one, all of them are equal
+			copy = new UndirectedGraph<>(true);
+			copyInto(copy, source);
+			source.compactCopy = copy;
+		}
+		return copy;
+	}
+
+	private static <V, D> void copyInto(UndirectedGraph<V, D> graph, Graph<V, D> other) {
+		other.getNodes().forEach(graph::addNode);
+		// pending reverse edges that will pair up with an edge already added
+		Map<Edge<V, D>, Integer> pending = new HashMap<>();
+		for (Edge<V, D> edge : other.getEdges()) {
+			Integer count = pending.get(edge);
+			if (count != null) {
+				if (count == 1) pending.remove(edge);
+				else pending.put(edge, count - 1);
+				continue;
+			}
+			graph.addEdge(edge);
+			pending.merge(edge.swap(), 1, Integer::sum);
+		}
+	}
+
+	private static <V, D> UndirectedGraph<V, D> asCompact(Graph<V, D> graph) {
+		Graph<V, D> unwrapped = graph;
+		while (unwrapped instanceof ImmutableGraph)
+			unwrapped = ((ImmutableGraph<V, D>) unwrapped).delegate();
+		if (unwrapped instanceof UndirectedGraph && ((UndirectedGraph<V, D>) unwrapped).compact)
+			return (UndirectedGraph<V, D>) unwrapped;
+		return null;
+	}
+
+	/**
+	 * Whether two graphs are compact and share storage, as a compact graph and
+	 * its copies do until one of them is modified. {@link ImmutableGraph}s are
+	 * looked through.
+	 *
+	 * @param a a graph; not null
+	 * @param b another graph; not null
+	 * @param <V> the type for {@link Node} values
+	 * @param <D> the type for {@link Edge} data
+	 * @return true if the graphs share storage
+	 */
+	public static <V, D> boolean sharesStorage(Graph<V, D> a, Graph<V, D> b) {
+		UndirectedGraph<V, D> compactA = asCompact(a), compactB = asCompact(b);
+		return compactA != null && compactB != null && compactA.edges == compactB.edges;
+	}
+
+	private void share(UndirectedGraph<V, D> other) {
+		valueNodeMap = other.valueNodeMap;
+		sourceEdges = other.sourceEdges;
+		edges = other.edges;
+		other.shared = true;
+		shared = true;
+	}
+
+	private void ensureExclusive() {
+		if (!shared) return;
+		valueNodeMap = new LinkedHashMap<>(valueNodeMap);
+		Map<Node<V>, List<Edge<V, D>>> copied = new HashMap<>();
+		for (Entry<Node<V>, List<Edge<V, D>>> entry : sourceEdges.entrySet())
+			copied.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+		sourceEdges = copied;
+		edges = new ArrayList<>(edges);
+		shared = false;
+	}
+
+	/**
+	 * @return true if this graph stores every connection once
+	 */
+	public boolean isCompact() {
+		return compact;
+	}
+
 	@Override
 	public void addNode(Node<V> node) {
 		if (node == null) throw new NullPointerException("node == null");
 		if (valueNodeMap.containsKey(node.value()))
 			throw new IllegalArgumentException(node + " is already in the graph");
+		ensureExclusive();
+		compactCopy = null;
 		valueNodeMap.put(node.value(), node);
 		sourceEdges.put(node, new ArrayList<>());
-		destinationEdges.put(node, new ArrayList<>());
+		if (!compact) destinationEdges.put(node, new ArrayList<>());
 	}
 
 	/**
@@ -61,6 +219,14 @@ public final class UndirectedGraph<V, D> extends AbstractGraph<V, D> implements
 		Node<V> destination = getNode(edge.destination().value());
 		if (destination == null) throw new IllegalArgumentException(
 				"destination of edge(" + edge.destination() + ") is not in the graph");
+		if (compact) {
+			ensureExclusive();
+			sourceEdges.get(source).add(edge);
+			sourceEdges.get(destination).add(edge);
+			edges.add(edge);
+			return;
+		}
+		compactCopy = null;
 		appendEdge(source, edge);
 		appendEdge(destination, edge.swap());
 	}
@@ -88,17 +254,50 @@ public final class UndirectedGraph<V, D> extends AbstractGraph<V, D> implements
 
 	@Override
 	public Collection<Edge<V, D>> getEdges() {
-		return Collections.unmodifiableList(edges);
+		if (!compact) return Collections.unmodifiableList(edges);
+		List<Edge<V, D>> connections = edges;
+		// same order as the non-compact mode: each edge followed by its swap
+		return new AbstractList<Edge<V, D>>() {
+			@Override
+			public Edge<V, D> get(int index) {
+				Edge<V, D> edge = connections.get(index >> 1);
+				return (index & 1) == 0 ? edge : edge.swap();
+			}
+
+			@Override
+			public int size() {
+				return connections.size() * 2;
+			}
+		};
 	}
 
 	@Override
 	public Collection<Edge<V, D>> getEdgesFrom(Node<V> source) {
-		return Collections.unmodifiableList(sourceEdges.get(source));
+		if (!compact) return Collections.unmodifiableList(sourceEdges.get(source));
+		return orientedView(source);
 	}
 
 	@Override
 	public Collection<Edge<V, D>> getEdgesTo(Node<V> destination) {
-		return Collections.unmodifiableList(destinationEdges.get(destination));
+		if (!compact) return Collections.unmodifiableList(destinationEdges.get(destination));
+		return orientedView(destination);
+	}
+
+	private List<Edge<V, D>> orientedView(Node<V> node) {
+		List<Edge<V, D>> incident = sourceEdges.get(node);
+		if (incident == null) throw new NullPointerException(node + " is not in the graph");
+		return new AbstractList<Edge<V, D>>() {
+			@Override
+			public Edge<V, D> get(int index) {
+				Edge<V, D> edge = incident.get(index);
+				return edge.source().equals(node) ? edge : edge.swap();
+			}
+
+			@Override
+			public int size() {
+				return incident.size();
+			}
+		};
 	}
 
 	@Override
@@ -113,6 +312,7 @@ public final class UndirectedGraph<V, D> extends AbstractGraph<V, D> implements
 
 	@Override
 	public String toString() {
-		return "UndirectedGraph{" + "nodes=" + valueNodeMap.values() + ", edges=" + edges + '}';
+		return "UndirectedGraph{" + "nodes=" + valueNodeMap.values()
+				+ ", edges=" + getEdges() + '}';
 	}
 }
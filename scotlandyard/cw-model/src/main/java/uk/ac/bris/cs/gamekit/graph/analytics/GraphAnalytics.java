@@ -0,0 +1,455 @@
+package uk.ac.bris.cs.gamekit.graph.analytics;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.IntGraphs;
+
+/**
+ * Structural analytics for maps, computed in parallel on the common
+ * {@link ForkJoinPool} over an {@link IntGraph} snapshot. <br>
+ * Every result is computed once and cached; instances returned by
+ * {@link #of(Graph)} are themselves cached per graph identity for as long as
+ * the graph is reachable. Modifications made to a graph after its first
+ * analysis are not reflected. <br>
+ * A layer is a value of the edge data (e.g. a transport); analyses restricted
+ * to a layer only follow edges carrying that value.
+ *
+ * @param <D> the type for {@link Edge} data
+ */
+public final class GraphAnalytics<D> {
+
+	private static final ConcurrentMap<Graph<?, ?>, GraphAnalytics<?>> CACHE =
+			new MapMaker().weakKeys().makeMap();
+	private static final Object ALL_LAYERS = new Object();
+	// null is a valid layer but not a valid ConcurrentHashMap key
+	private static final Object NULL_LAYER = new Object();
+	// leaves per worker, more leaves balance better on uneven graphs
+	private static final int LEAVES_PER_THREAD = 4;
+
+	private final IntGraph<D> graph;
+	private final ConcurrentMap<Object, NodeScores> betweenness = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Object, NodeScores> closeness = new ConcurrentHashMap<>();
+	private volatile Set<D> layers;
+	private volatile Set<Integer> articulationPoints;
+	private volatile NodeScores escapeDegree;
+	private volatile NodeScores hubScores;
+
+	private GraphAnalytics(IntGraph<D> graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Returns the analytics of the given graph, a snapshot of the graph is
+	 * taken the first time it is analysed
+	 *
+	 * @param graph the graph; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return the analytics; never null
+	 */
+	@SuppressWarnings("unchecked")
+	public static <D> GraphAnalytics<D> of(Graph<Integer, D> graph) {
+		Objects.requireNonNull(graph);
+		return (GraphAnalytics<D>) CACHE.computeIfAbsent(graph,
+				g -> new GraphAnalytics<>(IntGraphs.copyOf(graph)));
+	}
+
+	/**
+	 * Returns new analytics of the given graph, the returned instance is not
+	 * cached but caches its own results
+	 *
+	 * @param graph the graph; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return the analytics; never null
+	 */
+	public static <D> GraphAnalytics<D> of(IntGraph<D> graph) {
+		return new GraphAnalytics<>(Objects.requireNonNull(graph));
+	}
+
+	/**
+	 * @return the analysed graph snapshot
+	 */
+	public IntGraph<D> graph() {
+		return graph;
+	}
+
+	/**
+	 * @return all distinct edge data values in order of appearance
+	 */
+	public Set<D> layers() {
+		Set<D> result = layers;
+		if (result == null) {
+			Set<D> found = new LinkedHashSet<>();
+			for (int node = 0; node < graph.size(); node++)
+				for (int i = 0, degree = graph.degree(node); i < degree; i++)
+					found.add(graph.dataAt(node, i));
+			layers = result = Collections.unmodifiableSet(found);
+		}
+		return result;
+	}
+
+	/**
+	 * Betweenness centrality over all edges, see {@link #betweenness(Object)}
+	 *
+	 * @return the betweenness of every node
+	 */
+	public NodeScores betweenness() {
+		return betweenness.computeIfAbsent(ALL_LAYERS, k -> computeBetweenness(any -> true));
+	}
+
+	/**
+	 * Betweenness centrality using Brandes' algorithm: for every ordered pair
+	 * of distinct nodes, the fraction of shortest paths between them that pass
+	 * through a node. Paths are sequences of nodes so parallel edges do not
+	 * count as separate paths. Scores are not normalised and both directions
+	 * of an undirected connection count.
+	 *
+	 * @param layer only edges with this data are followed
+	 * @return the betweenness of every node
+	 */
+	public NodeScores betweenness(D layer) {
+		return betweenness.computeIfAbsent(layerKey(layer),
+				k -> computeBetweenness(d -> Objects.equals(d, layer)));
+	}
+
+	/**
+	 * Closeness centrality over all edges, see {@link #closeness(Object)}
+	 *
+	 * @return the closeness of every node
+	 */
+	public NodeScores closeness() {
+		return closeness.computeIfAbsent(ALL_LAYERS, k -> computeCloseness(any -> true));
+	}
+
+	/**
+	 * Closeness centrality with the Wasserman and Faust correction for
+	 * disconnected graphs: {@code (r / (n - 1)) * (r / sum)} where {@code r}
+	 * is the number of other nodes reachable from a node, {@code n} the number
+	 * of nodes and {@code sum} the total hop distance to the reachable nodes.
+	 * Nodes that reach nothing score 0.
+	 *
+	 * @param layer only edges with this data are followed
+	 * @return the closeness of every node
+	 */
+	public NodeScores closeness(D layer) {
+		return closeness.computeIfAbsent(layerKey(layer),
+				k -> computeCloseness(d -> Objects.equals(d, layer)));
+	}
+
+	/**
+	 * Finds articulation points, nodes whose removal disconnects their
+	 * connected component. Edges are followed in their stored direction so the
+	 * graph is expected to store both directions of every connection, as
+	 * {@link uk.ac.bris.cs.gamekit.graph.UndirectedGraph} does.
+	 *
+	 * @return values of all articulation points in node id order
+	 */
+	public Set<Integer> articulationPoints() {
+		Set<Integer> result = articulationPoints;
+		if (result == null) articulationPoints = result = computeArticulationPoints();
+		return result;
+	}
+
+	/**
+	 * The escape degree of a node is the number of distinct other nodes
+	 * reachable from it with one move of any layer
+	 *
+	 * @return the escape degree of every node
+	 */
+	public NodeScores escapeDegree() {
+		NodeScores result = escapeDegree;
+		if (result == null) {
+			int size = graph.size();
+			double[] scores = new double[size];
+			int[] mark = new int[size];
+			Arrays.fill(mark, -1);
+			for (int node = 0; node < size; node++) {
+				int distinct = 0;
+				for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+					int neighbour = graph.neighbourAt(node, i);
+					if (neighbour == node || mark[neighbour] == node) continue;
+					mark[neighbour] = node;
+					distinct++;
+				}
+				scores[node] = distinct;
+			}
+			escapeDegree = result = new NodeScores(graph, scores);
+		}
+		return result;
+	}
+
+	/**
+	 * The hub score of a node is the sum of {@code ln(n / m)} over every
+	 * distinct layer the node has an edge in, where {@code n} is the number of
+	 * nodes and {@code m} the number of nodes with an edge in that layer. A
+	 * layer present everywhere adds nothing while rare layers (e.g. an
+	 * underground network) add the most.
+	 *
+	 * @return the hub score of every node
+	 */
+	public NodeScores hubScores() {
+		NodeScores result = hubScores;
+		if (result == null) {
+			Object[] layerArray = layers().toArray();
+			int size = graph.size();
+			boolean[][] served = new boolean[layerArray.length][size];
+			int[] servedCount = new int[layerArray.length];
+			for (int node = 0; node < size; node++) {
+				for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+					int layer = indexOf(layerArray, graph.dataAt(node, i));
+					if (served[layer][node]) continue;
+					served[layer][node] = true;
+					servedCount[layer]++;
+				}
+			}
+			double[] scores = new double[size];
+			for (int layer = 0; layer < layerArray.length; layer++) {
+				double weight = Math.log((double) size / servedCount[layer]);
+				for (int node = 0; node < size; node++)
+					if (served[layer][node]) scores[node] += weight;
+			}
+			hubScores = result = new NodeScores(graph, scores);
+		}
+		return result;
+	}
+
+	private static int indexOf(Object[] array, Object value) {
+		for (int i = 0; i < array.length; i++)
+			if (Objects.equals(array[i], value)) return i;
+		throw new AssertionError("Unknown layer " + value);
+	}
+
+	private static Object layerKey(Object layer) {
+		return layer == null ? NULL_LAYER : layer;
+	}
+
+	private int leafSize() {
+		int leaves = ForkJoinPool.getCommonPoolParallelism() * LEAVES_PER_THREAD;
+		return Math.max(1, (graph.size() + leaves - 1) / leaves);
+	}
+
+	private NodeScores computeBetweenness(Predicate<? super D> usable) {
+		double[] scores = ForkJoinPool.commonPool()
+				.invoke(new BetweennessTask<>(graph, usable, 0, graph.size(), leafSize()));
+		return new NodeScores(graph, scores);
+	}
+
+	private NodeScores computeCloseness(Predicate<? super D> usable) {
+		double[] scores = new double[graph.size()];
+		ForkJoinPool.commonPool()
+				.invoke(new ClosenessTask<>(graph, usable, 0, graph.size(), leafSize(), scores));
+		return new NodeScores(graph, scores);
+	}
+
+	private Set<Integer> computeArticulationPoints() {
+		int size = graph.size();
+		// discovery time starting at 1, 0 means not visited yet
+		int[] discovered = new int[size];
+		int[] low = new int[size];
+		int[] parent = new int[size];
+		int[] cursor = new int[size];
+		boolean[] parentSkipped = new boolean[size];
+		boolean[] articulation = new boolean[size];
+		int[] stack = new int[size];
+		int time = 0;
+		for (int root = 0; root < size; root++) {
+			if (discovered[root] != 0) continue;
+			int top = 0, rootChildren = 0;
+			stack[top++] = root;
+			discovered[root] = low[root] = ++time;
+			parent[root] = -1;
+			while (top > 0) {
+				int node = stack[top - 1];
+				if (cursor[node] < graph.degree(node)) {
+					int next = graph.neighbourAt(node, cursor[node]++);
+					// the first edge back to the parent is the tree edge itself
+					if (next == parent[node] && !parentSkipped[node]) {
+						parentSkipped[node] = true;
+					} else if (discovered[next] == 0) {
+						parent[next] = node;
+						discovered[next] = low[next] = ++time;
+						stack[top++] = next;
+						if (node == root) rootChildren++;
+					} else {
+						low[node] = Math.min(low[node], discovered[next]);
+					}
+				} else {
+					top--;
+					int up = parent[node];
+					if (up < 0) continue;
+					low[up] = Math.min(low[up], low[node]);
+					if (up != root && low[node] >= discovered[up]) articulation[up] = true;
+				}
+			}
+			if (rootChildren > 1) articulation[root] = true;
+		}
+		ImmutableSet.Builder<Integer> builder = ImmutableSet.builder();
+		for (int node = 0; node < size; node++)
+			if (articulation[node]) builder.add(graph.value(node));
+		return builder.build();
+	}
+
+	/**
+	 * Brandes' accumulation for a range of source nodes, partial results of
+	 * both halves are summed
+	 */
+	private static final class BetweennessTask<D> extends RecursiveTask<double[]> {
+
+		private static final long serialVersionUID = 4017165744291364473L;
+		private final IntGraph<D> graph;
+		private final Predicate<? super D> usable;
+		private final int from, to, leafSize;
+
+		BetweennessTask(IntGraph<D> graph, Predicate<? super D> usable,
+				int from, int to, int leafSize) {
+			this.graph = graph;
+			this.usable = usable;
+			this.from = from;
+			this.to = to;
+			this.leafSize = leafSize;
+		}
+
+		@Override
+		protected double[] compute() {
+			if (to - from > leafSize) {
+				int middle = (from + to) >>> 1;
+				BetweennessTask<D> right = new BetweennessTask<>(graph, usable, middle, to, leafSize);
+				right.fork();
+				double[] left = new BetweennessTask<>(graph, usable, from, middle, leafSize).compute();
+				double[] joined = right.join();
+				for (int i = 0; i < left.length; i++)
+					left[i] += joined[i];
+				return left;
+			}
+			int size = graph.size();
+			double[] scores = new double[size];
+			int[] distance = new int[size];
+			double[] sigma = new double[size];
+			double[] delta = new double[size];
+			int[] order = new int[size];
+			// marks neighbours already seen from the current node
+			int[] mark = new int[size];
+			int stamp = 0;
+			Arrays.fill(distance, -1);
+			for (int source = from; source < to; source++) {
+				int head = 0, tail = 0;
+				distance[source] = 0;
+				sigma[source] = 1;
+				order[tail++] = source;
+				while (head < tail) {
+					int node = order[head++];
+					if (++stamp == Integer.MAX_VALUE) {
+						Arrays.fill(mark, 0);
+						stamp = 1;
+					}
+					for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+						int next = graph.neighbourAt(node, i);
+						if (mark[next] == stamp || !usable.test(graph.dataAt(node, i))) continue;
+						mark[next] = stamp;
+						if (distance[next] < 0) {
+							distance[next] = distance[node] + 1;
+							order[tail++] = next;
+						}
+						if (distance[next] == distance[node] + 1) sigma[next] += sigma[node];
+					}
+				}
+				for (int j = tail - 1; j >= 0; j--) {
+					int node = order[j];
+					if (++stamp == Integer.MAX_VALUE) {
+						Arrays.fill(mark, 0);
+						stamp = 1;
+					}
+					for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+						int next = graph.neighbourAt(node, i);
+						if (mark[next] == stamp || !usable.test(graph.dataAt(node, i))) continue;
+						mark[next] = stamp;
+						if (distance[next] == distance[node] + 1)
+							delta[node] += sigma[node] / sigma[next] * (1 + delta[next]);
+					}
+					if (node != source) scores[node] += delta[node];
+				}
+				for (int j = 0; j < tail; j++) {
+					int node = order[j];
+					distance[node] = -1;
+					sigma[node] = 0;
+					delta[node] = 0;
+				}
+			}
+			return scores;
+		}
+	}
+
+	/**
+	 * Breadth first search from a range of source nodes, each source writes
+	 * its own score
+	 */
+	private static final class ClosenessTask<D> extends RecursiveAction {
+
+		private static final long serialVersionUID = -2304751658916735410L;
+		private final IntGraph<D> graph;
+		private final Predicate<? super D> usable;
+		private final int from, to, leafSize;
+		private final double[] scores;
+
+		ClosenessTask(IntGraph<D> graph, Predicate<? super D> usable,
+				int from, int to, int leafSize, double[] scores) {
+			this.graph = graph;
+			this.usable = usable;
+			this.from = from;
+			this.to = to;
+			this.leafSize = leafSize;
+			this.scores = scores;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > leafSize) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ClosenessTask<>(graph, usable, from, middle, leafSize, scores),
+						new ClosenessTask<>(graph, usable, middle, to, leafSize, scores));
+				return;
+			}
+			int size = graph.size();
+			int[] distance = new int[size];
+			int[] queue = new int[size];
+			Arrays.fill(distance, -1);
+			for (int source = from; source < to; source++) {
+				int head = 0, tail = 0;
+				long sum = 0;
+				distance[source] = 0;
+				queue[tail++] = source;
+				while (head < tail) {
+					int node = queue[head++];
+					sum += distance[node];
+					for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+						int next = graph.neighbourAt(node, i);
+						if (distance[next] >= 0 || !usable.test(graph.dataAt(node, i))) continue;
+						distance[next] = distance[node] + 1;
+						queue[tail++] = next;
+					}
+				}
+				int reached = tail - 1;
+				scores[source] = reached == 0 ? 0
+						: ((double) reached / (size - 1)) * ((double) reached / sum);
+				for (int j = 0; j < tail; j++)
+					distance[queue[j]] = -1;
+			}
+		}
+	}
+
+}
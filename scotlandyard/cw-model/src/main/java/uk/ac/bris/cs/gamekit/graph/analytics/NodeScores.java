@@ -0,0 +1,92 @@
+package uk.ac.bris.cs.gamekit.graph.analytics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+
+/**
+ * An immutable per node score produced by {@link GraphAnalytics}, indexed
+ * either by node value or by node id of the analysed {@link IntGraph}
+ */
+public final class NodeScores {
+
+	private final IntGraph<?> graph;
+	private final double[] scores;
+
+	NodeScores(IntGraph<?> graph, double[] scores) {
+		this.graph = graph;
+		this.scores = scores;
+	}
+
+	/**
+	 * @return number of nodes
+	 */
+	public int size() {
+		return scores.length;
+	}
+
+	/**
+	 * @param value the node value
+	 * @return the score of the node
+	 * @throws IllegalArgumentException if no node holds the given value
+	 */
+	public double get(int value) {
+		int index = graph.index(value);
+		if (index < 0)
+			throw new IllegalArgumentException("No node with value " + value + " in the graph");
+		return scores[index];
+	}
+
+	/**
+	 * @param index the node id in {@code [0, size())}
+	 * @return the score of the node
+	 */
+	public double at(int index) {
+		return scores[index];
+	}
+
+	/**
+	 * @param index the node id in {@code [0, size())}
+	 * @return the value of the node
+	 */
+	public int valueAt(int index) {
+		return graph.value(index);
+	}
+
+	/**
+	 * @param count maximum number of nodes to return
+	 * @return values of the {@code count} highest scoring nodes, highest
+	 *         first; ties are broken by node id
+	 */
+	public List<Integer> top(int count) {
+		if (count < 0) throw new IllegalArgumentException("count < 0");
+		List<Integer> ids = new ArrayList<>(scores.length);
+		for (int i = 0; i < scores.length; i++)
+			ids.add(i);
+		ids.sort((a, b) -> Double.compare(scores[b], scores[a]));
+		List<Integer> values = new ArrayList<>(Math.min(count, ids.size()));
+		for (int i = 0; i < count && i < ids.size(); i++)
+			values.add(graph.value(ids.get(i)));
+		return Collections.unmodifiableList(values);
+	}
+
+	/**
+	 * @return an unmodifiable map of node value to score in node id order
+	 */
+	public Map<Integer, Double> toMap() {
+		Map<Integer, Double> map = new LinkedHashMap<>();
+		for (int i = 0; i < scores.length; i++)
+			map.put(graph.value(i), scores[i]);
+		return Collections.unmodifiableMap(map);
+	}
+
+	@Override
+	public String toString() {
+		return "NodeScores{size=" + scores.length + ", top=" + top(5) + '}';
+	}
+
+}
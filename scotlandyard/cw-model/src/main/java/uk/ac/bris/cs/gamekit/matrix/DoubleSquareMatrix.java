@@ -0,0 +1,204 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.util.Arrays;
+
+/**
+ * A square matrix of {@code double} values stored in a single flat row-major
+ * array. <br>
+ * Checked accessors throw {@link IndexOutOfBoundsException} for cells outside
+ * the matrix. The {@code Unchecked} accessors skip the bound checks and are
+ * meant for hot loops whose indices are known to be valid; an invalid row or
+ * column either throws or silently addresses another cell.
+ */
+public final class DoubleSquareMatrix extends FlatSquareMatrix<Double> {
+
+	private static final long serialVersionUID = -764046219917430829L;
+	private final double[] cells;
+
+	/**
+	 * Creates a new {@code size*size} matrix filled with 0.0
+	 *
+	 * @param size size of the size*size grid, must be &gt; 0
+	 */
+	public DoubleSquareMatrix(int size) {
+		super(size, false);
+		this.cells = new double[size * size];
+	}
+
+	/**
+	 * Creates a new {@code size*size} matrix filled with the given value
+	 *
+	 * @param size size of the size*size grid, must be &gt; 0
+	 * @param defaultValue initial value for all cells
+	 */
+	public DoubleSquareMatrix(int size, double defaultValue) {
+		this(size);
+		Arrays.fill(cells, defaultValue);
+	}
+
+	/**
+	 * Copy constructor, the copy is never read only
+	 *
+	 * @param other the matrix to copy from
+	 */
+	public DoubleSquareMatrix(DoubleSquareMatrix other) {
+		super(other.size, false);
+		this.cells = other.cells.clone();
+	}
+
+	private DoubleSquareMatrix(DoubleSquareMatrix other, boolean readOnly) {
+		super(other.size, readOnly);
+		this.cells = other.cells;
+	}
+
+	/**
+	 * @return a read only view sharing cells with this matrix; this matrix if
+	 *         it is already read only
+	 */
+	public DoubleSquareMatrix readOnly() {
+		return readOnly ? this : new DoubleSquareMatrix(this, true);
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @return the element
+	 */
+	public double get(int row, int column) {
+		return cells[index(row, column)];
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @param value the element
+	 */
+	public void set(int row, int column, double value) {
+		checkWritable();
+		cells[index(row, column)] = value;
+	}
+
+	/**
+	 * {@link #get(int, int)} without bound checks
+	 */
+	public double getUnchecked(int row, int column) {
+		return cells[row * size + column];
+	}
+
+	/**
+	 * {@link #set(int, int, double)} without bound checks
+	 */
+	public void setUnchecked(int row, int column, double value) {
+		checkWritable();
+		cells[row * size + column] = value;
+	}
+
+	/**
+	 * @param value the value for every cell
+	 */
+	public void fill(double value) {
+		checkWritable();
+		Arrays.fill(cells, value);
+	}
+
+	/**
+	 * Copies a row into the given array
+	 *
+	 * @param row the row
+	 * @param target the array to copy to; not null
+	 * @param offset position of the first element in {@code target}
+	 */
+	public void copyRow(int row, double[] target, int offset) {
+		checkLine("row", row, target.length, offset);
+		System.arraycopy(cells, row * size, target, offset, size);
+	}
+
+	/**
+	 * Replaces a row with elements of the given array
+	 *
+	 * @param row the row
+	 * @param source the array to copy from; not null
+	 * @param offset position of the first element in {@code source}
+	 */
+	public void setRow(int row, double[] source, int offset) {
+		checkLine("row", row, source.length, offset);
+		checkWritable();
+		System.arraycopy(source, offset, cells, row * size, size);
+	}
+
+	/**
+	 * Copies a column into the given array
+	 *
+	 * @param column the column
+	 * @param target the array to copy to; not null
+	 * @param offset position of the first element in {@code target}
+	 */
+	public void copyColumn(int column, double[] target, int offset) {
+		checkLine("column", column, target.length, offset);
+		for (int i = 0, index = column; i < size; i++, index += size)
+			target[offset + i] = cells[index];
+	}
+
+	/**
+	 * Replaces a column with elements of the given array
+	 *
+	 * @param column the column
+	 * @param source the array to copy from; not null
+	 * @param offset position of the first element in {@code source}
+	 */
+	public void setColumn(int column, double[] source, int offset) {
+		checkLine("column", column, source.length, offset);
+		checkWritable();
+		for (int i = 0, index = column; i < size; i++, index += size)
+			cells[index] = source[offset + i];
+	}
+
+	/**
+	 * @return a copy of all cells in row-major order
+	 */
+	public double[] toArray() {
+		return cells.clone();
+	}
+
+	// backing array for MatrixKernels
+	double[] cells() {
+		return cells;
+	}
+
+	@Override
+	Double boxed(int index) {
+		return cells[index];
+	}
+
+	@Override
+	void unboxed(int index, Double value) {
+		cells[index] = value;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		DoubleSquareMatrix that = (DoubleSquareMatrix) o;
+		return size == that.size && Arrays.equals(cells, that.cells);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * size + Arrays.hashCode(cells);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("[");
+		for (int row = 0; row < size; row++) {
+			if (row > 0) builder.append('\n');
+			for (int column = 0; column < size; column++) {
+				if (column > 0) builder.append(", ");
+				builder.append(cells[row * size + column]);
+			}
+		}
+		return builder.append(']').toString();
+	}
+
+}
@@ -0,0 +1,196 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Shared parts of the square matrices backed by a single flat row-major
+ * primitive array
+ *
+ * @param <T> the boxed type of elements in the matrix
+ */
+abstract class FlatSquareMatrix<T> implements Serializable {
+
+	private static final long serialVersionUID = -3127713954616734405L;
+	final int size;
+	final boolean readOnly;
+
+	FlatSquareMatrix(int size, boolean readOnly) {
+		if (size < 1) throw new IllegalArgumentException("Size must me > 0, got " + size);
+		if ((long) size * size > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Size " + size + " is too large");
+		this.size = size;
+		this.readOnly = readOnly;
+	}
+
+	/**
+	 * @return the number of rows and columns
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if this matrix rejects modification
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * Tests whether the specified location is within bounds of the matrix
+	 *
+	 * @param row the row to test
+	 * @param column the column to test
+	 * @return true if the given location is within bounds
+	 */
+	public boolean inBounds(int row, int column) {
+		return row >= 0 && row < size && column >= 0 && column < size;
+	}
+
+	/**
+	 * A {@link Matrix} view of this matrix, modifications through the view
+	 * write through unless this matrix is read only. Cells are boxed on every
+	 * access so prefer the primitive accessors in hot loops.
+	 *
+	 * @return the view; never null
+	 */
+	public Matrix<T> asMatrix() {
+		return new View<>(this);
+	}
+
+	abstract T boxed(int index);
+
+	abstract void unboxed(int index, T value);
+
+	final int index(int row, int column) {
+		if (row < 0 || row >= size || column < 0 || column >= size)
+			throw new IndexOutOfBoundsException(
+					"(" + row + ", " + column + ") not in " + size + "x" + size);
+		return row * size + column;
+	}
+
+	final void checkLine(String name, int line, int length, int offset) {
+		if (line < 0 || line >= size)
+			throw new IndexOutOfBoundsException(name + " " + line + " not in [0, " + size + ")");
+		if (offset < 0 || offset > length - size)
+			throw new IndexOutOfBoundsException(
+					"offset " + offset + " leaves no room for " + size + " elements");
+	}
+
+	final void checkWritable() {
+		if (readOnly) throw new UnsupportedOperationException("Matrix is read only");
+	}
+
+	private static final class View<T> extends AbstractMatrix<T> implements Serializable {
+
+		private static final long serialVersionUID = 8474012466812233061L;
+		private final FlatSquareMatrix<T> matrix;
+
+		View(FlatSquareMatrix<T> matrix) {
+			this.matrix = matrix;
+		}
+
+		@Override
+		public T get(int row, int column) {
+			return matrix.boxed(matrix.index(row, column));
+		}
+
+		@Override
+		public void put(int row, int column, T cell) {
+			Objects.requireNonNull(cell);
+			matrix.checkWritable();
+			matrix.unboxed(matrix.index(row, column), cell);
+		}
+
+		@Override
+		public boolean inBounds(int row, int column) {
+			return matrix.inBounds(row, column);
+		}
+
+		@Override
+		public List<T> row(int row) {
+			int start = matrix.index(row, 0);
+			return line(start, 1);
+		}
+
+		@Override
+		public void row(int row, List<T> values) {
+			setLine(matrix.index(row, 0), 1, values);
+		}
+
+		@Override
+		public List<T> column(int column) {
+			return line(matrix.index(0, column), matrix.size);
+		}
+
+		@Override
+		public void column(int column, List<T> values) {
+			setLine(matrix.index(0, column), matrix.size, values);
+		}
+
+		@Override
+		public List<T> mainDiagonal() {
+			return line(0, matrix.size + 1);
+		}
+
+		@Override
+		public List<T> antiDiagonal() {
+			return line(matrix.size - 1, matrix.size - 1);
+		}
+
+		@Override
+		public List<T> asList() {
+			return new AbstractList<T>() {
+				@Override
+				public T get(int index) {
+					if (index < 0 || index >= size()) throw new IndexOutOfBoundsException(
+							"index " + index + " not in [0, " + size() + ")");
+					return matrix.boxed(index);
+				}
+
+				@Override
+				public int size() {
+					return matrix.size * matrix.size;
+				}
+			};
+		}
+
+		@Override
+		public int columnSize() {
+			return matrix.size;
+		}
+
+		@Override
+		public int rowSize() {
+			return matrix.size;
+		}
+
+		private List<T> line(int start, int stride) {
+			List<T> values = new ArrayList<>(matrix.size);
+			for (int i = 0, index = start; i < matrix.size; i++, index += stride)
+				values.add(matrix.boxed(index));
+			return Collections.unmodifiableList(values);
+		}
+
+		private void setLine(int start, int stride, List<T> values) {
+			Objects.requireNonNull(values);
+			if (matrix.size != values.size())
+				throw new IllegalArgumentException("size != value.size()");
+			if (values.contains(null)) throw new NullPointerException("values contains null");
+			matrix.checkWritable();
+			for (int i = 0, index = start; i < matrix.size; i++, index += stride)
+				matrix.unboxed(index, values.get(i));
+		}
+
+		@Override
+		public String toString() {
+			return matrix.toString();
+		}
+	}
+
+}
@@ -0,0 +1,297 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A {@code byte} matrix stored off heap in a memory-mapped file, e.g. an all
+ * pairs distance table of a large map. <br>
+ * The file is mapped in pages of at most 1 GiB so matrices larger than 2 GiB
+ * are supported. Matrices opened with {@link #open(Path)} are read only and
+ * can be shared between any number of processes on the same host, the
+ * operating system keeps a single copy in its page cache. <br>
+ * The file starts with a 16 byte header (magic, version, rows, columns)
+ * followed by the cells in row-major order.
+ */
+public final class MappedByteMatrix implements Closeable {
+
+	private static final int MAGIC = 0x53594d42; // SYMB
+	private static final int VERSION = 1;
+	private static final int HEADER = 16;
+	private static final int PAGE_SHIFT = 30;
+	private static final long PAGE_SIZE = 1L << PAGE_SHIFT;
+	private static final long PAGE_MASK = PAGE_SIZE - 1;
+
+	private final Path file;
+	private final int rows, columns;
+	private final boolean readOnly;
+	private volatile MappedByteBuffer[] pages;
+
+	private MappedByteMatrix(Path file, int rows, int columns, boolean readOnly,
+			MappedByteBuffer[] pages) {
+		this.file = file;
+		this.rows = rows;
+		this.columns = columns;
+		this.readOnly = readOnly;
+		this.pages = pages;
+	}
+
+	/**
+	 * Creates (or replaces) a matrix file with all cells 0 and maps it for
+	 * writing
+	 *
+	 * @param file the file; not null
+	 * @param rows number of rows, must be &gt; 0
+	 * @param columns number of columns, must be &gt; 0
+	 * @return the writable matrix
+	 * @throws IOException if the file could not be created or mapped
+	 */
+	public static MappedByteMatrix create(Path file, int rows, int columns) throws IOException {
+		Objects.requireNonNull(file);
+		SparseLayout.checkShape(rows, columns);
+		long length = HEADER + (long) rows * columns;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			// writing the last byte sizes the file without touching every page
+			channel.write(ByteBuffer.allocate(1), length - 1);
+			MappedByteBuffer[] pages = map(channel, MapMode.READ_WRITE, length);
+			pages[0].putInt(0, MAGIC).putInt(4, VERSION).putInt(8, rows).putInt(12, columns);
+			return new MappedByteMatrix(file, rows, columns, false, pages);
+		}
+	}
+
+	/**
+	 * Maps an existing matrix file read only
+	 *
+	 * @param file the file; not null
+	 * @return the read only matrix
+	 * @throws IOException if the file could not be mapped or is not a matrix
+	 *         file
+	 */
+	public static MappedByteMatrix open(Path file) throws IOException {
+		Objects.requireNonNull(file);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length < HEADER) throw new IOException(file + " is too short for a matrix");
+			MappedByteBuffer[] pages = map(channel, MapMode.READ_ONLY, length);
+			MappedByteBuffer header = pages[0];
+			if (header.getInt(0) != MAGIC) throw new IOException(file + " is not a matrix file");
+			if (header.getInt(4) != VERSION) throw new IOException(
+					file + " has unsupported version " + header.getInt(4));
+			int rows = header.getInt(8), columns = header.getInt(12);
+			if (rows < 1 || columns < 1 || HEADER + (long) rows * columns != length)
+				throw new IOException(file + " has inconsistent size " + rows + "x" + columns
+						+ " for " + length + " bytes");
+			return new MappedByteMatrix(file, rows, columns, true, pages);
+		}
+	}
+
+	private static MappedByteBuffer[] map(FileChannel channel, MapMode mode, long length)
+			throws IOException {
+		int count = (int) ((length + PAGE_SIZE - 1) >>> PAGE_SHIFT);
+		MappedByteBuffer[] pages = new MappedByteBuffer[count];
+		for (int i = 0; i < count; i++) {
+			long position = (long) i << PAGE_SHIFT;
+			pages[i] = channel.map(mode, position, Math.min(PAGE_SIZE, length - position));
+			pages[i].order(ByteOrder.BIG_ENDIAN);
+		}
+		return pages;
+	}
+
+	/**
+	 * @return the backing file
+	 */
+	public Path file() {
+		return file;
+	}
+
+	/**
+	 * @return number of rows
+	 */
+	public int rows() {
+		return rows;
+	}
+
+	/**
+	 * @return number of columns
+	 */
+	public int columns() {
+		return columns;
+	}
+
+	/**
+	 * @return true if this matrix was opened with {@link #open(Path)}
+	 */
+	public boolean isReadOnly() {
+		return readOnly;
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @return the element
+	 */
+	public byte get(int row, int column) {
+		long position = position(row, column);
+		return pages()[(int) (position >>> PAGE_SHIFT)].get((int) (position & PAGE_MASK));
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @param value the element
+	 */
+	public void set(int row, int column, byte value) {
+		checkWritable();
+		long position = position(row, column);
+		pages()[(int) (position >>> PAGE_SHIFT)].put((int) (position & PAGE_MASK), value);
+	}
+
+	/**
+	 * Copies a row into the given array
+	 *
+	 * @param row the row
+	 * @param target the array to copy to; not null
+	 * @param offset position of the first element in {@code target}
+	 */
+	public void copyRow(int row, byte[] target, int offset) {
+		checkRow(row, target.length, offset);
+		transfer(position(row, 0), target, offset, false);
+	}
+
+	/**
+	 * Replaces a row with elements of the given array
+	 *
+	 * @param row the row
+	 * @param source the array to copy from; not null
+	 * @param offset position of the first element in {@code source}
+	 */
+	public void setRow(int row, byte[] source, int offset) {
+		checkWritable();
+		checkRow(row, source.length, offset);
+		transfer(position(row, 0), source, offset, true);
+	}
+
+	// rows may straddle two pages
+	private void transfer(long position, byte[] array, int offset, boolean write) {
+		MappedByteBuffer[] pages = pages();
+		int remaining = columns;
+		while (remaining > 0) {
+			ByteBuffer page = pages[(int) (position >>> PAGE_SHIFT)].duplicate();
+			int at = (int) (position & PAGE_MASK);
+			int length = Math.min(remaining, page.capacity() - at);
+			page.position(at);
+			if (write) page.put(array, offset, length);
+			else page.get(array, offset, length);
+			position += length;
+			offset += length;
+			remaining -= length;
+		}
+	}
+
+	/**
+	 * Flushes written cells to the file, see {@link MappedByteBuffer#force()}
+	 */
+	public void force() {
+		for (MappedByteBuffer page : pages())
+			page.force();
+	}
+
+	/**
+	 * A {@link Matrix} view of this matrix, writes go through unless this
+	 * matrix is read only. The list views of {@link Matrix} are limited to
+	 * {@link Integer#MAX_VALUE} cells.
+	 *
+	 * @return the view; never null
+	 */
+	public Matrix<Byte> asMatrix() {
+		return new View(this);
+	}
+
+	/**
+	 * Releases the mappings held by this object; the memory is unmapped once
+	 * the buffers are garbage collected. Any later access throws
+	 * {@link IllegalStateException}.
+	 */
+	@Override
+	public void close() {
+		if (!readOnly && pages != null) force();
+		pages = null;
+	}
+
+	private MappedByteBuffer[] pages() {
+		MappedByteBuffer[] current = pages;
+		if (current == null) throw new IllegalStateException(file + " is closed");
+		return current;
+	}
+
+	private long position(int row, int column) {
+		if (row < 0 || row >= rows || column < 0 || column >= columns)
+			throw new IndexOutOfBoundsException(
+					"(" + row + ", " + column + ") not in " + rows + "x" + columns);
+		return HEADER + (long) row * columns + column;
+	}
+
+	private void checkRow(int row, int length, int offset) {
+		if (row < 0 || row >= rows)
+			throw new IndexOutOfBoundsException("row " + row + " not in [0, " + rows + ")");
+		if (offset < 0 || offset > length - columns)
+			throw new IndexOutOfBoundsException(
+					"offset " + offset + " leaves no room for " + columns + " elements");
+	}
+
+	private void checkWritable() {
+		if (readOnly) throw new UnsupportedOperationException(file + " is mapped read only");
+	}
+
+	@Override
+	public String toString() {
+		return "MappedByteMatrix{" + file + ", " + rows + "x" + columns
+				+ (readOnly ? ", read only" : "") + '}';
+	}
+
+	private static final class View extends ReadOnlyMatrix<Byte> {
+
+		private final MappedByteMatrix matrix;
+
+		View(MappedByteMatrix matrix) {
+			this.matrix = matrix;
+		}
+
+		@Override
+		int rows() {
+			return matrix.rows;
+		}
+
+		@Override
+		int columns() {
+			return matrix.columns;
+		}
+
+		@Override
+		Byte cell(int row, int column) {
+			return matrix.get(row, column);
+		}
+
+		@Override
+		public void put(int row, int column, Byte cell) {
+			Objects.requireNonNull(cell);
+			matrix.set(row, column, cell);
+		}
+
+		@Override
+		public String toString() {
+			return matrix.toString();
+		}
+	}
+
+}
@@ -0,0 +1,351 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Bulk numeric kernels over flat row-major {@code double} and {@code float}
+ * matrices and vectors, as used for propagating location distributions. <br>
+ * All loops are unit stride and allocation free so the JIT can
+ * auto-vectorise them; {@code topK} only allocates its result and a heap of
+ * {@code k} indices. The innermost loops are delegated to a
+ * {@link VectorKernels} implementation, by default plain Java. If the
+ * {@code jdk.incubator.vector} module is present at runtime and a
+ * {@link ServiceLoader} provider of {@link VectorKernels} is on the class
+ * path, that provider is used instead; set the system property
+ * {@code gamekit.kernels.scalar} to {@code true} to disable the lookup.
+ */
+public final class MatrixKernels {
+
+	private static final VectorKernels KERNELS = loadKernels();
+
+	private MatrixKernels() {}
+
+	private static VectorKernels loadKernels() {
+		if (Boolean.getBoolean("gamekit.kernels.scalar")) return ScalarKernels.INSTANCE;
+		try {
+			Class.forName("jdk.incubator.vector.DoubleVector", false,
+					MatrixKernels.class.getClassLoader());
+			Iterator<VectorKernels> providers = ServiceLoader.load(VectorKernels.class).iterator();
+			if (providers.hasNext()) return providers.next();
+		} catch (ClassNotFoundException | LinkageError | ServiceConfigurationError e) {
+			// module or provider unusable, fall through
+		}
+		return ScalarKernels.INSTANCE;
+	}
+
+	/**
+	 * @return name of the kernels in use, e.g. {@code scalar}
+	 */
+	public static String kernels() {
+		return KERNELS.name();
+	}
+
+	/**
+	 * Computes {@code y = M * x}
+	 *
+	 * @param matrix the row-major {@code rows * columns} matrix; not null
+	 * @param rows number of rows
+	 * @param columns number of columns
+	 * @param x vector of length {@code columns}; not null
+	 * @param y receives the result, length {@code rows}; not null
+	 */
+	public static void multiply(double[] matrix, int rows, int columns, double[] x, double[] y) {
+		checkShape(matrix.length, rows, columns, x.length, columns, y.length, rows);
+		for (int row = 0; row < rows; row++)
+			y[row] = KERNELS.dot(matrix, row * columns, x, 0, columns);
+	}
+
+	/**
+	 * Computes {@code y = x * M}, rows where {@code x} is 0 are skipped
+	 *
+	 * @param x vector of length {@code rows}; not null
+	 * @param matrix the row-major {@code rows * columns} matrix; not null
+	 * @param rows number of rows
+	 * @param columns number of columns
+	 * @param y receives the result, length {@code columns}, must not be
+	 *        {@code x}; not null
+	 */
+	public static void multiplyLeft(double[] x, double[] matrix, int rows, int columns,
+			double[] y) {
+		checkShape(matrix.length, rows, columns, x.length, rows, y.length, columns);
+		if (x == y) throw new IllegalArgumentException("x == y");
+		Arrays.fill(y, 0);
+		for (int row = 0; row < rows; row++)
+			if (x[row] != 0) KERNELS.axpy(x[row], matrix, row * columns, y, 0, columns);
+	}
+
+	/**
+	 * @see #multiply(double[], int, int, double[], double[])
+	 */
+	public static void multiply(DoubleSquareMatrix matrix, double[] x, double[] y) {
+		multiply(matrix.cells(), matrix.size(), matrix.size(), x, y);
+	}
+
+	/**
+	 * @see #multiplyLeft(double[], double[], int, int, double[])
+	 */
+	public static void multiplyLeft(double[] x, DoubleSquareMatrix matrix, double[] y) {
+		multiplyLeft(x, matrix.cells(), matrix.size(), matrix.size(), y);
+	}
+
+	/**
+	 * @see #multiply(double[], int, int, double[], double[])
+	 */
+	public static void multiply(float[] matrix, int rows, int columns, float[] x, float[] y) {
+		checkShape(matrix.length, rows, columns, x.length, columns, y.length, rows);
+		for (int row = 0; row < rows; row++)
+			y[row] = KERNELS.dot(matrix, row * columns, x, 0, columns);
+	}
+
+	/**
+	 * @see #multiplyLeft(double[], double[], int, int, double[])
+	 */
+	public static void multiplyLeft(float[] x, float[] matrix, int rows, int columns,
+			float[] y) {
+		checkShape(matrix.length, rows, columns, x.length, rows, y.length, columns);
+		if (x == y) throw new IllegalArgumentException("x == y");
+		Arrays.fill(y, 0);
+		for (int row = 0; row < rows; row++)
+			if (x[row] != 0) KERNELS.axpy(x[row], matrix, row * columns, y, 0, columns);
+	}
+
+	/**
+	 * Sets every value whose mask entry is false to 0
+	 *
+	 * @param values the values; not null
+	 * @param keep the mask, same length as values; not null
+	 */
+	public static void mask(double[] values, boolean[] keep) {
+		checkLength(values.length, keep.length);
+		for (int i = 0; i < values.length; i++)
+			values[i] = keep[i] ? values[i] : 0;
+	}
+
+	/**
+	 * @see #mask(double[], boolean[])
+	 */
+	public static void mask(float[] values, boolean[] keep) {
+		checkLength(values.length, keep.length);
+		for (int i = 0; i < values.length; i++)
+			values[i] = keep[i] ? values[i] : 0;
+	}
+
+	/**
+	 * Multiplies values element-wise, e.g. by a likelihood or a 0/1 mask
+	 *
+	 * @param values the values, modified in place; not null
+	 * @param weights the weights, same length as values; not null
+	 */
+	public static void multiplyElementwise(double[] values, double[] weights) {
+		checkLength(values.length, weights.length);
+		for (int i = 0; i < values.length; i++)
+			values[i] *= weights[i];
+	}
+
+	/**
+	 * @see #multiplyElementwise(double[], double[])
+	 */
+	public static void multiplyElementwise(float[] values, float[] weights) {
+		checkLength(values.length, weights.length);
+		for (int i = 0; i < values.length; i++)
+			values[i] *= weights[i];
+	}
+
+	/**
+	 * @param values the values; not null
+	 * @return the sum of all values
+	 */
+	public static double sum(double[] values) {
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = 0;
+		for (; i + 3 < values.length; i += 4) {
+			s0 += values[i];
+			s1 += values[i + 1];
+			s2 += values[i + 2];
+			s3 += values[i + 3];
+		}
+		for (; i < values.length; i++)
+			s0 += values[i];
+		return (s0 + s1) + (s2 + s3);
+	}
+
+	/**
+	 * @see #sum(double[])
+	 */
+	public static float sum(float[] values) {
+		float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int i = 0;
+		for (; i + 3 < values.length; i += 4) {
+			s0 += values[i];
+			s1 += values[i + 1];
+			s2 += values[i + 2];
+			s3 += values[i + 3];
+		}
+		for (; i < values.length; i++)
+			s0 += values[i];
+		return (s0 + s1) + (s2 + s3);
+	}
+
+	/**
+	 * Scales the values in place so they sum to 1, values summing to 0 are
+	 * left unchanged
+	 *
+	 * @param values the values; not null
+	 * @return the sum before normalising
+	 */
+	public static double normalise(double[] values) {
+		double sum = sum(values);
+		if (sum == 0) return 0;
+		double factor = 1 / sum;
+		for (int i = 0; i < values.length; i++)
+			values[i] *= factor;
+		return sum;
+	}
+
+	/**
+	 * @see #normalise(double[])
+	 */
+	public static float normalise(float[] values) {
+		float sum = sum(values);
+		if (sum == 0) return 0;
+		float factor = 1 / sum;
+		for (int i = 0; i < values.length; i++)
+			values[i] *= factor;
+		return sum;
+	}
+
+	/**
+	 * Finds the indices of the largest values using a bounded heap
+	 *
+	 * @param values the values; not null
+	 * @param k maximum number of indices to return
+	 * @return up to {@code k} indices, largest value first; ties are broken by
+	 *         lower index
+	 */
+	public static int[] topK(double[] values, int k) {
+		if (k < 0) throw new IllegalArgumentException("k < 0");
+		int[] heap = new int[Math.min(k, values.length)];
+		int size = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (size < heap.length) {
+				heap[size] = i;
+				siftUp(values, heap, size++);
+			} else if (size > 0 && ranksBefore(values, i, heap[0])) {
+				heap[0] = i;
+				siftDown(values, heap, size);
+			}
+		}
+		// the heap holds the weakest entry first, pop into descending order
+		int[] result = new int[size];
+		for (int i = size - 1; i >= 0; i--) {
+			result[i] = heap[0];
+			heap[0] = heap[--size];
+			siftDown(values, heap, size);
+		}
+		return result;
+	}
+
+	/**
+	 * @see #topK(double[], int)
+	 */
+	public static int[] topK(float[] values, int k) {
+		if (k < 0) throw new IllegalArgumentException("k < 0");
+		int[] heap = new int[Math.min(k, values.length)];
+		int size = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (size < heap.length) {
+				heap[size] = i;
+				siftUp(values, heap, size++);
+			} else if (size > 0 && ranksBefore(values, i, heap[0])) {
+				heap[0] = i;
+				siftDown(values, heap, size);
+			}
+		}
+		int[] result = new int[size];
+		for (int i = size - 1; i >= 0; i--) {
+			result[i] = heap[0];
+			heap[0] = heap[--size];
+			siftDown(values, heap, size);
+		}
+		return result;
+	}
+
+	private static boolean ranksBefore(double[] values, int a, int b) {
+		int compare = Double.compare(values[a], values[b]);
+		return compare > 0 || (compare == 0 && a < b);
+	}
+
+	// min-heap on rank, the root is the entry that ranks last
+	private static void siftUp(double[] values, int[] heap, int at) {
+		while (at > 0) {
+			int parent = (at - 1) >>> 1;
+			if (!ranksBefore(values, heap[parent], heap[at])) break;
+			swap(heap, parent, at);
+			at = parent;
+		}
+	}
+
+	private static void siftDown(double[] values, int[] heap, int size) {
+		int at = 0;
+		while (true) {
+			int left = 2 * at + 1, right = left + 1, weakest = at;
+			if (left < size && ranksBefore(values, heap[weakest], heap[left])) weakest = left;
+			if (right < size && ranksBefore(values, heap[weakest], heap[right])) weakest = right;
+			if (weakest == at) return;
+			swap(heap, at, weakest);
+			at = weakest;
+		}
+	}
+
+	private static boolean ranksBefore(float[] values, int a, int b) {
+		int compare = Float.compare(values[a], values[b]);
+		return compare > 0 || (compare == 0 && a < b);
+	}
+
+	private static void siftUp(float[] values, int[] heap, int at) {
+		while (at > 0) {
+			int parent = (at - 1) >>> 1;
+			if (!ranksBefore(values, heap[parent], heap[at])) break;
+			swap(heap, parent, at);
+			at = parent;
+		}
+	}
+
+	private static void siftDown(float[] values, int[] heap, int size) {
+		int at = 0;
+		while (true) {
+			int left = 2 * at + 1, right = left + 1, weakest = at;
+			if (left < size && ranksBefore(values, heap[weakest], heap[left])) weakest = left;
+			if (right < size && ranksBefore(values, heap[weakest], heap[right])) weakest = right;
+			if (weakest == at) return;
+			swap(heap, at, weakest);
+			at = weakest;
+		}
+	}
+
+	private static void swap(int[] array, int a, int b) {
+		int t = array[a];
+		array[a] = array[b];
+		array[b] = t;
+	}
+
+	private static void checkShape(int cells, int rows, int columns, int xLength, int xExpected,
+			int yLength, int yExpected) {
+		if (rows < 0 || columns < 0 || (long) rows * columns != cells)
+			throw new IllegalArgumentException(
+					"matrix has " + cells + " cells, not " + rows + "x" + columns);
+		if (xLength != xExpected)
+			throw new IllegalArgumentException("x length " + xLength + " != " + xExpected);
+		if (yLength != yExpected)
+			throw new IllegalArgumentException("y length " + yLength + " != " + yExpected);
+	}
+
+	private static void checkLength(int length, int other) {
+		if (length != other)
+			throw new IllegalArgumentException("length " + length + " != " + other);
+	}
+
+}
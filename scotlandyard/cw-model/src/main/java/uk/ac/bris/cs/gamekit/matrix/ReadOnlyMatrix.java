@@ -0,0 +1,131 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base for {@link Matrix} implementations that only need to supply single
+ * cell access, all modifications are unsupported unless overridden.
+ * {@link #rowSize()} is the length of a row (the number of columns) and
+ * {@link #columnSize()} the length of a column (the number of rows).
+ *
+ * @param <T> the type of elements in the matrix
+ */
+abstract class ReadOnlyMatrix<T> extends AbstractMatrix<T> {
+
+	/**
+	 * @return number of rows
+	 */
+	abstract int rows();
+
+	/**
+	 * @return number of columns
+	 */
+	abstract int columns();
+
+	/**
+	 * {@link #get(int, int)} after bound checks
+	 */
+	abstract T cell(int row, int column);
+
+	@Override
+	public T get(int row, int column) {
+		checkBounds(row, column);
+		return cell(row, column);
+	}
+
+	@Override
+	public void put(int row, int column, T cell) {
+		throw new UnsupportedOperationException(
+				"put is not supported in " + getClass().getSimpleName());
+	}
+
+	@Override
+	public boolean inBounds(int row, int column) {
+		return row >= 0 && row < rows() && column >= 0 && column < columns();
+	}
+
+	@Override
+	public List<T> row(int row) {
+		checkBounds(row, 0);
+		List<T> values = new ArrayList<>(columns());
+		for (int column = 0; column < columns(); column++)
+			values.add(cell(row, column));
+		return Collections.unmodifiableList(values);
+	}
+
+	@Override
+	public void row(int row, List<T> values) {
+		throw new UnsupportedOperationException(
+				"row is not supported in " + getClass().getSimpleName());
+	}
+
+	@Override
+	public List<T> column(int column) {
+		checkBounds(0, column);
+		List<T> values = new ArrayList<>(rows());
+		for (int row = 0; row < rows(); row++)
+			values.add(cell(row, column));
+		return Collections.unmodifiableList(values);
+	}
+
+	@Override
+	public void column(int column, List<T> values) {
+		throw new UnsupportedOperationException(
+				"column is not supported in " + getClass().getSimpleName());
+	}
+
+	@Override
+	public List<T> mainDiagonal() {
+		int length = Math.min(rows(), columns());
+		List<T> values = new ArrayList<>(length);
+		for (int i = 0; i < length; i++)
+			values.add(cell(i, i));
+		return Collections.unmodifiableList(values);
+	}
+
+	@Override
+	public List<T> antiDiagonal() {
+		int length = Math.min(rows(), columns());
+		List<T> values = new ArrayList<>(length);
+		for (int i = 0; i < length; i++)
+			values.add(cell(i, columns() - 1 - i));
+		return Collections.unmodifiableList(values);
+	}
+
+	@Override
+	public List<T> asList() {
+		int columns = columns();
+		return new AbstractList<T>() {
+			@Override
+			public T get(int index) {
+				if (index < 0 || index >= size()) throw new IndexOutOfBoundsException(
+						"index " + index + " not in [0, " + size() + ")");
+				return cell(index / columns, index % columns);
+			}
+
+			@Override
+			public int size() {
+				return Math.multiplyExact(rows(), columns);
+			}
+		};
+	}
+
+	@Override
+	public int columnSize() {
+		return rows();
+	}
+
+	@Override
+	public int rowSize() {
+		return columns();
+	}
+
+	final void checkBounds(int row, int column) {
+		if (!inBounds(row, column)) throw new IndexOutOfBoundsException(
+				"(" + row + ", " + column + ") not in " + rows() + "x" + columns());
+	}
+
+}
@@ -0,0 +1,334 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An immutable compressed sparse row (CSR) matrix of {@code double} values,
+ * cells that are not stored hold 0. <br>
+ * Multiplication of a row vector by this matrix ({@code v * M}) only touches
+ * the rows where the vector is non zero, so propagating a sparse probability
+ * vector through a transition matrix costs time proportional to the edges
+ * leaving its support rather than to the size of the matrix.
+ */
+public final class SparseDoubleMatrix implements Serializable {
+
+	private static final long serialVersionUID = 1841398811250652807L;
+	private final int rows, columns;
+	private final int[] offsets;
+	private final int[] columnIndex;
+	private final double[] values;
+
+	private SparseDoubleMatrix(int rows, int columns, int[] offsets, int[] columnIndex,
+			double[] values) {
+		this.rows = rows;
+		this.columns = columns;
+		this.offsets = offsets;
+		this.columnIndex = columnIndex;
+		this.values = values;
+	}
+
+	/**
+	 * @return number of rows
+	 */
+	public int rows() {
+		return rows;
+	}
+
+	/**
+	 * @return number of columns
+	 */
+	public int columns() {
+		return columns;
+	}
+
+	/**
+	 * @param row the row of the element
+	 * @param column the column of the element
+	 * @return the element
+	 */
+	public double get(int row, int column) {
+		if (row < 0 || row >= rows || column < 0 || column >= columns)
+			throw new IndexOutOfBoundsException(
+					"(" + row + ", " + column + ") not in " + rows + "x" + columns);
+		int found = Arrays.binarySearch(columnIndex, offsets[row], offsets[row + 1], column);
+		return found < 0 ? 0 : values[found];
+	}
+
+	/**
+	 * @return number of stored cells
+	 */
+	public int nonZeros() {
+		return columnIndex.length;
+	}
+
+	/**
+	 * @param row the row
+	 * @return number of stored cells in the row
+	 */
+	public int nonZeros(int row) {
+		return offsets[row + 1] - offsets[row];
+	}
+
+	/**
+	 * @param row the row
+	 * @param i the ordinal of the stored cell in {@code [0, nonZeros(row))},
+	 *        cells are in increasing column order
+	 * @return the column of the stored cell
+	 */
+	public int columnAt(int row, int i) {
+		return columnIndex[offsets[row] + i];
+	}
+
+	/**
+	 * @param row the row
+	 * @param i the ordinal of the stored cell in {@code [0, nonZeros(row))}
+	 * @return the value of the stored cell
+	 */
+	public double valueAt(int row, int i) {
+		return values[offsets[row] + i];
+	}
+
+	/**
+	 * Computes {@code vector * this}
+	 *
+	 * @param vector a vector of dimension {@link #rows()}; not null
+	 * @return the product of dimension {@link #columns()}, entries that are
+	 *         exactly 0 are not stored
+	 */
+	public SparseVector multiply(SparseVector vector) {
+		return multiply(vector, new Workspace(this));
+	}
+
+	/**
+	 * Computes {@code vector * this} reusing the given workspace so repeated
+	 * multiplications do not allocate scratch space
+	 *
+	 * @param vector a vector of dimension {@link #rows()}; not null
+	 * @param workspace a workspace created for a matrix with the same number
+	 *        of columns, must not be used by multiple threads at once; not null
+	 * @return the product of dimension {@link #columns()}, entries that are
+	 *         exactly 0 are not stored
+	 */
+	public SparseVector multiply(SparseVector vector, Workspace workspace) {
+		if (vector.dimension() != rows) throw new IllegalArgumentException(
+				"vector dimension " + vector.dimension() + " != rows " + rows);
+		if (workspace.accumulator.length != columns) throw new IllegalArgumentException(
+				"workspace is for " + workspace.accumulator.length + " columns, not " + columns);
+		double[] accumulator = workspace.accumulator;
+		boolean[] seen = workspace.seen;
+		int[] touched = workspace.touched;
+		int count = 0;
+		for (int i = 0; i < vector.nonZeros(); i++) {
+			int row = vector.indexAt(i);
+			double weight = vector.valueAt(i);
+			for (int entry = offsets[row], end = offsets[row + 1]; entry < end; entry++) {
+				int column = columnIndex[entry];
+				if (!seen[column]) {
+					seen[column] = true;
+					touched[count++] = column;
+				}
+				accumulator[column] += weight * values[entry];
+			}
+		}
+		// sorting a few touched columns beats scanning all of them
+		if (count < columns / 8) Arrays.sort(touched, 0, count);
+		else {
+			count = 0;
+			for (int column = 0; column < columns; column++)
+				if (seen[column]) touched[count++] = column;
+		}
+		int[] indices = new int[count];
+		double[] result = new double[count];
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			int column = touched[i];
+			double value = accumulator[column];
+			accumulator[column] = 0;
+			seen[column] = false;
+			if (value == 0) continue;
+			indices[size] = column;
+			result[size++] = value;
+		}
+		return new SparseVector(columns, size == count ? indices : Arrays.copyOf(indices, size),
+				size == count ? result : Arrays.copyOf(result, size));
+	}
+
+	/**
+	 * Computes {@code vector * this} for dense vectors
+	 *
+	 * @param vector a vector of length {@link #rows()}; not null
+	 * @param result receives the product, must have length
+	 *        {@link #columns()} and must not be {@code vector}; not null
+	 */
+	public void multiply(double[] vector, double[] result) {
+		if (vector.length != rows) throw new IllegalArgumentException(
+				"vector length " + vector.length + " != rows " + rows);
+		if (result.length != columns) throw new IllegalArgumentException(
+				"result length " + result.length + " != columns " + columns);
+		if (vector == result) throw new IllegalArgumentException("vector == result");
+		Arrays.fill(result, 0);
+		for (int row = 0; row < rows; row++) {
+			double weight = vector[row];
+			if (weight == 0) continue;
+			for (int entry = offsets[row], end = offsets[row + 1]; entry < end; entry++)
+				result[columnIndex[entry]] += weight * values[entry];
+		}
+	}
+
+	/**
+	 * A read only {@link Matrix} view of this matrix, cells are boxed on every
+	 * access
+	 *
+	 * @return the view; never null
+	 */
+	public Matrix<Double> asMatrix() {
+		return new View(this);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		SparseDoubleMatrix that = (SparseDoubleMatrix) o;
+		return rows == that.rows && columns == that.columns
+				&& Arrays.equals(offsets, that.offsets)
+				&& Arrays.equals(columnIndex, that.columnIndex)
+				&& Arrays.equals(values, that.values);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 31 * rows + columns;
+		result = 31 * result + Arrays.hashCode(columnIndex);
+		return 31 * result + Arrays.hashCode(values);
+	}
+
+	@Override
+	public String toString() {
+		return "SparseDoubleMatrix{" + rows + "x" + columns + ", nonZeros=" + nonZeros() + '}';
+	}
+
+	/**
+	 * Scratch space for {@link #multiply(SparseVector, Workspace)}
+	 */
+	public static final class Workspace {
+
+		private final double[] accumulator;
+		private final boolean[] seen;
+		private final int[] touched;
+
+		/**
+		 * @param matrix the matrix this workspace is used with; not null
+		 */
+		public Workspace(SparseDoubleMatrix matrix) {
+			this.accumulator = new double[matrix.columns];
+			this.seen = new boolean[matrix.columns];
+			this.touched = new int[matrix.columns];
+		}
+	}
+
+	/**
+	 * Builder for {@link SparseDoubleMatrix}
+	 */
+	public static final class Builder {
+
+		private final int rows, columns;
+		private int[] rowIndex = new int[0];
+		private int[] columnIndex = new int[0];
+		private double[] values = new double[0];
+		private int count;
+
+		/**
+		 * @param rows number of rows, must be &gt; 0
+		 * @param columns number of columns, must be &gt; 0
+		 */
+		public Builder(int rows, int columns) {
+			SparseLayout.checkShape(rows, columns);
+			this.rows = rows;
+			this.columns = columns;
+		}
+
+		/**
+		 * Adds to a cell, adding to the same cell again sums the values
+		 *
+		 * @param row the row
+		 * @param column the column
+		 * @param value the value
+		 * @return this builder
+		 */
+		public Builder add(int row, int column, double value) {
+			if (row < 0 || row >= rows || column < 0 || column >= columns)
+				throw new IndexOutOfBoundsException(
+						"(" + row + ", " + column + ") not in " + rows + "x" + columns);
+			if (count == rowIndex.length) {
+				rowIndex = SparseLayout.grow(rowIndex);
+				columnIndex = Arrays.copyOf(columnIndex, rowIndex.length);
+				values = Arrays.copyOf(values, rowIndex.length);
+			}
+			rowIndex[count] = row;
+			columnIndex[count] = column;
+			values[count] = value;
+			count++;
+			return this;
+		}
+
+		/**
+		 * @return the matrix, cells summing to exactly 0 are not stored
+		 */
+		public SparseDoubleMatrix build() {
+			int[] order = SparseLayout.order(rows, rowIndex, columnIndex, count);
+			int[] offsets = new int[rows + 1];
+			int[] columnsOut = new int[count];
+			double[] valuesOut = new double[count];
+			int size = 0;
+			for (int i = 0; i < count; ) {
+				int entry = order[i];
+				int row = rowIndex[entry], column = columnIndex[entry];
+				double sum = 0;
+				for (; i < count && rowIndex[order[i]] == row
+						&& columnIndex[order[i]] == column; i++)
+					sum += values[order[i]];
+				if (sum == 0) continue;
+				columnsOut[size] = column;
+				valuesOut[size++] = sum;
+				offsets[row + 1]++;
+			}
+			for (int row = 0; row < rows; row++)
+				offsets[row + 1] += offsets[row];
+			return new SparseDoubleMatrix(rows, columns, offsets,
+					Arrays.copyOf(columnsOut, size), Arrays.copyOf(valuesOut, size));
+		}
+	}
+
+	private static final class View extends ReadOnlyMatrix<Double> implements Serializable {
+
+		private static final long serialVersionUID = -1538471519834806215L;
+		private final SparseDoubleMatrix matrix;
+
+		View(SparseDoubleMatrix matrix) {
+			this.matrix = matrix;
+		}
+
+		@Override
+		int rows() {
+			return matrix.rows;
+		}
+
+		@Override
+		int columns() {
+			return matrix.columns;
+		}
+
+		@Override
+		Double cell(int row, int column) {
+			return matrix.get(row, column);
+		}
+
+		@Override
+		public String toString() {
+			return matrix.toString();
+		}
+	}
+
+}
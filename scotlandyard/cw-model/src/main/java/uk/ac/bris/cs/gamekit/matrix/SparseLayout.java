@@ -0,0 +1,48 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.util.Arrays;
+
+/**
+ * Sorting of coordinate entries into compressed sparse row (CSR) order, used
+ * by the sparse matrix builders
+ */
+final class SparseLayout {
+
+	private SparseLayout() {}
+
+	static void checkShape(int rows, int columns) {
+		if (rows < 1 || columns < 1) throw new IllegalArgumentException(
+				"Shape must be at least 1x1, got " + rows + "x" + columns);
+	}
+
+	/**
+	 * @return entry indices ordered by row, then column, then insertion order
+	 */
+	static int[] order(int rows, int[] rowIndex, int[] columnIndex, int count) {
+		int[] offsets = new int[rows + 1];
+		for (int i = 0; i < count; i++)
+			offsets[rowIndex[i] + 1]++;
+		for (int row = 0; row < rows; row++)
+			offsets[row + 1] += offsets[row];
+		int[] cursor = Arrays.copyOf(offsets, rows);
+		int[] byRow = new int[count];
+		for (int i = 0; i < count; i++)
+			byRow[cursor[rowIndex[i]]++] = i;
+		// entries are in insertion order within a row, sort by column keeping it
+		long[] keys = new long[count];
+		for (int i = 0; i < count; i++)
+			keys[i] = ((long) columnIndex[byRow[i]] << 32) | byRow[i];
+		for (int row = 0; row < rows; row++)
+			if (offsets[row + 1] - offsets[row] > 1)
+				Arrays.sort(keys, offsets[row], offsets[row + 1]);
+		int[] order = new int[count];
+		for (int i = 0; i < count; i++)
+			order[i] = (int) keys[i];
+		return order;
+	}
+
+	static int[] grow(int[] array) {
+		return Arrays.copyOf(array, Math.max(16, array.length + (array.length >> 1)));
+	}
+
+}
@@ -0,0 +1,176 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An immutable compressed sparse row (CSR) {@link Matrix}, cells that were
+ * never set hold a common absent value. <br>
+ * Lookups are a binary search within the row; iterating the stored cells of
+ * a row with {@link #nonZeros(int)}, {@link #columnAt(int, int)} and
+ * {@link #valueAt(int, int)} does not search at all. See
+ * {@link SparseDoubleMatrix} for a primitive variant.
+ *
+ * @param <T> the type of elements in the matrix
+ */
+public final class SparseMatrix<T> extends ReadOnlyMatrix<T> implements Serializable {
+
+	private static final long serialVersionUID = -8135409417207712042L;
+	private final int rows, columns;
+	private final int[] offsets;
+	private final int[] columnIndex;
+	private final Object[] values;
+	private final T absent;
+
+	private SparseMatrix(int rows, int columns, int[] offsets, int[] columnIndex,
+			Object[] values, T absent) {
+		this.rows = rows;
+		this.columns = columns;
+		this.offsets = offsets;
+		this.columnIndex = columnIndex;
+		this.values = values;
+		this.absent = absent;
+	}
+
+	@Override
+	int rows() {
+		return rows;
+	}
+
+	@Override
+	int columns() {
+		return columns;
+	}
+
+	@Override
+	T cell(int row, int column) {
+		int found = Arrays.binarySearch(columnIndex, offsets[row], offsets[row + 1], column);
+		return found < 0 ? absent : value(found);
+	}
+
+	/**
+	 * @return the value of cells that are not stored
+	 */
+	public T absent() {
+		return absent;
+	}
+
+	/**
+	 * @return number of stored cells
+	 */
+	public int nonZeros() {
+		return columnIndex.length;
+	}
+
+	/**
+	 * @param row the row
+	 * @return number of stored cells in the row
+	 */
+	public int nonZeros(int row) {
+		checkBounds(row, 0);
+		return offsets[row + 1] - offsets[row];
+	}
+
+	/**
+	 * @param row the row
+	 * @param i the ordinal of the stored cell in {@code [0, nonZeros(row))},
+	 *        cells are in increasing column order
+	 * @return the column of the stored cell
+	 */
+	public int columnAt(int row, int i) {
+		return columnIndex[offsets[row] + i];
+	}
+
+	/**
+	 * @param row the row
+	 * @param i the ordinal of the stored cell in {@code [0, nonZeros(row))}
+	 * @return the value of the stored cell
+	 */
+	public T valueAt(int row, int i) {
+		return value(offsets[row] + i);
+	}
+
+	@SuppressWarnings("unchecked")
+	private T value(int entry) {
+		return (T) values[entry];
+	}
+
+	@Override
+	public String toString() {
+		return "SparseMatrix{" + rows + "x" + columns + ", nonZeros=" + nonZeros() + '}';
+	}
+
+	/**
+	 * Builder for {@link SparseMatrix}
+	 *
+	 * @param <T> the type of elements in the matrix
+	 */
+	public static final class Builder<T> {
+
+		private final int rows, columns;
+		private final T absent;
+		private int[] rowIndex = new int[0];
+		private int[] columnIndex = new int[0];
+		private Object[] values = new Object[0];
+		private int count;
+
+		/**
+		 * @param rows number of rows, must be &gt; 0
+		 * @param columns number of columns, must be &gt; 0
+		 * @param absent the value of cells that are not set, can be null
+		 */
+		public Builder(int rows, int columns, T absent) {
+			SparseLayout.checkShape(rows, columns);
+			this.rows = rows;
+			this.columns = columns;
+			this.absent = absent;
+		}
+
+		/**
+		 * Sets a cell, setting the same cell again replaces the value
+		 *
+		 * @param row the row
+		 * @param column the column
+		 * @param value the value, can be null
+		 * @return this builder
+		 */
+		public Builder<T> put(int row, int column, T value) {
+			if (row < 0 || row >= rows || column < 0 || column >= columns)
+				throw new IndexOutOfBoundsException(
+						"(" + row + ", " + column + ") not in " + rows + "x" + columns);
+			if (count == rowIndex.length) {
+				rowIndex = SparseLayout.grow(rowIndex);
+				columnIndex = Arrays.copyOf(columnIndex, rowIndex.length);
+				values = Arrays.copyOf(values, rowIndex.length);
+			}
+			rowIndex[count] = row;
+			columnIndex[count] = column;
+			values[count] = value;
+			count++;
+			return this;
+		}
+
+		public SparseMatrix<T> build() {
+			int[] order = SparseLayout.order(rows, rowIndex, columnIndex, count);
+			int[] offsets = new int[rows + 1];
+			int[] columnsOut = new int[count];
+			Object[] valuesOut = new Object[count];
+			int size = 0;
+			for (int i = 0; i < count; i++) {
+				int entry = order[i];
+				// a later entry for the same cell replaces the earlier one
+				if (i + 1 < count && rowIndex[order[i + 1]] == rowIndex[entry]
+						&& columnIndex[order[i + 1]] == columnIndex[entry]) continue;
+				columnsOut[size] = columnIndex[entry];
+				valuesOut[size] = values[entry];
+				offsets[rowIndex[entry] + 1]++;
+				size++;
+			}
+			for (int row = 0; row < rows; row++)
+				offsets[row + 1] += offsets[row];
+			return new SparseMatrix<>(rows, columns, offsets, Arrays.copyOf(columnsOut, size),
+					Arrays.copyOf(valuesOut, size), absent);
+		}
+	}
+
+}
@@ -0,0 +1,179 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An immutable sparse vector of {@code double} values, stored as strictly
+ * increasing indices and their values. Indices that are not stored hold 0.
+ */
+public final class SparseVector implements Serializable {
+
+	private static final long serialVersionUID = 3394227315512924733L;
+	private final int dimension;
+	private final int[] indices;
+	private final double[] values;
+
+	SparseVector(int dimension, int[] indices, double[] values) {
+		this.dimension = dimension;
+		this.indices = indices;
+		this.values = values;
+	}
+
+	/**
+	 * @param dimension the dimension, must be &gt; 0
+	 * @param indices strictly increasing indices in {@code [0, dimension)};
+	 *        not null
+	 * @param values values of the given indices; not null
+	 * @return a new vector; the arrays are copied
+	 */
+	public static SparseVector of(int dimension, int[] indices, double[] values) {
+		if (dimension < 1) throw new IllegalArgumentException("dimension < 1");
+		if (indices.length != values.length)
+			throw new IllegalArgumentException("indices.length != values.length");
+		for (int i = 0; i < indices.length; i++) {
+			if (indices[i] < 0 || indices[i] >= dimension) throw new IndexOutOfBoundsException(
+					"index " + indices[i] + " not in [0, " + dimension + ")");
+			if (i > 0 && indices[i] <= indices[i - 1])
+				throw new IllegalArgumentException("indices are not strictly increasing");
+		}
+		return new SparseVector(dimension, indices.clone(), values.clone());
+	}
+
+	/**
+	 * @param dimension the dimension, must be &gt; 0
+	 * @param index the only non zero index
+	 * @param value the value at the index
+	 * @return a new vector with a single non zero entry
+	 */
+	public static SparseVector unit(int dimension, int index, double value) {
+		return of(dimension, new int[] { index }, new double[] { value });
+	}
+
+	/**
+	 * @param values the dense values; not null and not empty
+	 * @return a new vector with the non zero entries of the given array
+	 */
+	public static SparseVector fromDense(double[] values) {
+		if (values.length == 0) throw new IllegalArgumentException("values is empty");
+		int count = 0;
+		for (double value : values)
+			if (value != 0) count++;
+		int[] indices = new int[count];
+		double[] nonZero = new double[count];
+		for (int i = 0, j = 0; i < values.length; i++) {
+			if (values[i] == 0) continue;
+			indices[j] = i;
+			nonZero[j++] = values[i];
+		}
+		return new SparseVector(values.length, indices, nonZero);
+	}
+
+	/**
+	 * @return the dimension
+	 */
+	public int dimension() {
+		return dimension;
+	}
+
+	/**
+	 * @return number of stored entries
+	 */
+	public int nonZeros() {
+		return indices.length;
+	}
+
+	/**
+	 * @param i the entry ordinal in {@code [0, nonZeros())}
+	 * @return the index of the entry
+	 */
+	public int indexAt(int i) {
+		return indices[i];
+	}
+
+	/**
+	 * @param i the entry ordinal in {@code [0, nonZeros())}
+	 * @return the value of the entry
+	 */
+	public double valueAt(int i) {
+		return values[i];
+	}
+
+	/**
+	 * @param index the index in {@code [0, dimension())}
+	 * @return the value at the index
+	 */
+	public double get(int index) {
+		if (index < 0 || index >= dimension)
+			throw new IndexOutOfBoundsException("index " + index + " not in [0, " + dimension + ")");
+		int found = Arrays.binarySearch(indices, index);
+		return found < 0 ? 0 : values[found];
+	}
+
+	/**
+	 * @return the sum of all values
+	 */
+	public double sum() {
+		double sum = 0;
+		for (double value : values)
+			sum += value;
+		return sum;
+	}
+
+	/**
+	 * @param factor the factor
+	 * @return a new vector with every value multiplied by the factor
+	 */
+	public SparseVector scale(double factor) {
+		double[] scaled = values.clone();
+		for (int i = 0; i < scaled.length; i++)
+			scaled[i] *= factor;
+		return new SparseVector(dimension, indices, scaled);
+	}
+
+	/**
+	 * @return a new vector scaled so its values sum to 1
+	 * @throws IllegalStateException if the values sum to 0
+	 */
+	public SparseVector normalised() {
+		double sum = sum();
+		if (sum == 0) throw new IllegalStateException("Cannot normalise a vector summing to 0");
+		return scale(1 / sum);
+	}
+
+	/**
+	 * @return the dense values
+	 */
+	public double[] toDense() {
+		double[] dense = new double[dimension];
+		for (int i = 0; i < indices.length; i++)
+			dense[indices[i]] = values[i];
+		return dense;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		SparseVector that = (SparseVector) o;
+		return dimension == that.dimension && Arrays.equals(indices, that.indices)
+				&& Arrays.equals(values, that.values);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * dimension + Arrays.hashCode(indices)) + Arrays.hashCode(values);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("SparseVector{dimension=")
+				.append(dimension).append(", ");
+		for (int i = 0; i < indices.length; i++) {
+			if (i > 0) builder.append(", ");
+			builder.append(indices[i]).append('=').append(values[i]);
+		}
+		return builder.append('}').toString();
+	}
+
+}
@@ -0,0 +1,39 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+/**
+ * The innermost loops used by {@link MatrixKernels}. The default
+ * implementation is plain Java that the JIT auto-vectorises; an alternative,
+ * for example one built on {@code jdk.incubator.vector}, can be registered
+ * as a {@link java.util.ServiceLoader} provider of this interface and is
+ * picked up when that module is available at runtime.
+ */
+public interface VectorKernels {
+
+	/**
+	 * @return a short name for diagnostics
+	 */
+	String name();
+
+	/**
+	 * @return {@code sum(a[aOffset + i] * b[bOffset + i])} for {@code i} in
+	 *         {@code [0, length)}
+	 */
+	double dot(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+	/**
+	 * {@code y[yOffset + i] += alpha * x[xOffset + i]} for {@code i} in
+	 * {@code [0, length)}
+	 */
+	void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length);
+
+	/**
+	 * @see #dot(double[], int, double[], int, int)
+	 */
+	float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+	/**
+	 * @see #axpy(double, double[], int, double[], int, int)
+	 */
+	void axpy(float alpha, float[] x, int xOffset, float[] y, int yOffset, int length);
+
+}
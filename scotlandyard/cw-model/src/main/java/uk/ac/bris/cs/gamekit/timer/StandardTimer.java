@@ -6,10 +6,18 @@ import java.util.concurrent.TimeUnit;
 
 public class StandardTimer implements Timer {
 
-	private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+	private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+			runnable -> {
+				Thread thread = new Thread(runnable, "timer");
+				thread.setDaemon(true);
+				return thread;
+			});
 
 	public StandardTimer() {
 		scheduler.setRemoveOnCancelPolicy(true);
+		// an idle timer must not keep its thread, or the JVM, alive
+		scheduler.setKeepAliveTime(1, TimeUnit.SECONDS);
+		scheduler.allowCoreThreadTimeOut(true);
 	}
 
 	@Override
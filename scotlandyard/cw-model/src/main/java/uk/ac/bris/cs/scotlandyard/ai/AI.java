@@ -7,11 +7,21 @@ import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 
 import com.google.common.base.MoreObjects;
 
@@ -24,6 +34,20 @@ import uk.ac.bris.cs.scotlandyard.ai.ManagedAI.VisualiserType;
  */
 public final class AI {
 
+	/**
+	 * The resource listing {@link ManagedAI} classes, one binary name per
+	 * line, written by {@link ManagedAIProcessor}
+	 */
+	public static final String INDEX = ManagedAIProcessor.INDEX;
+
+	/**
+	 * System property that, set to {@code true}, makes
+	 * {@link #scanClasspath()} scan the whole classpath even if there is an
+	 * {@link #INDEX}, finding AIs compiled without {@link ManagedAIProcessor}
+	 * such as those built by an IDE
+	 */
+	public static final String SCAN_PROPERTY = "scotlandyard.ai.scan";
+
 	private final String name;
 	private final VisualiserType type;
 	private final Class<? extends PlayerFactory> factoryClass;
@@ -90,9 +114,22 @@ public final class AI {
 				       .toString();
 	}
 
+	/**
+	 * Finds all {@link ManagedAI} classes, from every {@link #INDEX} on the
+	 * classpath or by scanning the whole classpath if there is none or
+	 * {@link #SCAN_PROPERTY} is set. Using an index is reported on standard
+	 * error, as AIs missing from it are not found.
+	 *
+	 * @return the AIs; never null
+	 */
 	@SuppressWarnings("unchecked")
 	public static List<AI> scanClasspath() {
-		List<String> annotated = new FastClasspathScanner().scan()
+		List<String> annotated = Boolean.getBoolean(SCAN_PROPERTY) ? new ArrayList<>()
+				: readIndex(AI.class.getClassLoader());
+		boolean indexed = !annotated.isEmpty();
+		if (indexed) System.err.println("Using " + annotated.size() + " AIs from " + INDEX
+				+ ", run with -D" + SCAN_PROPERTY + "=true to find AIs compiled without it");
+		else annotated = new FastClasspathScanner().scan()
 				.getNamesOfClassesWithAnnotation(ManagedAI.class);
 		List<AI> ais = annotated.stream().map(c -> {
 			try {
@@ -100,11 +137,16 @@ public final class AI {
 				if (!PlayerFactory.class.isAssignableFrom(clazz))
 					throw new IllegalArgumentException(
 							c + " does not implement " + PlayerFactory.class);
-				return new AI(clazz.getAnnotation(ManagedAI.class), (Class<PlayerFactory>) clazz);
+				ManagedAI ai = clazz.getAnnotation(ManagedAI.class);
+				if (ai == null)
+					throw new IllegalArgumentException(c + " is not annotated with " + ManagedAI.class);
+				return new AI(ai, (Class<PlayerFactory>) clazz);
 			} catch (ClassNotFoundException e) {
+				// an index may outlive a deleted class
+				if (indexed) return null;
 				throw new RuntimeException(e);
 			}
-		}).collect(toList());
+		}).filter(Objects::nonNull).collect(toList());
 		Map<AI, Long> map = ais.stream().collect(groupingBy(identity(), counting()));
 		Map<AI, Long> histogram = map.entrySet().stream().filter(e -> e.getValue() > 1)
 				.collect(toMap(Entry::getKey, Entry::getValue));
@@ -115,4 +157,26 @@ public final class AI {
 		return ais;
 	}
 
+	/**
+	 * @param loader the class loader to search; not null
+	 * @return the distinct class names of all {@link #INDEX} resources, empty
+	 *         if there are none
+	 */
+	static List<String> readIndex(ClassLoader loader) {
+		Set<String> names = new LinkedHashSet<>();
+		try {
+			Enumeration<URL> indices = loader.getResources(INDEX);
+			while (indices.hasMoreElements()) {
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+						indices.nextElement().openStream(), StandardCharsets.UTF_8))) {
+					reader.lines().map(line -> line.replaceFirst("#.*", "").trim())
+							.filter(line -> !line.isEmpty()).forEach(names::add);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return new ArrayList<>(names);
+	}
+
 }
@@ -1,34 +1,52 @@
 package uk.ac.bris.cs.scotlandyard.ai;
 
+import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
-import com.google.common.collect.ImmutableSet;
-
 import javafx.scene.layout.Pane;
+import uk.ac.bris.cs.gamekit.timer.StandardTimer;
+import uk.ac.bris.cs.gamekit.timer.Timer;
 import uk.ac.bris.cs.scotlandyard.ResourceManager;
 import uk.ac.bris.cs.scotlandyard.model.Colour;
 import uk.ac.bris.cs.scotlandyard.model.Move;
 import uk.ac.bris.cs.scotlandyard.model.Player;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
 
 /**
  * <b> Not a public API, do not use!</b> <br>
  * Internal pooling mechanism for AIs. AIs that are on the same group will share
- * a common GameFactory.
+ * a common GameFactory. <br>
+ * Every move must arrive a little before the game's move timeout, otherwise
+ * the AI's thread is interrupted and a {@link FallbackPolicy} move is played
+ * for it; {@link #statisticsFor(Colour)} tells how often that happened. AIs
+ * with a {@link Ponderer} think ahead on their executor unless they or an AI
+ * sharing the executor are on the clock, see {@link PonderScheduler}. AIs
+ * that want it are given a {@link WarmUp} on a background thread before the
+ * game starts. <br>
+ * The CPU time, allocation and wall-clock time of every move are recorded
+ * per colour, see {@link #usageFor(Colour)}, and handed to the usage
+ * listener when the game is over. An AI whose usage over the game exceeds
+ * the {@link ResourceLimits} forfeits. Usage covers only the thread asked
+ * for the move, not threads the AI starts itself, pondering or warming up.
  * 
  * @param <G> the group, must be stable with proper {@link Object#hashCode()}
  *        and {@link Object#equals(Object)}
@@ -37,26 +55,154 @@ public class AIPool<G> {
 
 	private final VisualiserSurface surface;
 	private final Consumer<Throwable> exceptionHandler;
+	private final ExecutorStrategy<G> executors;
+	private final FallbackPolicy fallback;
+	private final Timer timer = new StandardTimer();
+	private final PonderScheduler pondering = new PonderScheduler();
 	private final Map<G, AIGroup> groups = new HashMap<>();
+	private volatile boolean terminated;
+	private Duration warmUpBudget = WarmUp.DEFAULT_BUDGET;
+	private ResourceLimits limits = ResourceLimits.NONE;
+	private BiConsumer<Colour, String> forfeitHandler = (colour, reason) -> {};
+	private Consumer<Map<Colour, ResourceUsage>> usageListener = usage -> {};
 
 	public AIPool(VisualiserSurface surface, Consumer<Throwable> exceptionHandler) {
+		this(surface, exceptionHandler, (group, ai) -> MoveExecutor.shared());
+	}
+
+	public AIPool(VisualiserSurface surface, Consumer<Throwable> exceptionHandler,
+			ExecutorStrategy<G> executors) {
+		this(surface, exceptionHandler, executors, FallbackPolicy.CHEAPEST);
+	}
+
+	public AIPool(VisualiserSurface surface, Consumer<Throwable> exceptionHandler,
+			ExecutorStrategy<G> executors, FallbackPolicy fallback) {
 		this.surface = surface;
 		this.exceptionHandler = exceptionHandler;
+		this.executors = requireNonNull(executors);
+		this.fallback = requireNonNull(fallback);
+	}
+
+	/**
+	 * @param budget time each AI that wants one gets to warm up in
+	 *        {@link #initialise(ResourceManager, ScotlandYardGame, Duration, Executor)},
+	 *        zero to skip warming up; not null
+	 */
+	public void setWarmUpBudget(Duration budget) {
+		if (budget.isNegative()) throw new IllegalArgumentException("budget is negative");
+		this.warmUpBudget = budget;
+	}
+
+	/**
+	 * @param limits the budgets of every AI for the whole game; not null
+	 * @param forfeitHandler told the colour that was moving and why when an
+	 *        AI exceeds them; not null
+	 */
+	public void setResourceLimits(ResourceLimits limits,
+			BiConsumer<Colour, String> forfeitHandler) {
+		this.limits = requireNonNull(limits);
+		this.forfeitHandler = requireNonNull(forfeitHandler);
+	}
+
+	/**
+	 * @param listener given the usage of every AI colour when the game is
+	 *        over, does nothing by default; not null
+	 */
+	public void setUsageListener(Consumer<Map<Colour, ResourceUsage>> listener) {
+		this.usageListener = requireNonNull(listener);
 	}
 
 	public void addToGroup(G group, Colour colour, AI ai) {
-		groups.computeIfAbsent(group, g -> new AIGroup()).add(colour, ai);
+		groups.computeIfAbsent(group, AIGroup::new).add(colour, ai);
+	}
+
+	public Optional<MoveExecutor> executorFor(Colour colour) {
+		return groups.values().stream()
+				.map(group -> group.executorFor(colour))
+				.filter(Objects::nonNull)
+				.findFirst();
 	}
 
-	public void initialise(ResourceManager manager, ScotlandYardGame game) {
+	public Optional<MoveStatistics> statisticsFor(Colour colour) {
+		return groups.values().stream()
+				.map(group -> group.statisticsFor(colour))
+				.filter(Objects::nonNull)
+				.findFirst();
+	}
+
+	/**
+	 * @param colour the colour
+	 * @return the resources the AI playing the colour used for it; the
+	 *         {@link ResourceUsage#parent() parent} is the AI's total
+	 */
+	public Optional<ResourceUsage> usageFor(Colour colour) {
+		return groups.values().stream()
+				.map(group -> group.usageFor(colour))
+				.filter(Objects::nonNull)
+				.findFirst();
+	}
+
+	/**
+	 * @return the usage of every colour played by an AI
+	 */
+	public Map<Colour, ResourceUsage> usage() {
+		Map<Colour, ResourceUsage> usage = new TreeMap<>();
+		groups.values().forEach(group -> usage.putAll(group.usage));
+		return usage;
+	}
+
+	/**
+	 * Creates the factories of every AI and registers their spectators with
+	 * the game; players can be created once this returns. Warm-ups then run
+	 * on a background thread, after which the factories are made ready on
+	 * {@code main}.
+	 *
+	 * @param manager the resources for the AIs; not null
+	 * @param game the game; not null
+	 * @param timeout the game's move timeout, null or not positive for none
+	 * @param main runs the last step, e.g. the UI thread; not null
+	 * @return completes on {@code main} once every AI is ready for the game
+	 *         to start; never null
+	 */
+	public CompletableFuture<Void> initialise(ResourceManager manager, ScotlandYardGame game,
+			Duration timeout, Executor main) {
+		requireNonNull(main);
+		game.registerSpectator(pondering);
+		game.registerSpectator(new Spectator() {
+			@Override
+			public void onGameOver(ScotlandYardView view, Set<Colour> winningPlayers) {
+				usageListener.accept(usage());
+			}
+		});
+		List<AIGroup> initialised = new ArrayList<>();
 		groups.values().forEach(group -> {
 			try {
-				group.initialise(manager, game);
+				group.initialise(game, timeout);
+				initialised.add(group);
 			} catch (Exception e) {
 				e.printStackTrace();
 				exceptionHandler.accept(e);
 			}
 		});
+		List<Colour> colours = new ArrayList<>(game.getPlayers());
+		return CompletableFuture
+				.runAsync(() -> initialised.forEach(group -> group.warmUp(colours)),
+						AIPool::warmUpThread)
+				.thenRunAsync(() -> initialised.forEach(group -> {
+					if (terminated) return;
+					try {
+						group.ready(manager);
+					} catch (Exception e) {
+						e.printStackTrace();
+						exceptionHandler.accept(e);
+					}
+				}), main);
+	}
+
+	private static void warmUpThread(Runnable warmUp) {
+		Thread thread = new Thread(warmUp, "ai-warm-up");
+		thread.setDaemon(true);
+		thread.start();
 	}
 
 	public Optional<Player> createPlayer(Colour colour) {
@@ -72,6 +218,7 @@ public class AIPool<G> {
 	}
 
 	public void terminate() {
+		terminated = true;
 		groups.values().forEach((group) -> {
 			try {
 				group.terminate();
@@ -79,9 +226,22 @@ public class AIPool<G> {
 				exceptionHandler.accept(e);
 			}
 		});
+		pondering.stop();
+		timer.stopAll();
 		surface.onDestroy();
 	}
 
+	/**
+	 * Chooses the executor that runs the moves of an AI, called once for
+	 * every distinct AI of a group when the pool is initialised
+	 */
+	@FunctionalInterface
+	public interface ExecutorStrategy<G> {
+
+		MoveExecutor executorFor(G group, AI ai);
+
+	}
+
 	public interface VisualiserSurface {
 
 		Pane onCreate(AI ai);
@@ -92,19 +252,61 @@ public class AIPool<G> {
 
 	class AIGroup {
 
+		private final G group;
 		private final Map<Colour, AI> ais = new HashMap<>();
 		private Map<AI, PlayerFactory> factories = new HashMap<>();
+		private Map<AI, MoveExecutor> executors = new HashMap<>();
+		private final Map<AI, MoveStatistics> statistics = new HashMap<>();
+		private final Map<AI, ResourceUsage> totals = new HashMap<>();
+		private final Map<Colour, ResourceUsage> usage = new HashMap<>();
+		private Duration timeout;
+
+		AIGroup(G group) {
+			this.group = group;
+		}
 
 		void add(Colour colour, AI ai) {
 			ais.put(colour, ai);
 		}
 
-		void initialise(ResourceManager manager, ScotlandYardGame game) throws Exception {
+		void initialise(ScotlandYardGame game, Duration timeout) {
+			this.timeout = timeout == null || timeout.isNegative() || timeout.isZero()
+					? null : DeadlinePlayer.deadline(timeout);
 			factories = ais.values().stream()
 					.distinct()
 					.collect(toMap(Function.identity(), AI::instantiate));
+			executors = factories.keySet().stream()
+					.collect(toMap(Function.identity(),
+							ai -> requireNonNull(AIPool.this.executors.executorFor(group, ai))));
+			factories.keySet().forEach(ai -> {
+				statistics.put(ai, new MoveStatistics());
+				totals.put(ai, new ResourceUsage());
+			});
+			ais.forEach((colour, ai) -> usage.put(colour, new ResourceUsage(totals.get(ai))));
+			factories.values()
+					.forEach(factory -> factory.createSpectators(game)
+							.forEach(game::registerSpectator));
+		}
+
+		void warmUp(List<Colour> colours) {
+			if (warmUpBudget.isZero()) return;
+			factories.values().forEach(factory -> {
+				if (!factory.wantsWarmUp()) return;
+				try {
+					new WarmUp(warmUpBudget, WarmUp.DEFAULT_MOVE_TIMEOUT).run(factory, colours);
+				} catch (RuntimeException e) {
+					// only costs the AI its head start
+					e.printStackTrace();
+				}
+			});
+		}
+
+		void ready(ResourceManager manager) {
 			factories.forEach((ai, factory) -> {
-				factory.createSpectators(game).forEach(game::registerSpectator);
+				if (timeout != null) factory.moveTimeout(timeout);
+				MoveExecutor executor = executors.get(ai);
+				if (!executor.synchronous())
+					factory.createPonderer().ifPresent(p -> pondering.add(p, executor, factory));
 				Pane pane = surface.onCreate(ai);
 				factory.ready(() -> pane, manager);
 			});
@@ -112,45 +314,39 @@ public class AIPool<G> {
 
 		void terminate() throws Exception {
 			factories.values().forEach(PlayerFactory::finish);
+			executors.values().forEach(MoveExecutor::shutdown);
 		}
 
-		public Optional<Player> createPlayer(Colour colour) {
-			if (!ais.containsKey(colour)) return Optional.empty();
-			return Optional.of(
-					new ThreadedPlayer(
-							factories.get(ais.get(colour)).createPlayer(colour),
-							exceptionHandler));
+		MoveExecutor executorFor(Colour colour) {
+			AI ai = ais.get(colour);
+			return ai == null ? null : executors.get(ai);
 		}
 
-	}
-
-	static class ThreadedPlayer implements Player {
-
-		final static ExecutorService service = Executors.newWorkStealingPool();
-
-		private final Player player;
-		private final Consumer<Throwable> exceptionHandler;
+		MoveStatistics statisticsFor(Colour colour) {
+			AI ai = ais.get(colour);
+			return ai == null ? null : statistics.get(ai);
+		}
 
-		private ThreadedPlayer(Player player, Consumer<Throwable> exceptionHandler) {
-			this.player = player;
-			this.exceptionHandler = exceptionHandler;
+		ResourceUsage usageFor(Colour colour) {
+			return usage.get(colour);
 		}
 
-		@Override
-		public void makeMove(ScotlandYardView view,
-				int location,
-				Set<Move> moves,
-				Consumer<Move> callback) {
-			service.submit((Callable<Void>) () -> {
-				try {
-					player.makeMove(view, location, ImmutableSet.copyOf(moves), callback);
-				} catch (Throwable e) {
-					e.printStackTrace();
-					exceptionHandler.accept(e);
-				}
-				return null;
-			});
+		public Optional<Player> createPlayer(Colour colour) {
+			if (!ais.containsKey(colour)) return Optional.empty();
+			AI ai = ais.get(colour);
+			DeadlinePlayer.Builder builder = new DeadlinePlayer.Builder(
+					factories.get(ai).createPlayer(colour), timer)
+							.executor(executors.get(ai))
+							.fallback(fallback)
+							.statistics(statistics.get(ai))
+							.exceptionHandler(exceptionHandler)
+							.pondering(pondering, factories.get(ai))
+							.usage(usage.get(colour))
+							.limits(limits, reason -> forfeitHandler.accept(colour, reason));
+			if (timeout != null) builder.timeout(timeout);
+			return Optional.of(builder.build());
 		}
+
 	}
 
 }
@@ -0,0 +1,20 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+/**
+ * Scores many positions in one call, so implementations can run tight loops
+ * over the columns of {@link Positions} instead of one virtual call per
+ * position. This is where a learned evaluator plugs in. <br>
+ * Scores are from MrX's point of view, higher is better for MrX; terminal
+ * positions are scored by the search, not by the evaluator.
+ */
+@FunctionalInterface
+public interface BatchEvaluator {
+
+	/**
+	 * @param positions the positions; not null
+	 * @param scores receives the score of position {@code i} at index
+	 *        {@code i}; not null and at least {@link Positions#size()} long
+	 */
+	void evaluate(Positions positions, float[] scores);
+
+}
@@ -0,0 +1,358 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.timer.Timer;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.ValidMoves;
+
+/**
+ * Runs a player's moves on an executor and makes sure a move arrives before
+ * the deadline. <br>
+ * When the deadline passes the thread running the player is interrupted and
+ * a move from the {@link FallbackPolicy} is sent instead; the same happens
+ * straight away if the player throws. Whatever the player sends or throws
+ * afterwards is ignored, so the callback sees exactly one move per request
+ * and the exception handler only hears of exceptions that cost a move. A player that
+ * ignores the interrupt keeps its thread busy but no longer holds up the
+ * game. <br>
+ * With a {@link PonderScheduler} the pondering this player competes with is
+ * paused from the request until the move is sent. <br>
+ * With a {@link ResourceUsage} the thread running the player is measured
+ * until the move is sent or the player returns, whichever comes first;
+ * threads the player hands work to and its pondering are not. Once
+ * the usage exceeds the {@link ResourceLimits} the AI forfeits: the forfeit
+ * handler is told and every later move is a fallback move sent without
+ * asking the player.
+ */
+public final class DeadlinePlayer implements Player {
+
+	private static final Duration MAX_MARGIN = Duration.ofMillis(200);
+
+	private final Player player;
+	private final Timer timer;
+	private final Executor executor;
+	private final Duration timeout;
+	private final FallbackPolicy fallback;
+	private final MoveStatistics statistics;
+	private final Consumer<Throwable> exceptionHandler;
+	private final PonderScheduler pondering;
+	private final Object owner;
+	private final ResourceUsage usage;
+	private final ResourceLimits limits;
+	private final Consumer<String> forfeitHandler;
+
+	private DeadlinePlayer(Builder builder) {
+		this.player = builder.player;
+		this.timer = builder.timer;
+		this.executor = builder.executor;
+		this.timeout = builder.timeout;
+		this.fallback = builder.fallback;
+		this.statistics = builder.statistics;
+		this.exceptionHandler = builder.exceptionHandler;
+		this.pondering = builder.pondering;
+		this.owner = builder.owner;
+		this.usage = builder.usage;
+		this.limits = builder.limits;
+		this.forfeitHandler = builder.forfeitHandler;
+	}
+
+	/**
+	 * The time an AI gets for a move out of the game's timeout, leaving the
+	 * rest for the fallback to arrive before the game gives up on the player
+	 *
+	 * @param timeout the game's move timeout; not null
+	 * @return the timeout less a tenth of it, but at most 200ms less; never
+	 *         null
+	 */
+	public static Duration deadline(Duration timeout) {
+		Duration margin = timeout.dividedBy(10);
+		if (margin.compareTo(MAX_MARGIN) > 0) margin = MAX_MARGIN;
+		return timeout.minus(margin);
+	}
+
+	/**
+	 * @return the statistics this player records to; never null
+	 */
+	public MoveStatistics statistics() {
+		return statistics;
+	}
+
+	/**
+	 * @return the usage this player records to, if any
+	 */
+	public Optional<ResourceUsage> usage() {
+		return Optional.ofNullable(usage);
+	}
+
+	@Override
+	public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+			Consumer<Move> callback) {
+		if (usage != null && usage.forfeited().isPresent()) {
+			statistics.forfeited();
+			callback.accept(fallback.choose(moves));
+			return;
+		}
+		Runnable resume = pondering == null ? null : pondering.pause(owner, executor);
+		// the model's moves are immutable already, only copy anything else
+		Request request = new Request(ValidMoves.copyOf(moves), callback, resume);
+		if (timeout != null) request.deadline = timer.schedule(timeout.toNanos(),
+				TimeUnit.NANOSECONDS, request::expire);
+		executor.execute(() -> request.run(view, location));
+	}
+
+	/**
+	 * Asks for a move and waits for it, for callers that play the model on
+	 * their own thread. With a timeout and an executor other than the caller
+	 * this returns by the deadline even if the player never does.
+	 *
+	 * @param view the view of the game; not null
+	 * @param location the location of the player
+	 * @param moves the valid moves; not null
+	 * @return the move sent, the player's or the fallback; never null
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public Move awaitMove(ScotlandYardView view, int location, Set<Move> moves)
+			throws InterruptedException {
+		CompletableFuture<Move> chosen = new CompletableFuture<>();
+		makeMove(view, location, moves, chosen::complete);
+		try {
+			return chosen.get();
+		} catch (ExecutionException e) {
+			// the future is only ever completed with a move
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private final class Request {
+
+		private final Set<Move> moves;
+		private final Consumer<Move> callback;
+		private final Runnable resume;
+		private final AtomicBoolean answered = new AtomicBoolean();
+		private final long start = System.nanoTime();
+		private volatile ScheduledFuture<?> deadline;
+		private Thread worker;
+		private boolean interrupted;
+		// only touched by the worker
+		private boolean measured;
+		private long cpuStart, allocatedStart, wallStart;
+
+		Request(Set<Move> moves, Consumer<Move> callback, Runnable resume) {
+			this.moves = moves;
+			this.callback = callback;
+			this.resume = resume;
+		}
+
+		void run(ScotlandYardView view, int location) {
+			synchronized (this) {
+				if (answered.get()) return;
+				worker = Thread.currentThread();
+			}
+			if (usage != null) {
+				cpuStart = ResourceUsage.threadCpuNanos();
+				allocatedStart = ResourceUsage.threadAllocatedBytes();
+				wallStart = System.nanoTime();
+			}
+			try {
+				player.makeMove(view, location, moves, this::answer);
+			} catch (Throwable e) {
+				measure();
+				// once the move is sent, most likely as the fallback for an
+				// expired deadline, the game no longer depends on the player
+				if (answered.compareAndSet(false, true)) {
+					e.printStackTrace();
+					exceptionHandler.accept(e);
+					finish();
+					statistics.failed();
+					callback.accept(fallback.choose(moves));
+				}
+			} finally {
+				measure();
+				synchronized (this) {
+					worker = null;
+					// our interrupt must not reach whatever runs next
+					if (interrupted) Thread.interrupted();
+				}
+			}
+		}
+
+		void answer(Move move) {
+			if (!answered.compareAndSet(false, true)) return;
+			// before the callback, which may run the next player on this thread
+			if (Thread.currentThread() == worker) measure();
+			finish();
+			statistics.moved(System.nanoTime() - start);
+			callback.accept(move);
+		}
+
+		void expire() {
+			if (!answered.compareAndSet(false, true)) return;
+			finish();
+			statistics.timedOut();
+			synchronized (this) {
+				if (worker != null) {
+					worker.interrupt();
+					interrupted = true;
+				}
+			}
+			callback.accept(fallback.choose(moves));
+		}
+
+		// on the worker, once per request
+		private void measure() {
+			if (usage == null || measured) return;
+			measured = true;
+			usage.record(ResourceUsage.threadCpuNanos() - cpuStart,
+					ResourceUsage.threadAllocatedBytes() - allocatedStart,
+					System.nanoTime() - wallStart);
+			limits.exceededBy(usage.root()).ifPresent(reason -> {
+				if (usage.forfeit(reason)) forfeitHandler.accept(reason);
+			});
+		}
+
+		// once per request, before the move is sent
+		private void finish() {
+			ScheduledFuture<?> future = deadline;
+			if (future != null) future.cancel(false);
+			if (resume != null) resume.run();
+		}
+
+	}
+
+	/**
+	 * Builds a {@link DeadlinePlayer}; moves run on the calling thread, the
+	 * fallback is {@link FallbackPolicy#CHEAPEST} and there is no deadline
+	 * unless set
+	 */
+	public static class Builder {
+
+		private final Player player;
+		private final Timer timer;
+		private Executor executor = Runnable::run;
+		private Duration timeout;
+		private FallbackPolicy fallback = FallbackPolicy.CHEAPEST;
+		private MoveStatistics statistics = new MoveStatistics();
+		private Consumer<Throwable> exceptionHandler = e -> {};
+		private PonderScheduler pondering;
+		private Object owner;
+		private ResourceUsage usage;
+		private ResourceLimits limits = ResourceLimits.NONE;
+		private Consumer<String> forfeitHandler = reason -> {};
+
+		/**
+		 * @param player the player to run; not null
+		 * @param timer the timer that fires deadlines; not null
+		 */
+		public Builder(Player player, Timer timer) {
+			this.player = Objects.requireNonNull(player);
+			this.timer = Objects.requireNonNull(timer);
+		}
+
+		/**
+		 * @param executor runs the player's moves; not null
+		 * @return the builder for chaining; never null
+		 */
+		public Builder executor(Executor executor) {
+			this.executor = Objects.requireNonNull(executor);
+			return this;
+		}
+
+		/**
+		 * @param timeout the time a move may take; not null and positive
+		 * @return the builder for chaining; never null
+		 */
+		public Builder timeout(Duration timeout) {
+			if (timeout.isNegative() || timeout.isZero())
+				throw new IllegalArgumentException("timeout must be positive");
+			this.timeout = timeout;
+			return this;
+		}
+
+		/**
+		 * @param fallback picks the move sent for a late player; not null
+		 * @return the builder for chaining; never null
+		 */
+		public Builder fallback(FallbackPolicy fallback) {
+			this.fallback = Objects.requireNonNull(fallback);
+			return this;
+		}
+
+		/**
+		 * @param statistics where to record moves and timeouts, may be shared
+		 *        between players; not null
+		 * @return the builder for chaining; never null
+		 */
+		public Builder statistics(MoveStatistics statistics) {
+			this.statistics = Objects.requireNonNull(statistics);
+			return this;
+		}
+
+		/**
+		 * @param exceptionHandler told about anything the player throws
+		 *        before its move is sent; not null
+		 * @return the builder for chaining; never null
+		 */
+		public Builder exceptionHandler(Consumer<Throwable> exceptionHandler) {
+			this.exceptionHandler = Objects.requireNonNull(exceptionHandler);
+			return this;
+		}
+
+		/**
+		 * @param pondering paused while this player is on the clock; not null
+		 * @param owner the owner of the player, as given to
+		 *        {@link PonderScheduler#add(Ponderer, Executor, Object)} for
+		 *        the AI's ponderer; not null
+		 * @return the builder for chaining; never null
+		 */
+		public Builder pondering(PonderScheduler pondering, Object owner) {
+			this.pondering = Objects.requireNonNull(pondering);
+			this.owner = Objects.requireNonNull(owner);
+			return this;
+		}
+
+		/**
+		 * @param usage where to record the resources the player uses, its
+		 *        parent usually being shared by all players of the AI; not
+		 *        null
+		 * @return the builder for chaining; never null
+		 */
+		public Builder usage(ResourceUsage usage) {
+			this.usage = Objects.requireNonNull(usage);
+			return this;
+		}
+
+		/**
+		 * @param limits the budgets of the outermost parent of the usage,
+		 *        only enforced with a {@link #usage(ResourceUsage)}; not null
+		 * @param forfeitHandler told once why the AI forfeited; not null
+		 * @return the builder for chaining; never null
+		 */
+		public Builder limits(ResourceLimits limits, Consumer<String> forfeitHandler) {
+			this.limits = Objects.requireNonNull(limits);
+			this.forfeitHandler = Objects.requireNonNull(forfeitHandler);
+			return this;
+		}
+
+		/**
+		 * @return a new player; never null
+		 */
+		public DeadlinePlayer build() {
+			return new DeadlinePlayer(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,112 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.GraphMatrices;
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+
+/**
+ * The default {@link BatchEvaluator}: mostly the hop distance from MrX to the
+ * nearest detective, then the distances to the others and MrX's secret and
+ * double tickets. <br>
+ * Distances come from a precomputed table and are capped at
+ * {@link #DISTANCE_CAP}, unreachable counts as the cap. Locations of the
+ * positions must be node ids of that table.
+ */
+public final class DistanceEvaluator implements BatchEvaluator {
+
+	/**
+	 * Distances beyond this are all the same
+	 */
+	public static final int DISTANCE_CAP = 10;
+
+	/**
+	 * Weight of the distance to the nearest detective
+	 */
+	public static final float NEAREST = 200;
+
+	/**
+	 * Weight of every detective's distance
+	 */
+	public static final float EACH = 10;
+
+	/**
+	 * Weight of a secret ticket
+	 */
+	public static final float SECRET = 15;
+
+	/**
+	 * Weight of a double ticket
+	 */
+	public static final float DOUBLE = 40;
+
+	private final int size;
+	private final byte[] distances;
+	private int[] nearest = new int[0];
+	private int[] total = new int[0];
+
+	/**
+	 * @param distances hop distances between node ids, e.g. from
+	 *        {@link GraphMatrices#hopDistanceTable}; not null
+	 */
+	public DistanceEvaluator(IntSquareMatrix distances) {
+		Objects.requireNonNull(distances);
+		this.size = distances.size();
+		int[] cells = distances.toArray();
+		// capped distances fit a byte, a quarter of the cache footprint
+		this.distances = new byte[cells.length];
+		for (int i = 0; i < cells.length; i++)
+			this.distances[i] = (byte) (cells[i] == GraphMatrices.UNREACHABLE ? DISTANCE_CAP
+					: Math.min(cells[i], DISTANCE_CAP));
+	}
+
+	/**
+	 * @param other the evaluator whose capped distance table to share, so
+	 *        another thread can score positions without copying it; not null
+	 */
+	public DistanceEvaluator(DistanceEvaluator other) {
+		this.size = other.size;
+		this.distances = other.distances;
+	}
+
+	/**
+	 * Not thread safe, use one instance per thread
+	 */
+	@Override
+	public void evaluate(Positions positions, float[] scores) {
+		int count = positions.size();
+		if (scores.length < count) throw new IllegalArgumentException("scores too short");
+		if (nearest.length < count) {
+			nearest = new int[count];
+			total = new int[count];
+		}
+		int[] nearest = this.nearest, total = this.total;
+		int[] locations = positions.locations();
+		int mrX = positions.locationOffset(0);
+		for (int i = 0; i < count; i++) {
+			nearest[i] = DISTANCE_CAP;
+			total[i] = 0;
+		}
+		for (int player = 1; player < positions.players(); player++) {
+			int offset = positions.locationOffset(player);
+			for (int i = 0; i < count; i++) {
+				int distance = distances[locations[offset + i] * size + locations[mrX + i]];
+				nearest[i] = Math.min(nearest[i], distance);
+				total[i] += distance;
+			}
+		}
+		int[] tickets = positions.tickets();
+		int secret = positions.ticketOffset(0, Ticket.SECRET);
+		int doubles = positions.ticketOffset(0, Ticket.DOUBLE);
+		for (int i = 0; i < count; i++)
+			scores[i] = NEAREST * nearest[i] + EACH * total[i] + SECRET * tickets[secret + i]
+					+ DOUBLE * tickets[doubles + i];
+	}
+
+	@Override
+	public String toString() {
+		return "DistanceEvaluator{nodes=" + size + '}';
+	}
+
+}
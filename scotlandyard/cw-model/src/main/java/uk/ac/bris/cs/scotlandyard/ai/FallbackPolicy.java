@@ -0,0 +1,84 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+
+/**
+ * Picks the move played for an AI that missed its deadline. None of the
+ * policies look at the board, so they answer in microseconds.
+ */
+public enum FallbackPolicy {
+
+	/**
+	 * Any valid move, uniformly
+	 */
+	RANDOM {
+		@Override
+		Move pick(Set<Move> moves) {
+			Iterator<Move> iterator = moves.iterator();
+			for (int skip = ThreadLocalRandom.current().nextInt(moves.size()); skip > 0; skip--)
+				iterator.next();
+			return iterator.next();
+		}
+	},
+
+	/**
+	 * The first move in iteration order of the valid moves
+	 */
+	FIRST {
+		@Override
+		Move pick(Set<Move> moves) {
+			return moves.iterator().next();
+		}
+	},
+
+	/**
+	 * The single move using the commonest ticket, taxi before bus before
+	 * underground before secret, never a double move unless there is nothing
+	 * else; ties go to the lowest destination
+	 */
+	CHEAPEST {
+		@Override
+		Move pick(Set<Move> moves) {
+			return moves.stream().min(Comparator.comparingLong(this::cost)).get();
+		}
+
+		// kind, then ticket rank, then destination
+		private long cost(Move move) {
+			if (move instanceof TicketMove) {
+				TicketMove single = (TicketMove) move;
+				return (1L << 40) | (long) rank(single.ticket()) << 32 | single.destination();
+			}
+			if (move instanceof DoubleMove) {
+				DoubleMove twice = (DoubleMove) move;
+				return (2L << 40) | (long) (rank(twice.firstMove().ticket())
+						+ rank(twice.secondMove().ticket())) << 32 | twice.finalDestination();
+			}
+			return 0;
+		}
+
+		private int rank(Ticket ticket) {
+			return ticket == Ticket.SECRET ? Ticket.DOUBLE.ordinal() : ticket.ordinal();
+		}
+	};
+
+	/**
+	 * @param moves the valid moves; not null and not empty
+	 * @return one of the moves
+	 * @throws IllegalArgumentException if there are no moves
+	 */
+	public Move choose(Set<Move> moves) {
+		if (moves.isEmpty()) throw new IllegalArgumentException("No moves to choose from");
+		return pick(moves);
+	}
+
+	abstract Move pick(Set<Move> moves);
+
+}
@@ -0,0 +1,112 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes the names of all {@link ManagedAI} classes to {@link AI#INDEX} at
+ * compile time so {@link AI#scanClasspath()} does not have to scan. <br>
+ * Classes that could not be instantiated are compile errors. Names already in
+ * the index of an incremental build are kept; {@link AI#scanClasspath()}
+ * skips those whose class is gone.
+ */
+@SupportedAnnotationTypes(ManagedAIProcessor.MANAGED_AI)
+public class ManagedAIProcessor extends AbstractProcessor {
+
+	// names only, so the processor compiles on its own
+	static final String MANAGED_AI = "uk.ac.bris.cs.scotlandyard.ai.ManagedAI";
+	static final String PLAYER_FACTORY = "uk.ac.bris.cs.scotlandyard.ai.PlayerFactory";
+	static final String INDEX = "META-INF/services/" + PLAYER_FACTORY;
+
+	private final Set<String> names = new TreeSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+		if (round.processingOver()) {
+			if (!names.isEmpty()) write();
+			return false;
+		}
+		TypeElement managed = processingEnv.getElementUtils().getTypeElement(MANAGED_AI);
+		TypeElement factory = processingEnv.getElementUtils().getTypeElement(PLAYER_FACTORY);
+		if (managed == null || factory == null) return false;
+		for (Element element : round.getElementsAnnotatedWith(managed)) {
+			if (check(element, factory.asType()))
+				names.add(processingEnv.getElementUtils()
+						.getBinaryName((TypeElement) element).toString());
+		}
+		return false;
+	}
+
+	private boolean check(Element element, TypeMirror factory) {
+		String problem = null;
+		if (element.getKind() != ElementKind.CLASS
+				|| element.getModifiers().contains(Modifier.ABSTRACT))
+			problem = "must be a concrete class";
+		else if (!processingEnv.getTypeUtils().isAssignable(element.asType(), factory))
+			problem = "must implement " + PLAYER_FACTORY;
+		else if (!element.getModifiers().contains(Modifier.PUBLIC)
+				|| ((TypeElement) element).getNestingKind() != NestingKind.TOP_LEVEL)
+			problem = "must be public and top-level";
+		else if (ElementFilter.constructorsIn(element.getEnclosedElements()).stream()
+				.noneMatch(c -> c.getParameters().isEmpty()
+						&& c.getModifiers().contains(Modifier.PUBLIC)))
+			problem = "must have a public no-arg constructor";
+		if (problem == null) return true;
+		processingEnv.getMessager().printMessage(Kind.ERROR, "@ManagedAI class " + problem,
+				element);
+		return false;
+	}
+
+	private void write() {
+		try {
+			try {
+				FileObject existing = processingEnv.getFiler()
+						.getResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+						existing.openInputStream(), StandardCharsets.UTF_8))) {
+					reader.lines().map(String::trim).filter(line -> !line.isEmpty())
+							.forEach(names::add);
+				}
+			} catch (IOException e) {
+				// no index yet
+			}
+			FileObject index = processingEnv.getFiler()
+					.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+			try (Writer writer = new OutputStreamWriter(index.openOutputStream(),
+					StandardCharsets.UTF_8)) {
+				for (String name : names)
+					writer.write(name + "\n");
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.ERROR,
+					"Unable to write " + INDEX + ": " + e);
+		}
+	}
+
+}
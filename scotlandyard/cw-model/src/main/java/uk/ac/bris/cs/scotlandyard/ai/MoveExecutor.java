@@ -0,0 +1,181 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs AI moves for {@link AIPool} and counts them. <br>
+ * Every strategy reports the number of moves waiting to start, running and
+ * completed. Executors from {@link #fixed(String, int)} and
+ * {@link #virtualThreads()} belong to their creator and are stopped by
+ * {@link #shutdown()}; {@link #shared()} and {@link #callerThread()} ignore
+ * it.
+ */
+public final class MoveExecutor implements Executor {
+
+	private static final MoveExecutor SHARED = new MoveExecutor("shared",
+			Executors.newWorkStealingPool(), false);
+	private static final Method VIRTUAL_THREADS = virtualThreadFactoryMethod();
+
+	private final String name;
+	private final Executor delegate;
+	private final boolean owned;
+	private final boolean synchronous;
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicInteger active = new AtomicInteger();
+	private final AtomicLong completed = new AtomicLong();
+
+	private MoveExecutor(String name, Executor delegate, boolean owned) {
+		this(name, delegate, owned, false);
+	}
+
+	private MoveExecutor(String name, Executor delegate, boolean owned, boolean synchronous) {
+		this.name = name;
+		this.delegate = delegate;
+		this.owned = owned;
+		this.synchronous = synchronous;
+	}
+
+	/**
+	 * @return the JVM wide work stealing pool all AIs used to share
+	 */
+	public static MoveExecutor shared() {
+		return SHARED;
+	}
+
+	/**
+	 * @param name the thread name prefix; not null
+	 * @param threads number of threads
+	 * @return a new executor with its own fixed pool of daemon threads and an
+	 *         unbounded queue
+	 */
+	public static MoveExecutor fixed(String name, int threads) {
+		Objects.requireNonNull(name);
+		if (threads < 1) throw new IllegalArgumentException("threads < 1");
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), new ThreadFactoryBuilder().setDaemon(true)
+						.setNameFormat(name + "-%d").build());
+		return new MoveExecutor(name, pool, true);
+	}
+
+	/**
+	 * @return true if the running JVM has virtual threads
+	 */
+	public static boolean virtualThreadsAvailable() {
+		return VIRTUAL_THREADS != null;
+	}
+
+	/**
+	 * @return a new executor that starts a virtual thread for every move
+	 * @throws UnsupportedOperationException if the JVM has no virtual threads
+	 */
+	public static MoveExecutor virtualThreads() {
+		if (VIRTUAL_THREADS == null)
+			throw new UnsupportedOperationException("Virtual threads need Java 21 or newer");
+		try {
+			return new MoveExecutor("virtual", (ExecutorService) VIRTUAL_THREADS.invoke(null),
+					true);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new UnsupportedOperationException("Unable to create virtual thread executor",
+					e);
+		}
+	}
+
+	/**
+	 * @return an executor that runs moves on the calling thread, so a game
+	 *         with only such players runs synchronously
+	 */
+	public static MoveExecutor callerThread() {
+		return new MoveExecutor("caller", Runnable::run, false, true);
+	}
+
+	private static Method virtualThreadFactoryMethod() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		Objects.requireNonNull(command);
+		queued.incrementAndGet();
+		try {
+			delegate.execute(() -> {
+				queued.decrementAndGet();
+				active.incrementAndGet();
+				try {
+					command.run();
+				} finally {
+					active.decrementAndGet();
+					completed.incrementAndGet();
+				}
+			});
+		} catch (RuntimeException e) {
+			queued.decrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the name of the strategy
+	 */
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * @return true if moves run on the thread that submits them
+	 */
+	public boolean synchronous() {
+		return synchronous;
+	}
+
+	/**
+	 * @return number of moves submitted but not started
+	 */
+	public int queued() {
+		return queued.get();
+	}
+
+	/**
+	 * @return number of moves running
+	 */
+	public int active() {
+		return active.get();
+	}
+
+	/**
+	 * @return number of moves finished
+	 */
+	public long completed() {
+		return completed.get();
+	}
+
+	/**
+	 * Stops accepting moves if this executor owns its threads, moves already
+	 * submitted still run
+	 */
+	public void shutdown() {
+		if (owned) ((ExecutorService) delegate).shutdown();
+	}
+
+	@Override
+	public String toString() {
+		return "MoveExecutor{name=" + name + ", queued=" + queued + ", active=" + active
+				+ ", completed=" + completed + '}';
+	}
+
+}
@@ -0,0 +1,93 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How an AI kept to its move deadline, updated by {@link DeadlinePlayer}.
+ * <br>
+ * Every requested move ends up in exactly one of {@link #moves()},
+ * {@link #timeouts()}, {@link #failures()} and {@link #forfeits()}. Thread
+ * safe.
+ */
+public final class MoveStatistics {
+
+	private final AtomicLong moves = new AtomicLong();
+	private final AtomicLong timeouts = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong forfeits = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong slowestNanos = new AtomicLong();
+
+	void moved(long nanos) {
+		moves.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		slowestNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	void timedOut() {
+		timeouts.incrementAndGet();
+	}
+
+	void failed() {
+		failures.incrementAndGet();
+	}
+
+	void forfeited() {
+		forfeits.incrementAndGet();
+	}
+
+	/**
+	 * @return number of moves the AI made in time
+	 */
+	public long moves() {
+		return moves.get();
+	}
+
+	/**
+	 * @return number of moves replaced by a fallback because the deadline
+	 *         passed
+	 */
+	public long timeouts() {
+		return timeouts.get();
+	}
+
+	/**
+	 * @return number of moves replaced by a fallback because the AI threw
+	 */
+	public long failures() {
+		return failures.get();
+	}
+
+	/**
+	 * @return number of moves replaced by a fallback without asking the AI
+	 *         because it had forfeited
+	 */
+	public long forfeits() {
+		return forfeits.get();
+	}
+
+	/**
+	 * @return the mean time of the moves made in time, zero if there were
+	 *         none
+	 */
+	public Duration average() {
+		long count = moves.get();
+		return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.get() / count);
+	}
+
+	/**
+	 * @return the longest time of a move made in time
+	 */
+	public Duration slowest() {
+		return Duration.ofNanos(slowestNanos.get());
+	}
+
+	@Override
+	public String toString() {
+		return "MoveStatistics{moves=" + moves + ", timeouts=" + timeouts + ", failures="
+				+ failures + ", forfeits=" + forfeits + ", average=" + average() + ", slowest="
+				+ slowest() + '}';
+	}
+
+}
@@ -0,0 +1,279 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.IntGraphs;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * A {@link Spectator} that tracks where MrX can be, for detective AIs. <br>
+ * The candidate set starts as every node (or the given start locations) not
+ * occupied by a detective and is updated incrementally:
+ * <ul>
+ * <li>a reveal round collapses it to the revealed location</li>
+ * <li>a hidden move expands it to every node reachable from a candidate with
+ * the ticket used; {@link Ticket#SECRET} allows any transport</li>
+ * <li>nodes a detective moves to, or MrX would have moved onto, are
+ * removed</li>
+ * </ul>
+ * Each half of a {@link uk.ac.bris.cs.scotlandyard.model.DoubleMove} is
+ * applied as its own move. Optionally a probability distribution over the
+ * candidates is kept as well, assuming MrX picks uniformly between the
+ * distinct nodes a ticket could take him to. <br>
+ * Updates happen on the game thread; readers on any thread get an immutable
+ * {@link Belief} from {@link #belief()}, so a single tracker can be shared by
+ * all players of one game. If the candidates ever become empty (e.g. the
+ * given start locations were wrong) the tracker falls back to every
+ * unoccupied node.
+ */
+public class MrXTracker implements Spectator {
+
+	private final boolean probabilities;
+	private final Collection<Integer> startLocations;
+
+	private IntGraph<Transport> graph;
+	private BitSet candidates;
+	private double[] distribution;
+	private volatile Belief belief;
+
+	/**
+	 * Creates a tracker that only tracks candidates and assumes MrX can
+	 * start anywhere
+	 */
+	public MrXTracker() {
+		this(false, Collections.emptyList());
+	}
+
+	/**
+	 * @param probabilities whether to track a probability distribution as well
+	 * @param startLocations the possible start locations of MrX, e.g.
+	 *        {@link uk.ac.bris.cs.scotlandyard.model.StandardGame#MRX_LOCATIONS};
+	 *        empty for anywhere; not null
+	 */
+	public MrXTracker(boolean probabilities, Collection<Integer> startLocations) {
+		this.probabilities = probabilities;
+		this.startLocations = new ArrayList<>(Objects.requireNonNull(startLocations));
+	}
+
+	/**
+	 * @return the latest belief, null until the first move has been seen
+	 */
+	public Belief belief() {
+		return belief;
+	}
+
+	@Override
+	public void onMoveMade(ScotlandYardView view, Move move) {
+		// double moves are followed by a notification for each half
+		if (!(move instanceof TicketMove)) return;
+		initialise(view);
+		TicketMove ticketMove = (TicketMove) move;
+		if (move.colour().isMrX()) {
+			int round = view.getCurrentRound();
+			boolean reveal = round > 0 && round <= view.getRounds().size()
+					&& view.getRounds().get(round - 1);
+			int revealed = reveal ? graph.index(ticketMove.destination()) : -1;
+			if (revealed >= 0) reveal(revealed);
+			else step(ticketMove.ticket());
+			removeDetectives(view);
+			publish(round, reveal ? ticketMove.destination() : lastRevealed());
+		} else {
+			int index = graph.index(ticketMove.destination());
+			if (index >= 0) candidates.clear(index);
+			publish(view.getCurrentRound(), lastRevealed());
+		}
+	}
+
+	private void initialise(ScotlandYardView view) {
+		if (graph != null) return;
+		graph = IntGraphs.copyOf(view.getGraph());
+		candidates = new BitSet(graph.size());
+		for (int value : startLocations) {
+			int index = graph.index(value);
+			if (index >= 0) candidates.set(index);
+		}
+		if (candidates.isEmpty()) candidates.set(0, graph.size());
+		if (probabilities) distribution = new double[graph.size()];
+		removeDetectives(view);
+	}
+
+	private int lastRevealed() {
+		Belief current = belief;
+		return current == null ? 0 : current.lastRevealed;
+	}
+
+	private void reveal(int index) {
+		candidates.clear();
+		candidates.set(index);
+		if (distribution != null) {
+			Arrays.fill(distribution, 0);
+			distribution[index] = 1;
+		}
+	}
+
+	private void step(Ticket ticket) {
+		BitSet next = new BitSet(graph.size());
+		double[] nextDistribution = distribution == null ? null : new double[graph.size()];
+		int[] reachable = new int[16];
+		for (int node = candidates.nextSetBit(0); node >= 0;
+				node = candidates.nextSetBit(node + 1)) {
+			int count = 0;
+			for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+				if (!usable(ticket, graph.dataAt(node, i))) continue;
+				int neighbour = graph.neighbourAt(node, i);
+				if (contains(reachable, count, neighbour)) continue;
+				if (count == reachable.length) reachable = Arrays.copyOf(reachable, count * 2);
+				reachable[count++] = neighbour;
+			}
+			for (int i = 0; i < count; i++) {
+				next.set(reachable[i]);
+				if (nextDistribution != null)
+					nextDistribution[reachable[i]] += distribution[node] / count;
+			}
+		}
+		candidates = next;
+		if (nextDistribution != null) distribution = nextDistribution;
+	}
+
+	private static boolean contains(int[] array, int length, int value) {
+		for (int i = 0; i < length; i++)
+			if (array[i] == value) return true;
+		return false;
+	}
+
+	private static boolean usable(Ticket ticket, Transport transport) {
+		return ticket == Ticket.SECRET || Ticket.fromTransport(transport) == ticket;
+	}
+
+	private void removeDetectives(ScotlandYardView view) {
+		for (Colour colour : view.getPlayers()) {
+			if (colour.isMrX()) continue;
+			view.getPlayerLocation(colour).ifPresent(location -> {
+				int index = graph.index(location);
+				if (index >= 0) candidates.clear(index);
+			});
+		}
+	}
+
+	private void publish(int round, int lastRevealed) {
+		if (candidates.isEmpty()) candidates.set(0, graph.size());
+		double[] published = null;
+		if (distribution != null) {
+			// drop mass on removed nodes and renormalise
+			double sum = 0;
+			for (int i = 0; i < distribution.length; i++) {
+				if (!candidates.get(i)) distribution[i] = 0;
+				sum += distribution[i];
+			}
+			if (sum == 0) {
+				for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
+					distribution[i] = 1;
+				sum = candidates.cardinality();
+			}
+			for (int i = 0; i < distribution.length; i++)
+				distribution[i] /= sum;
+			published = distribution.clone();
+		}
+		belief = new Belief(graph, round, lastRevealed, (BitSet) candidates.clone(), published);
+	}
+
+	/**
+	 * An immutable snapshot of where MrX can be
+	 */
+	public static final class Belief {
+
+		private final IntGraph<Transport> graph;
+		private final int round;
+		private final int lastRevealed;
+		private final BitSet candidates;
+		private final int size;
+		private final double[] distribution;
+
+		Belief(IntGraph<Transport> graph, int round, int lastRevealed, BitSet candidates,
+				double[] distribution) {
+			this.graph = graph;
+			this.round = round;
+			this.lastRevealed = lastRevealed;
+			this.candidates = candidates;
+			this.size = candidates.cardinality();
+			this.distribution = distribution;
+		}
+
+		/**
+		 * @return the round of the last move applied
+		 */
+		public int round() {
+			return round;
+		}
+
+		/**
+		 * @return the last revealed location of MrX or 0 if never revealed
+		 */
+		public int lastRevealed() {
+			return lastRevealed;
+		}
+
+		/**
+		 * @return number of candidate locations
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * @param location the node value
+		 * @return true if MrX can be at the location
+		 */
+		public boolean contains(int location) {
+			int index = graph.index(location);
+			return index >= 0 && candidates.get(index);
+		}
+
+		/**
+		 * @return all candidate locations in node order
+		 */
+		public List<Integer> locations() {
+			List<Integer> locations = new ArrayList<>(size);
+			for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
+				locations.add(graph.value(i));
+			return Collections.unmodifiableList(locations);
+		}
+
+		/**
+		 * @return true if the tracker keeps probabilities
+		 */
+		public boolean hasProbabilities() {
+			return distribution != null;
+		}
+
+		/**
+		 * @param location the node value
+		 * @return the probability of MrX being at the location; uniform over
+		 *         the candidates if the tracker does not keep probabilities
+		 */
+		public double probability(int location) {
+			if (!contains(location)) return 0;
+			return distribution == null ? 1.0 / size : distribution[graph.index(location)];
+		}
+
+		@Override
+		public String toString() {
+			return "Belief{round=" + round + ", size=" + size + ", lastRevealed=" + lastRevealed
+					+ '}';
+		}
+	}
+
+}
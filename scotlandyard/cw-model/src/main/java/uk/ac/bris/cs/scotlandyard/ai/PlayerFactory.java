@@ -1,7 +1,9 @@
 package uk.ac.bris.cs.scotlandyard.ai;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 
@@ -45,6 +47,57 @@ public interface PlayerFactory {
 		return Collections.emptyList();
 	}
 
+	/**
+	 * Create a ponderer that thinks ahead while the players of this factory
+	 * wait for their turn, this method will be called once after
+	 * {@link #createSpectators(ScotlandYardView)} <br>
+	 *
+	 * Defaults to none
+	 *
+	 * @return the ponderer, if any; not null
+	 */
+	default Optional<Ponderer> createPonderer() {
+		return Optional.empty();
+	}
+
+	/**
+	 * Called before {@link #ready(Visualiser, ResourceProvider)} with the time
+	 * each player has to make a move; a player that takes longer forfeits <br>
+	 *
+	 * Defaults to no-op
+	 *
+	 * @param timeout the move timeout; never null
+	 */
+	default void moveTimeout(Duration timeout) {}
+
+	/**
+	 * Whether the players of this factory should play a few throw-away games
+	 * (see {@link WarmUp}) before the game starts, so the first real move is
+	 * not made by code that has yet to be compiled. If so,
+	 * {@link #createPlayer(Colour)} and {@link #moveTimeout(Duration)} will
+	 * be called for those games between
+	 * {@link #createSpectators(ScotlandYardView)} and
+	 * {@link #ready(Visualiser, ResourceProvider)}, possibly on another
+	 * thread, followed by {@link #warmedUp()} and, if the game has one,
+	 * {@link #moveTimeout(Duration)} with the real timeout <br>
+	 *
+	 * Defaults to false
+	 *
+	 * @return true to warm up
+	 */
+	default boolean wantsWarmUp() {
+		return false;
+	}
+
+	/**
+	 * Called once the throw-away games of {@link #wantsWarmUp()} are over;
+	 * state the factory keeps between moves, including the move timeout, must
+	 * be reset here so nothing from those games leaks into the real one <br>
+	 *
+	 * Defaults to no-op
+	 */
+	default void warmedUp() {}
+
 	/**
 	 * Called when the game is about to start(i.e. before the first
 	 * {@link ScotlandYardGame#startRotate()}) <br>
@@ -0,0 +1,157 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+
+/**
+ * Runs the {@link Ponderer}s of a game, registered as a spectator. <br>
+ * Every ponderer belongs to an owner, typically the AI's factory. While a
+ * player is on the clock, {@link #pause(Object, Executor)} stops the
+ * pondering of the same owner and of owners sharing the player's executor,
+ * and none of it starts again until the matching resume, so a ponderer never
+ * takes an executor thread from a player making its move. The JVM wide
+ * {@link MoveExecutor#shared()} pool has a thread per processor and does not
+ * count as shared. All other pondering carries on; tasks run at
+ * {@link Thread#MIN_PRIORITY} so they give way to the moving player. Thread
+ * safe.
+ */
+public final class PonderScheduler implements Spectator {
+
+	private final List<Entry> entries = new CopyOnWriteArrayList<>();
+	private volatile boolean stopped;
+
+	/**
+	 * @param ponderer the ponderer; not null
+	 * @param executor runs its tasks, must not run them on the calling thread;
+	 *        not null
+	 * @param owner the owner of the ponderer; not null
+	 */
+	public void add(Ponderer ponderer, Executor executor, Object owner) {
+		entries.add(new Entry(Objects.requireNonNull(ponderer), Objects.requireNonNull(executor),
+				Objects.requireNonNull(owner)));
+	}
+
+	/**
+	 * A player went on the clock, stops the pondering it competes with
+	 *
+	 * @param owner the owner of the player; not null
+	 * @param executor runs the player's move; not null
+	 * @return resumes the paused pondering once the player is done, to be run
+	 *         exactly once; never null
+	 */
+	public Runnable pause(Object owner, Executor executor) {
+		Objects.requireNonNull(owner);
+		Objects.requireNonNull(executor);
+		List<Entry> paused = new ArrayList<>();
+		for (Entry entry : entries) {
+			if (!entry.owner.equals(owner)
+					&& (entry.executor != executor || executor == MoveExecutor.shared()))
+				continue;
+			entry.paused.incrementAndGet();
+			entry.cancel();
+			paused.add(entry);
+		}
+		AtomicBoolean resumed = new AtomicBoolean();
+		return () -> {
+			if (!resumed.compareAndSet(false, true))
+				throw new IllegalStateException("Already resumed");
+			paused.forEach(entry -> entry.paused.decrementAndGet());
+		};
+	}
+
+	/**
+	 * Stops all pondering for good
+	 */
+	public void stop() {
+		stopped = true;
+		entries.forEach(Entry::cancel);
+	}
+
+	@Override
+	public void onMoveMade(ScotlandYardView view, Move move) {
+		if (stopped) return;
+		for (Entry entry : entries)
+			if (entry.paused.get() == 0) entry.start(view, move);
+	}
+
+	@Override
+	public void onGameOver(ScotlandYardView view, Set<Colour> winningPlayers) {
+		stop();
+	}
+
+	private final class Entry {
+
+		private final Ponderer ponderer;
+		private final Executor executor;
+		private final Object owner;
+		private final AtomicInteger paused = new AtomicInteger();
+		private Run running;
+
+		Entry(Ponderer ponderer, Executor executor, Object owner) {
+			this.ponderer = ponderer;
+			this.executor = executor;
+			this.owner = owner;
+		}
+
+		synchronized void start(ScotlandYardView view, Move move) {
+			Ponderer.Task task = ponderer.speculate(view, move,
+					running != null && !running.stopped());
+			if (task == null) return;
+			if (running != null) running.cancelled = true;
+			Run run = new Run(this, task);
+			running = run;
+			executor.execute(run);
+		}
+
+		synchronized void cancel() {
+			if (running != null) running.cancelled = true;
+			running = null;
+		}
+
+	}
+
+	private final class Run implements Runnable {
+
+		private final Entry entry;
+		private final Ponderer.Task task;
+		private volatile boolean cancelled;
+
+		Run(Entry entry, Ponderer.Task task) {
+			this.entry = entry;
+			this.task = task;
+		}
+
+		private boolean stopped() {
+			return cancelled || stopped || entry.paused.get() > 0;
+		}
+
+		// runs the task even if already stopped, so the ponderer sees it end
+		@Override
+		public void run() {
+			Thread thread = Thread.currentThread();
+			int priority = thread.getPriority();
+			thread.setPriority(Thread.MIN_PRIORITY);
+			try {
+				task.run(this::stopped);
+			} catch (RuntimeException e) {
+				// speculation is optional, a broken ponderer must not end the game
+				e.printStackTrace();
+			} finally {
+				thread.setPriority(priority);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,51 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.function.BooleanSupplier;
+
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+
+/**
+ * Thinks ahead for an AI while other players are making their moves, see
+ * {@link PlayerFactory#createPonderer()}. <br>
+ * After every move of the game the ponderer is asked what to think about
+ * next; the returned {@link Task} runs on the AI's executor at minimum
+ * thread priority until it is stopped, which happens when a newer task is
+ * started, when the AI or another AI on the same executor is on the clock and
+ * when the game is over.
+ * Results are kept by the ponderer itself and picked up by its players when
+ * their turn comes.
+ */
+@FunctionalInterface
+public interface Ponderer {
+
+	/**
+	 * Called on the game's thread after each move, so everything needed must
+	 * be copied out of the view before returning; keep it quick
+	 *
+	 * @param view the view of the game; never null
+	 * @param move the move just made; never null
+	 * @param running true if the task returned last is still running, false
+	 *        if there is none or it was stopped
+	 * @return the task to run instead of the current one, or null to keep
+	 *         the current one (if any) running
+	 */
+	Task speculate(ScotlandYardView view, Move move, boolean running);
+
+	/**
+	 * A speculative search
+	 */
+	@FunctionalInterface
+	interface Task {
+
+		/**
+		 * Thinks until {@code stopped} turns true, which should be checked
+		 * at least every few milliseconds
+		 *
+		 * @param stopped true once the task should return; never null
+		 */
+		void run(BooleanSupplier stopped);
+
+	}
+
+}
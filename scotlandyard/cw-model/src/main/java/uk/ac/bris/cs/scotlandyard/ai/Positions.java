@@ -0,0 +1,233 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.Arrays;
+
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+
+/**
+ * A batch of game positions for a {@link BatchEvaluator}, laid out as one
+ * array per field rather than one object per position. <br>
+ * Player 0 is MrX. Locations are node ids of whatever table the evaluator
+ * was built for. A column is contiguous: the locations of one player in
+ * every position are {@code locations()[locationOffset(player) + position]},
+ * and likewise for tickets, so evaluators can loop over positions with plain
+ * array indexing. Offsets change when the batch grows, read them after the
+ * last {@link #add()}. Not thread safe.
+ */
+public final class Positions {
+
+	private static final int TICKETS = Ticket.values().length;
+
+	private final int players;
+	private int capacity;
+	private int size;
+	private int[] locations;
+	private int[] tickets;
+	private int[] rounds;
+	private int[] current;
+
+	/**
+	 * @param players number of players including MrX, at least 2
+	 * @param capacity initial number of positions, grows as needed
+	 */
+	public Positions(int players, int capacity) {
+		if (players < 2) throw new IllegalArgumentException("players < 2");
+		if (capacity < 1) throw new IllegalArgumentException("capacity < 1");
+		this.players = players;
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		int[] locations = new int[players * capacity];
+		int[] tickets = new int[players * TICKETS * capacity];
+		if (this.locations != null) {
+			for (int column = 0; column < players; column++)
+				System.arraycopy(this.locations, column * this.capacity, locations,
+						column * capacity, size);
+			for (int column = 0; column < players * TICKETS; column++)
+				System.arraycopy(this.tickets, column * this.capacity, tickets,
+						column * capacity, size);
+		}
+		this.locations = locations;
+		this.tickets = tickets;
+		this.rounds = this.rounds == null ? new int[capacity] : Arrays.copyOf(rounds, capacity);
+		this.current = this.current == null ? new int[capacity]
+				: Arrays.copyOf(current, capacity);
+		this.capacity = capacity;
+	}
+
+	/**
+	 * @return number of players including MrX
+	 */
+	public int players() {
+		return players;
+	}
+
+	/**
+	 * @return number of positions in the batch
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Adds a position with every field 0
+	 *
+	 * @return the index of the new position
+	 */
+	public int add() {
+		if (size == capacity) allocate(capacity * 2);
+		int position = size++;
+		for (int column = 0; column < players; column++)
+			locations[column * capacity + position] = 0;
+		for (int column = 0; column < players * TICKETS; column++)
+			tickets[column * capacity + position] = 0;
+		rounds[position] = 0;
+		current[position] = 0;
+		return position;
+	}
+
+	/**
+	 * Empties the batch, keeping its arrays
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @param position the position
+	 * @param player the player
+	 * @param node the player's node id
+	 */
+	public void setLocation(int position, int player, int node) {
+		locations[locationOffset(player) + check(position)] = node;
+	}
+
+	/**
+	 * @param position the position
+	 * @param player the player
+	 * @param ticket the ticket; not null
+	 * @param count number of such tickets the player holds
+	 */
+	public void setTickets(int position, int player, Ticket ticket, int count) {
+		tickets[ticketOffset(player, ticket) + check(position)] = count;
+	}
+
+	/**
+	 * @param position the position
+	 * @param round the round as in
+	 *        {@link uk.ac.bris.cs.scotlandyard.model.ScotlandYardView#getCurrentRound()}
+	 */
+	public void setRound(int position, int round) {
+		rounds[check(position)] = round;
+	}
+
+	/**
+	 * @param position the position
+	 * @param player the player to move
+	 */
+	public void setCurrent(int position, int player) {
+		if (player < 0 || player >= players)
+			throw new IndexOutOfBoundsException("No player " + player);
+		current[check(position)] = player;
+	}
+
+	/**
+	 * @param position the position
+	 * @param player the player
+	 * @return the player's node id
+	 */
+	public int location(int position, int player) {
+		return locations[locationOffset(player) + check(position)];
+	}
+
+	/**
+	 * @param position the position
+	 * @param player the player
+	 * @param ticket the ticket; not null
+	 * @return number of such tickets the player holds
+	 */
+	public int tickets(int position, int player, Ticket ticket) {
+		return tickets[ticketOffset(player, ticket) + check(position)];
+	}
+
+	/**
+	 * @param position the position
+	 * @return the round
+	 */
+	public int round(int position) {
+		return rounds[check(position)];
+	}
+
+	/**
+	 * @param position the position
+	 * @return the player to move
+	 */
+	public int current(int position) {
+		return current[check(position)];
+	}
+
+	/**
+	 * @return the location column of every player, see
+	 *         {@link #locationOffset(int)}
+	 */
+	public int[] locations() {
+		return locations;
+	}
+
+	/**
+	 * @param player the player
+	 * @return where the player's locations start in {@link #locations()}
+	 */
+	public int locationOffset(int player) {
+		if (player < 0 || player >= players)
+			throw new IndexOutOfBoundsException("No player " + player);
+		return player * capacity;
+	}
+
+	/**
+	 * @return the ticket column of every player and ticket, see
+	 *         {@link #ticketOffset(int, Ticket)}
+	 */
+	public int[] tickets() {
+		return tickets;
+	}
+
+	/**
+	 * @param player the player
+	 * @param ticket the ticket
+	 * @return where the player's counts of the ticket start in
+	 *         {@link #tickets()}
+	 */
+	public int ticketOffset(int player, Ticket ticket) {
+		if (player < 0 || player >= players)
+			throw new IndexOutOfBoundsException("No player " + player);
+		return (player * TICKETS + ticket.ordinal()) * capacity;
+	}
+
+	/**
+	 * @return the round of every position
+	 */
+	public int[] rounds() {
+		return rounds;
+	}
+
+	/**
+	 * @return the player to move in every position
+	 */
+	public int[] current() {
+		return current;
+	}
+
+	private int check(int position) {
+		if (position < 0 || position >= size)
+			throw new IndexOutOfBoundsException("No position " + position);
+		return position;
+	}
+
+	@Override
+	public String toString() {
+		return "Positions{players=" + players + ", size=" + size + '}';
+	}
+
+}
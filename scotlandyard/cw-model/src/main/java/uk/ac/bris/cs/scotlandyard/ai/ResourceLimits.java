@@ -0,0 +1,127 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Hard budgets of the CPU time and allocated bytes an AI may spend over a
+ * whole game, as measured by {@link ResourceUsage}. An AI that exceeds one
+ * forfeits; the budgets are checked after every move, so the move that
+ * exceeds them still counts. Only the thread running each move is charged,
+ * so the budgets do not hold back AIs that search on threads of their own
+ * or ponder. Immutable.
+ */
+public final class ResourceLimits {
+
+	/**
+	 * No limits at all
+	 */
+	public static final ResourceLimits NONE = new ResourceLimits(null, 0);
+
+	/**
+	 * System property with the CPU time budget, as read by
+	 * {@link Duration#parse(CharSequence)}, e.g. {@code PT30S}
+	 */
+	public static final String CPU_TIME_PROPERTY = "scotlandyard.ai.cpuTime";
+
+	/**
+	 * System property with the allocation budget in bytes
+	 */
+	public static final String ALLOCATED_BYTES_PROPERTY = "scotlandyard.ai.allocatedBytes";
+
+	private final Duration cpuTime;
+	private final long allocatedBytes;
+
+	private ResourceLimits(Duration cpuTime, long allocatedBytes) {
+		this.cpuTime = cpuTime;
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	/**
+	 * @return the budgets set by {@link #CPU_TIME_PROPERTY} and
+	 *         {@link #ALLOCATED_BYTES_PROPERTY}, none if neither is set
+	 * @throws IllegalArgumentException if a property is malformed
+	 */
+	public static ResourceLimits fromSystemProperties() {
+		ResourceLimits limits = NONE;
+		String cpuTime = System.getProperty(CPU_TIME_PROPERTY);
+		String allocatedBytes = System.getProperty(ALLOCATED_BYTES_PROPERTY);
+		try {
+			if (cpuTime != null) limits = limits.withCpuTime(Duration.parse(cpuTime));
+			if (allocatedBytes != null)
+				limits = limits.withAllocatedBytes(Long.parseLong(allocatedBytes));
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Malformed resource limit", e);
+		}
+		return limits;
+	}
+
+	/**
+	 * @param cpuTime the CPU time budget; not null and positive
+	 * @return these limits with the CPU time budget; never null
+	 */
+	public ResourceLimits withCpuTime(Duration cpuTime) {
+		if (cpuTime.isNegative() || cpuTime.isZero())
+			throw new IllegalArgumentException("cpuTime must be positive");
+		return new ResourceLimits(cpuTime, allocatedBytes);
+	}
+
+	/**
+	 * @param allocatedBytes the allocation budget in bytes; positive
+	 * @return these limits with the allocation budget; never null
+	 */
+	public ResourceLimits withAllocatedBytes(long allocatedBytes) {
+		if (allocatedBytes <= 0)
+			throw new IllegalArgumentException("allocatedBytes must be positive");
+		return new ResourceLimits(cpuTime, allocatedBytes);
+	}
+
+	/**
+	 * @return the CPU time budget, if any
+	 */
+	public Optional<Duration> cpuTime() {
+		return Optional.ofNullable(cpuTime);
+	}
+
+	/**
+	 * @return the allocation budget in bytes, if any
+	 */
+	public OptionalLong allocatedBytes() {
+		return allocatedBytes == 0 ? OptionalLong.empty() : OptionalLong.of(allocatedBytes);
+	}
+
+	/**
+	 * @param usage the usage; not null
+	 * @return why the usage exceeds these limits, empty if it does not
+	 */
+	public Optional<String> exceededBy(ResourceUsage usage) {
+		Objects.requireNonNull(usage);
+		if (cpuTime != null && usage.cpuTime().compareTo(cpuTime) > 0)
+			return Optional.of("used " + usage.cpuTime() + " of CPU time, over " + cpuTime);
+		if (allocatedBytes != 0 && usage.allocatedBytes() > allocatedBytes)
+			return Optional.of("allocated " + usage.allocatedBytes() + " bytes, over "
+					+ allocatedBytes);
+		return Optional.empty();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		ResourceLimits that = (ResourceLimits) o;
+		return allocatedBytes == that.allocatedBytes && Objects.equals(cpuTime, that.cpuTime);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(cpuTime, allocatedBytes);
+	}
+
+	@Override
+	public String toString() {
+		return "ResourceLimits{cpuTime=" + cpuTime + ", allocatedBytes=" + allocatedBytes + '}';
+	}
+
+}
@@ -0,0 +1,191 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * CPU time, allocated bytes and wall-clock time an AI spent in
+ * {@link uk.ac.bris.cs.scotlandyard.model.Player#makeMove}, recorded by
+ * {@link DeadlinePlayer}. <br>
+ * Only the thread that runs {@code makeMove} is measured, up to the move or
+ * until it returns. Work on any other thread is not seen: the worker pool
+ * an AI searches on, such as the MCTS AI's, its {@link Ponderer} and its
+ * {@link WarmUp} all run free of charge. CPU time and
+ * allocation are zero on JVMs that cannot measure them, see
+ * {@link #cpuTimeSupported()} and {@link #allocationSupported()}. <br>
+ * Usage recorded for a colour also counts towards its parent, usually the
+ * AI playing it, and a forfeit is kept by the outermost usage. Thread safe.
+ */
+public final class ResourceUsage {
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final boolean CPU_TIME = enableCpuTime();
+	private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+
+	private final ResourceUsage parent;
+	private final AtomicLong moves = new AtomicLong();
+	private final AtomicLong cpuNanos = new AtomicLong();
+	private final AtomicLong allocatedBytes = new AtomicLong();
+	private final AtomicLong wallNanos = new AtomicLong();
+	private final AtomicLong maxCpuNanos = new AtomicLong();
+	private final AtomicLong maxAllocatedBytes = new AtomicLong();
+	private final AtomicLong maxWallNanos = new AtomicLong();
+	private final AtomicReference<String> forfeit = new AtomicReference<>();
+
+	/**
+	 * Usage without a parent
+	 */
+	public ResourceUsage() {
+		this(null);
+	}
+
+	/**
+	 * @param parent also gets everything recorded here, null for none
+	 */
+	public ResourceUsage(ResourceUsage parent) {
+		this.parent = parent;
+	}
+
+	private static boolean enableCpuTime() {
+		try {
+			if (!THREADS.isCurrentThreadCpuTimeSupported()) return false;
+			if (!THREADS.isThreadCpuTimeEnabled()) THREADS.setThreadCpuTimeEnabled(true);
+			return true;
+		} catch (UnsupportedOperationException | SecurityException e) {
+			return false;
+		}
+	}
+
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		try {
+			if (!(THREADS instanceof com.sun.management.ThreadMXBean)) return null;
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREADS;
+			if (!bean.isThreadAllocatedMemorySupported()) return null;
+			if (!bean.isThreadAllocatedMemoryEnabled()) bean.setThreadAllocatedMemoryEnabled(true);
+			return bean;
+		} catch (UnsupportedOperationException | SecurityException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return true if CPU time is measured
+	 */
+	public static boolean cpuTimeSupported() {
+		return CPU_TIME;
+	}
+
+	/**
+	 * @return true if allocated bytes are measured
+	 */
+	public static boolean allocationSupported() {
+		return ALLOCATION != null;
+	}
+
+	static long threadCpuNanos() {
+		return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : 0;
+	}
+
+	static long threadAllocatedBytes() {
+		return ALLOCATION == null ? 0
+				: ALLOCATION.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	void record(long cpuNanos, long allocatedBytes, long wallNanos) {
+		moves.incrementAndGet();
+		this.cpuNanos.addAndGet(cpuNanos);
+		this.allocatedBytes.addAndGet(allocatedBytes);
+		this.wallNanos.addAndGet(wallNanos);
+		maxCpuNanos.accumulateAndGet(cpuNanos, Math::max);
+		maxAllocatedBytes.accumulateAndGet(allocatedBytes, Math::max);
+		maxWallNanos.accumulateAndGet(wallNanos, Math::max);
+		if (parent != null) parent.record(cpuNanos, allocatedBytes, wallNanos);
+	}
+
+	// the usage budgets and forfeits apply to
+	ResourceUsage root() {
+		return parent == null ? this : parent.root();
+	}
+
+	// true if this is the first forfeit
+	boolean forfeit(String reason) {
+		return root().forfeit.compareAndSet(null, reason);
+	}
+
+	/**
+	 * @return the usage this one counts towards, if any
+	 */
+	public Optional<ResourceUsage> parent() {
+		return Optional.ofNullable(parent);
+	}
+
+	/**
+	 * @return why the AI forfeited, empty unless it exceeded its
+	 *         {@link ResourceLimits}
+	 */
+	public Optional<String> forfeited() {
+		return Optional.ofNullable(root().forfeit.get());
+	}
+
+	/**
+	 * @return number of moves measured
+	 */
+	public long moves() {
+		return moves.get();
+	}
+
+	/**
+	 * @return the CPU time of all moves
+	 */
+	public Duration cpuTime() {
+		return Duration.ofNanos(cpuNanos.get());
+	}
+
+	/**
+	 * @return the bytes allocated by all moves
+	 */
+	public long allocatedBytes() {
+		return allocatedBytes.get();
+	}
+
+	/**
+	 * @return the wall-clock time of all moves
+	 */
+	public Duration wallTime() {
+		return Duration.ofNanos(wallNanos.get());
+	}
+
+	/**
+	 * @return the CPU time of the most expensive move
+	 */
+	public Duration maxCpuTime() {
+		return Duration.ofNanos(maxCpuNanos.get());
+	}
+
+	/**
+	 * @return the bytes allocated by the most allocating move
+	 */
+	public long maxAllocatedBytes() {
+		return maxAllocatedBytes.get();
+	}
+
+	/**
+	 * @return the wall-clock time of the slowest move
+	 */
+	public Duration maxWallTime() {
+		return Duration.ofNanos(maxWallNanos.get());
+	}
+
+	@Override
+	public String toString() {
+		return "ResourceUsage{moves=" + moves + ", cpu=" + cpuTime() + ", allocated="
+				+ allocatedBytes + "B, wall=" + wallTime() + ", maxCpu=" + maxCpuTime()
+				+ ", maxAllocated=" + maxAllocatedBytes + "B, maxWall=" + maxWallTime()
+				+ forfeited().map(reason -> ", forfeited=" + reason).orElse("") + '}';
+	}
+
+}
@@ -0,0 +1,195 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.timer.StandardTimer;
+import uk.ac.bris.cs.gamekit.timer.Timer;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Lets an AI play throw-away games before the real one, so its search code
+ * is compiled by the time the first move counts. <br>
+ * Every colour of the game is played by a fresh player of the factory on the
+ * standard map, from start locations drawn from {@link StandardGame}, with a
+ * short move timeout. Games are played one after another on the calling
+ * thread until the budget runs out, the game being played is abandoned then.
+ * The players move on a thread of their own through a {@link DeadlinePlayer},
+ * so one that never answers only costs twice the move timeout.
+ */
+public final class WarmUp {
+
+	/**
+	 * Time spent warming up a factory unless told otherwise
+	 */
+	public static final Duration DEFAULT_BUDGET = Duration.ofSeconds(1);
+
+	/**
+	 * Move timeout the factory is given while warming up unless told
+	 * otherwise
+	 */
+	public static final Duration DEFAULT_MOVE_TIMEOUT = Duration.ofMillis(100);
+
+	// thrown through the model to abandon a game once the budget is spent
+	private static final class OutOfTime extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		OutOfTime() {
+			super(null, null, false, false);
+		}
+	}
+
+	private static final OutOfTime OUT_OF_TIME = new OutOfTime();
+
+	/**
+	 * What a warm-up did
+	 */
+	public static final class Result {
+
+		private final int games;
+		private final long moves;
+		private final Duration elapsed;
+
+		Result(int games, long moves, Duration elapsed) {
+			this.games = games;
+			this.moves = moves;
+			this.elapsed = elapsed;
+		}
+
+		/**
+		 * @return number of games played to the end
+		 */
+		public int games() {
+			return games;
+		}
+
+		/**
+		 * @return number of moves the AI made
+		 */
+		public long moves() {
+			return moves;
+		}
+
+		/**
+		 * @return the time taken
+		 */
+		public Duration elapsed() {
+			return elapsed;
+		}
+
+		@Override
+		public String toString() {
+			return "Result{games=" + games + ", moves=" + moves + ", elapsed=" + elapsed + '}';
+		}
+	}
+
+	private final Duration budget;
+	private final Duration moveTimeout;
+
+	/**
+	 * @param budget the time to spend; not null
+	 * @param moveTimeout the move timeout to give the factory; not null and
+	 *        positive
+	 */
+	public WarmUp(Duration budget, Duration moveTimeout) {
+		this.budget = Objects.requireNonNull(budget);
+		this.moveTimeout = Objects.requireNonNull(moveTimeout);
+		if (moveTimeout.isNegative() || moveTimeout.isZero())
+			throw new IllegalArgumentException("moveTimeout must be positive");
+	}
+
+	/**
+	 * Warms up a factory and then calls {@link PlayerFactory#warmedUp()};
+	 * afterwards the factory's move timeout has to be set again with
+	 * {@link PlayerFactory#moveTimeout(Duration)}
+	 *
+	 * @param factory the factory; not null
+	 * @param colours the colours of the real game, MrX first; not null
+	 * @return what was done; never null
+	 */
+	public Result run(PlayerFactory factory, List<Colour> colours) {
+		Objects.requireNonNull(factory);
+		if (colours.isEmpty() || !colours.get(0).isMrX())
+			throw new IllegalArgumentException("MrX must be the first colour");
+		Graph<Integer, Transport> graph;
+		try {
+			graph = StandardGame.standardGraph();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		factory.moveTimeout(moveTimeout);
+		long start = System.nanoTime(), deadline = start + budget.toNanos();
+		long[] moves = { 0 };
+		int games = 0;
+		Timer timer = new StandardTimer();
+		MoveExecutor executor = MoveExecutor.fixed("warm-up", 1);
+		try {
+			for (int seed = 0; System.nanoTime() < deadline; seed++) {
+				List<Integer> detectives = StandardGame.generateDetectiveLocations(seed,
+						colours.size() - 1);
+				List<PlayerConfiguration> configurations = new ArrayList<>();
+				for (int i = 0; i < colours.size(); i++) {
+					Colour colour = colours.get(i);
+					configurations.add(new PlayerConfiguration.Builder(colour)
+							.using(timed(factory.createPlayer(colour), timer, executor,
+									deadline, moves))
+							.with(colour.isMrX() ? StandardGame.generateMrXTickets()
+									: StandardGame.generateDetectiveTickets())
+							.at(colour.isMrX() ? StandardGame.generateMrXLocation(seed)
+									: detectives.get(i - 1))
+							.build());
+				}
+				ScotlandYardModel model = new ScotlandYardModel(StandardGame.ROUNDS, graph,
+						configurations.get(0), configurations.get(1), configurations
+								.subList(2, configurations.size())
+								.toArray(new PlayerConfiguration[0]));
+				while (!model.isGameOver())
+					model.startRotate();
+				games++;
+			}
+		} catch (OutOfTime e) {
+			// the game in progress is abandoned
+		} finally {
+			timer.stopAll();
+			executor.shutdown();
+			factory.warmedUp();
+		}
+		return new Result(games, moves[0], Duration.ofNanos(System.nanoTime() - start));
+	}
+
+	// waits for the player's move, playing the first valid move if it is late
+	private Player timed(Player player, Timer timer, MoveExecutor executor, long deadline,
+			long[] moves) {
+		DeadlinePlayer timed = new DeadlinePlayer.Builder(player, timer).executor(executor)
+				.timeout(moveTimeout.multipliedBy(2)).fallback(FallbackPolicy.FIRST).build();
+		return (view, location, valid, callback) -> {
+			if (System.nanoTime() >= deadline) throw OUT_OF_TIME;
+			Move move;
+			try {
+				move = timed.awaitMove(view, location, valid);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw OUT_OF_TIME;
+			}
+			moves[0]++;
+			callback.accept(valid.contains(move) ? move : FallbackPolicy.FIRST.choose(valid));
+		};
+	}
+
+	@Override
+	public String toString() {
+		return "WarmUp{budget=" + budget + ", moveTimeout=" + moveTimeout + '}';
+	}
+
+}
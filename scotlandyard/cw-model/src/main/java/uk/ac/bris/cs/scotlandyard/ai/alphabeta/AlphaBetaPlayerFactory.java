@@ -0,0 +1,211 @@
+package uk.ac.bris.cs.scotlandyard.ai.alphabeta;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.GraphMatrices;
+import uk.ac.bris.cs.scotlandyard.ai.ManagedAI;
+import uk.ac.bris.cs.scotlandyard.ai.MrXTracker;
+import uk.ac.bris.cs.scotlandyard.ai.Ponderer;
+import uk.ac.bris.cs.scotlandyard.ai.search.Board;
+import uk.ac.bris.cs.scotlandyard.ai.search.GameState;
+import uk.ac.bris.cs.scotlandyard.ai.search.MoveList;
+import uk.ac.bris.cs.scotlandyard.ai.search.SearchPlayerFactory;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+
+/**
+ * An AI that plays either side with an {@link AlphaBetaSearch}, on maps of up
+ * to {@link Board#DISTANCE_TABLE_LIMIT} nodes. <br>
+ * Each move is searched for the {@link SearchPlayerFactory} budget.
+ * Detectives search the {@link #CANDIDATES} most likely MrX locations of the
+ * shared {@link MrXTracker}, weighted by probability. <br>
+ * MrX ponders: while the detectives move it predicts each of them to close
+ * in on him and searches the position he would then face. If that is the
+ * position he gets, the deeper of the pondered and the timed search wins.
+ */
+@ManagedAI("Alpha-beta")
+public class AlphaBetaPlayerFactory extends SearchPlayerFactory {
+
+	/**
+	 * Number of MrX locations detectives search
+	 */
+	public static final int CANDIDATES = 4;
+
+	private volatile int mrXLocation;
+	private volatile Pondered pondered;
+
+	@Override
+	public Player createPlayer(Colour colour) {
+		return new AlphaBetaPlayer(Objects.requireNonNull(colour));
+	}
+
+	@Override
+	public Optional<Ponderer> createPonderer() {
+		return Optional.of(new MrXPonderer());
+	}
+
+	@Override
+	public void warmedUp() {
+		super.warmedUp();
+		// MrX's last location and pondering are from a throw-away game
+		mrXLocation = 0;
+		pondered = null;
+	}
+
+	private class AlphaBetaPlayer implements Player {
+
+		private final Colour colour;
+		private AlphaBetaSearch search;
+
+		AlphaBetaPlayer(Colour colour) {
+			this.colour = colour;
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			long deadline = System.nanoTime() + budget();
+			if (moves.size() == 1) {
+				send(moves.iterator().next(), location, callback);
+				return;
+			}
+			Board board = board(view);
+			if (search == null || search.board() != board)
+				search = new AlphaBetaSearch(board, view.getPlayers().size());
+			Move move;
+			if (colour.isMrX()) {
+				GameState root = GameState.of(board, view, location);
+				AlphaBetaSearch.Result result = search.search(root, deadline);
+				Pondered ahead = pondered;
+				if (ahead != null && ahead.root.sameAs(root)
+						&& ahead.result.depth() > result.depth()) result = ahead.result;
+				move = root.toMove(colour, result.move());
+			} else {
+				MrXTracker.Belief belief = tracker().belief();
+				List<Integer> candidates = candidates(board, view, belief);
+				GameState[] roots = new GameState[candidates.size()];
+				double[] weights = new double[candidates.size()];
+				double sum = 0;
+				for (int i = 0; i < roots.length; i++) {
+					roots[i] = GameState.of(board, view, candidates.get(i));
+					weights[i] = belief == null ? 1 : belief.probability(candidates.get(i));
+					sum += weights[i];
+				}
+				for (int i = 0; i < weights.length; i++)
+					weights[i] = sum > 0 ? weights[i] / sum : 1.0 / weights.length;
+				move = roots[0].toMove(colour, search.search(roots, weights, deadline).move());
+			}
+			send(validOrAny(move, moves), location, callback);
+		}
+
+		private void send(Move move, int location, Consumer<Move> callback) {
+			if (colour.isMrX()) {
+				if (move instanceof TicketMove) location = ((TicketMove) move).destination();
+				else if (move instanceof DoubleMove)
+					location = ((DoubleMove) move).finalDestination();
+				mrXLocation = location;
+			}
+			callback.accept(move);
+		}
+
+		// the most likely MrX locations, anywhere free if nothing is known
+		private List<Integer> candidates(Board board, ScotlandYardView view,
+				MrXTracker.Belief belief) {
+			List<Integer> locations = new ArrayList<>();
+			if (belief != null) {
+				locations.addAll(belief.locations());
+				locations.sort(
+						Comparator.<Integer> comparingDouble(belief::probability).reversed());
+			} else {
+				List<Integer> occupied = new ArrayList<>();
+				for (Colour other : view.getPlayers())
+					if (other.isDetective()) view.getPlayerLocation(other).ifPresent(occupied::add);
+				for (int node = 0; node < board.size() && locations.size() < CANDIDATES; node++)
+					if (!occupied.contains(board.value(node))) locations.add(board.value(node));
+			}
+			return locations.subList(0, Math.min(CANDIDATES, locations.size()));
+		}
+
+	}
+
+	// a search of the position MrX expects on his next turn
+	private static final class Pondered {
+
+		final GameState root;
+		final AlphaBetaSearch.Result result;
+
+		Pondered(GameState root, AlphaBetaSearch.Result result) {
+			this.root = root;
+			this.result = result;
+		}
+
+	}
+
+	private final class MrXPonderer implements Ponderer {
+
+		// only touched on the game's thread
+		private GameState predicted;
+
+		@Override
+		public Task speculate(ScotlandYardView view, Move move, boolean running) {
+			int location = mrXLocation;
+			if (location == 0 || view.getCurrentPlayer().isMrX()) return null;
+			GameState root = GameState.of(board(view), view, location);
+			for (int player = 1; player < root.players(); player++)
+				if (root.location(player) == root.location(0)) return null;
+			predict(root);
+			GameState check = new GameState(root);
+			check.moves(new MoveList());
+			if (check.isOver() || root.current() != 0) return null;
+			// the detectives did what was predicted, keep searching
+			if (running && predicted != null && predicted.sameAs(root)) return null;
+			predicted = root;
+			return stopped -> {
+				if (stopped.getAsBoolean()) return;
+				AlphaBetaSearch.Result result = new AlphaBetaSearch(root.board(),
+						root.players()).search(root, Long.MAX_VALUE, stopped);
+				Pondered previous = pondered;
+				if (previous == null || !previous.root.sameAs(root)
+						|| previous.result.depth() < result.depth())
+					pondered = new Pondered(root, result);
+			};
+		}
+
+	}
+
+	// moves every detective before MrX's next turn as close to him as it gets
+	private static void predict(GameState state) {
+		Board board = state.board();
+		int mrX = state.location(0);
+		MoveList list = new MoveList();
+		while (state.current() != 0 && !state.isOver()) {
+			state.moves(list);
+			if (state.isOver()) return;
+			long best = list.get(0);
+			int closest = Integer.MAX_VALUE;
+			for (int i = 0; i < list.size(); i++) {
+				long move = list.get(i);
+				if (move == GameState.PASS) continue;
+				int distance = board.distance(GameState.finalDestination(move), mrX);
+				if (distance < 0) distance = distance == GraphMatrices.UNREACHABLE
+						? Integer.MAX_VALUE - 1 : 0;
+				if (distance < closest) {
+					closest = distance;
+					best = move;
+				}
+			}
+			state.play(best);
+		}
+	}
+
+}
@@ -0,0 +1,438 @@
+package uk.ac.bris.cs.scotlandyard.ai.alphabeta;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+import uk.ac.bris.cs.scotlandyard.ai.BatchEvaluator;
+import uk.ac.bris.cs.scotlandyard.ai.Positions;
+import uk.ac.bris.cs.scotlandyard.ai.search.Board;
+import uk.ac.bris.cs.scotlandyard.ai.search.GameState;
+import uk.ac.bris.cs.scotlandyard.ai.search.MoveList;
+
+/**
+ * Iterative deepening paranoid alpha-beta search over {@link GameState}s. <br>
+ * Scores are from MrX's point of view: MrX maximises and every detective
+ * minimises, and the detectives are assumed to know where MrX is. A ply is
+ * one player's move. Moves are ordered by the previous iteration at the
+ * root, then killer moves and the history heuristic below it; iterations
+ * after the first search an aspiration window around the previous score
+ * first. <br>
+ * The deadline, and the stop condition if there is one, are checked every
+ * few thousand nodes; when it passes the best
+ * move of the deepest iteration that searched at least one root move is
+ * returned. Detectives that do not know where MrX is search several possible
+ * locations at once and pick the move with the best weighted score. <br>
+ * Leaves are scored by a {@link BatchEvaluator}, the board's
+ * {@link Board#distanceEvaluator() DistanceEvaluator} unless another is
+ * given, which scores all children of a node one ply above the leaves in one
+ * batch. <br>
+ * Instances are not thread safe.
+ */
+public final class AlphaBetaSearch {
+
+	/**
+	 * The score of a won game, less the number of plies to reach it
+	 */
+	public static final int WIN = 1_000_000;
+
+	/**
+	 * Deepest iteration
+	 */
+	public static final int MAX_DEPTH = 48;
+
+	private static final int INFINITY = Integer.MAX_VALUE / 2;
+	private static final int ASPIRATION = 150;
+	private static final int CHECK_INTERVAL = 4096;
+	private static final int KILLER_BONUS = 1 << 28;
+	private static final int MAX_PLY = MAX_DEPTH + 1;
+
+	// thrown to unwind the search once the deadline passes
+	private static final class Timeout extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		Timeout() {
+			super(null, null, false, false);
+		}
+	}
+
+	private static final Timeout TIMEOUT = new Timeout();
+
+	/**
+	 * The outcome of a search
+	 */
+	public static final class Result {
+
+		private final long move;
+		private final int score;
+		private final int depth;
+		private final long nodes;
+
+		Result(long move, int score, int depth, long nodes) {
+			this.move = move;
+			this.score = score;
+			this.depth = depth;
+			this.nodes = nodes;
+		}
+
+		/**
+		 * @return the encoded best move
+		 */
+		public long move() {
+			return move;
+		}
+
+		/**
+		 * @return the score of the best move from MrX's point of view
+		 */
+		public int score() {
+			return score;
+		}
+
+		/**
+		 * @return the depth of the deepest iteration used, 0 if the root had
+		 *         a single move
+		 */
+		public int depth() {
+			return depth;
+		}
+
+		/**
+		 * @return number of nodes searched
+		 */
+		public long nodes() {
+			return nodes;
+		}
+
+		@Override
+		public String toString() {
+			return "Result{score=" + score + ", depth=" + depth + ", nodes=" + nodes + '}';
+		}
+	}
+
+	private final Board board;
+	private final GameState[] stack;
+	private final MoveList[] moves;
+	private final long[][] ordered;
+	private final int[][] keys;
+	private final long[][] killers = new long[MAX_PLY][2];
+	private final int[][] history;
+	private final BatchEvaluator evaluator;
+	private final Positions batch;
+	private float[] batchScores = new float[0];
+	private long nodes;
+	private long deadline;
+	private BooleanSupplier stopped;
+
+	/**
+	 * @param board the board; not null and with a distance table
+	 * @param players number of players including MrX
+	 * @throws IllegalStateException if the board has no distance table
+	 */
+	public AlphaBetaSearch(Board board, int players) {
+		this(board, players, board.distanceEvaluator());
+	}
+
+	/**
+	 * @param board the board; not null
+	 * @param players number of players including MrX
+	 * @param evaluator scores the leaves, higher is better for MrX; not null
+	 */
+	public AlphaBetaSearch(Board board, int players, BatchEvaluator evaluator) {
+		this.board = Objects.requireNonNull(board);
+		this.stack = new GameState[MAX_PLY + 1];
+		this.moves = new MoveList[MAX_PLY + 1];
+		this.ordered = new long[MAX_PLY + 1][64];
+		this.keys = new int[MAX_PLY + 1][64];
+		for (int ply = 0; ply <= MAX_PLY; ply++) {
+			stack[ply] = new GameState(board, players);
+			moves[ply] = new MoveList();
+		}
+		this.history = new int[players][board.size()];
+		this.evaluator = Objects.requireNonNull(evaluator);
+		this.batch = new Positions(players, 64);
+	}
+
+	/**
+	 * @return the board searched
+	 */
+	public Board board() {
+		return board;
+	}
+
+	/**
+	 * Searches a position where every location is known
+	 *
+	 * @param root the state to search from; not null and not over
+	 * @param deadline the {@link System#nanoTime()} to stop at
+	 * @return the result; never null
+	 */
+	public Result search(GameState root, long deadline) {
+		return search(new GameState[] { root }, new double[] { 1 }, deadline, () -> false);
+	}
+
+	/**
+	 * Searches a position where every location is known until told to stop,
+	 * e.g. while pondering
+	 *
+	 * @param root the state to search from; not null and not over
+	 * @param deadline the {@link System#nanoTime()} to stop at
+	 * @param stopped true once the search should stop; not null
+	 * @return the result; never null
+	 */
+	public Result search(GameState root, long deadline, BooleanSupplier stopped) {
+		return search(new GameState[] { root }, new double[] { 1 }, deadline, stopped);
+	}
+
+	/**
+	 * Searches a detective's position for several possible MrX locations
+	 *
+	 * @param roots the state for every MrX location, identical otherwise; not
+	 *        null and not empty
+	 * @param weights the weight of every state, e.g. its probability; not null
+	 * @param deadline the {@link System#nanoTime()} to stop at
+	 * @return the result, the score is the weighted score; never null
+	 */
+	public Result search(GameState[] roots, double[] weights, long deadline) {
+		return search(roots, weights, deadline, () -> false);
+	}
+
+	private Result search(GameState[] roots, double[] weights, long deadline,
+			BooleanSupplier stopped) {
+		if (roots.length == 0 || roots.length != weights.length)
+			throw new IllegalArgumentException("Need one weight per root");
+		if (roots.length > 1 && roots[0].current() == 0)
+			throw new IllegalArgumentException("MrX knows where he is");
+		this.deadline = deadline;
+		this.stopped = Objects.requireNonNull(stopped);
+		this.nodes = 0;
+		for (long[] killer : killers)
+			Arrays.fill(killer, -1);
+		for (int[] row : history)
+			Arrays.fill(row, 0);
+
+		GameState first = new GameState(roots[0]);
+		MoveList list = new MoveList();
+		first.moves(list);
+		if (first.isOver()) throw new IllegalArgumentException("Game is over");
+		int count = list.size();
+		long[] rootMoves = new long[count];
+		for (int i = 0; i < count; i++)
+			rootMoves[i] = list.get(i);
+		if (count == 1) return new Result(rootMoves[0], 0, 0, 0);
+
+		boolean maximising = first.current() == 0;
+		int[] scores = new int[count];
+		long bestMove = rootMoves[0];
+		int bestScore = 0, bestDepth = 0;
+		GameState[] children = new GameState[roots.length];
+		for (int i = 0; i < roots.length; i++)
+			children[i] = new GameState(roots[i]);
+		try {
+			for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+				int alpha = -INFINITY, beta = INFINITY;
+				if (depth > 1 && roots.length == 1 && Math.abs(bestScore) < WIN - MAX_PLY) {
+					alpha = bestScore - ASPIRATION;
+					beta = bestScore + ASPIRATION;
+				}
+				while (true) {
+					int searched = 0, iterationBest = maximising ? -INFINITY : INFINITY;
+					long iterationMove = rootMoves[0];
+					int a = alpha, b = beta;
+					try {
+						for (int i = 0; i < count; i++) {
+							double value = 0;
+							for (int r = 0; r < roots.length; r++) {
+								children[r].copyFrom(roots[r]);
+								children[r].play(rootMoves[i]);
+								value += weights[r] * (roots.length == 1
+										? value(children[r], 1, depth - 1, a, b)
+										: value(children[r], 1, depth - 1, -INFINITY, INFINITY));
+							}
+							scores[i] = (int) Math.round(value);
+							searched++;
+							if (maximising ? scores[i] > iterationBest : scores[i] < iterationBest) {
+								iterationBest = scores[i];
+								iterationMove = rootMoves[i];
+							}
+							if (maximising) a = Math.max(a, scores[i]);
+							else b = Math.min(b, scores[i]);
+						}
+					} catch (Timeout timeout) {
+						// the first root move is the previous best, anything
+						// that beat it is at least as good
+						if (searched > 0) {
+							bestMove = iterationMove;
+							bestScore = iterationBest;
+							bestDepth = depth;
+						}
+						throw timeout;
+					}
+					boolean fullWindow = alpha == -INFINITY && beta == INFINITY;
+					if (!fullWindow && (iterationBest <= alpha || iterationBest >= beta)) {
+						// outside the aspiration window, search again in full
+						alpha = -INFINITY;
+						beta = INFINITY;
+						continue;
+					}
+					bestMove = iterationMove;
+					bestScore = iterationBest;
+					bestDepth = depth;
+					break;
+				}
+				sortRoot(rootMoves, scores, bestMove, maximising);
+				if (Math.abs(bestScore) >= WIN - MAX_PLY) break;
+			}
+		} catch (Timeout timeout) {
+			// best move so far
+		}
+		return new Result(bestMove, bestScore, bestDepth, nodes);
+	}
+
+	// best move first, then by score
+	private static void sortRoot(long[] moves, int[] scores, long best, boolean maximising) {
+		for (int i = 1; i < moves.length; i++) {
+			long move = moves[i];
+			int score = scores[i];
+			int j = i - 1;
+			while (j >= 0 && (maximising ? scores[j] < score : scores[j] > score)) {
+				moves[j + 1] = moves[j];
+				scores[j + 1] = scores[j];
+				j--;
+			}
+			moves[j + 1] = move;
+			scores[j + 1] = score;
+		}
+		for (int i = 0; i < moves.length; i++) {
+			if (moves[i] != best) continue;
+			int score = scores[i];
+			System.arraycopy(moves, 0, moves, 1, i);
+			System.arraycopy(scores, 0, scores, 1, i);
+			moves[0] = best;
+			scores[0] = score;
+			break;
+		}
+	}
+
+	private void visit() {
+		if (++nodes % CHECK_INTERVAL == 0
+				&& (System.nanoTime() >= deadline || stopped.getAsBoolean())) throw TIMEOUT;
+	}
+
+	private int value(GameState state, int ply, int depth, int alpha, int beta) {
+		visit();
+		if (state.isOver()) return terminal(state, ply);
+		if (depth == 0 || ply == MAX_PLY) return evaluate(state);
+		MoveList list = moves[ply];
+		state.moves(list);
+		if (state.isOver()) return terminal(state, ply);
+
+		int count = list.size(), player = state.current();
+		boolean maximising = player == 0;
+		if (depth == 1 || ply + 1 == MAX_PLY)
+			return frontier(state, list, ply, maximising);
+		order(list, ply, player);
+		long[] ordered = this.ordered[ply];
+		int[] keys = this.keys[ply];
+		int best = maximising ? -INFINITY : INFINITY;
+		GameState child = stack[ply + 1];
+		for (int i = 0; i < count; i++) {
+			// selection sort on demand, cut-offs usually come early
+			int pick = i;
+			for (int j = i + 1; j < count; j++)
+				if (keys[j] > keys[pick]) pick = j;
+			long move = ordered[pick];
+			int key = keys[pick];
+			ordered[pick] = ordered[i];
+			keys[pick] = keys[i];
+			ordered[i] = move;
+			keys[i] = key;
+
+			child.copyFrom(state);
+			child.play(move);
+			int value = value(child, ply + 1, depth - 1, alpha, beta);
+			if (maximising) {
+				best = Math.max(best, value);
+				alpha = Math.max(alpha, value);
+			} else {
+				best = Math.min(best, value);
+				beta = Math.min(beta, value);
+			}
+			if (alpha >= beta) {
+				if (killers[ply][0] != move) {
+					killers[ply][1] = killers[ply][0];
+					killers[ply][0] = move;
+				}
+				if (move != GameState.PASS)
+					history[player][GameState.finalDestination(move)] += depth * depth;
+				break;
+			}
+		}
+		return best;
+	}
+
+	// scores every child at once, there is nothing left to cut off
+	private int frontier(GameState state, MoveList list, int ply, boolean maximising) {
+		int best = maximising ? -INFINITY : INFINITY;
+		GameState child = stack[ply + 1];
+		batch.clear();
+		for (int i = 0; i < list.size(); i++) {
+			visit();
+			child.copyFrom(state);
+			child.play(list.get(i));
+			if (child.isOver()) {
+				int value = terminal(child, ply + 1);
+				best = maximising ? Math.max(best, value) : Math.min(best, value);
+			} else child.writeTo(batch, batch.add());
+		}
+		int size = batch.size();
+		if (size == 0) return best;
+		if (batchScores.length < size)
+			batchScores = new float[Math.max(size, batchScores.length * 2)];
+		evaluator.evaluate(batch, batchScores);
+		for (int i = 0; i < size; i++) {
+			int value = Math.round(batchScores[i]);
+			best = maximising ? Math.max(best, value) : Math.min(best, value);
+		}
+		return best;
+	}
+
+	// copies the moves with their ordering keys into the ply's scratch arrays
+	private void order(MoveList list, int ply, int player) {
+		int count = list.size();
+		if (ordered[ply].length < count) {
+			ordered[ply] = new long[Math.max(count, ordered[ply].length * 2)];
+			keys[ply] = new int[ordered[ply].length];
+		}
+		for (int i = 0; i < count; i++) {
+			long move = list.get(i);
+			ordered[ply][i] = move;
+			if (move == GameState.PASS) {
+				keys[ply][i] = 0;
+				continue;
+			}
+			int key = Math.min(history[player][GameState.finalDestination(move)], KILLER_BONUS - 1);
+			if (move == killers[ply][0] || move == killers[ply][1]) key += KILLER_BONUS;
+			keys[ply][i] = key;
+		}
+	}
+
+	private static int terminal(GameState state, int ply) {
+		return state.outcome() == GameState.MRX_WON ? WIN - ply : -WIN + ply;
+	}
+
+	// the evaluator's score of a single position from MrX's point of view
+	private int evaluate(GameState state) {
+		batch.clear();
+		state.writeTo(batch, batch.add());
+		if (batchScores.length == 0) batchScores = new float[1];
+		evaluator.evaluate(batch, batchScores);
+		return Math.round(batchScores[0]);
+	}
+
+	@Override
+	public String toString() {
+		return "AlphaBetaSearch{board=" + board + ", evaluator=" + evaluator + '}';
+	}
+
+}
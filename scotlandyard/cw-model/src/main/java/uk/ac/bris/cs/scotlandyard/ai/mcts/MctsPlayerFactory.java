@@ -0,0 +1,147 @@
+package uk.ac.bris.cs.scotlandyard.ai.mcts;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import uk.ac.bris.cs.scotlandyard.ai.ManagedAI;
+import uk.ac.bris.cs.scotlandyard.ai.MrXTracker;
+import uk.ac.bris.cs.scotlandyard.ai.search.Board;
+import uk.ac.bris.cs.scotlandyard.ai.search.GameState;
+import uk.ac.bris.cs.scotlandyard.ai.search.SearchPlayerFactory;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+
+/**
+ * An AI that plays either side with a {@link MonteCarloSearch} on all
+ * processors. <br>
+ * Each move is searched for the {@link SearchPlayerFactory} budget.
+ * Detectives sample MrX's location from the shared {@link MrXTracker},
+ * weighted by its probabilities. Search threads and trees are kept for the
+ * whole game and released in {@link #finish()}. The search threads are not
+ * charged to the {@link uk.ac.bris.cs.scotlandyard.ai.ResourceUsage} of its
+ * moves.
+ */
+@ManagedAI("MCTS")
+public class MctsPlayerFactory extends SearchPlayerFactory {
+
+	private final int threads = Runtime.getRuntime().availableProcessors();
+	private ExecutorService executor;
+
+	@Override
+	public Player createPlayer(Colour colour) {
+		return new MctsPlayer(Objects.requireNonNull(colour));
+	}
+
+	@Override
+	public synchronized void finish() {
+		if (executor != null) executor.shutdownNow();
+		executor = null;
+	}
+
+	private synchronized ExecutorService executor() {
+		if (executor == null) executor = Executors.newFixedThreadPool(Math.max(1, threads - 1),
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("mcts-%d").build());
+		return executor;
+	}
+
+	private class MctsPlayer implements Player {
+
+		private final Colour colour;
+		private MonteCarloSearch search;
+
+		MctsPlayer(Colour colour) {
+			this.colour = colour;
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			long deadline = System.nanoTime() + budget();
+			if (moves.size() == 1) {
+				callback.accept(moves.iterator().next());
+				return;
+			}
+			Board board = board(view);
+			if (search == null) search = new MonteCarloSearch.Builder(executor())
+					.threads(threads).build();
+			Move move;
+			if (colour.isMrX()) {
+				GameState root = GameState.of(board, view, location);
+				move = root.toMove(colour, search.search(root, null, deadline).move());
+			} else {
+				LocationSampler sampler = new LocationSampler(board, tracker().belief());
+				GameState root = GameState.of(board, view, sampler.any());
+				move = root.toMove(colour, search.search(root, sampler, deadline).move());
+			}
+			callback.accept(validOrAny(move, moves));
+		}
+
+	}
+
+	/**
+	 * Draws MrX's location from a tracker belief, or uniformly if there is
+	 * none, skipping nodes occupied by detectives
+	 */
+	private static final class LocationSampler implements MonteCarloSearch.RootSampler {
+
+		private final Board board;
+		private final int[] nodes;
+		private final double[] cumulative;
+
+		LocationSampler(Board board, MrXTracker.Belief belief) {
+			this.board = board;
+			List<Integer> locations = belief == null ? null : belief.locations();
+			int count = locations == null ? board.size() : locations.size();
+			nodes = new int[count];
+			cumulative = new double[count];
+			double sum = 0;
+			for (int i = 0; i < count; i++) {
+				if (locations == null) {
+					nodes[i] = i;
+					sum += 1;
+				} else {
+					nodes[i] = board.index(locations.get(i));
+					sum += belief.probability(locations.get(i));
+				}
+				cumulative[i] = sum;
+			}
+		}
+
+		// a location value for building the root state
+		int any() {
+			return board.value(nodes[0]);
+		}
+
+		@Override
+		public void sample(GameState state, SplittableRandom random) {
+			// rejection is rare, detectives cover a handful of nodes
+			for (int attempt = 0; attempt < 16; attempt++) {
+				double target = random.nextDouble() * cumulative[cumulative.length - 1];
+				int i = Arrays.binarySearch(cumulative, target);
+				int node = nodes[Math.min(i < 0 ? -i - 1 : i, nodes.length - 1)];
+				if (!occupied(state, node)) {
+					state.setLocation(0, node);
+					return;
+				}
+			}
+		}
+
+		private static boolean occupied(GameState state, int node) {
+			for (int player = 1; player < state.players(); player++)
+				if (state.location(player) == node) return true;
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,396 @@
+package uk.ac.bris.cs.scotlandyard.ai.mcts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import uk.ac.bris.cs.scotlandyard.ai.search.Board;
+import uk.ac.bris.cs.scotlandyard.ai.search.GameState;
+import uk.ac.bris.cs.scotlandyard.ai.search.MoveList;
+
+/**
+ * Tree parallel Monte Carlo tree search over {@link GameState}s. <br>
+ * All threads share one {@link SearchTree} arena which is reused between
+ * searches. Selection uses UCT; a thread counts a visit on every node it
+ * passes before the playout finishes, which acts as a virtual loss and
+ * spreads concurrent threads over different branches. Leaves are only
+ * expanded after a few visits. Playouts pick the best of a few random moves
+ * by hop distance most of the time. <br>
+ * When the root player is a detective MrX's location is unknown, so each
+ * iteration starts from a state drawn by a {@link RootSampler} and MrX's moves
+ * are left out of the tree and played by the playout policy; the detectives'
+ * moves do not depend on where MrX is, so the tree stays valid for every
+ * sample. <br>
+ * Instances are not thread safe, one search runs at a time.
+ */
+public final class MonteCarloSearch {
+
+	/**
+	 * Draws the hidden part of a root state, e.g. MrX's location
+	 */
+	@FunctionalInterface
+	public interface RootSampler {
+
+		/**
+		 * @param state a copy of the root state to modify; never null
+		 * @param random the random source of the calling thread; never null
+		 */
+		void sample(GameState state, SplittableRandom random);
+
+	}
+
+	/**
+	 * The outcome of a search
+	 */
+	public static final class Result {
+
+		private final long move;
+		private final long iterations;
+		private final int visits;
+		private final double winRate;
+		private final int nodes;
+
+		Result(long move, long iterations, int visits, double winRate, int nodes) {
+			this.move = move;
+			this.iterations = iterations;
+			this.visits = visits;
+			this.winRate = winRate;
+			this.nodes = nodes;
+		}
+
+		/**
+		 * @return the encoded best move
+		 */
+		public long move() {
+			return move;
+		}
+
+		/**
+		 * @return number of playouts
+		 */
+		public long iterations() {
+			return iterations;
+		}
+
+		/**
+		 * @return number of visits of the best move
+		 */
+		public int visits() {
+			return visits;
+		}
+
+		/**
+		 * @return the fraction of the best move's playouts won by the root
+		 *         player's side
+		 */
+		public double winRate() {
+			return winRate;
+		}
+
+		/**
+		 * @return number of tree nodes used
+		 */
+		public int nodes() {
+			return nodes;
+		}
+
+		@Override
+		public String toString() {
+			return "Result{iterations=" + iterations + ", visits=" + visits + ", winRate="
+					+ winRate + ", nodes=" + nodes + '}';
+		}
+	}
+
+	// leaves are expanded once visited this often, saving arena space
+	private static final int EXPAND_VISITS = 4;
+	private static final int GREEDY_PERCENT = 80;
+	private static final int GREEDY_SAMPLES = 3;
+
+	private final ExecutorService executor;
+	private final int threads;
+	private final double exploration;
+	private final SearchTree tree;
+	private final AtomicLong seeds = new AtomicLong(System.nanoTime());
+
+	private MonteCarloSearch(Builder builder) {
+		this.executor = builder.executor;
+		this.threads = builder.threads;
+		this.exploration = builder.exploration;
+		this.tree = new SearchTree(builder.capacity);
+	}
+
+	/**
+	 * Searches until the deadline
+	 *
+	 * @param root the state to search from; not null and not over
+	 * @param sampler draws hidden information for every iteration, may be null
+	 *        if the root is fully known
+	 * @param deadline the {@link System#nanoTime()} to stop at
+	 * @return the result; never null
+	 */
+	public Result search(GameState root, RootSampler sampler, long deadline) {
+		Objects.requireNonNull(root);
+		GameState copy = new GameState(root);
+		MoveList moves = new MoveList();
+		copy.moves(moves);
+		if (copy.isOver()) throw new IllegalArgumentException("Game is over");
+		if (moves.size() == 1) return new Result(moves.get(0), 0, 0, Double.NaN, 1);
+
+		tree.reset();
+		boolean branchMrX = root.current() == 0;
+		AtomicBoolean stop = new AtomicBoolean();
+		List<Future<Long>> futures = new ArrayList<>(threads - 1);
+		for (int i = 1; i < threads; i++) {
+			long seed = seeds.getAndIncrement();
+			futures.add(executor
+					.submit(() -> run(root, sampler, branchMrX, deadline, seed, stop)));
+		}
+		long iterations = run(root, sampler, branchMrX, deadline, seeds.getAndIncrement(),
+				stop);
+		// an interrupt stops the workers early, but they are always waited for
+		// so the tree does not change under best() or the next search
+		if (Thread.currentThread().isInterrupted()) stop.set(true);
+		Throwable failure = null;
+		for (Future<Long> future : futures) {
+			try {
+				iterations += Uninterruptibles.getUninterruptibly(future);
+			} catch (ExecutionException e) {
+				stop.set(true);
+				failure = e.getCause();
+			}
+		}
+		if (failure != null) throw new IllegalStateException("Search thread failed", failure);
+		return best(iterations);
+	}
+
+	private Result best(long iterations) {
+		int best = -1, bestVisits = -1;
+		if (tree.status.get(0) == SearchTree.EXPANDED) {
+			int first = tree.firstChild[0];
+			for (int child = first; child < first + tree.childCount[0]; child++) {
+				int visits = tree.visits.get(child);
+				if (visits > bestVisits) {
+					best = child;
+					bestVisits = visits;
+				}
+			}
+		}
+		if (best < 0) throw new IllegalStateException("No time to expand the root");
+		return new Result(tree.move[best], iterations, bestVisits,
+				bestVisits == 0 ? Double.NaN : tree.wins.get(best) / (double) bestVisits,
+				tree.size());
+	}
+
+	private long run(GameState root, RootSampler sampler, boolean branchMrX, long deadline,
+			long seed, AtomicBoolean stop) {
+		SplittableRandom random = new SplittableRandom(seed);
+		GameState state = new GameState(root);
+		MoveList moves = new MoveList();
+		int[] path = new int[64];
+		long iterations = 0;
+		// at least one iteration so the root is always expanded
+		do {
+			state.copyFrom(root);
+			if (sampler != null) sampler.sample(state, random);
+			int depth = 0, node = 0;
+			tree.visits.incrementAndGet(0);
+			while (!state.isOver()) {
+				if (!branchMrX && state.current() == 0) {
+					state.moves(moves);
+					if (!state.isOver()) state.play(choose(state, moves, random));
+					continue;
+				}
+				int child = -1;
+				int status = tree.status.get(node);
+				if (status == SearchTree.EXPANDED) {
+					if (tree.childCount[node] == 0) {
+						// terminal, let the state work out who won
+						state.moves(moves);
+						break;
+					}
+					child = select(node, random);
+				} else if (status == SearchTree.NEW
+						&& (node == 0 || tree.visits.get(node) > EXPAND_VISITS)
+						&& tree.status.compareAndSet(node, SearchTree.NEW, SearchTree.EXPANDING)) {
+					child = expand(node, state, moves, random);
+					if (child < 0) break;
+				} else break;
+				state.play(tree.move[child]);
+				tree.visits.incrementAndGet(child);
+				if (depth == path.length) path = Arrays.copyOf(path, depth * 2);
+				path[depth++] = child;
+				node = child;
+				if (status != SearchTree.EXPANDED) break;
+			}
+			int outcome = playout(state, moves, random);
+			for (int i = 0; i < depth; i++)
+				if (tree.byMrX[path[i]] == (outcome == GameState.MRX_WON))
+					tree.wins.incrementAndGet(path[i]);
+			iterations++;
+		} while (System.nanoTime() < deadline && !stop.get()
+				&& !Thread.currentThread().isInterrupted());
+		return iterations;
+	}
+
+	// returns a random new child or -1 if there is none
+	private int expand(int node, GameState state, MoveList moves, SplittableRandom random) {
+		state.moves(moves);
+		int count = moves.size();
+		int first = count == 0 ? 0 : tree.allocate(count);
+		if (first < 0) {
+			// arena full, the node stays a leaf
+			tree.status.set(node, SearchTree.NEW);
+			return -1;
+		}
+		boolean byMrX = state.current() == 0;
+		for (int i = 0; i < count; i++) {
+			tree.clear(first + i);
+			tree.move[first + i] = moves.get(i);
+			tree.byMrX[first + i] = byMrX;
+		}
+		tree.firstChild[node] = first;
+		tree.childCount[node] = count;
+		tree.status.set(node, SearchTree.EXPANDED);
+		return count == 0 ? -1 : first + random.nextInt(count);
+	}
+
+	private int select(int node, SplittableRandom random) {
+		int first = tree.firstChild[node], count = tree.childCount[node];
+		double log = Math.log(Math.max(1, tree.visits.get(node)));
+		int start = random.nextInt(count), best = first;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < count; i++) {
+			int child = first + (start + i) % count;
+			int visits = tree.visits.get(child);
+			if (visits == 0) return child;
+			double score = tree.wins.get(child) / (double) visits
+					+ exploration * Math.sqrt(log / visits);
+			if (score > bestScore) {
+				bestScore = score;
+				best = child;
+			}
+		}
+		return best;
+	}
+
+	private static int playout(GameState state, MoveList moves, SplittableRandom random) {
+		while (true) {
+			state.moves(moves);
+			if (state.isOver()) return state.outcome();
+			state.play(choose(state, moves, random));
+		}
+	}
+
+	/**
+	 * The playout policy: most of the time the best of a few random moves by
+	 * hop distance, MrX away from the nearest detective and detectives
+	 * towards MrX; otherwise a uniformly random move
+	 */
+	static long choose(GameState state, MoveList moves, SplittableRandom random) {
+		int count = moves.size();
+		Board board = state.board();
+		if (count == 1 || board.distances() == null || random.nextInt(100) >= GREEDY_PERCENT)
+			return moves.get(random.nextInt(count));
+		long best = 0;
+		int bestScore = Integer.MIN_VALUE;
+		for (int i = 0; i < GREEDY_SAMPLES; i++) {
+			long move = moves.get(random.nextInt(count));
+			int score = score(state, move);
+			if (score > bestScore) {
+				bestScore = score;
+				best = move;
+			}
+		}
+		return best;
+	}
+
+	private static int score(GameState state, long move) {
+		Board board = state.board();
+		if (move == GameState.PASS) return Integer.MIN_VALUE;
+		int to = GameState.finalDestination(move);
+		if (state.current() != 0)
+			return -reachable(board.distance(to, state.location(0)));
+		int nearest = Integer.MAX_VALUE;
+		for (int player = 1; player < state.players(); player++)
+			nearest = Math.min(nearest, reachable(board.distance(state.location(player), to)));
+		return nearest;
+	}
+
+	private static int reachable(int distance) {
+		return distance < 0 ? Short.MAX_VALUE : distance;
+	}
+
+	@Override
+	public String toString() {
+		return "MonteCarloSearch{threads=" + threads + ", capacity=" + tree.capacity
+				+ ", exploration=" + exploration + '}';
+	}
+
+	/**
+	 * Builder for {@link MonteCarloSearch}
+	 */
+	public static class Builder {
+
+		private final ExecutorService executor;
+		private int threads = Runtime.getRuntime().availableProcessors();
+		private int capacity = 1 << 19;
+		private double exploration = 0.7;
+
+		/**
+		 * @param executor runs the search threads besides the calling one,
+		 *        needs at least {@code threads - 1} threads; not null
+		 */
+		public Builder(ExecutorService executor) {
+			this.executor = Objects.requireNonNull(executor);
+		}
+
+		/**
+		 * @param threads number of search threads, defaults to the number of
+		 *        processors
+		 * @return the builder
+		 */
+		public Builder threads(int threads) {
+			if (threads < 1) throw new IllegalArgumentException("threads < 1");
+			this.threads = threads;
+			return this;
+		}
+
+		/**
+		 * @param capacity maximum number of tree nodes, defaults to 2^19
+		 * @return the builder
+		 */
+		public Builder capacity(int capacity) {
+			if (capacity < 1) throw new IllegalArgumentException("capacity < 1");
+			this.capacity = capacity;
+			return this;
+		}
+
+		/**
+		 * @param exploration the UCT exploration constant, defaults to 0.7
+		 * @return the builder
+		 */
+		public Builder exploration(double exploration) {
+			if (!(exploration >= 0)) throw new IllegalArgumentException("exploration < 0");
+			this.exploration = exploration;
+			return this;
+		}
+
+		/**
+		 * @return the search; never null
+		 */
+		public MonteCarloSearch build() {
+			return new MonteCarloSearch(this);
+		}
+
+	}
+
+}
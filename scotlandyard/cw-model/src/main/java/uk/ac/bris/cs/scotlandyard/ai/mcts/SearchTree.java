@@ -0,0 +1,80 @@
+package uk.ac.bris.cs.scotlandyard.ai.mcts;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A fixed capacity arena of search tree nodes shared by all search threads.
+ * <br>
+ * Nodes are indices into parallel arrays, node 0 is the root and the
+ * children of a node occupy a contiguous block. Statistics are updated with
+ * atomic increments only. A node is expanded by whichever thread wins the
+ * {@link #NEW} to {@link #EXPANDING} transition; the plain arrays of the node
+ * and its children are written before {@link #EXPANDED} is published so
+ * readers that observe it also observe the children.
+ */
+final class SearchTree {
+
+	static final int NEW = 0;
+	static final int EXPANDING = 1;
+	static final int EXPANDED = 2;
+
+	final int capacity;
+	final long[] move;
+	final int[] firstChild;
+	final int[] childCount;
+	// whether MrX made the move leading to the node
+	final boolean[] byMrX;
+	final AtomicIntegerArray visits;
+	final AtomicIntegerArray wins;
+	final AtomicIntegerArray status;
+	private final AtomicInteger size = new AtomicInteger();
+
+	SearchTree(int capacity) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity < 1");
+		this.capacity = capacity;
+		this.move = new long[capacity];
+		this.firstChild = new int[capacity];
+		this.childCount = new int[capacity];
+		this.byMrX = new boolean[capacity];
+		this.visits = new AtomicIntegerArray(capacity);
+		this.wins = new AtomicIntegerArray(capacity);
+		this.status = new AtomicIntegerArray(capacity);
+	}
+
+	/**
+	 * Discards every node but a fresh root, must not be called while a
+	 * search is running
+	 */
+	void reset() {
+		size.set(1);
+		clear(0);
+	}
+
+	void clear(int node) {
+		move[node] = 0;
+		firstChild[node] = 0;
+		childCount[node] = 0;
+		byMrX[node] = false;
+		visits.set(node, 0);
+		wins.set(node, 0);
+		status.set(node, NEW);
+	}
+
+	/**
+	 * @param count number of nodes
+	 * @return index of the first node of the block or -1 if the arena is full
+	 */
+	int allocate(int count) {
+		while (true) {
+			int first = size.get();
+			if (count > capacity - first) return -1;
+			if (size.compareAndSet(first, first + count)) return first;
+		}
+	}
+
+	int size() {
+		return size.get();
+	}
+
+}
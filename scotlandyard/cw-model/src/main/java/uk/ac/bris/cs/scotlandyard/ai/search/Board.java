@@ -0,0 +1,146 @@
+package uk.ac.bris.cs.scotlandyard.ai.search;
+
+import java.util.List;
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.GraphMatrices;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.IntGraphs;
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.scotlandyard.ai.DistanceEvaluator;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * The immutable part of a game for {@link GameState}: the map with the ticket
+ * needed for every edge precomputed and the reveal rounds. <br>
+ * Maps of up to {@link #DISTANCE_TABLE_LIMIT} nodes also carry a hop distance
+ * table (ferries excluded) used by search heuristics.
+ */
+public final class Board {
+
+	/**
+	 * Largest map that gets a distance table
+	 */
+	public static final int DISTANCE_TABLE_LIMIT = 4096;
+
+	final IntGraph<Transport> graph;
+	final int[] offsets;
+	final int[] targets;
+	final byte[] tickets;
+	final boolean[] reveal;
+	final IntSquareMatrix distances;
+	private volatile DistanceEvaluator evaluator;
+
+	private Board(IntGraph<Transport> graph, List<Boolean> rounds) {
+		this.graph = graph;
+		int size = graph.size();
+		this.offsets = new int[size + 1];
+		for (int node = 0; node < size; node++)
+			offsets[node + 1] = offsets[node] + graph.degree(node);
+		this.targets = new int[offsets[size]];
+		this.tickets = new byte[offsets[size]];
+		for (int node = 0; node < size; node++) {
+			for (int i = 0, degree = graph.degree(node); i < degree; i++) {
+				targets[offsets[node] + i] = graph.neighbourAt(node, i);
+				tickets[offsets[node] + i] = (byte) Ticket.fromTransport(graph.dataAt(node, i))
+						.ordinal();
+			}
+		}
+		this.reveal = new boolean[rounds.size()];
+		for (int i = 0; i < reveal.length; i++)
+			reveal[i] = rounds.get(i);
+		this.distances = size <= DISTANCE_TABLE_LIMIT
+				? GraphMatrices.hopDistanceTable(graph, t -> t != Transport.FERRY).readOnly()
+				: null;
+	}
+
+	/**
+	 * Compiles the given map and rounds
+	 *
+	 * @param graph the map; not null and not empty
+	 * @param rounds the reveal rounds as in
+	 *        {@link uk.ac.bris.cs.scotlandyard.model.ScotlandYardView#getRounds()};
+	 *        not null and not empty
+	 * @return the board; never null
+	 */
+	public static Board of(Graph<Integer, Transport> graph, List<Boolean> rounds) {
+		Objects.requireNonNull(graph);
+		Objects.requireNonNull(rounds);
+		if (graph.isEmpty()) throw new IllegalArgumentException("Empty graph");
+		if (rounds.isEmpty()) throw new IllegalArgumentException("Empty rounds");
+		return new Board(IntGraphs.copyOf(graph), rounds);
+	}
+
+	/**
+	 * @return number of nodes
+	 */
+	public int size() {
+		return graph.size();
+	}
+
+	/**
+	 * @return number of rounds
+	 */
+	public int rounds() {
+		return reveal.length;
+	}
+
+	/**
+	 * @param location the node value
+	 * @return the node id
+	 * @throws IllegalArgumentException if the node is absent
+	 */
+	public int index(int location) {
+		int index = graph.index(location);
+		if (index < 0) throw new IllegalArgumentException("No node " + location + " on the map");
+		return index;
+	}
+
+	/**
+	 * @param node the node id
+	 * @return the node value
+	 */
+	public int value(int node) {
+		return graph.value(node);
+	}
+
+	/**
+	 * @param from the source node id
+	 * @param to the destination node id
+	 * @return hop distance without ferries, {@link GraphMatrices#UNREACHABLE}
+	 *         if there is none or -2 if the board has no distance table
+	 */
+	public int distance(int from, int to) {
+		return distances == null ? -2 : distances.getUnchecked(from, to);
+	}
+
+	/**
+	 * @return the read-only hop distance table without ferries, indexed by
+	 *         node id, or null if the board has none
+	 */
+	public IntSquareMatrix distances() {
+		return distances;
+	}
+
+	/**
+	 * @return a new {@link DistanceEvaluator} of the distance table, sharing
+	 *         one capped copy of it with every other evaluator of this board;
+	 *         never null
+	 * @throws IllegalStateException if the board has no distance table
+	 */
+	public DistanceEvaluator distanceEvaluator() {
+		if (distances == null) throw new IllegalStateException(this + " has no distance table");
+		DistanceEvaluator shared = evaluator;
+		// racing threads may each build one, all of them are equal
+		if (shared == null) evaluator = shared = new DistanceEvaluator(distances);
+		return new DistanceEvaluator(shared);
+	}
+
+	@Override
+	public String toString() {
+		return "Board{nodes=" + graph.size() + ", rounds=" + reveal.length + '}';
+	}
+
+}
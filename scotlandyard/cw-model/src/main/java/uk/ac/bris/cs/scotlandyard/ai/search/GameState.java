@@ -0,0 +1,448 @@
+package uk.ac.bris.cs.scotlandyard.ai.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import uk.ac.bris.cs.scotlandyard.ai.Positions;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.PassMove;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+
+/**
+ * A mutable, allocation free Scotland Yard game state for simulations. <br>
+ * Player 0 is MrX, detectives follow in {@link ScotlandYardView#getPlayers()}
+ * order. Locations are node ids of the {@link Board}. Moves are encoded as
+ * {@code long}s, see {@link #single(int, int)} and
+ * {@link #doubleMove(int, int, int, int)}; {@link #PASS} is the pass move.
+ * <br>
+ * The rules follow {@link uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel}:
+ * detectives hand their used tickets to MrX, MrX may not move onto a
+ * detective, a double move needs two rounds left and each half counts as a
+ * round. MrX being stuck is only detected by {@link #moves(MoveList)}.
+ */
+public final class GameState {
+
+	/**
+	 * The game is not over
+	 */
+	public static final int ONGOING = 0;
+	/**
+	 * MrX won
+	 */
+	public static final int MRX_WON = 1;
+	/**
+	 * The detectives won
+	 */
+	public static final int DETECTIVES_WON = 2;
+
+	/**
+	 * The encoded pass move
+	 */
+	public static final long PASS = 0;
+
+	private static final int TICKETS = Ticket.values().length;
+	private static final int DOUBLE = Ticket.DOUBLE.ordinal();
+	private static final int SECRET = Ticket.SECRET.ordinal();
+	private static final Ticket[] TICKET_VALUES = Ticket.values();
+	private static final int NODE_BITS = 27;
+	private static final long NODE_MASK = (1L << NODE_BITS) - 1;
+
+	private final Board board;
+	private final int players;
+	private final int[] location;
+	private final int[] tickets;
+	private int round;
+	private int current;
+	private int outcome;
+
+	/**
+	 * Creates a state with every player at node 0 and no tickets, to be
+	 * filled with {@link #copyFrom(GameState)} or the setters
+	 *
+	 * @param board the board; not null
+	 * @param players number of players including MrX, at least 2
+	 */
+	public GameState(Board board, int players) {
+		this.board = Objects.requireNonNull(board);
+		if (players < 2) throw new IllegalArgumentException("players < 2");
+		this.players = players;
+		this.location = new int[players];
+		this.tickets = new int[players * TICKETS];
+	}
+
+	/**
+	 * Copy constructor
+	 *
+	 * @param other the state to copy; not null
+	 */
+	public GameState(GameState other) {
+		this(other.board, other.players);
+		copyFrom(other);
+	}
+
+	/**
+	 * Creates a state from a view of a running game
+	 *
+	 * @param board the board of the game; not null
+	 * @param view the view; not null
+	 * @param mrXLocation the location of MrX as a node value, the view only
+	 *        tells MrX himself
+	 * @return the state; never null
+	 */
+	public static GameState of(Board board, ScotlandYardView view, int mrXLocation) {
+		List<Colour> colours = view.getPlayers();
+		GameState state = new GameState(board, colours.size());
+		for (int player = 0; player < colours.size(); player++) {
+			Colour colour = colours.get(player);
+			state.location[player] = board.index(colour.isMrX() ? mrXLocation
+					: view.getPlayerLocation(colour).orElseThrow(
+							() -> new IllegalArgumentException("No location for " + colour)));
+			for (Ticket ticket : TICKET_VALUES)
+				state.tickets[player * TICKETS + ticket.ordinal()] = view
+						.getPlayerTickets(colour, ticket).orElse(0);
+		}
+		state.round = view.getCurrentRound();
+		state.current = colours.indexOf(view.getCurrentPlayer());
+		return state;
+	}
+
+	/**
+	 * Overwrites this state with another state of the same board and player
+	 * count
+	 *
+	 * @param other the state to copy; not null
+	 */
+	public void copyFrom(GameState other) {
+		if (other.board != board || other.players != players)
+			throw new IllegalArgumentException("State of a different game");
+		System.arraycopy(other.location, 0, location, 0, players);
+		System.arraycopy(other.tickets, 0, tickets, 0, tickets.length);
+		round = other.round;
+		current = other.current;
+		outcome = other.outcome;
+	}
+
+	/**
+	 * @param other another state; not null
+	 * @return true if both states are of the same board and every location,
+	 *         ticket count, the round, the current player and the outcome
+	 *         are equal
+	 */
+	public boolean sameAs(GameState other) {
+		return board == other.board && players == other.players && round == other.round
+				&& current == other.current && outcome == other.outcome
+				&& Arrays.equals(location, other.location) && Arrays.equals(tickets, other.tickets);
+	}
+
+	/**
+	 * Writes this state into a batch for a
+	 * {@link uk.ac.bris.cs.scotlandyard.ai.BatchEvaluator}
+	 *
+	 * @param positions the batch, with as many players as this state; not
+	 *        null
+	 * @param position the index of the position to overwrite
+	 */
+	public void writeTo(Positions positions, int position) {
+		if (positions.players() != players)
+			throw new IllegalArgumentException("Batch of a different player count");
+		for (int player = 0; player < players; player++) {
+			positions.setLocation(position, player, location[player]);
+			for (Ticket ticket : TICKET_VALUES)
+				positions.setTickets(position, player, ticket,
+						tickets[player * TICKETS + ticket.ordinal()]);
+		}
+		positions.setRound(position, round);
+		positions.setCurrent(position, current);
+	}
+
+	/**
+	 * @return the board
+	 */
+	public Board board() {
+		return board;
+	}
+
+	/**
+	 * @return number of players including MrX
+	 */
+	public int players() {
+		return players;
+	}
+
+	/**
+	 * @return the index of the player to move, 0 for MrX
+	 */
+	public int current() {
+		return current;
+	}
+
+	/**
+	 * @return number of rounds played, as in
+	 *         {@link ScotlandYardView#getCurrentRound()}
+	 */
+	public int round() {
+		return round;
+	}
+
+	/**
+	 * @return one of {@link #ONGOING}, {@link #MRX_WON} and
+	 *         {@link #DETECTIVES_WON}
+	 */
+	public int outcome() {
+		return outcome;
+	}
+
+	/**
+	 * @return true if the game is over
+	 */
+	public boolean isOver() {
+		return outcome != ONGOING;
+	}
+
+	/**
+	 * @param player the player index
+	 * @return the node id of the player
+	 */
+	public int location(int player) {
+		return location[player];
+	}
+
+	/**
+	 * @param player the player index
+	 * @param node the new node id
+	 */
+	public void setLocation(int player, int node) {
+		location[player] = node;
+	}
+
+	/**
+	 * @param player the player index
+	 * @param ticket the ticket
+	 * @return how many of the ticket the player holds
+	 */
+	public int tickets(int player, Ticket ticket) {
+		return tickets[player * TICKETS + ticket.ordinal()];
+	}
+
+	/**
+	 * @param player the player index
+	 * @param ticket the ticket
+	 * @param count the new count, not negative
+	 */
+	public void setTickets(int player, Ticket ticket, int count) {
+		if (count < 0) throw new IllegalArgumentException("count < 0");
+		tickets[player * TICKETS + ticket.ordinal()] = count;
+	}
+
+	/**
+	 * Lists all valid moves of the current player. If MrX has none the game
+	 * is marked as won by the detectives; a stuck detective gets
+	 * {@link #PASS}.
+	 *
+	 * @param moves the list to fill, cleared first; not null
+	 */
+	public void moves(MoveList moves) {
+		moves.clear();
+		if (outcome != ONGOING) return;
+		if (current == 0) {
+			mrXMoves(moves);
+			if (moves.size() == 0) outcome = DETECTIVES_WON;
+			return;
+		}
+		int from = location[current], base = current * TICKETS;
+		for (int e = board.offsets[from], end = board.offsets[from + 1]; e < end; e++) {
+			int to = board.targets[e];
+			if (tickets[base + board.tickets[e]] > 0 && !detectiveAt(to, current))
+				moves.add(single(board.tickets[e], to));
+		}
+		if (moves.size() == 0) moves.add(PASS);
+	}
+
+	private void mrXMoves(MoveList moves) {
+		int from = location[0];
+		int secret = tickets[SECRET];
+		singleMoves(from, moves);
+		int singles = moves.size();
+		if (tickets[DOUBLE] == 0 || board.reveal.length - round < 2) return;
+		for (int i = 0; i < singles; i++) {
+			long first = moves.get(i);
+			int firstTicket = ticket(first), middle = destination(first);
+			for (int e = board.offsets[middle], end = board.offsets[middle + 1]; e < end; e++) {
+				int to = board.targets[e], ticket = board.tickets[e];
+				if (detectiveAt(to, 0)) continue;
+				int needed = firstTicket == ticket ? 2 : 1;
+				if (tickets[ticket] >= needed)
+					moves.add(doubleMove(firstTicket, middle, ticket, to));
+				int neededSecret = firstTicket == SECRET ? 2 : 1;
+				if (ticket != SECRET && secret >= neededSecret
+						&& firstEdgeTo(middle, e))
+					moves.add(doubleMove(firstTicket, middle, SECRET, to));
+			}
+		}
+	}
+
+	private void singleMoves(int from, MoveList moves) {
+		int secret = tickets[SECRET];
+		for (int e = board.offsets[from], end = board.offsets[from + 1]; e < end; e++) {
+			int to = board.targets[e], ticket = board.tickets[e];
+			if (detectiveAt(to, 0)) continue;
+			if (tickets[ticket] > 0) moves.add(single(ticket, to));
+			// a ferry already needs a secret ticket
+			if (ticket != SECRET && secret > 0 && firstEdgeTo(from, e))
+				moves.add(single(SECRET, to));
+		}
+	}
+
+	// true if no earlier non ferry edge of the node leads to the same target
+	private boolean firstEdgeTo(int node, int edge) {
+		int to = board.targets[edge];
+		for (int e = board.offsets[node]; e < edge; e++)
+			if (board.targets[e] == to && board.tickets[e] != SECRET) return false;
+		return true;
+	}
+
+	private boolean detectiveAt(int node, int except) {
+		for (int player = 1; player < players; player++)
+			if (player != except && location[player] == node) return true;
+		return false;
+	}
+
+	/**
+	 * Plays a move for the current player, the move is not validated
+	 *
+	 * @param move the encoded move
+	 */
+	public void play(long move) {
+		if (outcome != ONGOING) throw new IllegalStateException("Game is over");
+		if (current == 0) {
+			if (isDouble(move)) {
+				tickets[DOUBLE]--;
+				tickets[ticket(move)]--;
+				tickets[secondTicket(move)]--;
+				location[0] = secondDestination(move);
+				round += 2;
+			} else {
+				tickets[ticket(move)]--;
+				location[0] = destination(move);
+				round++;
+			}
+		} else if (move != PASS) {
+			int ticket = ticket(move);
+			tickets[current * TICKETS + ticket]--;
+			tickets[ticket]++;
+			location[current] = destination(move);
+		}
+		current = current + 1 == players ? 0 : current + 1;
+		updateOutcome();
+	}
+
+	private void updateOutcome() {
+		boolean anyTickets = false;
+		for (int player = 1; player < players; player++) {
+			if (location[player] == location[0]) {
+				outcome = DETECTIVES_WON;
+				return;
+			}
+			for (int t = 0; t < TICKETS && !anyTickets; t++)
+				anyTickets = tickets[player * TICKETS + t] > 0;
+		}
+		if (!anyTickets || (current == 0 && round >= board.reveal.length)) outcome = MRX_WON;
+	}
+
+	/**
+	 * @param ticket the ticket ordinal
+	 * @param destination the destination node id
+	 * @return the encoded single move
+	 */
+	public static long single(int ticket, int destination) {
+		return (ticket + 1) | ((long) destination << 3);
+	}
+
+	/**
+	 * @param first the first ticket ordinal
+	 * @param middle the first destination node id
+	 * @param second the second ticket ordinal
+	 * @param destination the final destination node id
+	 * @return the encoded double move
+	 */
+	public static long doubleMove(int first, int middle, int second, int destination) {
+		return single(first, middle) | (single(second, destination) << 32);
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return true for a double move
+	 */
+	public static boolean isDouble(long move) {
+		return (move >>> 32) != 0;
+	}
+
+	/**
+	 * @param move the encoded move, not a pass
+	 * @return the (first) ticket ordinal
+	 */
+	public static int ticket(long move) {
+		return (int) (move & 7) - 1;
+	}
+
+	/**
+	 * @param move the encoded move, not a pass
+	 * @return the (first) destination node id
+	 */
+	public static int destination(long move) {
+		return (int) ((move >>> 3) & NODE_MASK);
+	}
+
+	/**
+	 * @param move the encoded double move
+	 * @return the second ticket ordinal
+	 */
+	public static int secondTicket(long move) {
+		return ticket(move >>> 32);
+	}
+
+	/**
+	 * @param move the encoded double move
+	 * @return the final destination node id
+	 */
+	public static int secondDestination(long move) {
+		return destination(move >>> 32);
+	}
+
+	/**
+	 * @param move the encoded move, not a pass
+	 * @return the node id the player ends up at
+	 */
+	public static int finalDestination(long move) {
+		return isDouble(move) ? secondDestination(move) : destination(move);
+	}
+
+	/**
+	 * Converts an encoded move to a model move
+	 *
+	 * @param colour the colour of the moving player; not null
+	 * @param move the encoded move
+	 * @return the move; never null
+	 */
+	public Move toMove(Colour colour, long move) {
+		Objects.requireNonNull(colour);
+		if (move == PASS) return new PassMove(colour);
+		TicketMove first = new TicketMove(colour, TICKET_VALUES[ticket(move)],
+				board.value(destination(move)));
+		if (!isDouble(move)) return first;
+		return new DoubleMove(colour, first, new TicketMove(colour,
+				TICKET_VALUES[secondTicket(move)], board.value(secondDestination(move))));
+	}
+
+	@Override
+	public String toString() {
+		return "GameState{round=" + round + ", current=" + current + ", outcome=" + outcome
+				+ ", location=" + Arrays.toString(location) + '}';
+	}
+
+}
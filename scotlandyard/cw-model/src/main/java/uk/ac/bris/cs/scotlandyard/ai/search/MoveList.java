@@ -0,0 +1,44 @@
+package uk.ac.bris.cs.scotlandyard.ai.search;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of moves encoded by {@link GameState}, meant to be reused
+ * to avoid allocation during searches
+ */
+public final class MoveList {
+
+	private long[] moves = new long[64];
+	private int size;
+
+	/**
+	 * @return number of moves
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i the index in {@code [0, size())}
+	 * @return the encoded move
+	 */
+	public long get(int i) {
+		if (i >= size) throw new IndexOutOfBoundsException(i + " >= " + size);
+		return moves[i];
+	}
+
+	void add(long move) {
+		if (size == moves.length) moves = Arrays.copyOf(moves, size * 2);
+		moves[size++] = move;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	@Override
+	public String toString() {
+		return "MoveList{size=" + size + '}';
+	}
+
+}
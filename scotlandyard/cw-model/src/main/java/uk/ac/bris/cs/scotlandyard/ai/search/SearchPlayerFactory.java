@@ -0,0 +1,101 @@
+package uk.ac.bris.cs.scotlandyard.ai.search;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.ai.MrXTracker;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Base for AIs that search {@link GameState}s. <br>
+ * Provides the {@link Board} of the game's map, a {@link MrXTracker} that is
+ * the factory's spectator and shared by its players, and a search budget of
+ * half the game's move timeout per move (half of {@link #DEFAULT_TIMEOUT} if
+ * the game never told), which leaves the rest for the model and the callback.
+ * Factories built on this class want to be warmed up.
+ */
+public abstract class SearchPlayerFactory implements PlayerFactory {
+
+	/**
+	 * The move timeout assumed until {@link #moveTimeout(Duration)} is called
+	 */
+	public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+
+	private static final long MINIMUM_BUDGET = TimeUnit.MILLISECONDS.toNanos(20);
+
+	private final MrXTracker tracker = new MrXTracker(true, Collections.emptyList());
+	private volatile Duration timeout = DEFAULT_TIMEOUT;
+	private Graph<Integer, Transport> graph;
+	private Board board;
+
+	@Override
+	public List<Spectator> createSpectators(ScotlandYardView view) {
+		return Collections.singletonList(tracker);
+	}
+
+	@Override
+	public boolean wantsWarmUp() {
+		return true;
+	}
+
+	@Override
+	public void moveTimeout(Duration timeout) {
+		this.timeout = Objects.requireNonNull(timeout);
+	}
+
+	/**
+	 * Forgets the move timeout of the warm-up, subclasses that keep state
+	 * between moves must reset it as well
+	 */
+	@Override
+	public void warmedUp() {
+		timeout = DEFAULT_TIMEOUT;
+	}
+
+	/**
+	 * @return the tracker of MrX's location; never null
+	 */
+	protected final MrXTracker tracker() {
+		return tracker;
+	}
+
+	/**
+	 * @param view the game; not null
+	 * @return the board of the game's map, built once per map; never null
+	 */
+	protected final synchronized Board board(ScotlandYardView view) {
+		// the model hands out the same graph instance for the whole game
+		if (board == null || graph != view.getGraph()) {
+			graph = view.getGraph();
+			board = Board.of(graph, view.getRounds());
+		}
+		return board;
+	}
+
+	/**
+	 * @return the time to search a move for, in nanoseconds
+	 */
+	protected final long budget() {
+		return Math.max(MINIMUM_BUDGET, timeout.toNanos() / 2);
+	}
+
+	/**
+	 * @param move the move found by a search; not null
+	 * @param moves the valid moves; not null and not empty
+	 * @return the move if it is valid, otherwise any valid move
+	 */
+	protected static Move validOrAny(Move move, Set<Move> moves) {
+		// never send an invalid move should the rules ever disagree
+		return moves.contains(move) ? move : moves.iterator().next();
+	}
+
+}
@@ -0,0 +1,487 @@
+package uk.ac.bris.cs.scotlandyard.ai.tablebase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.IntGraphs;
+import uk.ac.bris.cs.gamekit.matrix.MappedByteMatrix;
+import uk.ac.bris.cs.scotlandyard.ai.search.GameState;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * An endgame tablebase built by retrograde analysis: for every position of
+ * MrX and a fixed number of detectives, and every player to move, the number
+ * of plies the detectives need to force a capture. <br>
+ * Positions are solved in an abstraction of the game where everybody knows
+ * where MrX is, tickets never run out and MrX has no double moves; MrX may
+ * take ferries and detectives may not, a detective with nowhere to go passes
+ * and MrX with nowhere to go is caught on his move. In the real game the
+ * result is exact as long as tickets and double moves do not matter. <br>
+ * The table does not depend on the rounds: a position is won for the
+ * detectives if they need no more plies than the game has left, see
+ * {@link #pliesLeft(List, int, int, int)}. It is solved one ply deeper at a
+ * time, every level scanning the state space in parallel, up to a horizon
+ * that is usually the length of the whole game. <br>
+ * Every state takes one byte, the plies to capture or {@link #NO_CAPTURE}
+ * beyond the horizon. The state index packs the player to move and the
+ * detectives' locations into the row of a {@link MappedByteMatrix} and MrX's
+ * location into the column, so a table can be written to a file once and
+ * mapped by any number of processes; queries are O(1) either way. A written
+ * table starts with a fingerprint of the map and the horizon, so it only
+ * opens for the map it was built for and still knows how far it looked.
+ * Thread safe once built.
+ */
+public final class Tablebase implements Closeable {
+
+	/**
+	 * The detectives cannot force a capture within the horizon
+	 */
+	public static final int NO_CAPTURE = -1;
+
+	/**
+	 * Largest horizon in plies
+	 */
+	public static final int MAX_HORIZON = 254;
+
+	private static final byte UNSOLVED = (byte) 0xFF;
+	private static final int MAGIC = 0x53595442; // SYTB
+	// magic, horizon, detectives and fingerprint, in the first rows of a file
+	private static final int HEADER = 17;
+
+	private final IntGraph<Transport> graph;
+	private final int detectives;
+	private final int horizon;
+	private final int nodes;
+	private final int rows;
+	private final int firstRow;
+	private final byte[] cells;
+	private final MappedByteMatrix matrix;
+
+	private Tablebase(IntGraph<Transport> graph, int detectives, int horizon, byte[] cells,
+			MappedByteMatrix matrix) {
+		this.graph = graph;
+		this.detectives = detectives;
+		this.horizon = horizon;
+		this.nodes = graph.size();
+		this.rows = rows(nodes, detectives);
+		this.firstRow = headerRows(nodes);
+		this.cells = cells;
+		this.matrix = matrix;
+	}
+
+	private static int headerRows(int nodes) {
+		return (HEADER + nodes - 1) / nodes;
+	}
+
+	// FNV-1a over the nodes in order and the edges of each
+	private static long fingerprint(IntGraph<Transport> graph) {
+		long hash = 0xcbf29ce484222325L;
+		for (int node = 0; node < graph.size(); node++) {
+			hash = (hash ^ graph.value(node)) * 0x100000001b3L;
+			for (int i = 0; i < graph.degree(node); i++) {
+				hash = (hash ^ graph.neighbourAt(node, i)) * 0x100000001b3L;
+				hash = (hash ^ graph.dataAt(node, i).ordinal()) * 0x100000001b3L;
+			}
+			hash = (hash ^ -1) * 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	// players to move times every placement of the detectives
+	private static int rows(int nodes, int detectives) {
+		long rows = detectives + 1;
+		for (int i = 0; i < detectives; i++)
+			rows *= nodes;
+		if (rows * nodes > Integer.MAX_VALUE - 8) throw new IllegalArgumentException(
+				detectives + " detectives on " + nodes + " nodes are too many states");
+		return (int) rows;
+	}
+
+	/**
+	 * Solves the standard map for the length of a standard game
+	 *
+	 * @param detectives number of detectives, at least 1
+	 * @return the tablebase; never null
+	 * @throws IOException if the standard map could not be read
+	 */
+	public static Tablebase standard(int detectives) throws IOException {
+		return build(StandardGame.standardGraph(), detectives,
+				horizon(StandardGame.ROUNDS, detectives));
+	}
+
+	/**
+	 * Solves a map
+	 *
+	 * @param graph the map; not null and not empty
+	 * @param detectives number of detectives, at least 1
+	 * @param horizon the most plies to solve, see
+	 *        {@link #horizon(List, int)}; from 1 to {@link #MAX_HORIZON}
+	 * @return the tablebase; never null
+	 * @throws IllegalArgumentException if the table would not fit an array
+	 */
+	public static Tablebase build(Graph<Integer, Transport> graph, int detectives, int horizon) {
+		Objects.requireNonNull(graph);
+		if (graph.isEmpty()) throw new IllegalArgumentException("Empty graph");
+		if (detectives < 1) throw new IllegalArgumentException("detectives < 1");
+		if (horizon < 1 || horizon > MAX_HORIZON)
+			throw new IllegalArgumentException("horizon must be from 1 to " + MAX_HORIZON);
+		IntGraph<Transport> copy = IntGraphs.copyOf(graph);
+		Solver solver = new Solver(copy, detectives);
+		return new Tablebase(copy, detectives, solver.solve(horizon), solver.cells, null);
+	}
+
+	/**
+	 * Maps a tablebase written by {@link #write(Path)} read only
+	 *
+	 * @param file the file; not null
+	 * @param graph the map it was built for; not null
+	 * @return the tablebase; never null
+	 * @throws IOException if the file could not be mapped, is not a
+	 *         tablebase or was built for another map
+	 */
+	public static Tablebase open(Path file, Graph<Integer, Transport> graph) throws IOException {
+		IntGraph<Transport> copy = IntGraphs.copyOf(graph);
+		int nodes = copy.size();
+		MappedByteMatrix matrix = MappedByteMatrix.open(file);
+		try {
+			int headerRows = headerRows(nodes);
+			if (matrix.columns() != nodes || matrix.rows() <= headerRows) throw new IOException(
+					file + " is not a tablebase of a map with " + nodes + " nodes");
+			byte[] header = new byte[headerRows * nodes];
+			for (int r = 0; r < headerRows; r++)
+				matrix.copyRow(r, header, r * nodes);
+			ByteBuffer buffer = ByteBuffer.wrap(header);
+			if (buffer.getInt() != MAGIC) throw new IOException(file + " is not a tablebase");
+			int horizon = buffer.get() & 0xFF;
+			int detectives = buffer.getInt();
+			if (buffer.getLong() != fingerprint(copy))
+				throw new IOException(file + " is a tablebase of another map");
+			long rows = detectives + 1L;
+			for (int i = 0; i < detectives && rows <= matrix.rows(); i++)
+				rows *= nodes;
+			if (horizon == 0 || detectives < 1 || headerRows + rows != matrix.rows())
+				throw new IOException(file + " is damaged");
+			return new Tablebase(copy, detectives,
+					horizon == (UNSOLVED & 0xFF) ? Integer.MAX_VALUE : horizon, null, matrix);
+		} catch (IOException | RuntimeException e) {
+			matrix.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes this tablebase to a file for {@link #open(Path, Graph)}
+	 *
+	 * @param file the file, replaced if it exists; not null
+	 * @throws IOException if writing fails
+	 */
+	public void write(Path file) throws IOException {
+		try (MappedByteMatrix out = MappedByteMatrix.create(file, firstRow + rows, nodes)) {
+			byte[] header = new byte[firstRow * nodes];
+			ByteBuffer.wrap(header).putInt(MAGIC)
+					.put(horizon == Integer.MAX_VALUE ? UNSOLVED : (byte) horizon)
+					.putInt(detectives).putLong(fingerprint(graph));
+			for (int r = 0; r < firstRow; r++)
+				out.setRow(r, header, r * nodes);
+			byte[] row = new byte[nodes];
+			for (int r = 0; r < rows; r++) {
+				if (cells != null) System.arraycopy(cells, r * nodes, row, 0, nodes);
+				else matrix.copyRow(firstRow + r, row, 0);
+				out.setRow(firstRow + r, row, 0);
+			}
+		}
+	}
+
+	/**
+	 * @param rounds the rounds of the game; not null
+	 * @param detectives number of detectives
+	 * @return number of plies in a whole game, the horizon that solves every
+	 *         position of it
+	 */
+	public static int horizon(List<Boolean> rounds, int detectives) {
+		return rounds.size() * (detectives + 1);
+	}
+
+	/**
+	 * @param rounds the rounds of the game; not null
+	 * @param round number of rounds played, as in
+	 *        {@link uk.ac.bris.cs.scotlandyard.model.ScotlandYardView#getCurrentRound()}
+	 * @param turn the player to move, 0 for MrX and detectives from 1 in
+	 *        turn order
+	 * @param detectives number of detectives
+	 * @return number of plies left in the game
+	 */
+	public static int pliesLeft(List<Boolean> rounds, int round, int turn, int detectives) {
+		return pliesLeft(rounds.size(), round, turn, detectives);
+	}
+
+	private static int pliesLeft(int rounds, int round, int turn, int detectives) {
+		return (rounds - round) * (detectives + 1) + (turn == 0 ? 0 : detectives + 1 - turn);
+	}
+
+	/**
+	 * @return number of detectives
+	 */
+	public int detectives() {
+		return detectives;
+	}
+
+	/**
+	 * @return the most plies solved, {@link Integer#MAX_VALUE} if solving
+	 *         stopped early because no position needed more, so that
+	 *         {@link #NO_CAPTURE} means the detectives never catch MrX
+	 */
+	public int horizon() {
+		return horizon;
+	}
+
+	/**
+	 * @return number of nodes of the map
+	 */
+	public int nodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return number of states
+	 */
+	public long states() {
+		return (long) rows * nodes;
+	}
+
+	/**
+	 * @param turn the player to move, 0 for MrX and detectives from 1 in
+	 *        turn order
+	 * @param mrX MrX's location
+	 * @param detectives the detectives' locations in turn order
+	 * @return the plies the detectives need to catch MrX with best play on
+	 *         both sides, or {@link #NO_CAPTURE}
+	 * @throws IllegalArgumentException if a location is not on the map
+	 */
+	public int pliesToCapture(int turn, int mrX, int... detectives) {
+		int[] ids = new int[detectives.length];
+		for (int i = 0; i < ids.length; i++)
+			ids[i] = id(detectives[i]);
+		return lookup(turn, id(mrX), ids);
+	}
+
+	/**
+	 * @param state a state of the same map with as many detectives; not null
+	 * @return the plies the detectives need to catch MrX with best play on
+	 *         both sides, or {@link #NO_CAPTURE}
+	 */
+	public int pliesToCapture(GameState state) {
+		if (state.players() != detectives + 1)
+			throw new IllegalArgumentException("State with " + (state.players() - 1)
+					+ " detectives, tablebase of " + detectives);
+		int[] ids = new int[detectives];
+		for (int i = 0; i < detectives; i++)
+			ids[i] = state.location(i + 1);
+		return lookup(state.current(), state.location(0), ids);
+	}
+
+	/**
+	 * @param state a state of the same map with as many detectives and not
+	 *        over; not null
+	 * @return true if the detectives can catch MrX before the game ends,
+	 *         assuming they know where he is
+	 * @throws IllegalStateException if they cannot within the
+	 *         {@link #horizon()} but the game has more plies left, so the
+	 *         table does not know
+	 */
+	public boolean detectivesWin(GameState state) {
+		int plies = pliesToCapture(state);
+		int left = pliesLeft(state.board().rounds(), state.round(), state.current(), detectives);
+		if (plies != NO_CAPTURE) return plies <= left;
+		if (left > horizon) throw new IllegalStateException(
+				left + " plies left, beyond the horizon of " + horizon);
+		return false;
+	}
+
+	private int id(int location) {
+		int id = graph.index(location);
+		if (id < 0) throw new IllegalArgumentException("No node " + location + " on the map");
+		return id;
+	}
+
+	private int lookup(int turn, int mrX, int[] detectives) {
+		if (detectives.length != this.detectives) throw new IllegalArgumentException(
+				detectives.length + " detectives, tablebase of " + this.detectives);
+		if (turn < 0 || turn > this.detectives)
+			throw new IllegalArgumentException("No player " + turn);
+		int row = turn;
+		for (int detective : detectives) {
+			if (detective < 0 || detective >= nodes)
+				throw new IllegalArgumentException("No node id " + detective);
+			row = row * nodes + detective;
+		}
+		if (mrX < 0 || mrX >= nodes) throw new IllegalArgumentException("No node id " + mrX);
+		byte cell = cells != null ? cells[row * nodes + mrX]
+				: matrix.get(firstRow + row, mrX);
+		return cell == UNSOLVED ? NO_CAPTURE : cell & 0xFF;
+	}
+
+	/**
+	 * Releases the file of a mapped tablebase
+	 */
+	@Override
+	public void close() {
+		if (matrix != null) matrix.close();
+	}
+
+	@Override
+	public String toString() {
+		return "Tablebase{detectives=" + detectives + ", nodes=" + nodes + ", states=" + states()
+				+ ", horizon=" + horizon + (matrix != null ? ", " + matrix.file() : "") + '}';
+	}
+
+	// the state index is ((turn * nodes + d1) * nodes + d2 ...) * nodes + mrX
+	private static final class Solver {
+
+		private final int nodes;
+		private final int detectives;
+		private final int placements;
+		private final int[] weights;
+		private final int[] mrXOffsets, mrXTargets;
+		private final int[] offsets, targets;
+		private final byte[] cells;
+
+		Solver(IntGraph<Transport> graph, int detectives) {
+			this.nodes = graph.size();
+			this.detectives = detectives;
+			int rows = rows(nodes, detectives);
+			this.placements = rows / (detectives + 1);
+			this.weights = new int[detectives];
+			for (int i = detectives - 1, weight = 1; i >= 0; i--, weight *= nodes)
+				weights[i] = weight;
+			this.mrXOffsets = new int[nodes + 1];
+			this.offsets = new int[nodes + 1];
+			int[][] mrX = new int[nodes][], detective = new int[nodes][];
+			for (int node = 0; node < nodes; node++) {
+				mrX[node] = neighbours(graph, node, true);
+				detective[node] = neighbours(graph, node, false);
+				mrXOffsets[node + 1] = mrXOffsets[node] + mrX[node].length;
+				offsets[node + 1] = offsets[node] + detective[node].length;
+			}
+			this.mrXTargets = new int[mrXOffsets[nodes]];
+			this.targets = new int[offsets[nodes]];
+			for (int node = 0; node < nodes; node++) {
+				System.arraycopy(mrX[node], 0, mrXTargets, mrXOffsets[node], mrX[node].length);
+				System.arraycopy(detective[node], 0, targets, offsets[node],
+						detective[node].length);
+			}
+			this.cells = new byte[rows * nodes];
+		}
+
+		// distinct neighbours, ferries only for MrX
+		private static int[] neighbours(IntGraph<Transport> graph, int node, boolean ferry) {
+			return IntStream.range(0, graph.degree(node))
+					.filter(i -> ferry || graph.dataAt(node, i) != Transport.FERRY)
+					.map(i -> graph.neighbourAt(node, i)).distinct().sorted().toArray();
+		}
+
+		// the horizon reached, or Integer.MAX_VALUE once a level solves nothing
+		int solve(int horizon) {
+			Arrays.fill(cells, UNSOLVED);
+			IntStream.range(0, cells.length / nodes).parallel().forEach(this::captures);
+			for (int level = 1; level <= horizon; level++) {
+				int depth = level;
+				// a level only reads cells of lower levels, so rows can be
+				// solved in place and in any order
+				long solved = IntStream.range(0, cells.length / nodes).parallel()
+						.mapToLong(row -> solve(row, depth)).sum();
+				if (solved == 0) return Integer.MAX_VALUE;
+			}
+			return horizon;
+		}
+
+		private int[] placement(int row) {
+			int[] placement = new int[detectives];
+			for (int i = detectives - 1, rest = row % placements; i >= 0; i--, rest /= nodes)
+				placement[i] = rest % nodes;
+			return placement;
+		}
+
+		// a detective on MrX's node has caught him
+		private void captures(int row) {
+			for (int detective : placement(row))
+				cells[row * nodes + detective] = 0;
+		}
+
+		private long solve(int row, int depth) {
+			int turn = row / placements;
+			int[] placement = placement(row);
+			return turn == 0 ? solveMrX(row, placement, depth)
+					: solveDetective(row, turn, placement, depth);
+		}
+
+		// MrX is caught in as many plies as his best move takes
+		private long solveMrX(int row, int[] placement, int depth) {
+			int base = row * nodes, next = (row + placements) * nodes;
+			long solved = 0;
+			for (int mrX = 0; mrX < nodes; mrX++) {
+				if (cells[base + mrX] != UNSOLVED) continue;
+				boolean moved = false, caught = true;
+				for (int i = mrXOffsets[mrX]; i < mrXOffsets[mrX + 1] && caught; i++) {
+					int target = mrXTargets[i];
+					if (occupied(placement, target, -1)) continue;
+					moved = true;
+					int child = cells[next + target] & 0xFF;
+					caught = child < depth;
+				}
+				// stuck counts as caught on his move
+				if (moved ? caught : depth == 1) {
+					cells[base + mrX] = (byte) depth;
+					solved++;
+				}
+			}
+			return solved;
+		}
+
+		// the detective's best move catches MrX the soonest
+		private long solveDetective(int row, int turn, int[] placement, int depth) {
+			int detective = turn - 1, from = placement[detective];
+			int nextTurn = turn == detectives ? 0 : turn + 1;
+			int nextRow = row - turn * placements + nextTurn * placements;
+			int[] children = new int[offsets[from + 1] - offsets[from] + 1];
+			int count = 0;
+			for (int i = offsets[from]; i < offsets[from + 1]; i++) {
+				int target = targets[i];
+				if (occupied(placement, target, detective)) continue;
+				children[count++] = (nextRow + (target - from) * weights[detective]) * nodes;
+			}
+			// nowhere to go, pass
+			if (count == 0) children[count++] = nextRow * nodes;
+			int base = row * nodes;
+			long solved = 0;
+			for (int mrX = 0; mrX < nodes; mrX++) {
+				if (cells[base + mrX] != UNSOLVED) continue;
+				for (int i = 0; i < count; i++) {
+					if ((cells[children[i] + mrX] & 0xFF) < depth) {
+						cells[base + mrX] = (byte) depth;
+						solved++;
+						break;
+					}
+				}
+			}
+			return solved;
+		}
+
+		private static boolean occupied(int[] placement, int node, int except) {
+			for (int i = 0; i < placement.length; i++)
+				if (i != except && placement[i] == node) return true;
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,73 @@
+package uk.ac.bris.cs.scotlandyard.ai.tournament;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import uk.ac.bris.cs.scotlandyard.ai.AI;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * An AI taking part in a {@link Tournament}, known by its name. Every game
+ * gets a fresh factory for each side.
+ */
+public final class Entrant {
+
+	private final String name;
+	private final Supplier<? extends PlayerFactory> factory;
+
+	/**
+	 * @param name the unique name; not null
+	 * @param factory creates a factory for one side of one game; not null
+	 */
+	public Entrant(String name, Supplier<? extends PlayerFactory> factory) {
+		this.name = Objects.requireNonNull(name);
+		this.factory = Objects.requireNonNull(factory);
+	}
+
+	/**
+	 * @param ai the AI; not null
+	 * @return an entrant with the AI's name
+	 */
+	public static Entrant of(AI ai) {
+		return new Entrant(ai.getName(), ai::instantiate);
+	}
+
+	/**
+	 * @return an entrant for every AI found by {@link AI#scanClasspath()}
+	 */
+	public static List<Entrant> scanClasspath() {
+		return AI.scanClasspath().stream().map(Entrant::of).collect(toList());
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String name() {
+		return name;
+	}
+
+	PlayerFactory create() {
+		return Objects.requireNonNull(factory.get(), "Factory of " + name + " is null");
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		return name.equals(((Entrant) o).name);
+	}
+
+	@Override
+	public int hashCode() {
+		return name.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "Entrant{" + name + '}';
+	}
+
+}
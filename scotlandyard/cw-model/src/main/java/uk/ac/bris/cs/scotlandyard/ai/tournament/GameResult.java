@@ -0,0 +1,121 @@
+package uk.ac.bris.cs.scotlandyard.ai.tournament;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * How a game of a {@link Tournament} ended
+ */
+public final class GameResult {
+
+	/**
+	 * The side that won
+	 */
+	public enum Winner {
+		MRX, DETECTIVES,
+		/**
+		 * Nobody, the game broke down; not rated
+		 */
+		NONE
+	}
+
+	private final Pairing pairing;
+	private final int seed;
+	private final Winner winner;
+	private final String forfeit;
+	private final int rounds;
+	private final int moves;
+	private final Duration elapsed;
+
+	GameResult(Pairing pairing, int seed, Winner winner, String forfeit, int rounds, int moves,
+			Duration elapsed) {
+		this.pairing = Objects.requireNonNull(pairing);
+		this.seed = seed;
+		this.winner = Objects.requireNonNull(winner);
+		this.forfeit = forfeit;
+		this.rounds = rounds;
+		this.moves = moves;
+		this.elapsed = Objects.requireNonNull(elapsed);
+	}
+
+	/**
+	 * @return the pairing played
+	 */
+	public Pairing pairing() {
+		return pairing;
+	}
+
+	/**
+	 * @return the seed the start locations were generated from
+	 */
+	public int seed() {
+		return seed;
+	}
+
+	/**
+	 * @return the side that won
+	 */
+	public Winner winner() {
+		return winner;
+	}
+
+	/**
+	 * @return the winning entrant, empty if nobody won
+	 */
+	public Optional<Entrant> winningEntrant() {
+		switch (winner) {
+			case MRX: return Optional.of(pairing.mrX());
+			case DETECTIVES: return Optional.of(pairing.detectives());
+			default: return Optional.empty();
+		}
+	}
+
+	/**
+	 * @return the losing entrant, empty if nobody won
+	 */
+	public Optional<Entrant> losingEntrant() {
+		switch (winner) {
+			case MRX: return Optional.of(pairing.detectives());
+			case DETECTIVES: return Optional.of(pairing.mrX());
+			default: return Optional.empty();
+		}
+	}
+
+	/**
+	 * @return why the loser forfeited or why the game broke down, empty if
+	 *         it was played to the end
+	 */
+	public Optional<String> forfeit() {
+		return Optional.ofNullable(forfeit);
+	}
+
+	/**
+	 * @return the round the game ended in
+	 */
+	public int rounds() {
+		return rounds;
+	}
+
+	/**
+	 * @return number of moves made
+	 */
+	public int moves() {
+		return moves;
+	}
+
+	/**
+	 * @return the time the game took
+	 */
+	public Duration elapsed() {
+		return elapsed;
+	}
+
+	@Override
+	public String toString() {
+		return "GameResult{" + pairing + ", winner=" + winner
+				+ (forfeit == null ? "" : ", forfeit=" + forfeit) + ", rounds=" + rounds
+				+ ", moves=" + moves + ", elapsed=" + elapsed + '}';
+	}
+
+}
@@ -0,0 +1,66 @@
+package uk.ac.bris.cs.scotlandyard.ai.tournament;
+
+import java.util.Objects;
+
+/**
+ * One game of a {@link Tournament}: who plays MrX, who plays the detectives
+ * and the seed of the start locations
+ */
+public final class Pairing {
+
+	private final Entrant mrX;
+	private final Entrant detectives;
+	private final int seed;
+
+	/**
+	 * @param mrX the entrant playing MrX; not null
+	 * @param detectives the entrant playing every detective; not null
+	 * @param seed the seed of the start locations, added to the tournament's
+	 */
+	public Pairing(Entrant mrX, Entrant detectives, int seed) {
+		this.mrX = Objects.requireNonNull(mrX);
+		this.detectives = Objects.requireNonNull(detectives);
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the entrant playing MrX
+	 */
+	public Entrant mrX() {
+		return mrX;
+	}
+
+	/**
+	 * @return the entrant playing the detectives
+	 */
+	public Entrant detectives() {
+		return detectives;
+	}
+
+	/**
+	 * @return the seed of the start locations
+	 */
+	public int seed() {
+		return seed;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		Pairing that = (Pairing) o;
+		return seed == that.seed && mrX.equals(that.mrX) && detectives.equals(that.detectives);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(mrX, detectives, seed);
+	}
+
+	@Override
+	public String toString() {
+		return "Pairing{mrX=" + mrX.name() + ", detectives=" + detectives.name() + ", seed="
+				+ seed + '}';
+	}
+
+}
@@ -0,0 +1,112 @@
+package uk.ac.bris.cs.scotlandyard.ai.tournament;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Elo ratings of the entrants of a {@link Tournament}, by name. Entrants
+ * start at {@link #initial()}; a game moves the winner up and the loser down
+ * by the same amount, at most {@link #k()}. Thread safe.
+ */
+public final class Ratings {
+
+	/**
+	 * Rating of an entrant yet to play
+	 */
+	public static final double DEFAULT_INITIAL = 1500;
+
+	/**
+	 * Largest change of a rating in one game
+	 */
+	public static final double DEFAULT_K = 16;
+
+	private final double initial;
+	private final double k;
+	private final Map<String, Double> ratings = new HashMap<>();
+	private final Map<String, Integer> games = new HashMap<>();
+
+	/**
+	 * Ratings with {@link #DEFAULT_INITIAL} and {@link #DEFAULT_K}
+	 */
+	public Ratings() {
+		this(DEFAULT_INITIAL, DEFAULT_K);
+	}
+
+	/**
+	 * @param initial the rating of an entrant yet to play
+	 * @param k the largest change of a rating in one game; positive
+	 */
+	public Ratings(double initial, double k) {
+		if (!(k > 0)) throw new IllegalArgumentException("k must be positive");
+		this.initial = initial;
+		this.k = k;
+	}
+
+	/**
+	 * @return the rating of an entrant yet to play
+	 */
+	public double initial() {
+		return initial;
+	}
+
+	/**
+	 * @return the largest change of a rating in one game
+	 */
+	public double k() {
+		return k;
+	}
+
+	/**
+	 * @param name the entrant's name; not null
+	 * @return the rating of the entrant
+	 */
+	public synchronized double rating(String name) {
+		return ratings.getOrDefault(Objects.requireNonNull(name), initial);
+	}
+
+	/**
+	 * @param name the entrant's name; not null
+	 * @return number of games recorded for the entrant
+	 */
+	public synchronized int games(String name) {
+		return games.getOrDefault(Objects.requireNonNull(name), 0);
+	}
+
+	/**
+	 * @param winner the winner's name; not null
+	 * @param loser the loser's name; not null and not the winner
+	 * @return the points the winner gained and the loser lost
+	 */
+	public synchronized double record(String winner, String loser) {
+		if (winner.equals(loser)) throw new IllegalArgumentException("Winner is the loser");
+		double a = rating(winner), b = rating(loser);
+		double expected = 1 / (1 + Math.pow(10, (b - a) / 400));
+		double change = k * (1 - expected);
+		ratings.put(winner, a + change);
+		ratings.put(loser, b - change);
+		games.merge(winner, 1, Integer::sum);
+		games.merge(loser, 1, Integer::sum);
+		return change;
+	}
+
+	/**
+	 * @return the rating of every entrant that played, best first
+	 */
+	public synchronized Map<String, Double> standings() {
+		Map<String, Double> standings = new LinkedHashMap<>();
+		ratings.entrySet().stream()
+				.sorted(Map.Entry.<String, Double> comparingByValue(Comparator.reverseOrder())
+						.thenComparing(Map.Entry.comparingByKey()))
+				.forEach(e -> standings.put(e.getKey(), e.getValue()));
+		return standings;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "Ratings" + standings();
+	}
+
+}
@@ -0,0 +1,101 @@
+package uk.ac.bris.cs.scotlandyard.ai.tournament;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Line formats of the results a {@link Tournament} writes as games finish.
+ * Each line holds the game and both entrants' ratings after it.
+ */
+public enum ResultFormat {
+
+	/**
+	 * Comma separated values with a header line
+	 */
+	CSV {
+		@Override
+		public Optional<String> header() {
+			return Optional.of("mrX,detectives,seed,winner,forfeit,rounds,moves,millis,"
+					+ "mrXRating,detectivesRating");
+		}
+
+		@Override
+		public String format(GameResult result, Ratings ratings) {
+			Pairing pairing = result.pairing();
+			return String.join(",", quote(pairing.mrX().name()),
+					quote(pairing.detectives().name()), String.valueOf(result.seed()),
+					result.winner().name(), quote(result.forfeit().orElse("")),
+					String.valueOf(result.rounds()), String.valueOf(result.moves()),
+					String.valueOf(result.elapsed().toMillis()),
+					rating(ratings, pairing.mrX()), rating(ratings, pairing.detectives()));
+		}
+
+		private String quote(String value) {
+			if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+				return value;
+			return '"' + value.replace("\"", "\"\"") + '"';
+		}
+	},
+
+	/**
+	 * One JSON object per line
+	 */
+	JSONL {
+		@Override
+		public Optional<String> header() {
+			return Optional.empty();
+		}
+
+		@Override
+		public String format(GameResult result, Ratings ratings) {
+			Pairing pairing = result.pairing();
+			return "{\"mrX\":" + quote(pairing.mrX().name())
+					+ ",\"detectives\":" + quote(pairing.detectives().name())
+					+ ",\"seed\":" + result.seed()
+					+ ",\"winner\":\"" + result.winner() + '"'
+					+ ",\"forfeit\":" + result.forfeit().map(this::quote).orElse("null")
+					+ ",\"rounds\":" + result.rounds()
+					+ ",\"moves\":" + result.moves()
+					+ ",\"millis\":" + result.elapsed().toMillis()
+					+ ",\"mrXRating\":" + rating(ratings, pairing.mrX())
+					+ ",\"detectivesRating\":" + rating(ratings, pairing.detectives()) + '}';
+		}
+
+		private String quote(String value) {
+			StringBuilder builder = new StringBuilder("\"");
+			for (char c : value.toCharArray()) {
+				if (c == '"' || c == '\\') builder.append('\\').append(c);
+				else if (c < 0x20) builder.append(String.format("\\u%04x", (int) c));
+				else builder.append(c);
+			}
+			return builder.append('"').toString();
+		}
+	};
+
+	/**
+	 * @return the first line of the output, if any
+	 */
+	public abstract Optional<String> header();
+
+	/**
+	 * @param result the result; not null
+	 * @param ratings the ratings after the game; not null
+	 * @return the line, without a line break
+	 */
+	public abstract String format(GameResult result, Ratings ratings);
+
+	/**
+	 * @param path a file name
+	 * @return {@link #JSONL} for names ending in {@code .jsonl} or
+	 *         {@code .json}, {@link #CSV} otherwise
+	 */
+	public static ResultFormat forFile(String path) {
+		String name = path.toLowerCase();
+		return name.endsWith(".jsonl") || name.endsWith(".json") ? JSONL : CSV;
+	}
+
+	private static String rating(Ratings ratings, Entrant entrant) {
+		return String.format(Locale.ROOT, "%.1f", ratings.rating(entrant.name()));
+	}
+
+}
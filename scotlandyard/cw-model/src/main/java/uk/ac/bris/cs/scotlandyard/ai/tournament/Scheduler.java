@@ -0,0 +1,97 @@
+package uk.ac.bris.cs.scotlandyard.ai.tournament;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Decides the games of a {@link Tournament} one round at a time; a round
+ * starts once every game of the previous round has finished, so later rounds
+ * may depend on the ratings. <br>
+ * Entrants meet as both MrX and detectives from the same start locations, as
+ * MrX and the detectives rarely win equally often.
+ */
+@FunctionalInterface
+public interface Scheduler {
+
+	/**
+	 * @param round the round, from 0
+	 * @param entrants the entrants; never null
+	 * @param ratings the ratings so far; never null
+	 * @return the games of the round, empty to end the tournament; not null
+	 */
+	List<Pairing> round(int round, List<Entrant> entrants, Ratings ratings);
+
+	/**
+	 * Every entrant meets every other entrant, all in one round
+	 *
+	 * @param games number of start locations each pair of entrants plays
+	 *        from, twice each; positive
+	 * @return the scheduler; never null
+	 */
+	static Scheduler roundRobin(int games) {
+		if (games < 1) throw new IllegalArgumentException("games < 1");
+		return (round, entrants, ratings) -> {
+			if (round > 0) return Collections.emptyList();
+			List<Pairing> pairings = new ArrayList<>();
+			for (int game = 0; game < games; game++)
+				for (int i = 0; i < entrants.size(); i++)
+					for (int j = i + 1; j < entrants.size(); j++) {
+						pairings.add(new Pairing(entrants.get(i), entrants.get(j), game));
+						pairings.add(new Pairing(entrants.get(j), entrants.get(i), game));
+					}
+			return pairings;
+		};
+	}
+
+	/**
+	 * Swiss system: every round entrants are ranked by rating and meet the
+	 * next entrant down they have not met yet, or the next one down if they
+	 * have met everyone. With an odd number of entrants the last one sits the
+	 * round out. A new instance is needed for every tournament.
+	 *
+	 * @param rounds number of rounds; positive
+	 * @return the scheduler; never null
+	 */
+	static Scheduler swiss(int rounds) {
+		if (rounds < 1) throw new IllegalArgumentException("rounds < 1");
+		Set<List<String>> met = new HashSet<>();
+		// order independent key of a pair of entrants
+		BiFunction<Entrant, Entrant, List<String>> key = (a, b) -> a.name()
+				.compareTo(b.name()) < 0 ? Arrays.asList(a.name(), b.name())
+						: Arrays.asList(b.name(), a.name());
+		return (round, entrants, ratings) -> {
+			if (round >= rounds) return Collections.emptyList();
+			List<Entrant> ranked = new ArrayList<>(entrants);
+			ranked.sort(Comparator.comparingDouble((Entrant e) -> -ratings.rating(e.name()))
+					.thenComparing(Entrant::name));
+			List<Pairing> pairings = new ArrayList<>();
+			boolean[] paired = new boolean[ranked.size()];
+			for (int i = 0; i < ranked.size(); i++) {
+				if (paired[i]) continue;
+				int opponent = -1;
+				for (int j = i + 1; j < ranked.size(); j++) {
+					if (paired[j]) continue;
+					if (opponent == -1) opponent = j;
+					if (!met.contains(key.apply(ranked.get(i), ranked.get(j)))) {
+						opponent = j;
+						break;
+					}
+				}
+				if (opponent == -1) break;
+				Entrant a = ranked.get(i), b = ranked.get(opponent);
+				paired[i] = paired[opponent] = true;
+				met.add(key.apply(a, b));
+				pairings.add(new Pairing(a, b, round));
+				pairings.add(new Pairing(b, a, round));
+			}
+			return pairings;
+		};
+	}
+
+}
@@ -0,0 +1,384 @@
+package uk.ac.bris.cs.scotlandyard.ai.tournament;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.timer.StandardTimer;
+import uk.ac.bris.cs.gamekit.timer.Timer;
+import uk.ac.bris.cs.scotlandyard.ai.DeadlinePlayer;
+import uk.ac.bris.cs.scotlandyard.ai.MoveExecutor;
+import uk.ac.bris.cs.scotlandyard.ai.MoveStatistics;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.ai.tournament.GameResult.Winner;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Plays AIs against each other without the GUI and rates them. <br>
+ * Games are played on the standard map with start locations and tickets
+ * from {@link StandardGame}, one at a time unless told otherwise. Every
+ * game gets fresh factories for both sides; their players move through a
+ * {@link DeadlinePlayer} on a thread of the game's own and are told the same
+ * shorter {@link DeadlinePlayer#deadline(Duration) move timeout} as in the
+ * GUI, so a player that never answers only holds up its game until the
+ * timeout. There is no visualiser or resource provider, so
+ * {@link PlayerFactory#ready} is not called. <br>
+ * A player that throws, makes an invalid move or takes longer than the move
+ * timeout forfeits the game. Results are rated and written in schedule
+ * order as soon as the game and every game before it have finished, so a
+ * seed gives the same ratings however many games run at a time.
+ */
+public final class Tournament {
+
+	/**
+	 * Move timeout unless told otherwise
+	 */
+	public static final Duration DEFAULT_MOVE_TIMEOUT = Duration.ofSeconds(1);
+
+	// thrown through the model to end a game the moving side forfeited
+	private static final class Forfeit extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		final boolean mrX;
+
+		Forfeit(boolean mrX, String reason) {
+			super(reason, null, false, false);
+			this.mrX = mrX;
+		}
+	}
+
+	private final List<Entrant> entrants;
+	private final Scheduler scheduler;
+	private final Ratings ratings;
+	private final List<Colour> colours;
+	private final Duration moveTimeout;
+	private final int threads;
+	private final int seed;
+	private final Writer output;
+	private final ResultFormat format;
+	private final Timer timer = new StandardTimer();
+
+	private Tournament(Builder builder) {
+		this.entrants = builder.entrants;
+		this.scheduler = builder.scheduler;
+		this.ratings = builder.ratings;
+		this.moveTimeout = builder.moveTimeout;
+		this.threads = builder.threads;
+		this.seed = builder.seed;
+		this.output = builder.output;
+		this.format = builder.format;
+		List<Colour> colours = new ArrayList<>();
+		colours.add(Colour.BLACK);
+		for (Colour colour : Colour.values())
+			if (colour.isDetective() && colours.size() <= builder.detectives) colours.add(colour);
+		this.colours = ImmutableList.copyOf(colours);
+	}
+
+	/**
+	 * Plays every round of the schedule
+	 *
+	 * @return the ratings, also updated while the tournament runs; never null
+	 * @throws IOException if writing a result fails
+	 * @throws InterruptedException if interrupted while waiting for games
+	 */
+	public Ratings run() throws IOException, InterruptedException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		if (output != null && format.header().isPresent()) write(format.header().get());
+		ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+				.setDaemon(true).setNameFormat("tournament-%d").build());
+		try {
+			for (int round = 0;; round++) {
+				List<Pairing> pairings = scheduler.round(round, entrants, ratings);
+				if (pairings.isEmpty()) break;
+				List<Future<GameResult>> games = new ArrayList<>();
+				for (Pairing pairing : pairings)
+					games.add(pool.submit(() -> play(graph, pairing)));
+				// Elo depends on the order of the games, record them as scheduled
+				for (Future<GameResult> game : games) {
+					GameResult result;
+					try {
+						result = game.get();
+					} catch (ExecutionException e) {
+						throw new IllegalStateException("Game failed", e.getCause());
+					}
+					if (result.winner() != Winner.NONE)
+						ratings.record(result.winningEntrant().get().name(),
+								result.losingEntrant().get().name());
+					if (output != null) write(format.format(result, ratings));
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return ratings;
+	}
+
+	private void write(String line) throws IOException {
+		output.write(line);
+		output.write(System.lineSeparator());
+		output.flush();
+	}
+
+	private GameResult play(Graph<Integer, Transport> graph, Pairing pairing) {
+		int seed = this.seed + pairing.seed();
+		long start = System.nanoTime();
+		int[] moves = { 0 };
+		PlayerFactory mrX = null, detectives = null;
+		MoveExecutor executor = MoveExecutor.fixed("tournament-moves", 1);
+		ScotlandYardModel model = null;
+		Winner winner;
+		String forfeit = null;
+		try {
+			mrX = pairing.mrX().create();
+			detectives = pairing.detectives().create();
+			Duration told = DeadlinePlayer.deadline(moveTimeout);
+			mrX.moveTimeout(told);
+			detectives.moveTimeout(told);
+			List<Integer> locations = StandardGame.generateDetectiveLocations(seed,
+					colours.size() - 1);
+			List<PlayerConfiguration> configurations = new ArrayList<>();
+			for (int i = 0; i < colours.size(); i++) {
+				Colour colour = colours.get(i);
+				PlayerFactory factory = colour.isMrX() ? mrX : detectives;
+				configurations.add(new PlayerConfiguration.Builder(colour)
+						.using(referee(factory.createPlayer(colour), colour.isMrX(), executor,
+								moves))
+						.with(colour.isMrX() ? StandardGame.generateMrXTickets()
+								: StandardGame.generateDetectiveTickets())
+						.at(colour.isMrX() ? StandardGame.generateMrXLocation(seed)
+								: locations.get(i - 1))
+						.build());
+			}
+			model = new ScotlandYardModel(StandardGame.ROUNDS, graph, configurations.get(0),
+					configurations.get(1), configurations.subList(2, configurations.size())
+							.toArray(new PlayerConfiguration[0]));
+			mrX.createSpectators(model).forEach(model::registerSpectator);
+			detectives.createSpectators(model).forEach(model::registerSpectator);
+			while (!model.isGameOver())
+				model.startRotate();
+			winner = model.getWinningPlayers().contains(Colour.BLACK) ? Winner.MRX
+					: Winner.DETECTIVES;
+		} catch (Forfeit e) {
+			winner = e.mrX ? Winner.DETECTIVES : Winner.MRX;
+			forfeit = (e.mrX ? "MrX " : "Detectives ") + e.getMessage();
+		} catch (RuntimeException e) {
+			winner = Winner.NONE;
+			forfeit = e.toString();
+		} finally {
+			executor.shutdown();
+			finish(mrX);
+			finish(detectives);
+		}
+		return new GameResult(pairing, seed, winner, forfeit,
+				model == null ? 0 : model.getCurrentRound(), moves[0],
+				Duration.ofNanos(System.nanoTime() - start));
+	}
+
+	private static void finish(PlayerFactory factory) {
+		if (factory == null) return;
+		try {
+			factory.finish();
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// waits for the player's move and checks it, forfeiting the game if need be
+	private Player referee(Player player, boolean mrX, MoveExecutor executor, int[] moves) {
+		MoveStatistics statistics = new MoveStatistics();
+		// written before the fallback is sent, so seen once the move arrives
+		Throwable[] thrown = { null };
+		DeadlinePlayer timed = new DeadlinePlayer.Builder(player, timer).executor(executor)
+				.timeout(moveTimeout).statistics(statistics)
+				.exceptionHandler(e -> thrown[0] = e).build();
+		return (view, location, valid, callback) -> {
+			Move move;
+			try {
+				move = timed.awaitMove(view, location, valid);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted");
+			}
+			if (thrown[0] != null) throw new Forfeit(mrX, "threw " + thrown[0]);
+			if (statistics.timeouts() > 0)
+				throw new Forfeit(mrX, "made no move within " + moveTimeout);
+			if (!valid.contains(move)) throw new Forfeit(mrX, "made invalid move " + move);
+			moves[0]++;
+			callback.accept(move);
+		};
+	}
+
+	@Override
+	public String toString() {
+		return "Tournament{entrants=" + entrants.size() + ", detectives=" + (colours.size() - 1)
+				+ ", moveTimeout=" + moveTimeout + ", threads=" + threads + '}';
+	}
+
+	/**
+	 * Plays a round robin of every {@link Entrant#scanClasspath() AI on the
+	 * classpath} and prints the standings <br>
+	 * Arguments: results file ({@code .csv} or {@code .jsonl}), games per
+	 * pair of AIs (default 1), move timeout in seconds (default 1)
+	 *
+	 * @param args the arguments
+	 * @throws Exception if the tournament fails
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 1 || args.length > 3) {
+			System.err.println("Usage: Tournament <results.csv|results.jsonl> [games] [timeout]");
+			System.exit(2);
+		}
+		List<Entrant> entrants = Entrant.scanClasspath();
+		if (entrants.size() < 2) {
+			System.err.println("Need at least two AIs, found " + entrants);
+			System.exit(1);
+		}
+		int games = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		Duration timeout = args.length > 2
+				? Duration.ofMillis((long) (Double.parseDouble(args[2]) * 1000))
+				: DEFAULT_MOVE_TIMEOUT;
+		try (Writer writer = Files.newBufferedWriter(Paths.get(args[0]),
+				StandardCharsets.UTF_8)) {
+			Ratings ratings = new Builder(entrants).scheduler(Scheduler.roundRobin(games))
+					.moveTimeout(timeout).output(writer, ResultFormat.forFile(args[0])).build()
+					.run();
+			for (Map.Entry<String, Double> entry : ratings.standings().entrySet())
+				System.out.printf("%-32s %7.1f %5d%n", entry.getKey(), entry.getValue(),
+						ratings.games(entry.getKey()));
+		}
+	}
+
+	/**
+	 * Builds a {@link Tournament}
+	 */
+	public static final class Builder {
+
+		private final List<Entrant> entrants;
+		private Scheduler scheduler = Scheduler.roundRobin(1);
+		private Ratings ratings = new Ratings();
+		private int detectives = 5;
+		private Duration moveTimeout = DEFAULT_MOVE_TIMEOUT;
+		private int threads = 1;
+		private int seed;
+		private Writer output;
+		private ResultFormat format = ResultFormat.CSV;
+
+		/**
+		 * @param entrants the entrants, at least two with distinct names; not
+		 *        null
+		 */
+		public Builder(List<Entrant> entrants) {
+			this.entrants = ImmutableList.copyOf(entrants);
+			if (this.entrants.size() < 2)
+				throw new IllegalArgumentException("Need at least two entrants");
+			if (this.entrants.stream().distinct().count() != this.entrants.size())
+				throw new IllegalArgumentException("Entrant names must be distinct");
+		}
+
+		/**
+		 * @param scheduler decides the games, defaults to a single round
+		 *        robin; not null
+		 * @return the builder for chaining; never null
+		 */
+		public Builder scheduler(Scheduler scheduler) {
+			this.scheduler = Objects.requireNonNull(scheduler);
+			return this;
+		}
+
+		/**
+		 * @param ratings the ratings to start from and update; not null
+		 * @return the builder for chaining; never null
+		 */
+		public Builder ratings(Ratings ratings) {
+			this.ratings = Objects.requireNonNull(ratings);
+			return this;
+		}
+
+		/**
+		 * @param detectives number of detectives, from 1 to 5; defaults to 5
+		 * @return the builder for chaining; never null
+		 */
+		public Builder detectives(int detectives) {
+			if (detectives < 1 || detectives > 5)
+				throw new IllegalArgumentException("detectives must be from 1 to 5");
+			this.detectives = detectives;
+			return this;
+		}
+
+		/**
+		 * @param moveTimeout the time a move may take; not null and positive
+		 * @return the builder for chaining; never null
+		 */
+		public Builder moveTimeout(Duration moveTimeout) {
+			if (moveTimeout.isNegative() || moveTimeout.isZero())
+				throw new IllegalArgumentException("moveTimeout must be positive");
+			this.moveTimeout = moveTimeout;
+			return this;
+		}
+
+		/**
+		 * @param threads number of games played at a time, defaults to 1; AIs
+		 *        such as the MCTS AI already search on every processor, so
+		 *        games played at the same time compete for them and every
+		 *        fixed-time search gets less done; positive
+		 * @return the builder for chaining; never null
+		 */
+		public Builder threads(int threads) {
+			if (threads < 1) throw new IllegalArgumentException("threads < 1");
+			this.threads = threads;
+			return this;
+		}
+
+		/**
+		 * @param seed added to the seed of every pairing, so the same
+		 *        schedule can be played from other start locations
+		 * @return the builder for chaining; never null
+		 */
+		public Builder seed(int seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * @param output where to write a line per game as it finishes, flushed
+		 *        but not closed by the tournament; not null
+		 * @param format the line format; not null
+		 * @return the builder for chaining; never null
+		 */
+		public Builder output(Writer output, ResultFormat format) {
+			this.output = Objects.requireNonNull(output);
+			this.format = Objects.requireNonNull(format);
+			return this;
+		}
+
+		/**
+		 * @return a new tournament; never null
+		 */
+		public Tournament build() {
+			return new Tournament(this);
+		}
+
+	}
+
+}
@@ -123,7 +123,7 @@ public final class ImmutableScotlandYardView implements ScotlandYardView {
 		currentRound = view.getCurrentRound();
 		currentPlayer = view.getCurrentPlayer();
 		rounds = ImmutableList.copyOf((view.getRounds()));
-		graph = new ImmutableGraph<>(new UndirectedGraph<>(view.getGraph()));
+		graph = new ImmutableGraph<>(UndirectedGraph.compactCopyOf(view.getGraph()));
 	}
 
 	@Override public List<Colour> getPlayers() { return colours; }
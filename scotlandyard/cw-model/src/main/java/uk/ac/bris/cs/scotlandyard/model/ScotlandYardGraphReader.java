@@ -1,5 +1,8 @@
 package uk.ac.bris.cs.scotlandyard.model;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -92,6 +95,209 @@ public class ScotlandYardGraphReader {
 		return new ImmutableGraph<>(graph);
 	}
 
+	/**
+	 * Reads a Scotland Yard game map from a character stream. The format is the
+	 * same as {@link #fromLines(List)} but the input is tokenised as it is read
+	 * so the file is never held in memory as a whole. Node and edge counts are
+	 * validated against the header as the stream is consumed and content after
+	 * the last edge (other than blank lines) is rejected.<br>
+	 * The reader is not closed.
+	 *
+	 * @param reader the reader; not null
+	 * @return a graph for {@link ScotlandYardGame} to use
+	 * @throws IOException if the reader throws
+	 * @throws IllegalArgumentException if the input is malformed, the message
+	 *         contains the offending line number
+	 */
+	public static ImmutableGraph<Integer, Transport> fromReader(Reader reader)
+			throws IOException {
+		if (reader == null) throw new NullPointerException("reader == null");
+		char[] chunk = new char[8192];
+		int[] cursor = new int[2]; // position, limit
+		return parse(new Tokenizer(() -> {
+			if (cursor[0] == cursor[1]) {
+				int read = reader.read(chunk);
+				if (read < 0) return -1;
+				cursor[0] = 0;
+				cursor[1] = read;
+			}
+			return chunk[cursor[0]++];
+		}));
+	}
+
+	/**
+	 * Reads a Scotland Yard game map from the remaining bytes of an US-ASCII
+	 * (or UTF-8) encoded buffer, typically a memory mapped file. See
+	 * {@link #fromReader(Reader)} for details; the buffer's position is
+	 * advanced to the end of the parsed content.
+	 *
+	 * @param buffer the buffer; not null
+	 * @return a graph for {@link ScotlandYardGame} to use
+	 * @throws IllegalArgumentException if the input is malformed, the message
+	 *         contains the offending line number
+	 */
+	public static ImmutableGraph<Integer, Transport> fromBuffer(ByteBuffer buffer) {
+		if (buffer == null) throw new NullPointerException("buffer == null");
+		try {
+			return parse(new Tokenizer(() -> buffer.hasRemaining() ? buffer.get() & 0xFF : -1));
+		} catch (IOException e) {
+			// buffers do not do IO
+			throw new AssertionError(e);
+		}
+	}
+
+	private static ImmutableGraph<Integer, Transport> parse(Tokenizer tokens) throws IOException {
+		int numberOfNodes = tokens.readInt("node count");
+		int numberOfEdges = tokens.readInt("edge count");
+		tokens.endLine();
+
+		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
+		for (int i = 0; i < numberOfNodes; i++) {
+			tokens.beginLine(i, numberOfNodes, "nodes");
+			int value = tokens.readInt("node");
+			if (graph.containsNode(value)) throw tokens.error("Duplicate node " + value);
+			graph.addNode(new Node<>(value));
+			tokens.endLine();
+		}
+		for (int i = 0; i < numberOfEdges; i++) {
+			tokens.beginLine(i, numberOfEdges, "edges");
+			Node<Integer> source = graph.getNode(tokens.readInt("source node"));
+			if (source == null)
+				throw tokens.error("Expected source node to exist in graph");
+			Node<Integer> destination = graph.getNode(tokens.readInt("destination node"));
+			if (destination == null)
+				throw tokens.error("Expected destination node to exist in graph");
+			Transport data = tokens.readTransport();
+			graph.addEdge(new Edge<>(source, destination, data));
+			tokens.endLine();
+		}
+		tokens.endInput();
+		return new ImmutableGraph<>(graph);
+	}
+
+	@FunctionalInterface
+	private interface CharSource {
+		/**
+		 * @return the next character or -1 at the end of input
+		 */
+		int read() throws IOException;
+	}
+
+	/**
+	 * Hand written tokeniser for the map format, integers and transport names
+	 * are decoded directly from the source without creating strings
+	 */
+	private static final class Tokenizer {
+
+		private static final Transport[] TRANSPORTS = Transport.values();
+		private static final int NONE = -2;
+
+		private final CharSource source;
+		private int current = NONE;
+		private int line = 1;
+
+		Tokenizer(CharSource source) {
+			this.source = source;
+		}
+
+		private int peek() throws IOException {
+			if (current == NONE) current = source.read();
+			return current;
+		}
+
+		private void consume() {
+			current = NONE;
+		}
+
+		private void skipBlanks() throws IOException {
+			int c = peek();
+			while (c == ' ' || c == '\t') {
+				consume();
+				c = peek();
+			}
+		}
+
+		private static boolean isLineEnd(int c) {
+			return c == '\n' || c == '\r' || c == -1;
+		}
+
+		IllegalArgumentException error(String message) {
+			return new IllegalArgumentException(message + " at line " + line);
+		}
+
+		void beginLine(int index, int expected, String what) throws IOException {
+			int c = peek();
+			if (c == -1) throw error("Unexpected end of input, expected " + expected + " "
+					+ what + " but only found " + index);
+			skipBlanks();
+			if (isLineEnd(peek())) throw error("Expected non-empty line");
+		}
+
+		int readInt(String what) throws IOException {
+			skipBlanks();
+			int c = peek();
+			if (c < '0' || c > '9') throw error("Expected integer for " + what);
+			int value = 0;
+			do {
+				int digit = c - '0';
+				if (value > (Integer.MAX_VALUE - digit) / 10)
+					throw error("Integer overflow for " + what);
+				value = value * 10 + digit;
+				consume();
+				c = peek();
+			} while (c >= '0' && c <= '9');
+			if (c != ' ' && c != '\t' && !isLineEnd(c))
+				throw error("Expected integer for " + what);
+			return value;
+		}
+
+		Transport readTransport() throws IOException {
+			skipBlanks();
+			// bit i is set while TRANSPORTS[i] still matches the prefix read
+			int candidates = (1 << TRANSPORTS.length) - 1;
+			int length = 0;
+			int c = peek();
+			while (candidates != 0 && c != ' ' && c != '\t' && !isLineEnd(c)) {
+				int upper = c >= 'a' && c <= 'z' ? c - ('a' - 'A') : c;
+				for (int i = 0; i < TRANSPORTS.length; i++) {
+					String name = TRANSPORTS[i].name();
+					if (length >= name.length() || name.charAt(length) != upper)
+						candidates &= ~(1 << i);
+				}
+				length++;
+				consume();
+				c = peek();
+			}
+			for (int i = 0; i < TRANSPORTS.length; i++) {
+				if ((candidates & (1 << i)) != 0 && TRANSPORTS[i].name().length() == length)
+					return TRANSPORTS[i];
+			}
+			throw error("Expected enum with value of " + Arrays.toString(TRANSPORTS));
+		}
+
+		void endLine() throws IOException {
+			skipBlanks();
+			int c = peek();
+			if (c == '\r') {
+				consume();
+				c = peek();
+			}
+			if (c == '\n') consume();
+			else if (c != -1) throw error("Unexpected content");
+			line++;
+		}
+
+		void endInput() throws IOException {
+			int c;
+			while ((c = peek()) != -1) {
+				if (c == '\n') line++;
+				else if (c != ' ' && c != '\t' && c != '\r')
+					throw error("Unexpected content after the last edge");
+				consume();
+			}
+		}
+	}
+
 	private static String[] parseLine(int line, List<String> lines, String delimiter,
 			int expectedSegments) {
 		String currentLine = lines.get(line);
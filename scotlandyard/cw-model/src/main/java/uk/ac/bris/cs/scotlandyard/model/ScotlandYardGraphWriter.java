@@ -0,0 +1,101 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.MapGenerator.GeneratedMap;
+import uk.ac.bris.cs.gamekit.graph.Node;
+
+/**
+ * A collection of utility methods that writes Scotland Yard maps in the format
+ * understood by {@link ScotlandYardGraphReader}
+ */
+public class ScotlandYardGraphWriter {
+
+	private ScotlandYardGraphWriter() {
+		// nope
+	}
+
+	/**
+	 * Writes an undirected graph, such as one returned by
+	 * {@link ScotlandYardGraphReader}. Every connection is stored in both
+	 * directions in such a graph so only edges whose source value is not
+	 * greater than the destination value are written. The writer is not
+	 * closed.
+	 *
+	 * @param graph the graph; not null
+	 * @param writer the writer; not null
+	 * @throws IOException if the writer throws
+	 */
+	public static void write(Graph<Integer, Transport> graph, Writer writer) throws IOException {
+		if (graph == null) throw new NullPointerException("graph == null");
+		if (writer == null) throw new NullPointerException("writer == null");
+		int edges = 0;
+		for (Edge<Integer, Transport> edge : graph.getEdges())
+			if (isCanonical(edge)) edges++;
+		// self loops are stored twice, keep every other one
+		edges -= loops(graph) / 2;
+		writeHeader(writer, graph.size(), edges);
+		for (Node<Integer> node : graph.getNodes())
+			writer.append(Integer.toString(node.value())).append('\n');
+		boolean skipLoop = false;
+		for (Edge<Integer, Transport> edge : graph.getEdges()) {
+			if (!isCanonical(edge)) continue;
+			if (edge.source().equals(edge.destination())) {
+				skipLoop = !skipLoop;
+				if (!skipLoop) continue;
+			}
+			writeEdge(writer, edge.source().value(), edge.destination().value(), edge.data());
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Writes a generated map without building a {@link Graph} first. The
+	 * writer is not closed.
+	 *
+	 * @param map the map; not null
+	 * @param writer the writer; not null
+	 * @throws IOException if the writer throws
+	 */
+	public static void write(GeneratedMap<Transport> map, Writer writer) throws IOException {
+		if (map == null) throw new NullPointerException("map == null");
+		if (writer == null) throw new NullPointerException("writer == null");
+		writeHeader(writer, map.nodeCount(), map.edgeCount());
+		for (int i = 1; i <= map.nodeCount(); i++)
+			writer.append(Integer.toString(i)).append('\n');
+		for (int i = 0; i < map.edgeCount(); i++)
+			writeEdge(writer, map.source(i), map.destination(i), map.data(i));
+		writer.flush();
+	}
+
+	private static boolean isCanonical(Edge<Integer, Transport> edge) {
+		return edge.source().value() <= edge.destination().value();
+	}
+
+	private static int loops(Graph<Integer, Transport> graph) {
+		int loops = 0;
+		for (Edge<Integer, Transport> edge : graph.getEdges())
+			if (edge.source().equals(edge.destination())) loops++;
+		return loops;
+	}
+
+	private static void writeHeader(Writer writer, int nodes, int edges) throws IOException {
+		writer.append(Integer.toString(nodes)).append(' ')
+				.append(Integer.toString(edges)).append('\n');
+	}
+
+	private static void writeEdge(Writer writer, int source, int destination,
+			Transport transport) throws IOException {
+		String name = transport.name();
+		writer.append(Integer.toString(source)).append(' ')
+				.append(Integer.toString(destination)).append(' ')
+				.append(name.charAt(0))
+				.append(name.substring(1).toLowerCase(Locale.ENGLISH))
+				.append('\n');
+	}
+
+}
@@ -26,6 +26,7 @@ import uk.ac.bris.cs.gamekit.graph.Node;
 public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move> {
 	private final List<Boolean> rounds;
 	private final Graph<Integer, Transport> graph;
+	private final Graph<Integer, Transport> immutableGraph;
 	private List<ScotlandYardPlayer> listPlayers = new CopyOnWriteArrayList<ScotlandYardPlayer>();
 	private Colour currentPlayer;
 	private int currentRound;
@@ -44,6 +45,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move> {
 		if (graph.isEmpty()) 
 			throw new IllegalArgumentException("Empty graph");
 		else  this.graph = requireNonNull(graph);
+		this.immutableGraph = new ImmutableGraph<Integer, Transport>(graph);
 		
 		if (mrX.colour.isDetective())
 			throw new IllegalArgumentException("MrX should be Black");
@@ -250,7 +252,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move> {
 		Graph<Integer, Transport> currentGraph = getGraph();
 		Set<DoubleMove> doubleMoves = new HashSet<>();
 		for (TicketMove m : validMoves){
-			Node<Integer> firstDestinationNode = new Node<Integer>(m.destination());
+			Node<Integer> firstDestinationNode = currentGraph.nodeOf(m.destination());
 			Set<Edge<Integer, Transport>> secondPossibleMoves = new HashSet<>();
 			secondPossibleMoves.addAll(currentGraph.getEdgesFrom(firstDestinationNode));
 			secondPossibleMoves = movesWithValidDestination(secondPossibleMoves);
@@ -282,7 +284,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move> {
 		Graph<Integer, Transport> currentGraph = getGraph();
 		Set<DoubleMove> doubleMoves = new HashSet<>();
 		for (Edge<Integer, Transport> m : validMoves){
-			Node<Integer> firstDestinationNode = new Node<Integer>(m.destination().value());
+			Node<Integer> firstDestinationNode = m.destination();
 			Set<Edge<Integer, Transport>> secondPossibleMoves = new HashSet<>();
 			secondPossibleMoves.addAll(currentGraph.getEdgesFrom(firstDestinationNode));
 			secondPossibleMoves = movesWithValidDestination(secondPossibleMoves);
@@ -296,7 +298,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move> {
 		Set<Move> validMoves = new HashSet<>();
 		Move realMove = new PassMove(this.currentPlayer);
 			validMoves.add(realMove);
-		return Collections.unmodifiableSet(validMoves);
+		return ValidMoves.wrap(validMoves);
 	}
 
 	// Gets moves that contain secrets and doubles for mrX
@@ -333,7 +335,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move> {
 	// Gets a set of valid moves
 	private Set<Move> validMoves(Colour player) {
 		Set<Move> validMoves = new HashSet<>();
-		Node<Integer> currentNode = new Node<Integer>(getScotlandYardPlayer(getCurrentPlayer()).get().location());
+		Node<Integer> currentNode = graph.nodeOf(getScotlandYardPlayer(getCurrentPlayer()).get().location());
 		Collection<Edge<Integer, Transport>> immutablePossibleMoves = new HashSet<>();
 		Set<Edge<Integer, Transport>> possibleMoves = new HashSet<>();
 
@@ -354,10 +356,10 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move> {
 			// This is for normal ticket moves
 			possibleMoves = checkPlayerHasTickets(movesWithValidDestination(possibleMoves));
 			validMoves.addAll(convertToTicketMove(requireNonNull(possibleMoves), false));
-			return Collections.unmodifiableSet(validMoves);
+			return ValidMoves.wrap(validMoves);
 		}
 		validMoves.addAll(convertToTicketMove(requireNonNull(checkPlayerHasTickets(possibleMoves)), false));
-		return Collections.unmodifiableSet(validMoves);
+		return ValidMoves.wrap(validMoves);
 	}
 	
 //----------------------------------------------------------------------------------------------------------------------------
@@ -557,8 +559,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move> {
 
 	@Override
 	public Graph<Integer, Transport> getGraph() {
-		Graph<Integer, Transport> g = new ImmutableGraph<Integer, Transport>(graph);
-		return g;
+		return immutableGraph;
 	}
 
 	@Override
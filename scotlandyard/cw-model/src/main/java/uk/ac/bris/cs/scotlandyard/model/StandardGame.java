@@ -18,7 +18,12 @@ import java.util.Set;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import uk.ac.bris.cs.gamekit.graph.CsrGraph;
+import uk.ac.bris.cs.gamekit.graph.GraphMatrices;
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.matrix.ImmutableMatrix;
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.Matrix;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.shuffle;
@@ -147,15 +152,84 @@ public class StandardGame {
 		return Collections.unmodifiableMap(map);
 	}
 
+	private static final Object CANONICAL_LOCK = new Object();
+	private static volatile Canonical canonical;
+
+	/**
+	 * The standard 199 node map as described by {@code graph.txt}. The graph is
+	 * read once on first use and the same immutable instance is returned to
+	 * every caller afterwards.
+	 *
+	 * @return the shared standard graph; never null
+	 * @throws IOException if the graph could not be read, a later call will
+	 *         retry
+	 */
 	public static ImmutableGraph<Integer, Transport> standardGraph() throws IOException {
-		return ScotlandYardGraphReader.fromLines(readString("graph.txt"));
+		return canonical().graph;
+	}
+
+	/**
+	 * @return the shared CSR form of {@link #standardGraph()}; never null
+	 * @throws IOException if the graph could not be read
+	 */
+	public static CsrGraph<Transport> standardCsrGraph() throws IOException {
+		return canonical().csr;
+	}
+
+	/**
+	 * Hop distances between all nodes of {@link #standardGraph()} using any
+	 * transport, indexed by {@link CsrGraph#index(int)} of
+	 * {@link #standardCsrGraph()}
+	 *
+	 * @return the shared immutable distance table; never null
+	 * @throws IOException if the graph could not be read
+	 */
+	public static Matrix<Integer> standardDistances() throws IOException {
+		return canonical().distances;
+	}
+
+	/**
+	 * Primitive form of {@link #standardDistances()}
+	 *
+	 * @return the shared read only distance table; never null
+	 * @throws IOException if the graph could not be read
+	 */
+	public static IntSquareMatrix standardDistanceTable() throws IOException {
+		return canonical().distanceTable;
+	}
+
+	private static Canonical canonical() throws IOException {
+		Canonical result = canonical;
+		if (result != null) return result;
+		synchronized (CANONICAL_LOCK) {
+			if (canonical == null) canonical = new Canonical(readStandardGraph());
+			return canonical;
+		}
+	}
+
+	private static ImmutableGraph<Integer, Transport> readStandardGraph() throws IOException {
+		try (InputStream stream = openResource("graph.txt")) {
+			return ScotlandYardGraphReader
+					.fromReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+		}
+	}
+
+	private static final class Canonical {
+		final ImmutableGraph<Integer, Transport> graph;
+		final CsrGraph<Transport> csr;
+		final IntSquareMatrix distanceTable;
+		final Matrix<Integer> distances;
+
+		Canonical(ImmutableGraph<Integer, Transport> graph) {
+			this.graph = graph;
+			this.csr = CsrGraph.copyOf(graph);
+			this.distanceTable = GraphMatrices.hopDistanceTable(csr, t -> true).readOnly();
+			this.distances = new ImmutableMatrix<>(distanceTable.asMatrix());
+		}
 	}
 
 	private static List<String> readString(String resource) throws IOException {
-		try (InputStream stream = StandardGame.class
-				.getClassLoader()
-				.getResourceAsStream(resource)) {
-			if (stream == null) throw new IOException("Resource " + resource + " not found");
+		try (InputStream stream = openResource(resource)) {
 			return new BufferedReader(
 					new InputStreamReader(stream, StandardCharsets.UTF_8))
 							.lines()
@@ -163,4 +237,10 @@ public class StandardGame {
 		}
 	}
 
+	private static InputStream openResource(String resource) throws IOException {
+		InputStream stream = StandardGame.class.getClassLoader().getResourceAsStream(resource);
+		if (stream == null) throw new IOException("Resource " + resource + " not found");
+		return stream;
+	}
+
 }
@@ -0,0 +1,182 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable set of the moves a player may make, as handed to
+ * {@link Player#makeMove(ScotlandYardView, int, Set, java.util.function.Consumer)}
+ * by {@link ScotlandYardModel}. <br>
+ * Besides being a {@link Set}, the moves can be read by index without
+ * allocating: {@link #ticket(int)}, {@link #destination(int)} and friends
+ * describe the move at an index, and {@link #get(int)} returns it. Indices
+ * follow the iteration order. Instances are safe to pass between threads
+ * without copying.
+ */
+public final class ValidMoves extends AbstractSet<Move> {
+
+	private static final byte PASS = 0, SINGLE = 1, DOUBLE = 2;
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private final Set<Move> set;
+	private final Move[] moves;
+	private final byte[] kind;
+	private final byte[] tickets;
+	private final int[] destinations;
+
+	private ValidMoves(Set<Move> set) {
+		this.set = set;
+		int size = set.size();
+		this.moves = new Move[size];
+		this.kind = new byte[size];
+		this.tickets = new byte[size * 2];
+		this.destinations = new int[size * 2];
+		int i = 0;
+		for (Move move : set) {
+			moves[i] = move;
+			if (move instanceof TicketMove) {
+				kind[i] = SINGLE;
+				describe(i * 2, (TicketMove) move);
+			} else if (move instanceof DoubleMove) {
+				kind[i] = DOUBLE;
+				describe(i * 2, ((DoubleMove) move).firstMove());
+				describe(i * 2 + 1, ((DoubleMove) move).secondMove());
+			} else kind[i] = PASS;
+			i++;
+		}
+	}
+
+	private void describe(int slot, TicketMove move) {
+		tickets[slot] = (byte) move.ticket().ordinal();
+		destinations[slot] = move.destination();
+	}
+
+	/**
+	 * @param moves the moves; not null and without nulls
+	 * @return an immutable copy of the moves in the same iteration order
+	 */
+	public static ValidMoves copyOf(Collection<? extends Move> moves) {
+		if (moves instanceof ValidMoves) return (ValidMoves) moves;
+		Set<Move> set = new LinkedHashSet<>(moves);
+		if (set.contains(null)) throw new NullPointerException("moves contains null");
+		return new ValidMoves(set);
+	}
+
+	// takes ownership of a set nobody else will change
+	static ValidMoves wrap(Set<Move> moves) {
+		return new ValidMoves(Objects.requireNonNull(moves));
+	}
+
+	/**
+	 * @param index the index; from 0 to {@link #size()} - 1
+	 * @return the move at the index
+	 */
+	public Move get(int index) {
+		return moves[index];
+	}
+
+	/**
+	 * @param index the index; from 0 to {@link #size()} - 1
+	 * @return true if the move at the index is a {@link PassMove}
+	 */
+	public boolean isPass(int index) {
+		return kind[index] == PASS;
+	}
+
+	/**
+	 * @param index the index; from 0 to {@link #size()} - 1
+	 * @return true if the move at the index is a {@link DoubleMove}
+	 */
+	public boolean isDouble(int index) {
+		return kind[index] == DOUBLE;
+	}
+
+	/**
+	 * @param index the index; from 0 to {@link #size()} - 1
+	 * @return the ticket of the move, or of its first half if it is a double
+	 *         move; null for a pass
+	 */
+	public Ticket ticket(int index) {
+		return kind[index] == PASS ? null : TICKETS[tickets[index * 2]];
+	}
+
+	/**
+	 * @param index the index; from 0 to {@link #size()} - 1
+	 * @return the destination of the move, or of its first half if it is a
+	 *         double move; -1 for a pass
+	 */
+	public int destination(int index) {
+		return kind[index] == PASS ? -1 : destinations[index * 2];
+	}
+
+	/**
+	 * @param index the index of a double move
+	 * @return the ticket of its second half
+	 * @throws IllegalArgumentException if the move is not a double move
+	 */
+	public Ticket secondTicket(int index) {
+		requireDouble(index);
+		return TICKETS[tickets[index * 2 + 1]];
+	}
+
+	/**
+	 * @param index the index of a double move
+	 * @return the destination of its second half
+	 * @throws IllegalArgumentException if the move is not a double move
+	 */
+	public int secondDestination(int index) {
+		requireDouble(index);
+		return destinations[index * 2 + 1];
+	}
+
+	/**
+	 * @param index the index; from 0 to {@link #size()} - 1
+	 * @return where the player ends up after the move, -1 for a pass
+	 */
+	public int finalDestination(int index) {
+		switch (kind[index]) {
+			case SINGLE: return destinations[index * 2];
+			case DOUBLE: return destinations[index * 2 + 1];
+			default: return -1;
+		}
+	}
+
+	private void requireDouble(int index) {
+		if (kind[index] != DOUBLE)
+			throw new IllegalArgumentException(moves[index] + " is not a double move");
+	}
+
+	@Override
+	public int size() {
+		return moves.length;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return set.contains(o);
+	}
+
+	@Override
+	public Iterator<Move> iterator() {
+		return new Iterator<Move>() {
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return next < moves.length;
+			}
+
+			@Override
+			public Move next() {
+				if (next >= moves.length) throw new NoSuchElementException();
+				return moves[next++];
+			}
+		};
+	}
+
+}
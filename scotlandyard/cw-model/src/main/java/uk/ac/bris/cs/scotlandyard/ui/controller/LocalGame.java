@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import javafx.application.Platform;
@@ -25,6 +26,7 @@ import javafx.stage.Stage;
 import uk.ac.bris.cs.scotlandyard.ResourceManager;
 import uk.ac.bris.cs.scotlandyard.ResourceManager.ImageResource;
 import uk.ac.bris.cs.scotlandyard.ai.AIPool;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceLimits;
 import uk.ac.bris.cs.scotlandyard.harness.CodeGenRecorder;
 import uk.ac.bris.cs.scotlandyard.harness.CodeGenRecorder.CodeGen;
 import uk.ac.bris.cs.scotlandyard.harness.GameModelSequencePUMLCodeGen;
@@ -109,6 +111,7 @@ public final class LocalGame extends BaseGame implements Spectator {
 		private final CodeGenRecorder recorder = new CodeGenRecorder(ImmutableList.of(
 				new TestHarnessPlayOutTestCodeGen(),
 				new GameModelSequencePUMLCodeGen()));
+		private boolean terminated;
 
 		Game(ModelProperty setup) throws Exception {
 			this.setup = setup;
@@ -158,39 +161,58 @@ public final class LocalGame extends BaseGame implements Spectator {
 					status,
 					this);
 
-			pool.initialise(resourceManager, model);
+			pool.setResourceLimits(ResourceLimits.fromSystemProperties(),
+					(colour, reason) -> Platform.runLater(() -> concede(colour)));
+			// AIs warm up in the background, the game starts once they are ready
+			CompletableFuture<Void> ready = pool.initialise(resourceManager, model,
+					setup.timeoutProperty().get(), Platform::runLater);
 			// Add all players to board
 			for (PlayerProperty property : joining) {
 				board.setBoardPlayer(property.colour(),
 						BoardPlayers.resolve(
 								fromOptional(pool.createPlayer(property.colour())),
 								fromOptional(property.name()),
-								() -> onGameOver(model, model.getCurrentPlayer().isDetective()
-										? ImmutableSet.of(Colour.BLACK)
-										: ImmutableSet.copyOf(stream(Colour.values())
-										.filter(Colour::isDetective)
-										.collect(toList())))));
+								() -> concede(model.getCurrentPlayer())));
 			}
 
 			model.registerSpectator(recorder.createSpectator());
 			controls.forEach(model::registerSpectator);
 			controls.forEach(l -> l.onGameAttach(model, setup));
-			model.startRotate();
+			ready.thenRun(() -> {
+				if (!terminated) model.startRotate();
+			});
 		}
 
 		void terminate() {
+			terminated = true;
 			controls.forEach(model::unregisterSpectator);
 			controls.forEach(GameControl::onGameDetached);
 			pool.terminate();
 		}
 
+		// ends the game early, the other side wins and the rotation stops
+		private void concede(Colour loser) {
+			if (terminated) return;
+			terminated = true;
+			showGameOver(loser.isDetective()
+					? ImmutableSet.of(Colour.BLACK)
+					: ImmutableSet.copyOf(stream(Colour.values())
+					.filter(Colour::isDetective)
+					.collect(toList())));
+		}
+
 		@Override
 		public void onRotationComplete(ScotlandYardView view) {
-			if (!view.isGameOver()) model.startRotate();
+			if (!terminated && !view.isGameOver()) model.startRotate();
 		}
 
 		@Override
 		public void onGameOver(ScotlandYardView view, Set<Colour> winningPlayers) {
+			// a move still in flight when a player conceded may end the game again
+			if (!terminated) showGameOver(winningPlayers);
+		}
+
+		private void showGameOver(Set<Colour> winningPlayers) {
 			Platform.runLater(() -> {
 				board.lock();
 				notifications.dismissAll();
@@ -0,0 +1,69 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import uk.ac.bris.cs.scotlandyard.ai.alphabeta.AlphaBetaSearch;
+import uk.ac.bris.cs.scotlandyard.ai.search.Board;
+import uk.ac.bris.cs.scotlandyard.ai.search.GameState;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+
+/**
+ * Tests for {@link AlphaBetaSearch}
+ */
+public class AlphaBetaSearchTest {
+
+	private static GameState state(Board board, int... locations) {
+		GameState state = new GameState(board, locations.length);
+		for (int player = 0; player < locations.length; player++) {
+			state.setLocation(player, board.index(locations[player]));
+			for (Ticket ticket : Ticket.values()) {
+				if (player == 0) state.setTickets(player, ticket, 2);
+				else if (ticket != Ticket.DOUBLE && ticket != Ticket.SECRET)
+					state.setTickets(player, ticket, 5);
+			}
+		}
+		return state;
+	}
+
+	@Test
+	public void testDetectivesCaptureAdjacentMrX() throws IOException {
+		Board board = Board.of(StandardGame.standardGraph(), StandardGame.ROUNDS);
+		// MrX moves from 1 to 9, red at 20 is one taxi ride away
+		GameState root = state(board, 1, 20, 100);
+		root.play(GameState.single(Ticket.TAXI.ordinal(), board.index(9)));
+
+		AlphaBetaSearch.Result result = new AlphaBetaSearch(board, 3).search(root,
+				System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+		assertThat(root.toMove(RED, result.move()))
+				.isEqualTo(new TicketMove(RED, Ticket.TAXI, 9));
+		assertThat(result.score()).isEqualTo(-AlphaBetaSearch.WIN + 1);
+	}
+
+	@Test
+	public void testMrXStaysAwayAndMeetsDeadline() throws IOException {
+		Board board = Board.of(StandardGame.standardGraph(), StandardGame.ROUNDS);
+		// red at 9 and blue at 58 guard two of MrX's ways out of 1
+		GameState root = state(board, 1, 9, 58, 13, 91);
+		long start = System.nanoTime();
+		AlphaBetaSearch.Result result = new AlphaBetaSearch(board, 5).search(root,
+				start + TimeUnit.MILLISECONDS.toNanos(300));
+		long elapsed = System.nanoTime() - start;
+
+		assertThat(elapsed).isLessThan(TimeUnit.MILLISECONDS.toNanos(1000));
+		assertThat(result.depth()).isGreaterThanOrEqualTo(2);
+		int destination = board.value(GameState.finalDestination(result.move()));
+		// next to red or blue would be caught at once
+		assertThat(destination).isNotIn(1, 19, 20, 44, 45, 46, 57, 59, 74, 75, 77);
+		assertThat(root.toMove(BLACK, result.move())).isNotNull();
+	}
+
+}
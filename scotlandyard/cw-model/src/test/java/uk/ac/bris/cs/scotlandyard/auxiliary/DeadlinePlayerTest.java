@@ -0,0 +1,170 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableSet;
+
+import uk.ac.bris.cs.gamekit.timer.StandardTimer;
+import uk.ac.bris.cs.scotlandyard.ai.DeadlinePlayer;
+import uk.ac.bris.cs.scotlandyard.ai.FallbackPolicy;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceLimits;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceUsage;
+import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+/**
+ * Tests for {@link DeadlinePlayer} and {@link FallbackPolicy}
+ */
+public class DeadlinePlayerTest {
+
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+	private static final StandardTimer timer = new StandardTimer();
+
+	private static final Move SECRET = new TicketMove(BLACK, Ticket.SECRET, 8);
+	private static final Move BUS = new TicketMove(BLACK, Ticket.BUS, 46);
+	private static final Move TAXI = new TicketMove(BLACK, Ticket.TAXI, 9);
+	private static final Move DOUBLE = new DoubleMove(BLACK, Ticket.TAXI, 9, Ticket.TAXI, 20);
+	private static final Set<Move> MOVES = ImmutableSet.of(DOUBLE, SECRET, BUS, TAXI);
+
+	@AfterClass
+	public static void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private static DeadlinePlayer deadline(Player player) {
+		return new DeadlinePlayer.Builder(player, timer).executor(executor)
+				.timeout(Duration.ofMillis(50)).fallback(FallbackPolicy.FIRST).build();
+	}
+
+	@Test
+	public void testMoveInTimeIsPassedOn() throws InterruptedException {
+		DeadlinePlayer player = deadline((view, location, moves, callback) -> callback.accept(BUS));
+		LinkedBlockingQueue<Move> received = new LinkedBlockingQueue<>();
+		player.makeMove(null, 1, MOVES, received::add);
+		assertThat(received.poll(1, TimeUnit.SECONDS)).isEqualTo(BUS);
+		Thread.sleep(100);
+		assertThat(received).isEmpty();
+		assertThat(player.statistics().moves()).isEqualTo(1);
+		assertThat(player.statistics().timeouts()).isZero();
+	}
+
+	@Test
+	public void testStuckPlayerIsInterruptedAndReplaced() throws InterruptedException {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		DeadlinePlayer player = deadline((view, location, moves, callback) -> {
+			try {
+				Thread.sleep(10_000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			callback.accept(BUS);
+		});
+		LinkedBlockingQueue<Move> received = new LinkedBlockingQueue<>();
+		player.makeMove(null, 1, MOVES, received::add);
+		assertThat(received.poll(1, TimeUnit.SECONDS)).isEqualTo(DOUBLE);
+		assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+		Thread.sleep(100);
+		assertThat(received).isEmpty();
+		assertThat(player.statistics().timeouts()).isEqualTo(1);
+		assertThat(player.statistics().moves()).isZero();
+	}
+
+	@Test
+	public void testThrowingPlayerIsReplacedImmediately() throws InterruptedException {
+		LinkedBlockingQueue<Object> events = new LinkedBlockingQueue<>();
+		DeadlinePlayer player = new DeadlinePlayer.Builder((view, location, moves, callback) -> {
+			throw new IllegalStateException("broken AI");
+		}, timer).executor(executor).timeout(Duration.ofSeconds(10))
+				.fallback(FallbackPolicy.FIRST).exceptionHandler(e -> events.add(e.getMessage()))
+				.build();
+		player.makeMove(null, 1, MOVES, events::add);
+		// the fallback comes from the failure, long before the deadline
+		assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo("broken AI");
+		assertThat(events.poll(5, TimeUnit.SECONDS)).isEqualTo(DOUBLE);
+		assertThat(player.statistics().failures()).isEqualTo(1);
+		assertThat(player.statistics().timeouts()).isZero();
+	}
+
+	@Test
+	public void testThrowingAfterDeadlineIsIgnored() throws InterruptedException {
+		CountDownLatch thrown = new CountDownLatch(1);
+		List<Throwable> handled = new ArrayList<>();
+		DeadlinePlayer player = new DeadlinePlayer.Builder((view, location, moves, callback) -> {
+			try {
+				Thread.sleep(10_000);
+			} catch (InterruptedException e) {
+				thrown.countDown();
+				throw new IllegalStateException("interrupted", e);
+			}
+		}, timer).executor(executor).timeout(Duration.ofMillis(50))
+				.fallback(FallbackPolicy.FIRST).exceptionHandler(handled::add).build();
+		LinkedBlockingQueue<Move> received = new LinkedBlockingQueue<>();
+		player.makeMove(null, 1, MOVES, received::add);
+		assertThat(received.poll(5, TimeUnit.SECONDS)).isEqualTo(DOUBLE);
+		assertThat(thrown.await(5, TimeUnit.SECONDS)).isTrue();
+		// the next request on the single thread runs once the worker is done
+		player.makeMove(null, 1, MOVES, received::add);
+		assertThat(received.poll(5, TimeUnit.SECONDS)).isEqualTo(DOUBLE);
+		assertThat(handled).isEmpty();
+		assertThat(player.statistics().timeouts()).isEqualTo(2);
+		assertThat(player.statistics().failures()).isZero();
+	}
+
+	@Test
+	public void testCheapestPrefersCommonTickets() {
+		assertThat(FallbackPolicy.CHEAPEST.choose(MOVES)).isEqualTo(TAXI);
+		assertThat(FallbackPolicy.CHEAPEST.choose(ImmutableSet.of(DOUBLE, SECRET)))
+				.isEqualTo(SECRET);
+		assertThat(FallbackPolicy.CHEAPEST.choose(ImmutableSet.of(DOUBLE))).isEqualTo(DOUBLE);
+		assertThat(FallbackPolicy.RANDOM.choose(MOVES)).isIn(MOVES);
+	}
+
+	@Test
+	public void testAllocationOverBudgetForfeits() throws InterruptedException {
+		ResourceUsage total = new ResourceUsage();
+		ResourceUsage usage = new ResourceUsage(total);
+		List<String> forfeits = new ArrayList<>();
+		int[] asked = { 0 };
+		DeadlinePlayer player = new DeadlinePlayer.Builder((view, location, moves, callback) -> {
+			asked[0]++;
+			byte[][] garbage = new byte[64][];
+			for (int i = 0; i < garbage.length; i++)
+				garbage[i] = new byte[64 * 1024];
+			callback.accept(garbage.length > 0 ? BUS : TAXI);
+		}, timer).fallback(FallbackPolicy.FIRST).usage(usage)
+				.limits(ResourceLimits.NONE.withAllocatedBytes(1024 * 1024), forfeits::add)
+				.build();
+		List<Move> received = new ArrayList<>();
+		player.makeMove(null, 1, MOVES, received::add);
+		if (ResourceUsage.allocationSupported()) {
+			assertThat(total.allocatedBytes()).isGreaterThan(4 * 1024 * 1024);
+			assertThat(forfeits).hasSize(1);
+			player.makeMove(null, 1, MOVES, received::add);
+			assertThat(received).containsExactly(BUS, DOUBLE);
+			assertThat(asked[0]).isEqualTo(1);
+			assertThat(usage.forfeited()).isPresent();
+			assertThat(player.statistics().forfeits()).isEqualTo(1);
+			assertThat(player.statistics().failures()).isZero();
+		}
+		assertThat(usage.moves()).isEqualTo(1);
+		assertThat(total.moves()).isEqualTo(1);
+	}
+
+}
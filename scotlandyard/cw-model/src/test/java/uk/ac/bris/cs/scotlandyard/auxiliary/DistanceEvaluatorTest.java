@@ -0,0 +1,95 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import uk.ac.bris.cs.scotlandyard.ai.DistanceEvaluator;
+import uk.ac.bris.cs.scotlandyard.ai.Positions;
+import uk.ac.bris.cs.scotlandyard.ai.alphabeta.AlphaBetaSearch;
+import uk.ac.bris.cs.scotlandyard.ai.search.Board;
+import uk.ac.bris.cs.scotlandyard.ai.search.GameState;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+
+/**
+ * Tests for {@link DistanceEvaluator} and {@link Positions}
+ */
+public class DistanceEvaluatorTest {
+
+	@Test
+	public void testPositionsKeepColumnsWhenGrowing() {
+		Positions positions = new Positions(2, 1);
+		for (int i = 0; i < 5; i++) {
+			int position = positions.add();
+			positions.setLocation(position, 1, 100 + i);
+			positions.setTickets(position, 0, Ticket.SECRET, i);
+			positions.setRound(position, i);
+		}
+		assertThat(positions.size()).isEqualTo(5);
+		for (int i = 0; i < 5; i++) {
+			assertThat(positions.location(i, 1)).isEqualTo(100 + i);
+			assertThat(positions.locations()[positions.locationOffset(1) + i]).isEqualTo(100 + i);
+			assertThat(positions.tickets(i, 0, Ticket.SECRET)).isEqualTo(i);
+			assertThat(positions.round(i)).isEqualTo(i);
+		}
+		positions.clear();
+		assertThat(positions.location(positions.add(), 1)).isZero();
+	}
+
+	@Test
+	public void testScoresDistancesAndTickets() throws IOException {
+		Board board = Board.of(StandardGame.standardGraph(), StandardGame.ROUNDS);
+		DistanceEvaluator evaluator = new DistanceEvaluator(board.distances());
+		GameState state = new GameState(board, 3);
+		state.setLocation(0, board.index(1));
+		state.setLocation(1, board.index(9));
+		state.setLocation(2, board.index(1));
+		state.setTickets(0, Ticket.SECRET, 2);
+		state.setTickets(0, Ticket.DOUBLE, 1);
+		Positions positions = new Positions(3, 4);
+		state.writeTo(positions, positions.add());
+		state.setLocation(2, board.index(2));
+		state.writeTo(positions, positions.add());
+		float[] scores = new float[2];
+		evaluator.evaluate(positions, scores);
+
+		int far = Math.min(board.distance(board.index(2), board.index(1)), 10);
+		assertThat(scores[0]).isEqualTo(10 * 1 + 15 * 2 + 40);
+		assertThat(scores[1]).isEqualTo(200 + 10 * (1 + far) + 15 * 2 + 40);
+		float[] shared = new float[2];
+		board.distanceEvaluator().evaluate(positions, shared);
+		assertThat(shared).containsExactly(scores);
+	}
+
+	@Test
+	public void testSearchUsesBatchEvaluator() throws IOException {
+		Board board = Board.of(StandardGame.standardGraph(), StandardGame.ROUNDS);
+		int[] batches = { 0 };
+		DistanceEvaluator distances = new DistanceEvaluator(board.distances());
+		AlphaBetaSearch search = new AlphaBetaSearch(board, 3, (positions, scores) -> {
+			batches[0]++;
+			distances.evaluate(positions, scores);
+		});
+		GameState root = new GameState(board, 3);
+		int[] locations = { 1, 20, 100 };
+		for (int player = 0; player < 3; player++) {
+			root.setLocation(player, board.index(locations[player]));
+			root.setTickets(player, Ticket.TAXI, 5);
+			root.setTickets(player, Ticket.BUS, 5);
+		}
+		root.play(GameState.single(Ticket.TAXI.ordinal(), board.index(9)));
+
+		AlphaBetaSearch.Result result = search.search(root,
+				System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+		assertThat(root.toMove(RED, result.move()))
+				.isEqualTo(new TicketMove(RED, Ticket.TAXI, 9));
+		assertThat(batches[0]).isPositive();
+	}
+
+}
@@ -0,0 +1,68 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import uk.ac.bris.cs.gamekit.matrix.ByteSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.DoubleSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.Matrix;
+import uk.ac.bris.cs.gamekit.matrix.SquareMatrix;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for the flat primitive square matrices
+ */
+public class FlatSquareMatrixTest {
+
+	@Test
+	public void testRowsAndColumns() {
+		IntSquareMatrix matrix = new IntSquareMatrix(3, 7);
+		matrix.setRow(1, new int[] { 9, 1, 2, 3 }, 1);
+		matrix.setColumn(2, new int[] { 4, 5, 6 }, 0);
+		int[] column = new int[3];
+		matrix.copyColumn(1, column, 0);
+		assertThat(column).containsExactly(7, 2, 7);
+		assertThat(matrix.toArray()).containsExactly(7, 7, 4, 1, 2, 5, 7, 7, 6);
+		assertThat(matrix.getUnchecked(1, 2)).isEqualTo(5);
+		assertThatThrownBy(() -> matrix.get(3, 0)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matrix.copyRow(0, new int[2], 0))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	public void testMatrixViewMatchesSquareMatrix() {
+		DoubleSquareMatrix flat = new DoubleSquareMatrix(3);
+		SquareMatrix<Double> boxed = new SquareMatrix<>(3, 0.0);
+		for (int row = 0; row < 3; row++)
+			for (int column = 0; column < 3; column++) {
+				flat.set(row, column, row * 3.0 + column);
+				boxed.put(row, column, row * 3.0 + column);
+			}
+		Matrix<Double> view = flat.asMatrix();
+		assertThat(view).isEqualTo(boxed);
+		assertThat(view.column(1)).isEqualTo(boxed.column(1));
+		assertThat(view.mainDiagonal()).isEqualTo(boxed.mainDiagonal());
+		assertThat(view.antiDiagonal()).isEqualTo(boxed.antiDiagonal());
+		view.row(0, Arrays.asList(1.0, 1.0, 1.0));
+		assertThat(flat.get(0, 2)).isEqualTo(1.0);
+	}
+
+	@Test
+	public void testReadOnlyViewSharesCells() {
+		ByteSquareMatrix matrix = new ByteSquareMatrix(2);
+		ByteSquareMatrix readOnly = matrix.readOnly();
+		matrix.set(0, 1, (byte) 3);
+		assertThat(readOnly.get(0, 1)).isEqualTo((byte) 3);
+		assertThat(readOnly).isEqualTo(matrix);
+		assertThatThrownBy(() -> readOnly.fill((byte) 1))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> readOnly.asMatrix().put(0, 0, (byte) 1))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThat(new ByteSquareMatrix(readOnly).isReadOnly()).isFalse();
+	}
+
+}
@@ -0,0 +1,81 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.gamekit.graph.analytics.GraphAnalytics;
+import uk.ac.bris.cs.gamekit.graph.analytics.NodeScores;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for {@link GraphAnalytics}
+ */
+public class GraphAnalyticsTest {
+
+	// 1 - 2 - 3 - 4 with a parallel bus edge between 2 and 3 and a bus
+	// triangle 3 - 5 - 6
+	private static Graph<Integer, Transport> smallGraph() {
+		Graph<Integer, Transport> graph = new UndirectedGraph<>();
+		for (int i = 1; i <= 6; i++)
+			graph.addNode(new Node<>(i));
+		connect(graph, 1, 2, Transport.TAXI);
+		connect(graph, 2, 3, Transport.TAXI);
+		connect(graph, 2, 3, Transport.BUS);
+		connect(graph, 3, 4, Transport.TAXI);
+		connect(graph, 3, 5, Transport.BUS);
+		connect(graph, 5, 6, Transport.BUS);
+		connect(graph, 6, 3, Transport.BUS);
+		return graph;
+	}
+
+	private static void connect(Graph<Integer, Transport> graph, int a, int b, Transport t) {
+		graph.addEdge(new Edge<>(graph.getNode(a), graph.getNode(b), t));
+	}
+
+	@Test
+	public void testSmallGraph() {
+		GraphAnalytics<Transport> analytics = GraphAnalytics.of(smallGraph());
+		NodeScores betweenness = analytics.betweenness();
+		// 2 separates 1 from 4 others, ordered pairs count twice
+		assertThat(betweenness.get(2)).isCloseTo(8, within(1e-9));
+		// 3 separates {1, 2} from {4, 5, 6} and 4 from 5 and 6
+		assertThat(betweenness.get(3)).isCloseTo(2 * (2 * 3 + 2), within(1e-9));
+		assertThat(betweenness.get(1)).isZero();
+		assertThat(betweenness.get(5)).isZero();
+
+		assertThat(analytics.betweenness(Transport.TAXI).get(3)).isCloseTo(4, within(1e-9));
+		assertThat(analytics.closeness(Transport.TAXI).get(5)).isZero();
+		// 3 reaches everything within one hop except 1
+		assertThat(analytics.closeness().get(3)).isCloseTo(5.0 / 6, within(1e-9));
+
+		assertThat(analytics.articulationPoints()).containsExactly(2, 3);
+		assertThat(analytics.escapeDegree().get(3)).isEqualTo(4);
+		assertThat(analytics.escapeDegree().get(2)).isEqualTo(2);
+		assertThat(analytics.layers()).containsExactly(Transport.TAXI, Transport.BUS);
+		assertThat(analytics.hubScores().get(3))
+				.isCloseTo(Math.log(6.0 / 4) + Math.log(6.0 / 4), within(1e-9));
+		assertThat(analytics.hubScores().top(2)).containsExactly(2, 3);
+	}
+
+	@Test
+	public void testResultsAreCachedPerGraph() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		GraphAnalytics<Transport> analytics = GraphAnalytics.of(graph);
+		assertThat(GraphAnalytics.of(graph)).isSameAs(analytics);
+		assertThat(GraphAnalytics.of(smallGraph())).isNotSameAs(analytics);
+		NodeScores betweenness = analytics.betweenness(Transport.UNDERGROUND);
+		assertThat(analytics.betweenness(Transport.UNDERGROUND)).isSameAs(betweenness);
+		assertThat(betweenness.size()).isEqualTo(graph.size());
+		assertThat(analytics.betweenness().top(1)).hasSize(1);
+	}
+
+}
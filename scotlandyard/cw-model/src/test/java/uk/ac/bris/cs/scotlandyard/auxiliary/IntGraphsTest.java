@@ -0,0 +1,52 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.IntGraphs;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link IntGraphs}
+ */
+public class IntGraphsTest {
+
+	@Test
+	public void testCopyMatchesGraph() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		IntGraph<Transport> ints = IntGraphs.copyOf(graph);
+		assertThat(ints.size()).isEqualTo(graph.size());
+		assertThat(ints.edgeCount()).isEqualTo(graph.getEdges().size());
+		for (Node<Integer> node : graph.getNodes()) {
+			int id = ints.index(node.value());
+			assertThat(ints.value(id)).isEqualTo(node.value());
+			List<Integer> neighbours = new ArrayList<>();
+			ints.forEachNeighbour(id, (n, t) -> neighbours.add(ints.value(n)));
+			assertThat(neighbours).hasSize(ints.degree(id));
+			assertThat(neighbours).containsExactlyInAnyOrderElementsOf(() ->
+					graph.getEdgesFrom(node).stream().map(e -> e.destination().value()).iterator());
+		}
+		assertThat(ints.index(0)).isEqualTo(-1);
+	}
+
+	@Test
+	public void testViewRoundTrip() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		Graph<Integer, Transport> view = IntGraphs.asGraph(IntGraphs.copyOf(graph));
+		assertThat(view.getNodes()).isEqualTo(graph.getNodes());
+		assertThat(view.getEdges()).containsExactlyInAnyOrderElementsOf(graph.getEdges());
+		assertThat(view.getEdgesFrom(view.getNode(1)))
+				.containsExactlyInAnyOrderElementsOf(graph.getEdgesFrom(graph.getNode(1)));
+		assertThat(view.getNode(200)).isNull();
+	}
+
+}
@@ -0,0 +1,72 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import uk.ac.bris.cs.scotlandyard.ai.AI;
+import uk.ac.bris.cs.scotlandyard.ai.ManagedAIProcessor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ManagedAIProcessor}
+ */
+public class ManagedAIProcessorTest {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	private int compile(String name, String source) throws IOException {
+		File file = new File(folder.getRoot(), name + ".java");
+		Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		return compiler.run(null, null, null, "-nowarn", "-proc:only",
+				"-processor", ManagedAIProcessor.class.getName(),
+				"-cp", System.getProperty("java.class.path"),
+				"-d", folder.getRoot().getPath(), file.getPath());
+	}
+
+	private List<String> index() throws IOException {
+		return Files.readAllLines(new File(folder.getRoot(), AI.INDEX).toPath(),
+				StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testIndexListsManagedAIs() throws IOException {
+		assertThat(compile("Good", "package x;\n"
+				+ "import uk.ac.bris.cs.scotlandyard.ai.*;\n"
+				+ "import uk.ac.bris.cs.scotlandyard.model.*;\n"
+				+ "@ManagedAI(\"Good\") public class Good implements PlayerFactory {\n"
+				+ "  public Player createPlayer(Colour colour) { return null; }\n"
+				+ "}\n")).isZero();
+		assertThat(index()).containsExactly("x.Good");
+
+		// a later compile adds to the index
+		assertThat(compile("Other", "package y;\n"
+				+ "import uk.ac.bris.cs.scotlandyard.ai.*;\n"
+				+ "import uk.ac.bris.cs.scotlandyard.model.*;\n"
+				+ "@ManagedAI(\"Other\") public class Other implements PlayerFactory {\n"
+				+ "  public Player createPlayer(Colour colour) { return null; }\n"
+				+ "}\n")).isZero();
+		assertThat(index()).containsExactly("x.Good", "y.Other");
+	}
+
+	@Test
+	public void testNonFactoryIsRejected() throws IOException {
+		assertThat(compile("Bad", "package x;\n"
+				+ "@uk.ac.bris.cs.scotlandyard.ai.ManagedAI(\"Bad\") public class Bad {}\n"))
+						.isNotZero();
+		assertThat(Arrays.asList(folder.getRoot().list())).containsOnly("Bad.java");
+	}
+
+}
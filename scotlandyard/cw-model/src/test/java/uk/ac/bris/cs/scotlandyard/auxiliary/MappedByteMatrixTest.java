@@ -0,0 +1,57 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import uk.ac.bris.cs.gamekit.graph.CsrGraph;
+import uk.ac.bris.cs.gamekit.graph.GraphMatrices;
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.MappedByteMatrix;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link MappedByteMatrix}
+ */
+public class MappedByteMatrixTest {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testWrittenDistancesCanBeReopened() throws IOException {
+		CsrGraph<Transport> graph = StandardGame.standardCsrGraph();
+		Path file = folder.newFile().toPath();
+		try (MappedByteMatrix matrix = MappedByteMatrix.create(file, graph.size(), graph.size())) {
+			GraphMatrices.writeHopDistances(graph, t -> true, matrix);
+		}
+		IntSquareMatrix expected = StandardGame.standardDistanceTable();
+		try (MappedByteMatrix matrix = MappedByteMatrix.open(file)) {
+			assertThat(matrix.isReadOnly()).isTrue();
+			byte[] row = new byte[graph.size()];
+			for (int from = 0; from < graph.size(); from++) {
+				matrix.copyRow(from, row, 0);
+				for (int to = 0; to < graph.size(); to++)
+					assertThat(row[to]).isEqualTo((byte) expected.get(from, to));
+			}
+			assertThat(matrix.asMatrix().get(3, 3)).isZero();
+			assertThatThrownBy(() -> matrix.set(0, 0, (byte) 1))
+					.isInstanceOf(UnsupportedOperationException.class);
+		}
+	}
+
+	@Test
+	public void testRejectsForeignFile() throws IOException {
+		Path file = folder.newFile().toPath();
+		Files.write(file, new byte[32]);
+		assertThatThrownBy(() -> MappedByteMatrix.open(file)).isInstanceOf(IOException.class);
+	}
+
+}
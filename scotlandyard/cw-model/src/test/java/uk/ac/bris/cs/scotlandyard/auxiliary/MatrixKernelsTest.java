@@ -0,0 +1,51 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import uk.ac.bris.cs.gamekit.matrix.DoubleSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.MatrixKernels;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for {@link MatrixKernels}
+ */
+public class MatrixKernelsTest {
+
+	@Test
+	public void testMatrixVectorProducts() {
+		DoubleSquareMatrix matrix = new DoubleSquareMatrix(5);
+		for (int row = 0; row < 5; row++)
+			for (int column = 0; column < 5; column++)
+				matrix.set(row, column, row * 10 + column);
+		double[] x = { 1, 0, 2, 0, 1 };
+		double[] y = new double[5];
+		MatrixKernels.multiply(matrix, x, y);
+		for (int row = 0; row < 5; row++)
+			assertThat(y[row]).isEqualTo(row * 10 + 0 + 2 * (row * 10 + 2) + row * 10 + 4);
+		MatrixKernels.multiplyLeft(x, matrix, y);
+		for (int column = 0; column < 5; column++)
+			assertThat(y[column]).isEqualTo(column + 2 * (20 + column) + 40 + column);
+
+		float[] floats = { 1, 2, 3, 4 };
+		float[] result = new float[2];
+		MatrixKernels.multiply(floats, 2, 2, new float[] { 1, 1 }, result);
+		assertThat(result).containsExactly(3, 7);
+	}
+
+	@Test
+	public void testMaskNormaliseAndTopK() {
+		double[] values = { 0.5, 3, 1, 3, 2, 0 };
+		MatrixKernels.mask(values, new boolean[] { true, true, false, true, true, true });
+		assertThat(values).containsExactly(0.5, 3, 0, 3, 2, 0);
+		assertThat(MatrixKernels.normalise(values)).isEqualTo(8.5);
+		assertThat(MatrixKernels.sum(values)).isCloseTo(1, within(1e-12));
+		assertThat(MatrixKernels.topK(values, 3)).containsExactly(1, 3, 4);
+		assertThat(MatrixKernels.topK(values, 10)).containsExactly(1, 3, 4, 0, 2, 5);
+		assertThat(MatrixKernels.topK(new float[] { 1, 5 }, 1)).containsExactly(1);
+		assertThat(MatrixKernels.topK(new float[] { 2, 7, 1, 7 }, 3)).containsExactly(1, 3, 0);
+		assertThat(MatrixKernels.kernels()).isEqualTo("scalar");
+	}
+
+}
@@ -0,0 +1,160 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.ai.mcts.MonteCarloSearch;
+import uk.ac.bris.cs.scotlandyard.ai.search.Board;
+import uk.ac.bris.cs.scotlandyard.ai.search.GameState;
+import uk.ac.bris.cs.scotlandyard.ai.search.MoveList;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.detectiveTickets;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.mrXTickets;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.GREEN;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+
+/**
+ * Tests for {@link GameState} and {@link MonteCarloSearch}
+ */
+public class MonteCarloSearchTest {
+
+	private static final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+	@AfterClass
+	public static void shutdown() {
+		executor.shutdownNow();
+	}
+
+	// plays random games and checks every move list against the model
+	@Test
+	public void testMovesMatchModel() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		Board board = Board.of(graph, StandardGame.ROUNDS);
+		for (int seed = 0; seed < 3; seed++) {
+			Random random = new Random(seed);
+			int[] mrX = {StandardGame.MRX_LOCATIONS.get(seed)};
+			ScotlandYardModel model = new ScotlandYardModel(StandardGame.ROUNDS, graph,
+					config(BLACK, mrX[0], board, mrX, random),
+					config(RED, StandardGame.DETECTIVE_LOCATIONS.get(seed), board, mrX, random),
+					config(BLUE, StandardGame.DETECTIVE_LOCATIONS.get(seed + 3), board, mrX,
+							random),
+					config(GREEN, StandardGame.DETECTIVE_LOCATIONS.get(seed + 6), board, mrX,
+							random));
+			while (!model.isGameOver())
+				model.startRotate();
+		}
+	}
+
+	private static PlayerConfiguration config(Colour colour, int location, Board board,
+			int[] mrX, Random random) {
+		Player player = (view, current, moves, callback) -> {
+			GameState state = GameState.of(board, view, colour.isMrX() ? current : mrX[0]);
+			MoveList list = new MoveList();
+			state.moves(list);
+			Set<Move> generated = new HashSet<>();
+			for (int i = 0; i < list.size(); i++)
+				generated.add(state.toMove(colour, list.get(i)));
+			assertThat(generated).isEqualTo(moves);
+
+			List<Move> sorted = new ArrayList<>(moves);
+			sorted.sort(Comparator.comparing(Move::toString));
+			Move move = sorted.get(random.nextInt(sorted.size()));
+			if (colour.isMrX()) {
+				long encoded = list.get(0);
+				for (int i = 0; i < list.size(); i++)
+					if (state.toMove(colour, list.get(i)).equals(move)) encoded = list.get(i);
+				mrX[0] = board.value(GameState.finalDestination(encoded));
+			}
+			callback.accept(move);
+		};
+		return new PlayerConfiguration.Builder(colour).using(player)
+				.with(colour.isMrX() ? mrXTickets() : detectiveTickets()).at(location).build();
+	}
+
+	@Test
+	public void testDetectivesCaptureAdjacentMrX() throws IOException {
+		Board board = Board.of(StandardGame.standardGraph(), StandardGame.ROUNDS);
+		GameState root = new GameState(board, 3);
+		// MrX moves from 1 to 9, red at 20 is one taxi ride away
+		root.setLocation(0, board.index(1));
+		root.setLocation(1, board.index(20));
+		root.setLocation(2, board.index(100));
+		for (Ticket ticket : Ticket.values()) {
+			root.setTickets(0, ticket, 2);
+			if (ticket != Ticket.DOUBLE && ticket != Ticket.SECRET) {
+				root.setTickets(1, ticket, 5);
+				root.setTickets(2, ticket, 5);
+			}
+		}
+		root.play(GameState.single(Ticket.TAXI.ordinal(), board.index(9)));
+		assertThat(root.current()).isEqualTo(1);
+		assertThat(root.isOver()).isFalse();
+
+		MonteCarloSearch search = new MonteCarloSearch.Builder(executor).threads(2)
+				.capacity(1 << 14).build();
+		MonteCarloSearch.Result result = search.search(root,
+				(state, random) -> state.setLocation(0, board.index(9)),
+				System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200));
+		assertThat(root.toMove(RED, result.move()))
+				.isEqualTo(new TicketMove(RED, Ticket.TAXI, 9));
+		assertThat(result.iterations()).isPositive();
+		assertThat(result.winRate()).isGreaterThan(0.99);
+	}
+
+	@Test
+	public void testInterruptedSearchWaitsForWorkers() throws Exception {
+		Board board = Board.of(StandardGame.standardGraph(), StandardGame.ROUNDS);
+		GameState root = new GameState(board, 2);
+		root.setLocation(0, board.index(1));
+		root.setLocation(1, board.index(100));
+		for (Ticket ticket : Ticket.values()) {
+			root.setTickets(0, ticket, 2);
+			if (ticket != Ticket.DOUBLE && ticket != Ticket.SECRET) root.setTickets(1, ticket, 5);
+		}
+		AtomicLong samples = new AtomicLong();
+		MonteCarloSearch search = new MonteCarloSearch.Builder(executor).threads(2)
+				.capacity(1 << 14).build();
+		Thread caller = Thread.currentThread();
+		caller.interrupt();
+		try {
+			// the worker ignores interrupts, only the search can stop it
+			search.search(root, (state, random) -> {
+				samples.incrementAndGet();
+				if (Thread.currentThread() != caller) Thread.interrupted();
+			}, System.nanoTime() + TimeUnit.SECONDS.toNanos(10));
+			assertThat(Thread.currentThread().isInterrupted()).isTrue();
+		} finally {
+			Thread.interrupted();
+		}
+		// no worker touches the tree once the search has returned
+		long returned = samples.get();
+		Thread.sleep(100);
+		assertThat(samples.get()).isEqualTo(returned);
+	}
+
+}
@@ -0,0 +1,79 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import uk.ac.bris.cs.scotlandyard.ai.MoveExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link MoveExecutor}
+ */
+public class MoveExecutorTest {
+
+	@Test
+	public void testFixedPoolCountsMoves() throws InterruptedException {
+		MoveExecutor executor = MoveExecutor.fixed("test", 1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(2);
+		Runnable blocking = () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			done.countDown();
+		};
+		executor.execute(blocking);
+		executor.execute(done::countDown);
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(executor.active()).isEqualTo(1);
+		assertThat(executor.queued()).isEqualTo(1);
+
+		release.countDown();
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		executor.shutdown();
+		// completion is counted after the task itself returns
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (executor.completed() < 2 && System.nanoTime() < deadline)
+			Thread.sleep(1);
+		assertThat(executor.completed()).isEqualTo(2);
+		assertThat(executor.active()).isZero();
+		assertThat(executor.queued()).isZero();
+	}
+
+	@Test
+	public void testCallerThreadRunsInline() {
+		MoveExecutor executor = MoveExecutor.callerThread();
+		AtomicReference<Thread> thread = new AtomicReference<>();
+		executor.execute(() -> thread.set(Thread.currentThread()));
+		assertThat(thread.get()).isSameAs(Thread.currentThread());
+		assertThat(executor.completed()).isEqualTo(1);
+		// not owned, so this is a no-op
+		executor.shutdown();
+		executor.execute(() -> {});
+		assertThat(executor.completed()).isEqualTo(2);
+	}
+
+	@Test
+	public void testVirtualThreadsWhenAvailable() throws InterruptedException {
+		if (!MoveExecutor.virtualThreadsAvailable()) {
+			assertThatThrownBy(MoveExecutor::virtualThreads)
+					.isInstanceOf(UnsupportedOperationException.class);
+			return;
+		}
+		MoveExecutor executor = MoveExecutor.virtualThreads();
+		CountDownLatch done = new CountDownLatch(1);
+		executor.execute(done::countDown);
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		executor.shutdown();
+	}
+
+}
@@ -0,0 +1,138 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.ai.MrXTracker;
+import uk.ac.bris.cs.scotlandyard.ai.MrXTracker.Belief;
+import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.makeTickets;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.SECRET;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+
+/**
+ * Tests for {@link MrXTracker}
+ */
+public class MrXTrackerTest {
+
+	// 1 - 2, 1 - 3 and 2 - 5 by taxi, 1 - 4 and 3 - 5 by bus, 4 - 6 - 7 and
+	// 5 - 6 by taxi
+	private static Graph<Integer, Transport> graph() {
+		Graph<Integer, Transport> graph = new UndirectedGraph<>();
+		for (int i = 1; i <= 7; i++)
+			graph.addNode(new Node<>(i));
+		connect(graph, 1, 2, Transport.TAXI);
+		connect(graph, 1, 3, Transport.TAXI);
+		connect(graph, 2, 5, Transport.TAXI);
+		connect(graph, 1, 4, Transport.BUS);
+		connect(graph, 3, 5, Transport.BUS);
+		connect(graph, 4, 6, Transport.TAXI);
+		connect(graph, 5, 6, Transport.TAXI);
+		connect(graph, 6, 7, Transport.TAXI);
+		return graph;
+	}
+
+	private static void connect(Graph<Integer, Transport> graph, int a, int b, Transport t) {
+		graph.addEdge(new Edge<>(graph.getNode(a), graph.getNode(b), t));
+	}
+
+	private static Player scripted(Move... moves) {
+		Deque<Move> script = new ArrayDeque<>(asList(moves));
+		return (view, location, valid, callback) -> {
+			Move move = script.pop();
+			assertThat(valid).contains(move);
+			callback.accept(move);
+		};
+	}
+
+	@Test
+	public void testTracksHiddenDoubleMoveAndReveal() {
+		Player mrX = scripted(
+				new DoubleMove(BLACK, TAXI, 2, SECRET, 5),
+				new TicketMove(BLACK, TAXI, 2));
+		Player red = scripted(
+				new TicketMove(RED, TAXI, 6),
+				new TicketMove(RED, TAXI, 4));
+		ScotlandYardModel model = new ScotlandYardModel(asList(false, false, true), graph(),
+				new PlayerConfiguration.Builder(BLACK).using(mrX)
+						.with(makeTickets(4, 4, 4, 1, 4)).at(1).build(),
+				new PlayerConfiguration.Builder(RED).using(red)
+						.with(makeTickets(4, 4, 4, 0, 0)).at(7).build());
+
+		MrXTracker tracker = new MrXTracker(true, singletonList(1));
+		List<Belief> beliefs = new ArrayList<>();
+		model.registerSpectator(tracker);
+		model.registerSpectator(new Spectator() {
+			@Override
+			public void onMoveMade(ScotlandYardView view, Move move) {
+				if (move instanceof TicketMove) beliefs.add(tracker.belief());
+			}
+		});
+		model.startRotate();
+		model.startRotate();
+
+		// first half by taxi from 1
+		assertThat(beliefs.get(0).locations()).containsExactly(2, 3);
+		assertThat(beliefs.get(0).probability(2)).isCloseTo(0.5, within(1e-9));
+		// second half by secret ticket from 2 or 3
+		Belief hidden = beliefs.get(1);
+		assertThat(hidden.locations()).containsExactly(1, 5);
+		assertThat(hidden.probability(5)).isCloseTo(0.5, within(1e-9));
+		assertThat(hidden.lastRevealed()).isZero();
+		// red moving to 6 rules nothing out
+		assertThat(beliefs.get(2).locations()).containsExactly(1, 5);
+		// revealed in round 3
+		Belief revealed = beliefs.get(3);
+		assertThat(revealed.locations()).containsExactly(2);
+		assertThat(revealed.lastRevealed()).isEqualTo(2);
+		assertThat(revealed.probability(2)).isEqualTo(1);
+		assertThat(revealed.round()).isEqualTo(3);
+	}
+
+	@Test
+	public void testDetectiveLocationsAreExcluded() {
+		Player mrX = scripted(new TicketMove(BLACK, SECRET, 1));
+		Player red = scripted(new TicketMove(RED, TAXI, 6));
+		ScotlandYardModel model = new ScotlandYardModel(asList(false, false), graph(),
+				new PlayerConfiguration.Builder(BLACK).using(mrX)
+						.with(makeTickets(4, 4, 4, 0, 4)).at(4).build(),
+				new PlayerConfiguration.Builder(RED).using(red)
+						.with(makeTickets(4, 4, 4, 0, 0)).at(7).build());
+		MrXTracker tracker = new MrXTracker();
+		model.registerSpectator(tracker);
+		model.startRotate();
+
+		Belief belief = tracker.belief();
+		assertThat(belief.hasProbabilities()).isFalse();
+		// anywhere but 7 at the start, one secret move later anywhere but
+		// red at 7 and then red takes 6
+		assertThat(belief.contains(7)).isFalse();
+		assertThat(belief.contains(6)).isFalse();
+		assertThat(belief.locations()).containsExactly(1, 2, 3, 4, 5);
+		assertThat(belief.probability(1)).isCloseTo(1.0 / 5, within(1e-9));
+	}
+
+}
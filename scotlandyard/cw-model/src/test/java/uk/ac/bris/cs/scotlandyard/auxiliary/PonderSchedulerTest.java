@@ -0,0 +1,138 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.ac.bris.cs.scotlandyard.ai.PonderScheduler;
+import uk.ac.bris.cs.scotlandyard.ai.Ponderer;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.PassMove;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PonderScheduler}
+ */
+public class PonderSchedulerTest {
+
+	private static final ExecutorService executor = Executors.newCachedThreadPool();
+	private static final Move MOVE = new PassMove(Colour.RED);
+
+	@AfterClass
+	public static void shutdown() {
+		executor.shutdownNow();
+	}
+
+	// a ponderer that thinks until stopped
+	private static final class Busy implements Ponderer {
+
+		final AtomicInteger started = new AtomicInteger();
+		final AtomicInteger priority = new AtomicInteger();
+		volatile boolean keep;
+		volatile boolean wasRunning;
+		volatile CountDownLatch running = new CountDownLatch(1);
+		volatile CountDownLatch ended = new CountDownLatch(1);
+
+		@Override
+		public Task speculate(ScotlandYardView view, Move move, boolean running) {
+			wasRunning = running;
+			if (keep) return null;
+			CountDownLatch started = this.running, ended = this.ended;
+			return stopped -> {
+				this.started.incrementAndGet();
+				priority.set(Thread.currentThread().getPriority());
+				started.countDown();
+				while (!stopped.getAsBoolean())
+					Thread.yield();
+				ended.countDown();
+			};
+		}
+
+		void reset() {
+			running = new CountDownLatch(1);
+			ended = new CountDownLatch(1);
+		}
+
+	}
+
+	@Test
+	public void testPondersAtLowPriorityUntilPaused() throws InterruptedException {
+		PonderScheduler scheduler = new PonderScheduler();
+		Busy busy = new Busy();
+		scheduler.add(busy, executor, "owner");
+		scheduler.onMoveMade(null, MOVE);
+		assertThat(busy.running.await(1, TimeUnit.SECONDS)).isTrue();
+		assertThat(busy.priority.get()).isEqualTo(Thread.MIN_PRIORITY);
+
+		Runnable resume = scheduler.pause("owner", Runnable::run);
+		assertThat(busy.ended.await(1, TimeUnit.SECONDS)).isTrue();
+		busy.reset();
+		scheduler.onMoveMade(null, MOVE);
+		assertThat(busy.started.get()).isEqualTo(1);
+
+		resume.run();
+		// the paused task was stopped, the ponderer must start another
+		busy.keep = true;
+		scheduler.onMoveMade(null, MOVE);
+		assertThat(busy.wasRunning).isFalse();
+		busy.keep = false;
+		scheduler.onMoveMade(null, MOVE);
+		assertThat(busy.running.await(1, TimeUnit.SECONDS)).isTrue();
+		scheduler.onGameOver(null, Collections.singleton(Colour.BLACK));
+		assertThat(busy.ended.await(1, TimeUnit.SECONDS)).isTrue();
+		assertThat(busy.started.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void testNewTaskReplacesRunningOne() throws InterruptedException {
+		PonderScheduler scheduler = new PonderScheduler();
+		Busy busy = new Busy();
+		scheduler.add(busy, executor, "owner");
+		scheduler.onMoveMade(null, MOVE);
+		assertThat(busy.running.await(1, TimeUnit.SECONDS)).isTrue();
+		busy.keep = true;
+		scheduler.onMoveMade(null, MOVE);
+		assertThat(busy.wasRunning).isTrue();
+		busy.keep = false;
+		CountDownLatch first = busy.ended;
+		busy.reset();
+		scheduler.onMoveMade(null, MOVE);
+		assertThat(first.await(1, TimeUnit.SECONDS)).isTrue();
+		assertThat(busy.running.await(1, TimeUnit.SECONDS)).isTrue();
+		scheduler.stop();
+		assertThat(busy.ended.await(1, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	public void testOnlyCompetingPonderingIsPaused() throws InterruptedException {
+		PonderScheduler scheduler = new PonderScheduler();
+		Executor own = executor::execute, other = executor::execute;
+		Busy mine = new Busy(), sharing = new Busy(), elsewhere = new Busy();
+		scheduler.add(mine, own, "mine");
+		scheduler.add(sharing, own, "sharing");
+		scheduler.add(elsewhere, other, "elsewhere");
+		scheduler.onMoveMade(null, MOVE);
+		for (Busy busy : asList(mine, sharing, elsewhere))
+			assertThat(busy.running.await(1, TimeUnit.SECONDS)).isTrue();
+
+		Runnable resume = scheduler.pause("mine", own);
+		assertThat(mine.ended.await(1, TimeUnit.SECONDS)).isTrue();
+		assertThat(sharing.ended.await(1, TimeUnit.SECONDS)).isTrue();
+		assertThat(elsewhere.ended.getCount()).isEqualTo(1);
+		resume.run();
+		scheduler.stop();
+		assertThat(elsewhere.ended.await(1, TimeUnit.SECONDS)).isTrue();
+	}
+
+}
@@ -0,0 +1,69 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import uk.ac.bris.cs.gamekit.graph.CsrGraph;
+import uk.ac.bris.cs.gamekit.graph.GraphMatrices;
+import uk.ac.bris.cs.gamekit.graph.RegionIndex;
+import uk.ac.bris.cs.gamekit.matrix.Matrix;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link RegionIndex}
+ */
+public class RegionIndexTest {
+
+	@Test
+	public void testBoundsContainExactDistance() throws IOException {
+		CsrGraph<Transport> graph = StandardGame.standardCsrGraph();
+		Matrix<Integer> exact = GraphMatrices.hopDistances(graph, t -> true);
+		for (int spacing : new int[] { 1, 2, 4 }) {
+			RegionIndex index = RegionIndex.build(graph, t -> true, spacing);
+			assertThat(index.radius()).isLessThan(spacing);
+			for (int from = 0; from < graph.size(); from++) {
+				for (int to = 0; to < graph.size(); to++) {
+					int distance = exact.get(from, to);
+					assertThat(index.lowerBound(from, to)).isLessThanOrEqualTo(distance);
+					assertThat(index.upperBound(from, to)).isGreaterThanOrEqualTo(distance);
+					if (index.neighbours(index.region(from), index.region(to)))
+						assertThat(index.upperBound(from, to))
+								.isLessThanOrEqualTo(index.lowerBound(from, to) + 4 * index.radius());
+				}
+			}
+		}
+		assertThat(RegionIndex.build(graph, t -> true, 1).regionCount()).isEqualTo(graph.size());
+	}
+
+	@Test
+	public void testOverlayOnlyHoldsNeighbouringRegions() throws IOException {
+		CsrGraph<Transport> graph = StandardGame.standardCsrGraph();
+		RegionIndex index = RegionIndex.build(graph, t -> true, 1);
+		int from = graph.index(1), neighbour = graph.index(8), far = graph.index(199);
+		assertThat(index.neighbours(index.region(from), index.region(neighbour))).isTrue();
+		assertThat(index.neighbours(index.region(from), index.region(far))).isFalse();
+		assertThat(index.lowerBound(from, neighbour)).isEqualTo(1);
+		assertThat(index.upperBound(from, neighbour)).isEqualTo(1);
+		// at most one overlay entry per stored edge, not one per pair of hubs
+		int edges = 0;
+		for (int node = 0; node < graph.size(); node++)
+			edges += graph.degree(node);
+		assertThat(index.overlaySize()).isPositive().isLessThanOrEqualTo(edges);
+	}
+
+	@Test
+	public void testDisconnectedLayer() throws IOException {
+		CsrGraph<Transport> graph = StandardGame.standardCsrGraph();
+		RegionIndex index = RegionIndex.build(graph, t -> t == Transport.FERRY, 3);
+		int ferry = graph.index(194), island = graph.index(157), land = graph.index(1);
+		assertThat(index.lowerBound(ferry, island)).isEqualTo(1);
+		assertThat(index.upperBound(ferry, island)).isBetween(1, 1 + 4 * index.radius());
+		assertThat(index.lowerBound(ferry, land)).isEqualTo(GraphMatrices.UNREACHABLE);
+		assertThat(index.upperBound(land, land)).isZero();
+	}
+
+}
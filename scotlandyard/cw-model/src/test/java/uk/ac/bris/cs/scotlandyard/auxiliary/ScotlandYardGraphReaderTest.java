@@ -2,6 +2,11 @@ package uk.ac.bris.cs.scotlandyard.auxiliary;
 
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
 import uk.ac.bris.cs.scotlandyard.model.Transport;
@@ -58,4 +63,51 @@ public class ScotlandYardGraphReaderTest {
 		assertThatThrownBy(() -> fromLines(asList("2 1", "1", "2", "Foo Bar Baz")));
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testStreamingMatchesLines() throws IOException {
+		ImmutableGraph<Integer, Transport> expected =
+				fromLines(asList("3 2", "1", "2", "3", "1 2 Ferry", "2 3 taxi"));
+		assertThat(fromReader(new StringReader("3 2\n1\n2\n3\n1 2 Ferry\n2 3 taxi\n")))
+				.isEqualTo(expected);
+		assertThat(fromBuffer(ByteBuffer.wrap(
+				"3 2\r\n1\r\n2\r\n3\r\n1 2 Ferry\r\n2 3 taxi".getBytes(StandardCharsets.US_ASCII))))
+				.isEqualTo(expected);
+	}
+
+	@Test
+	public void testStreamingReportsLineNumbers() {
+		assertThatThrownBy(() -> fromReader(new StringReader("2 1\n1\n2\n1 2 Boat\n")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("line 4");
+		assertThatThrownBy(() -> fromReader(new StringReader("2 1\n1\nFoo\n1 2 Bus\n")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("line 3");
+		assertThatThrownBy(() -> fromReader(new StringReader("2 1\n1\n2\n1 3 Bus\n")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("line 4");
+	}
+
+	@Test
+	public void testStreamingValidatesCounts() {
+		assertThatThrownBy(() -> fromReader(new StringReader("3 1\n1\n2\n")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("expected 3 nodes");
+		assertThatThrownBy(() -> fromReader(new StringReader("2 2\n1\n2\n1 2 Bus\n")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("expected 2 edges");
+		assertThatThrownBy(() -> fromReader(new StringReader("2 1\n1\n2\n1 2 Bus\n2 1 Bus\n")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("line 5");
+	}
+
+	@Test
+	public void testStreamingRejectsOverflow() throws IOException {
+		assertThatThrownBy(() -> fromReader(new StringReader("1 0\n5000000000\n")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("overflow")
+				.hasMessageContaining("line 2");
+		assertThat(fromReader(new StringReader("1 0\n2147483647\n"))
+				.getNode(Integer.MAX_VALUE)).isNotNull();
+	}
+
+}
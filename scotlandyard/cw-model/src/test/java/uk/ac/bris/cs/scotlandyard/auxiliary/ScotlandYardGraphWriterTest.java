@@ -0,0 +1,80 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import uk.ac.bris.cs.gamekit.graph.CsrGraph;
+import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.MapGenerator;
+import uk.ac.bris.cs.gamekit.graph.MapGenerator.GeneratedMap;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphWriter;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader.fromReader;
+
+/**
+ * Tests for {@link ScotlandYardGraphWriter} and {@link MapGenerator}
+ */
+public class ScotlandYardGraphWriterTest {
+
+	private static GeneratedMap<Transport> generate(long seed) {
+		return new MapGenerator.Builder<>(Transport.TAXI)
+				.nodes(2000).seed(seed)
+				.overlay(Transport.BUS, 4, 0.8)
+				.overlay(Transport.UNDERGROUND, 12, 0.7)
+				.longRange(Transport.FERRY, 0.002)
+				.build().generate();
+	}
+
+	@Test
+	public void testStandardGraphRoundTrip() throws IOException {
+		StringWriter writer = new StringWriter();
+		ScotlandYardGraphWriter.write(StandardGame.standardGraph(), writer);
+		ImmutableGraph<Integer, Transport> graph = fromReader(new StringReader(writer.toString()));
+		// connections written with source > destination come back swapped
+		assertThat(graph.getNodes()).isEqualTo(StandardGame.standardGraph().getNodes());
+		assertThat(graph.getEdges())
+				.containsExactlyInAnyOrderElementsOf(StandardGame.standardGraph().getEdges());
+	}
+
+	@Test
+	public void testGeneratedMapRoundTrip() throws IOException {
+		GeneratedMap<Transport> map = generate(42);
+		StringWriter writer = new StringWriter();
+		ScotlandYardGraphWriter.write(map, writer);
+		ImmutableGraph<Integer, Transport> graph = fromReader(new StringReader(writer.toString()));
+		assertThat(graph).isEqualTo(new ImmutableGraph<>(map.toGraph()));
+		assertThat(graph.size()).isEqualTo(2000);
+	}
+
+	@Test
+	public void testGeneratedMapIsSeededAndConnected() {
+		GeneratedMap<Transport> map = generate(7);
+		assertThat(map.toGraph()).isEqualTo(generate(7).toGraph());
+		assertThat(map.toGraph()).isNotEqualTo(generate(8).toGraph());
+		CsrGraph<Transport> csr = CsrGraph.copyOf(map.toGraph());
+		// BFS over taxi edges only reaches every node
+		boolean[] seen = new boolean[csr.size()];
+		int[] queue = new int[csr.size()];
+		int head = 0, tail = 0;
+		seen[0] = true;
+		queue[tail++] = 0;
+		while (head < tail) {
+			int node = queue[head++];
+			for (int i = 0; i < csr.degree(node); i++) {
+				int next = csr.neighbourAt(node, i);
+				if (!seen[next] && csr.dataAt(node, i) == Transport.TAXI) {
+					seen[next] = true;
+					queue[tail++] = next;
+				}
+			}
+		}
+		assertThat(tail).isEqualTo(csr.size());
+	}
+
+}
@@ -0,0 +1,71 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import uk.ac.bris.cs.gamekit.graph.CsrGraph;
+import uk.ac.bris.cs.gamekit.graph.GraphMatrices;
+import uk.ac.bris.cs.gamekit.matrix.Matrix;
+import uk.ac.bris.cs.gamekit.matrix.SparseDoubleMatrix;
+import uk.ac.bris.cs.gamekit.matrix.SparseMatrix;
+import uk.ac.bris.cs.gamekit.matrix.SparseVector;
+import uk.ac.bris.cs.gamekit.matrix.SquareMatrix;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for {@link SparseMatrix}, {@link SparseDoubleMatrix} and
+ * {@link SparseVector}
+ */
+public class SparseMatrixTest {
+
+	@Test
+	public void testBuilderOrdersAndMergesCells() {
+		SparseMatrix<String> matrix = new SparseMatrix.Builder<String>(3, 3, "")
+				.put(2, 0, "a").put(0, 2, "b").put(0, 1, "c").put(0, 2, "d").build();
+		SquareMatrix<String> dense = new SquareMatrix<>(3, "");
+		dense.put(2, 0, "a");
+		dense.put(0, 2, "d");
+		dense.put(0, 1, "c");
+		assertThat(matrix).isEqualTo(dense);
+		assertThat(matrix.nonZeros()).isEqualTo(3);
+		assertThat(matrix.columnAt(0, 0)).isEqualTo(1);
+		assertThat(matrix.column(0)).containsExactly("", "", "a");
+		assertThat(matrix.antiDiagonal()).containsExactly("d", "", "a");
+
+		SparseDoubleMatrix sums = new SparseDoubleMatrix.Builder(2, 3)
+				.add(1, 2, 0.25).add(1, 2, 0.5).add(0, 0, 1).add(0, 0, -1).build();
+		assertThat(sums.nonZeros()).isEqualTo(1);
+		assertThat(sums.get(1, 2)).isEqualTo(0.75);
+		Matrix<Double> view = sums.asMatrix();
+		assertThat(view.row(1)).containsExactly(0.0, 0.0, 0.75);
+		assertThat(view.rowSize()).isEqualTo(3);
+	}
+
+	@Test
+	public void testSparseProductMatchesDenseProduct() throws IOException {
+		CsrGraph<Transport> graph = StandardGame.standardCsrGraph();
+		SparseDoubleMatrix transitions = GraphMatrices.transitions(graph, t -> t == Transport.TAXI);
+		SparseDoubleMatrix.Workspace workspace = new SparseDoubleMatrix.Workspace(transitions);
+		SparseVector belief = SparseVector.unit(graph.size(), graph.index(1), 1);
+		double[] dense = belief.toDense();
+		double[] next = new double[graph.size()];
+		for (int round = 0; round < 6; round++) {
+			belief = transitions.multiply(belief, workspace);
+			transitions.multiply(dense, next);
+			double[] swap = dense;
+			dense = next;
+			next = swap;
+			assertThat(belief.toDense()).containsExactly(dense, within(1e-12));
+			assertThat(belief.sum()).isCloseTo(1, within(1e-9));
+		}
+		assertThat(belief.nonZeros()).isLessThan(graph.size());
+		assertThat(GraphMatrices.adjacency(graph, t -> true).get(graph.index(1), graph.index(8)))
+				.isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,168 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.ai.search.Board;
+import uk.ac.bris.cs.scotlandyard.ai.search.GameState;
+import uk.ac.bris.cs.scotlandyard.ai.tablebase.Tablebase;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link Tablebase}
+ */
+public class TablebaseTest {
+
+	private static final int HORIZON = 6;
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	// a taxi square 1 - 2 - 3 - 4, a bus from 4 to a square 5 - 6 - 7 - 8
+	// with an underground 6 - 7, and a ferry 1 - 8
+	private static Graph<Integer, Transport> graph() {
+		return graph(Transport.UNDERGROUND);
+	}
+
+	private static Graph<Integer, Transport> graph(Transport sixToSeven) {
+		Graph<Integer, Transport> graph = new UndirectedGraph<>();
+		for (int i = 1; i <= 8; i++)
+			graph.addNode(new Node<>(i));
+		connect(graph, 1, 2, Transport.TAXI);
+		connect(graph, 2, 3, Transport.TAXI);
+		connect(graph, 3, 4, Transport.TAXI);
+		connect(graph, 4, 1, Transport.TAXI);
+		connect(graph, 4, 5, Transport.BUS);
+		connect(graph, 5, 6, Transport.TAXI);
+		connect(graph, 6, 7, sixToSeven);
+		connect(graph, 7, 8, Transport.TAXI);
+		connect(graph, 8, 5, Transport.TAXI);
+		connect(graph, 1, 8, Transport.FERRY);
+		return graph;
+	}
+
+	private static void connect(Graph<Integer, Transport> graph, int a, int b, Transport t) {
+		graph.addEdge(new Edge<>(graph.getNode(a), graph.getNode(b), t));
+	}
+
+	// plain minimax over the same rules: can the detectives catch MrX in time
+	private static boolean caught(Graph<Integer, Transport> graph, int turn, int mrX,
+			int[] detectives, int plies) {
+		for (int detective : detectives)
+			if (detective == mrX) return true;
+		if (plies == 0) return false;
+		if (turn == 0) {
+			// a stuck MrX is caught
+			for (Edge<Integer, Transport> edge : graph.getEdgesFrom(graph.getNode(mrX))) {
+				int target = edge.destination().value();
+				if (occupied(detectives, target, -1)) continue;
+				if (!caught(graph, 1, target, detectives, plies - 1)) return false;
+			}
+			return true;
+		}
+		int next = turn == detectives.length ? 0 : turn + 1;
+		boolean moved = false;
+		for (Edge<Integer, Transport> edge : graph
+				.getEdgesFrom(graph.getNode(detectives[turn - 1]))) {
+			int target = edge.destination().value();
+			if (edge.data() == Transport.FERRY || occupied(detectives, target, turn - 1))
+				continue;
+			moved = true;
+			int[] moving = detectives.clone();
+			moving[turn - 1] = target;
+			if (caught(graph, next, mrX, moving, plies - 1)) return true;
+		}
+		return !moved && caught(graph, next, mrX, detectives, plies - 1);
+	}
+
+	private static boolean occupied(int[] detectives, int node, int except) {
+		for (int i = 0; i < detectives.length; i++)
+			if (i != except && detectives[i] == node) return true;
+		return false;
+	}
+
+	@Test
+	public void testAgreesWithMinimax() {
+		Graph<Integer, Transport> graph = graph();
+		Tablebase tablebase = Tablebase.build(graph, 2, HORIZON);
+		assertThat(tablebase.states()).isEqualTo(3 * 8 * 8 * 8);
+		int captures = 0;
+		for (int turn = 0; turn <= 2; turn++)
+			for (int mrX = 1; mrX <= 8; mrX++)
+				for (int a = 1; a <= 8; a++)
+					for (int b = 1; b <= 8; b++) {
+						if (a == b) continue;
+						int expected = Tablebase.NO_CAPTURE;
+						for (int plies = 0; plies <= HORIZON; plies++) {
+							if (caught(graph, turn, mrX, new int[] { a, b }, plies)) {
+								expected = plies;
+								break;
+							}
+						}
+						if (expected > 0) captures++;
+						assertThat(tablebase.pliesToCapture(turn, mrX, a, b))
+								.as("turn %d, MrX at %d, detectives at %d and %d", turn, mrX, a, b)
+								.isEqualTo(expected);
+					}
+		assertThat(captures).isPositive();
+	}
+
+	@Test
+	public void testWrittenTableMapsBack() throws IOException {
+		Graph<Integer, Transport> graph = graph();
+		Tablebase built = Tablebase.build(graph, 1, HORIZON);
+		Path file = folder.newFile("tablebase").toPath();
+		built.write(file);
+		try (Tablebase mapped = Tablebase.open(file, graph)) {
+			assertThat(mapped.detectives()).isEqualTo(1);
+			assertThat(mapped.horizon()).isEqualTo(built.horizon()).isEqualTo(HORIZON);
+			for (int turn = 0; turn <= 1; turn++)
+				for (int mrX = 1; mrX <= 8; mrX++)
+					for (int detective = 1; detective <= 8; detective++)
+						assertThat(mapped.pliesToCapture(turn, mrX, detective))
+								.isEqualTo(built.pliesToCapture(turn, mrX, detective));
+		}
+		// a detective next to MrX catches MrX on its move
+		assertThat(built.pliesToCapture(1, 1, 2)).isEqualTo(1);
+	}
+
+	@Test
+	public void testOpenRejectsATableOfAnotherMap() throws IOException {
+		Path file = folder.newFile("tablebase").toPath();
+		Tablebase.build(graph(), 1, HORIZON).write(file);
+		// same nodes and edges, but 6 - 7 is a bus
+		assertThatThrownBy(() -> Tablebase.open(file, graph(Transport.BUS)))
+				.isInstanceOf(IOException.class).hasMessageContaining("another map");
+	}
+
+	@Test
+	public void testDetectivesWinTellsBeyondTheHorizonFromNoCapture() {
+		Graph<Integer, Transport> graph = graph();
+		Board board = Board.of(graph, Arrays.asList(false, false, false));
+		GameState state = new GameState(board, 2);
+		state.setLocation(0, board.index(8));
+		state.setLocation(1, board.index(3));
+		Tablebase shallow = Tablebase.build(graph, 1, 1);
+		assertThat(shallow.horizon()).isEqualTo(1);
+		assertThat(shallow.pliesToCapture(state)).isEqualTo(Tablebase.NO_CAPTURE);
+		assertThatThrownBy(() -> shallow.detectivesWin(state))
+				.isInstanceOf(IllegalStateException.class);
+		// solving runs out of positions long before the largest horizon
+		Tablebase complete = Tablebase.build(graph, 1, Tablebase.MAX_HORIZON);
+		assertThat(complete.horizon()).isEqualTo(Integer.MAX_VALUE);
+		assertThat(complete.pliesToCapture(state)).isEqualTo(Tablebase.NO_CAPTURE);
+		assertThat(complete.detectivesWin(state)).isFalse();
+	}
+
+}
@@ -0,0 +1,116 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.ai.tournament.Entrant;
+import uk.ac.bris.cs.scotlandyard.ai.tournament.Pairing;
+import uk.ac.bris.cs.scotlandyard.ai.tournament.Ratings;
+import uk.ac.bris.cs.scotlandyard.ai.tournament.ResultFormat;
+import uk.ac.bris.cs.scotlandyard.ai.tournament.Scheduler;
+import uk.ac.bris.cs.scotlandyard.ai.tournament.Tournament;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for {@link Tournament}
+ */
+public class TournamentTest {
+
+	private static Entrant first(String name) {
+		PlayerFactory factory = colour -> (view, location, moves, callback) -> callback
+				.accept(moves.iterator().next());
+		return new Entrant(name, () -> factory);
+	}
+
+	@Test
+	public void testRoundRobinPlaysBothSidesAndStreamsResults() throws Exception {
+		StringWriter output = new StringWriter();
+		Ratings ratings = new Tournament.Builder(Arrays.asList(first("a"), first("b")))
+				.scheduler(Scheduler.roundRobin(2)).detectives(2).threads(2)
+				.moveTimeout(Duration.ofSeconds(5)).output(output, ResultFormat.CSV).build()
+				.run();
+		String[] lines = output.toString().split(System.lineSeparator());
+		assertThat(lines).hasSize(5);
+		assertThat(lines[0]).startsWith("mrX,detectives,seed,winner");
+		assertThat(Arrays.copyOfRange(lines, 1, 5)).allMatch(line -> line.matches(
+				"(a,b|b,a),[01],(MRX|DETECTIVES),,\\d+,\\d+,\\d+,[\\d.]+,[\\d.]+"));
+		assertThat(ratings.games("a")).isEqualTo(4);
+		assertThat(ratings.rating("a") + ratings.rating("b"))
+				.isCloseTo(2 * Ratings.DEFAULT_INITIAL, within(1e-6));
+	}
+
+	@Test
+	public void testRatingsDoNotDependOnWhichGameFinishesFirst() throws Exception {
+		// the first game scheduled, with slow as MrX, finishes last when both run at once
+		PlayerFactory factory = colour -> (view, location, moves, callback) -> {
+			if (colour.isMrX()) Uninterruptibles.sleepUninterruptibly(2, TimeUnit.MILLISECONDS);
+			callback.accept(moves.iterator().next());
+		};
+		List<Entrant> entrants = Arrays.asList(new Entrant("slow", () -> factory), first("fast"));
+		Ratings sequential = new Tournament.Builder(entrants).detectives(2).threads(1)
+				.moveTimeout(Duration.ofSeconds(5)).build().run();
+		Ratings concurrent = new Tournament.Builder(entrants).detectives(2).threads(2)
+				.moveTimeout(Duration.ofSeconds(5)).build().run();
+		assertThat(concurrent.standings()).isEqualTo(sequential.standings());
+	}
+
+	@Test
+	public void testSilentPlayerForfeits() throws Exception {
+		Entrant silent = new Entrant("silent",
+				() -> colour -> (view, location, moves, callback) -> {});
+		StringWriter output = new StringWriter();
+		Ratings ratings = new Tournament.Builder(Arrays.asList(first("first"), silent))
+				.detectives(1).threads(1).moveTimeout(Duration.ofMillis(50))
+				.output(output, ResultFormat.JSONL).build().run();
+		assertThat(ratings.standings().keySet()).containsExactly("first", "silent");
+		assertThat(output.toString()).contains("\"forfeit\":\"MrX made no move within PT0.05S\"",
+				"\"forfeit\":\"Detectives made no move within PT0.05S\"");
+	}
+
+	@Test(timeout = 10000)
+	public void testStuckPlayerForfeitsWithoutHoldingUpTheTournament() throws Exception {
+		Entrant stuck = new Entrant("stuck", () -> colour -> (view, location, moves,
+				callback) -> Uninterruptibles.sleepUninterruptibly(1, TimeUnit.HOURS));
+		StringWriter output = new StringWriter();
+		Ratings ratings = new Tournament.Builder(Arrays.asList(first("first"), stuck))
+				.detectives(1).threads(1).moveTimeout(Duration.ofMillis(50))
+				.output(output, ResultFormat.JSONL).build().run();
+		assertThat(ratings.standings().keySet()).containsExactly("first", "stuck");
+		assertThat(output.toString()).contains("\"forfeit\":\"MrX made no move within PT0.05S\"",
+				"\"forfeit\":\"Detectives made no move within PT0.05S\"");
+	}
+
+	@Test
+	public void testSwissAvoidsRematches() {
+		List<Entrant> entrants = Arrays.asList(first("a"), first("b"), first("c"), first("d"));
+		Scheduler swiss = Scheduler.swiss(3);
+		Ratings ratings = new Ratings();
+		Set<Set<String>> met = new HashSet<>();
+		for (int round = 0; round < 3; round++) {
+			List<Pairing> pairings = swiss.round(round, entrants, ratings);
+			assertThat(pairings).hasSize(4);
+			for (Pairing pairing : pairings) {
+				Set<String> pair = new HashSet<>(Arrays.asList(pairing.mrX().name(),
+						pairing.detectives().name()));
+				if (pairing.mrX().name().compareTo(pairing.detectives().name()) < 0)
+					assertThat(met.add(pair)).isTrue();
+				ratings.record(pairing.mrX().name(), pairing.detectives().name());
+			}
+		}
+		assertThat(met).hasSize(6);
+		assertThat(swiss.round(3, entrants, ratings)).isEmpty();
+	}
+
+}
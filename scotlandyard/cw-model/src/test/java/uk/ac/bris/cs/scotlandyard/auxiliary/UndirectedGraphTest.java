@@ -0,0 +1,92 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.harness.ImmutableScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.detectiveTickets;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.mrXTickets;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+
+/**
+ * Tests for the compact mode of {@link UndirectedGraph}
+ */
+public class UndirectedGraphTest {
+
+	@Test
+	public void testCompactCopyBehavesLikeOriginal() throws IOException {
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+		UndirectedGraph<Integer, Transport> compact = UndirectedGraph.compactCopyOf(graph);
+		assertThat(compact.isCompact()).isTrue();
+		assertThat(compact.getNodes()).isEqualTo(graph.getNodes());
+		assertThat(compact.getEdges()).containsExactlyElementsOf(graph.getEdges());
+		for (Node<Integer> node : graph.getNodes()) {
+			assertThat(compact.getEdgesFrom(node)).containsExactlyElementsOf(graph.getEdgesFrom(node));
+			assertThat(compact.getEdgesTo(node)).containsExactlyElementsOf(graph.getEdgesTo(node));
+		}
+	}
+
+	@Test
+	public void testCopiesShareUntilModified() {
+		UndirectedGraph<Integer, String> graph = UndirectedGraph.compact();
+		Node<Integer> a = new Node<>(1), b = new Node<>(2), c = new Node<>(3);
+		graph.addNode(a);
+		graph.addNode(b);
+		graph.addEdge(new Edge<>(a, b, "ab"));
+
+		UndirectedGraph<Integer, String> copy = new UndirectedGraph<>(new ImmutableGraph<>(graph));
+		assertThat(copy.isCompact()).isTrue();
+		copy.addNode(c);
+		copy.addEdge(new Edge<>(b, c, "bc"));
+		graph.addEdge(new Edge<>(a, a, "aa"));
+
+		assertThat(graph.size()).isEqualTo(2);
+		assertThat(graph.getEdgesFrom(b)).containsExactly(new Edge<>(b, a, "ab"));
+		assertThat(graph.getEdgesFrom(a)).containsExactly(new Edge<>(a, b, "ab"),
+				new Edge<>(a, a, "aa"), new Edge<>(a, a, "aa"));
+		assertThat(copy.size()).isEqualTo(3);
+		assertThat(copy.getEdges()).hasSize(4);
+		assertThat(copy.getEdgesTo(b)).containsExactly(new Edge<>(b, a, "ab"),
+				new Edge<>(b, c, "bc"));
+	}
+
+	@Test
+	public void testViewsShareOneCompactCopyOfTheModelGraph() throws IOException {
+		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>(
+				StandardGame.standardGraph());
+		ScotlandYardModel model = new ScotlandYardModel(StandardGame.ROUNDS, graph,
+				new PlayerConfiguration.Builder(BLACK).using((v, l, m, c) -> {})
+						.with(mrXTickets()).at(45).build(),
+				new PlayerConfiguration.Builder(RED).using((v, l, m, c) -> {})
+						.with(detectiveTickets()).at(26).build());
+		ImmutableScotlandYardView view = ImmutableScotlandYardView.snapshot(model);
+		assertThat(UndirectedGraph.sharesStorage(view.getGraph(),
+				ImmutableScotlandYardView.snapshot(model).getGraph())).isTrue();
+		assertThat(UndirectedGraph.sharesStorage(view.getGraph(),
+				ImmutableScotlandYardView.snapshot(view).getGraph())).isTrue();
+		assertThat(view.getGraph().getEdges()).containsExactlyElementsOf(graph.getEdges());
+		// the model's own graph hands out its stored edges
+		assertThat(graph.isCompact()).isFalse();
+		Node<Integer> node = graph.getNode(45);
+		assertThat(graph.getEdgesFrom(node).iterator().next())
+				.isSameAs(graph.getEdgesFrom(node).iterator().next());
+
+		graph.addNode(new Node<>(1000));
+		assertThat(UndirectedGraph.sharesStorage(view.getGraph(),
+				ImmutableScotlandYardView.snapshot(model).getGraph())).isFalse();
+	}
+
+}
@@ -0,0 +1,93 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.PassMove;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.ValidMoves;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.detectiveTickets;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.mrXTickets;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+
+/**
+ * Tests for {@link ValidMoves}
+ */
+public class ValidMovesTest {
+
+	private static final Move TAXI = new TicketMove(BLACK, Ticket.TAXI, 9);
+	private static final Move DOUBLE = new DoubleMove(BLACK, Ticket.BUS, 46, Ticket.SECRET, 58);
+	private static final Move PASS = new PassMove(RED);
+
+	@Test
+	public void testIndexedAccessDescribesEveryMove() {
+		ValidMoves moves = ValidMoves.copyOf(ImmutableSet.of(TAXI, DOUBLE, PASS));
+		assertThat(moves).containsExactlyInAnyOrder(TAXI, DOUBLE, PASS);
+		List<Move> indexed = new ArrayList<>();
+		for (int i = 0; i < moves.size(); i++) {
+			Move move = moves.get(i);
+			indexed.add(move);
+			if (move == TAXI) {
+				assertThat(moves.ticket(i)).isEqualTo(Ticket.TAXI);
+				assertThat(moves.finalDestination(i)).isEqualTo(9);
+				assertThat(moves.isDouble(i)).isFalse();
+			} else if (move == DOUBLE) {
+				assertThat(moves.ticket(i)).isEqualTo(Ticket.BUS);
+				assertThat(moves.destination(i)).isEqualTo(46);
+				assertThat(moves.secondTicket(i)).isEqualTo(Ticket.SECRET);
+				assertThat(moves.finalDestination(i)).isEqualTo(58);
+			} else {
+				assertThat(moves.isPass(i)).isTrue();
+				assertThat(moves.ticket(i)).isNull();
+				assertThat(moves.finalDestination(i)).isEqualTo(-1);
+			}
+		}
+		assertThat(indexed).containsExactlyElementsOf(moves);
+		assertThat(ValidMoves.copyOf(moves)).isSameAs(moves);
+	}
+
+	@Test
+	public void testImmutable() {
+		ValidMoves moves = ValidMoves.copyOf(ImmutableSet.of(TAXI));
+		assertThatThrownBy(() -> moves.add(PASS))
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> moves.iterator().remove())
+				.isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> moves.secondTicket(0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testModelHandsOutValidMoves() throws IOException {
+		List<Set<Move>> received = new ArrayList<>();
+		ScotlandYardModel model = new ScotlandYardModel(StandardGame.ROUNDS,
+				StandardGame.standardGraph(),
+				new PlayerConfiguration.Builder(BLACK).using((view, location, moves, callback) -> {
+					received.add(moves);
+					callback.accept(moves.iterator().next());
+				}).with(mrXTickets()).at(45).build(),
+				new PlayerConfiguration.Builder(RED).using((view, location, moves, callback) -> {
+					received.add(moves);
+					callback.accept(moves.iterator().next());
+				}).with(detectiveTickets()).at(26).build());
+		model.startRotate();
+		assertThat(received).hasSize(2).allMatch(moves -> moves instanceof ValidMoves);
+	}
+
+}
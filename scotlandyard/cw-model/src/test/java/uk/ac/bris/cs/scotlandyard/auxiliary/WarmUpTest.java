@@ -0,0 +1,60 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.ai.WarmUp;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+
+/**
+ * Tests for {@link WarmUp}
+ */
+public class WarmUpTest {
+
+	@Test
+	public void testPlaysWholeGamesWithinBudget() {
+		List<Colour> created = new ArrayList<>();
+		List<Duration> timeouts = new ArrayList<>();
+		PlayerFactory factory = new PlayerFactory() {
+			@Override
+			public Player createPlayer(Colour colour) {
+				created.add(colour);
+				return (view, location, moves, callback) -> callback
+						.accept(moves.iterator().next());
+			}
+
+			@Override
+			public void moveTimeout(Duration timeout) {
+				timeouts.add(timeout);
+			}
+		};
+		WarmUp.Result result = new WarmUp(Duration.ofMillis(300), Duration.ofMillis(20))
+				.run(factory, asList(BLACK, RED, BLUE));
+		assertThat(result.games()).isPositive();
+		assertThat(result.moves()).isGreaterThanOrEqualTo(result.games());
+		assertThat(result.elapsed()).isLessThan(Duration.ofSeconds(2));
+		assertThat(created).startsWith(BLACK, RED, BLUE);
+		assertThat(timeouts).containsExactly(Duration.ofMillis(20));
+	}
+
+	@Test
+	public void testSilentPlayerGetsFallbackMove() {
+		PlayerFactory factory = colour -> (view, location, moves, callback) -> {};
+		WarmUp.Result result = new WarmUp(Duration.ofMillis(100), Duration.ofMillis(10))
+				.run(factory, asList(BLACK, RED));
+		assertThat(result.moves()).isPositive();
+		assertThat(result.elapsed()).isLessThan(Duration.ofSeconds(1));
+	}
+
+}